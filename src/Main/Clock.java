@@ -8,23 +8,47 @@ import java.io.Serializable;
  * Se encarga de controlar los tiempos de ambos jugadores, actualizar la interfaz
  * y manejar el fin de partida por tiempo agotado
  *
+ * El tiempo se mide con System.nanoTime() y se lleva en milisegundos: cada
+ * jugada se cobra exactamente al cambiar de turno, sin depender de que el
+ * Timer de Swing llegue a tiempo (dialogos, trabajo lento en el hilo de
+ * eventos). El Timer solo refresca las etiquetas y detecta el tiempo agotado
+ *
+ * Admite incremento Fischer (se suma tras cada jugada) y retraso Bronstein
+ * (se devuelve lo usado en la jugada, hasta el retraso)
+ *
  * Implementa Serializable para permitir guardar y cargar partidas con su estado temporal
  */
 public class Clock implements Serializable {
     private static final long serialVersionUID = 1L;
-    private int blancoTime; // Tiempo restante en segundos para el jugador de piezas blancas
-    private int negroTime; // Tiempo restante en segundos para el jugador de piezas negras
-    private transient Timer timer; // Timer de Swing que ejecuta la actualizacion del reloj cada segundo
+
+    // Modos de incremento
+    public static final int SIN_INCREMENTO = 0;
+    public static final int FISCHER = 1;// Se suma el incremento despues de cada jugada
+    public static final int BRONSTEIN = 2;// Se devuelve el tiempo usado en la jugada, como maximo el incremento
+
+    private static final int PERIODO_MS = 100;// Cada cuanto se refrescan las etiquetas
+    private static final long DECIMAS_DESDE_MS = 10_000;// Por debajo de 10 segundos se muestran decimas
+
+    private long blancoMs; // Tiempo restante en milisegundos para el jugador de piezas blancas
+    private long negroMs; // Tiempo restante en milisegundos para el jugador de piezas negras
+    private long incrementoMs; // Incremento Fischer o retraso Bronstein por jugada
+    private int modo; // SIN_INCREMENTO, FISCHER o BRONSTEIN
+    private long usadoTurnoMs; // Tiempo ya cobrado en el turno actual (para el retraso Bronstein)
+    private transient long marca; // nanoTime hasta el que ya se cobro el tiempo
+    private transient boolean corriendo; // El reloj se inicio con start()
+    private transient Timer timer; // Timer de Swing que refresca las etiquetas
     private boolean turnoBlanco; // Indica si actualmente es el turno del jugador blanco
     private transient JLabel blancoClock; // Etiqueta que muestra el tiempo restante del jugador blanco
     private transient JLabel negroClock; // Etiqueta que muestra el tiempo restante del jugador negro
+    private transient String textoBlanco; // Ultimo texto mostrado, para refrescar solo si cambia
+    private transient String textoNegro;
     private transient Tablero tablero; // Referencia al tablero para notificar fin de juego
     private boolean isPaused; // Indica si el reloj esta pausado actualmente
+    private boolean terminado; // Ya se anuncio el fin por tiempo
 
     /**
      * Constructor de la clase Clock, esta va a encargarce de llevar el tiempo por partida
-     * Inicializa los tiempos para ambos jugadores y configura el temporizador que actualizara
-     * el reloj cada segundo
+     * Inicializa los tiempos para ambos jugadores sin incremento
      *
      * @param minutos Tiempo inicial en minutos para ambos jugadores
      * @param blancoLabel JLabel para mostrar el tiempo del jugador de las piezas blancas
@@ -32,22 +56,62 @@ public class Clock implements Serializable {
      * @param tablero  Hace referencia al tablero de juego para notificar cuando termine la partida por tiempo
      */
     public Clock(int minutos,JLabel blancoLabel,JLabel negroLabel,Tablero tablero) {
+        this(minutos * 60_000L, 0, SIN_INCREMENTO, blancoLabel, negroLabel, tablero);
+    }
+
+    /**
+     * Crea un reloj con incremento o retraso por jugada
+     *
+     * @param baseMs Tiempo inicial en milisegundos para ambos jugadores
+     * @param incrementoMs Incremento (Fischer) o retraso (Bronstein) por jugada
+     * @param modo SIN_INCREMENTO, FISCHER o BRONSTEIN
+     * @param blancoLabel JLabel para mostrar el tiempo del jugador de las piezas blancas
+     * @param negroLabel JLabel para mostrar el tiempo del jugador de las piezas negras
+     * @param tablero Tablero de juego para notificar cuando termine la partida por tiempo
+     */
+    public Clock(long baseMs, long incrementoMs, int modo, JLabel blancoLabel, JLabel negroLabel, Tablero tablero) {
         this.tablero = tablero;
-        this.blancoTime = minutos*60; // Convierte minutos a segundos
-        this.negroTime=minutos*60; // Convierte minutos a segundos
+        this.blancoMs = baseMs;
+        this.negroMs = baseMs;
+        this.incrementoMs = incrementoMs;
+        this.modo = modo;
         this.blancoClock=blancoLabel;
         this.negroClock=negroLabel;
         this.turnoBlanco=true; // Por defecto comienza el blanco
         this.isPaused=false;
 
-        // Configura el temporizador para que actualice el reloj cada segundo (1000ms)
-        timer=new Timer(1000,e-> updateClock());
+        // El Timer solo refresca; el tiempo real sale de nanoTime
+        timer=new Timer(PERIODO_MS,e-> updateClock());
         updateLabels(); // Actualiza las etiquetas inicialmente
     }
 
     /**
-     * Actualiza el reloj decrementando el tiempo del jugador correspondiente
-     * Esta funcion se ejecuta cada segundo mientras el temporizador este activo
+     * Cobra al jugador en turno el tiempo transcurrido desde el ultimo cobro
+     * Se avanza la marca solo por los milisegundos enteros cobrados, asi los
+     * restos de menos de un milisegundo no se pierden entre llamadas
+     * Es sincronizado porque el Timer y otros hilos (la computadora) lo llaman
+     */
+    private synchronized void cobrar() {
+        if (!corriendo || isPaused) {
+            return;
+        }
+        long ahora = System.nanoTime();
+        long ms = (ahora - marca) / 1_000_000L;
+        if (ms <= 0) {
+            return;
+        }
+        marca += ms * 1_000_000L;
+        usadoTurnoMs += ms;
+        if (turnoBlanco) {
+            blancoMs -= ms;
+        } else {
+            negroMs -= ms;
+        }
+    }
+
+    /**
+     * Actualiza el reloj cobrando el tiempo transcurrido al jugador correspondiente
+     * Se ejecuta con el Timer mientras el reloj este activo
      * Si el tiempo de algun jugador llega a cero, detiene el temporizador y finaliza el juego
      */
     public void updateClock(){
@@ -56,16 +120,12 @@ public class Clock implements Serializable {
             return;
         }
 
-        //Decrementa el tiempo del jugador actual en 1 segundo
-        if(turnoBlanco){
-            blancoTime--;
-        }else{
-            negroTime--;
-        }
-        updateLabels(); // Actualiza las etiquetas con el nuevo tiempo
+        cobrar();
+        updateLabels(); // Actualiza las etiquetas si cambio lo que muestran
 
         // Verifica si algun jugador se ha quedado sin tiempo
-        if(blancoTime <= 0 || negroTime <= 0){
+        if((blancoMs <= 0 || negroMs <= 0) && !terminado){
+            terminado = true;
             timer.stop();//Detiene el temporizador
             finJuego(); //Finaliza el juego por tiempo agotado
         }
@@ -88,9 +148,10 @@ public class Clock implements Serializable {
      * guarda la partida finalizada y muestra opciones para continuar
      */
     private void finJuego(){
-        boolean blancoPierde=blancoTime<=0; //Determina si el blanco perdio por tiempo
+        boolean blancoPierde=blancoMs<=0; //Determina si el blanco perdio por tiempo
 
         tablero.GameOver=true;//Marca el juego como finalizado
+        tablero.publicarInstantanea();
 
         //Muestra un mensaje con el resultado
         String mensaje= blancoPierde ? "Negro Gana (por tiempo)" : "Blanco Gana (por tiempo)";
@@ -111,55 +172,91 @@ public class Clock implements Serializable {
 
     /**
      * Inicia el reloj para comenzar a contar el tiempo
-     * Activa el temporizador que actualizara el tiempo cada segundo
+     * Desde este momento se cobra el tiempo al jugador en turno
      */
     public void start(){
+        marca = System.nanoTime();
+        corriendo = true;
         timer.start();
     }
 
     /**
-     * Pausa el reloj estableciendo la bandera de pausa
-     * El tiempo dejara de decrementarse pero el temporizador sigue activo
+     * Pausa el reloj
+     * Se cobra lo transcurrido hasta ahora y el tiempo deja de descontarse
      */
-    public void pause() {
+    public synchronized void pause() {
+        cobrar();
         isPaused = true;
     }
 
     /**
      * Reanuda el reloj despues de una pausa
-     * Permite que el tiempo vuelva a decrementarse para el jugador en turno
+     * El tiempo en pausa no se cobra a nadie
      */
-    public void resume() {
+    public synchronized void resume() {
+        if (isPaused) {
+            marca = System.nanoTime();
+        }
         isPaused = false;
     }
 
     /**
      * Cambia el turno entre jugadores
-     * Invierte la bandera de turno, afectando a que reloj se decrementa
+     * Cobra exactamente el tiempo de la jugada al que acaba de mover,
+     * le aplica el incremento o el retraso y empieza a contar para el otro
      */
-    public void cambioTurno(){
+    public synchronized void cambioTurno(){
+        cobrar();
+        long bonificacion = switch (modo) {
+            case FISCHER -> incrementoMs;
+            case BRONSTEIN -> Math.min(incrementoMs, usadoTurnoMs);
+            default -> 0;
+        };
+        // Si ya se quedo sin tiempo no se le devuelve nada: lo detecta updateClock
+        if (turnoBlanco && blancoMs > 0) {
+            blancoMs += bonificacion;
+        } else if (!turnoBlanco && negroMs > 0) {
+            negroMs += bonificacion;
+        }
+        usadoTurnoMs = 0;
         turnoBlanco=!turnoBlanco;
+        updateLabels();
     }
 
     /**
      * Actualiza las etiquetas de tiempo en la interfaz grafica
-     * Convierte los tiempos en segundos al formato MM:SS y actualiza los JLabels
+     * Solo cambia el texto de una etiqueta si lo que muestra es distinto
      */
     public void updateLabels(){
-        blancoClock.setText(formatTime(blancoTime));
-        negroClock.setText(formatTime(negroTime));
+        String blanco = formatTime(blancoMs);
+        if (!blanco.equals(textoBlanco)) {
+            textoBlanco = blanco;
+            blancoClock.setText(blanco);
+        }
+        String negro = formatTime(negroMs);
+        if (!negro.equals(textoNegro)) {
+            textoNegro = negro;
+            negroClock.setText(negro);
+        }
     }
 
     /**
      * Da el formato del reloj en MM:SS para mostrar en la interfaz
-     * Convierte los segundos totales en minutos y segundos con formato
+     * Los segundos se redondean hacia arriba (se ve 00:01 hasta que se agota),
+     * y por debajo de 10 segundos se muestran tambien las decimas
      *
-     * @param segundos Tiempo en segundos
-     * @return String con el tiempo en el formato MM:SS (con ceros a la izquierda)
+     * @param ms Tiempo en milisegundos
+     * @return String con el tiempo en el formato MM:SS o MM:SS.d
      */
-    private String formatTime(int segundos){
-        int min=segundos/60; // Calcula los minutos enteros
-        int seg=segundos%60; // Calcula los segundos restantes
+    static String formatTime(long ms){
+        ms = Math.max(0, ms);
+        if (ms < DECIMAS_DESDE_MS) {
+            long decimas = (ms + 99) / 100; // Decimas redondeadas hacia arriba
+            return String.format("00:%02d.%d", decimas / 10, decimas % 10);
+        }
+        long segundos = (ms + 999) / 1000;
+        long min=segundos/60; // Calcula los minutos enteros
+        long seg=segundos%60; // Calcula los segundos restantes
         return String.format("%02d:%02d",min,seg); // Formatea con ceros a la izquierda
     }
 
@@ -170,8 +267,7 @@ public class Clock implements Serializable {
      * @param tiempo Tiempo en segundos para el jugador blanco
      */
     public void setBlancoTime(int tiempo) {
-        this.blancoTime = tiempo;
-        updateLabels(); // Actualiza las etiquetas con el nuevo tiempo
+        setBlancoMs(tiempo * 1000L);
     }
 
     /**
@@ -181,25 +277,91 @@ public class Clock implements Serializable {
      * @param tiempo Tiempo en segundos
      */
     public void setNegroTime(int tiempo) {
-        this.negroTime = tiempo;
-        updateLabels(); // Actualiza las etiquetas con el nuevo tiempo
+        setNegroMs(tiempo * 1000L);
+    }
+
+    /**
+     * Establece el tiempo del jugador blanco en milisegundos y actualiza la interfaz
+     *
+     * @param ms Tiempo en milisegundos
+     */
+    public void setBlancoMs(long ms) {
+        cobrar();// Lo transcurrido hasta ahora no se cobra sobre el tiempo nuevo
+        this.blancoMs = ms;
+        updateLabels();
+    }
+
+    /**
+     * Establece el tiempo del jugador negro en milisegundos y actualiza la interfaz
+     *
+     * @param ms Tiempo en milisegundos
+     */
+    public void setNegroMs(long ms) {
+        cobrar();
+        this.negroMs = ms;
+        updateLabels();
     }
 
     /**
      * Obtiene el tiempo del jugador blanco
-     * @return Tiempo en segundos restante para el jugador blanco
+     * @return Tiempo en segundos enteros restante para el jugador blanco
      */
     public int getBlancoTime() {
-        return blancoTime;
+        return (int) (Math.max(0, getBlancoMs()) / 1000);
     }
 
     /**
      * Obtiene el tiempo del jugador negro
      *
-     * @return Tiempo en segundos para el jugador negro
+     * @return Tiempo en segundos enteros para el jugador negro
      */
     public int getNegroTime() {
-        return negroTime;
+        return (int) (Math.max(0, getNegroMs()) / 1000);
+    }
+
+    /**
+     * Obtiene el tiempo exacto del jugador blanco, contando la jugada en curso
+     *
+     * @return Tiempo restante en milisegundos
+     */
+    public long getBlancoMs() {
+        cobrar();
+        return blancoMs;
+    }
+
+    /**
+     * Obtiene el tiempo exacto del jugador negro, contando la jugada en curso
+     *
+     * @return Tiempo restante en milisegundos
+     */
+    public long getNegroMs() {
+        cobrar();
+        return negroMs;
+    }
+
+    /**
+     * @return Incremento (Fischer) o retraso (Bronstein) por jugada en milisegundos
+     */
+    public long getIncrementoMs() {
+        return incrementoMs;
+    }
+
+    /**
+     * @return Modo de incremento: SIN_INCREMENTO, FISCHER o BRONSTEIN
+     */
+    public int getModo() {
+        return modo;
+    }
+
+    /**
+     * Cambia el control de tiempo por jugada (por ejemplo al cargar una partida)
+     *
+     * @param incrementoMs Incremento o retraso en milisegundos
+     * @param modo SIN_INCREMENTO, FISCHER o BRONSTEIN
+     */
+    public void setIncremento(long incrementoMs, int modo) {
+        this.incrementoMs = incrementoMs;
+        this.modo = modo;
     }
 
     /**
@@ -209,7 +371,9 @@ public class Clock implements Serializable {
      * @param turnoBlanco true para turno del blanco, false para turno del negro
      */
     public void setTurnoBlanco(boolean turnoBlanco) {
+        cobrar();
         this.turnoBlanco = turnoBlanco;
+        usadoTurnoMs = 0;
     }
 
 }
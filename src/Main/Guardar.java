@@ -64,16 +64,32 @@ public class Guardar {
             // Guarda la información del reloj si existe
             MejorasVisuales mv = tablero.getMejorasVisuales();
             if (mv != null && mv.getReloj() != null) {
-                out.writeInt(mv.getReloj().getBlancoTime()); // Tiempo restante blanco
-                out.writeInt(mv.getReloj().getNegroTime());// Tiempo restante negro
+                Clock reloj = mv.getReloj();
+                out.writeInt(reloj.getBlancoTime()); // Tiempo restante blanco
+                out.writeInt(reloj.getNegroTime());// Tiempo restante negro
                 out.writeBoolean(tablero.TurnoBlanco);  // Turno actual
+
+                // Tiempos exactos en milisegundos y control por jugada, al final
+                // para que las partidas guardadas antes se sigan pudiendo cargar
+                out.writeLong(reloj.getBlancoMs());
+                out.writeLong(reloj.getNegroMs());
+                out.writeLong(reloj.getIncrementoMs());
+                out.writeInt(reloj.getModo());
             } else {
                 // Si no hay reloj, guarda valores por defecto (10 minutos)
                 out.writeInt(600); // 10 minutos
                 out.writeInt(600);
                 out.writeBoolean(true);
+                out.writeLong(600_000L);
+                out.writeLong(600_000L);
+                out.writeLong(0);
+                out.writeInt(Clock.SIN_INCREMENTO);
             }
 
+            // Contadores de la regla de 50 movimientos y de jugadas, tambien al final
+            out.writeInt(tablero.jugadasReversibles);
+            out.writeInt(tablero.numeroJugada);
+
         } catch (IOException e) {
             // Muestra un dialogo de error si no se puede guardar
             showErrorDialog("Error al guardar la partida", e.getMessage());
@@ -151,11 +167,37 @@ public class Guardar {
             int negroTime = in.readInt();
             boolean turnoReloj = in.readBoolean();
 
+            // Tiempos en milisegundos; las partidas guardadas antes solo tienen segundos
+            long blancoMs = blancoTime * 1000L;
+            long negroMs = negroTime * 1000L;
+            long incrementoMs = 0;
+            int modo = Clock.SIN_INCREMENTO;
+            try {
+                blancoMs = in.readLong();
+                negroMs = in.readLong();
+                incrementoMs = in.readLong();
+                modo = in.readInt();
+            } catch (EOFException e) {
+                // Formato anterior: se quedan los segundos
+            }
+
+            // Contadores de jugadas; en el formato anterior se deducen del historial
+            int cantidad = tablero.getHistorial() != null ? tablero.getHistorial().getCantidad() : 0;
+            tablero.jugadasReversibles = 0;
+            tablero.numeroJugada = cantidad / 2 + 1;
+            try {
+                tablero.jugadasReversibles = in.readInt();
+                tablero.numeroJugada = in.readInt();
+            } catch (EOFException e) {
+                // Formato anterior: se quedan los valores deducidos
+            }
+
             // Actualiza el reloj si existe
             MejorasVisuales mv = tablero.getMejorasVisuales();
             if (mv != null && mv.getReloj() != null) {
-                mv.getReloj().setBlancoTime(blancoTime);
-                mv.getReloj().setNegroTime(negroTime);
+                mv.getReloj().setBlancoMs(blancoMs);
+                mv.getReloj().setNegroMs(negroMs);
+                mv.getReloj().setIncremento(incrementoMs, modo);
                 mv.getReloj().setTurnoBlanco(turnoReloj);
             }
 
@@ -169,6 +211,8 @@ public class Guardar {
             // Reconstruye estructuras de datos transient necesarias para el juego
             tablero.rebuildInput(); // Reconstruye componentes de entrada
             tablero.rebuildJaqueScanner();// Reconstruye el escaner de jaque
+            tablero.limpiarMovimientos();// Las jugadas anteriores no corresponden a las piezas cargadas
+            tablero.publicarInstantanea();
 
             // Actualiza la interfaz visual
             if (tablero.getMejorasVisuales() != null) {
@@ -2,20 +2,48 @@ package Main;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.util.ArrayList;
 import java.io.Serializable;
+import java.util.Arrays;
 
 /**
  * Clase para manejar el historial de movimientos del juego de ajedrez
  * Gestiona tanto la representación visual en la interfaz grafica como
  * el almacenamiento de los movimientos para guardar y cargar partidas
  * Implementa Serializable para poder guardar el estado en archivos
+ *
+ * Cada movimiento se guarda empaquetado en 16 bits (un char):
+ * bits 0-5 casilla origen y bits 6-11 casilla destino (como en Jugada),
+ * bits 12-14 tipo de pieza (Posicion.PEON a Posicion.REY) y bit 15 el color (1 para negras)
+ * Si el origen no se conoce (partidas viejas) se guarda igual al destino
+ * Los textos que no tienen la forma "Pieza Color a casilla" se guardan
+ * aparte con tipo 0 y su indice en los 12 bits bajos (hasta 4096 textos)
+ *
+ * La lista visual usa un modelo propio que da formato a cada fila solo
+ * cuando la JList la pide para dibujarla, asi añadir un movimiento cuesta
+ * O(1) sin importar lo larga que sea la partida
  */
 public class Historial implements Serializable {
     private static final long serialVersionUID = 1L;
+
+    // Se conserva la forma serializada anterior (lista de textos) para poder abrir partidas viejas
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("movimientos", ArrayList.class)
+    };
+
+    private static final String[] NOMBRES = {"", "Peon", "Caballo", "Alfil", "Torre", "Reina", "Rey"};
+    private static final int BIT_NEGRO = 1 << 15;
+    private static final int MASCARA_TEXTO = (1 << 12) - 1;// El indice no puede llegar a los bits del tipo
+
     private transient JList<String> movimientosList; // Componente visual que muestra la lista de movimientos
-    private transient DefaultListModel<String> movimientosModel; // Modelo de datos para la JList
-    private ArrayList<String> movimientos; // Lista que almacena los movimientos en notación algebraica
+    private transient ModeloHistorial movimientosModel; // Modelo de datos para la JList
+    private transient JScrollPane scrollPane; // Panel con scroll, se crea una sola vez
+    private transient char[] jugadas = new char[64]; // Movimientos empaquetados en 16 bits
+    private transient int cantidad; // Numero de movimientos guardados
+    private transient ArrayList<String> textos = new ArrayList<>(); // Textos que no se pudieron empaquetar
 
 
     /**
@@ -23,21 +51,20 @@ public class Historial implements Serializable {
      * Inicializa la lista de movimientos y configura los componentes visuales
      */
     public Historial() {
-        this.movimientos = new ArrayList<>(); // Inicializa la lista vacia de movimientos
         initComponents(); // Configura los componentes visuales
     }
 
     /**
      * Inicializa y configura los componentes visuales de la interfaz
-     * Si ya existen, los reinicia con los datos actuales
-     * Da formato a los movimientos para su visualizacion en formato de notación de ajedrez
+     * Si ya existen, solo avisa a la lista que todas las filas cambiaron
+     * (el formato de cada fila se calcula cuando se dibuja)
      */
     public void initComponents() {
         // Inicializa o reinicia el modelo de la lista
         if (movimientosModel == null) {
-            movimientosModel = new DefaultListModel<>();
+            movimientosModel = new ModeloHistorial();
         } else {
-            movimientosModel.clear();// Limpia el modelo existente
+            movimientosModel.recargar();
         }
 
         // Inicializa o reinicia el componente JList
@@ -47,38 +74,25 @@ public class Historial implements Serializable {
             movimientosList.setModel(movimientosModel);// Asigna el modelo al componente
         }
 
-        // Si hay movimientos, los carga en el modelo visual con formato adecuado
-        if (movimientos != null) {
-            for (int i = 0; i < movimientos.size(); i++) {
-                String move = movimientos.get(i);
-                if (i % 2 == 0) {
-                    // Movimiento de blancas, número de jugada + movimiento
-                    int moveNumber = (i / 2) + 1;
-                    String formattedMove = String.format("%2d. %s", moveNumber, move);
-                    movimientosModel.addElement(formattedMove);
-                } else {
-                    // Movimiento de negras, se agrega al final de la linea del movimiento de blancas
-                    String last = movimientosModel.get(movimientosModel.size() - 1);
-                    String formattedMove = String.format("%-20s %s", last, move);
-                    movimientosModel.set(movimientosModel.size() - 1, formattedMove);
-                }
-            }
-        }
-
         // Configura propiedades visuales de la lista
         movimientosList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION); // Solo permite seleccion individual
         movimientosList.setLayoutOrientation(JList.VERTICAL);// Lista con orientacion vertical
+        // Con un prototipo la lista no recorre todas las filas para medir su ancho
+        movimientosList.setPrototypeCellValue(String.format("%2d. %-10s %-10s", 999, "Caballo Blanco a f3", "Caballo Negro a f6"));
     }
 
     /**
      * Metodo para serialización
-     * Permite guardar correctamente el estado del objeto al serializar
+     * Guarda los movimientos como lista de textos, igual que antes,
+     * para que las partidas sigan siendo compatibles
      *
      * @param out Stream de salida para serializacion
      * @throws java.io.IOException Si ocurre un error al escribir en el stream
      */
-    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
-        out.defaultWriteObject(); // Realiza la serializacion
+    private void writeObject(ObjectOutputStream out) throws java.io.IOException {
+        ObjectOutputStream.PutField campos = out.putFields();
+        campos.put("movimientos", getMovimientos());
+        out.writeFields();
     }
 
     /**
@@ -90,43 +104,141 @@ public class Historial implements Serializable {
      * @throws java.io.IOException Si ocurre un error al leer del stream
      * @throws ClassNotFoundException Si no se encuentra la clase durante la deserializacion
      */
-    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
-        in.defaultReadObject();// Realiza la deserializacion
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+        ObjectInputStream.GetField campos = in.readFields();
+        ArrayList<String> movimientos = (ArrayList<String>) campos.get("movimientos", null);
+        jugadas = new char[64];
+        textos = new ArrayList<>();
+        cantidad = 0;
+        if (movimientos != null) {
+            for (String m : movimientos) {
+                agregar(empaquetar(m));
+            }
+        }
         initComponents();// Reconstruye los componentes transient despues de deserializar
     }
 
     /**
      * Añade un nuevo movimiento al historial y actualiza la interfaz
-     * Da formato al movimiento segun sean blancas o negras, y actualiza
-     * la visualizacion manteniendo el formato de notacion de ajedrez
+     * Si el texto tiene la forma "Pieza Color a casilla" se guarda empaquetado
      *
      * @param move Movimiento en notacion algebraica a añadir
      */
     public void addMovimiento(String move) {
-        String formattedMove = move;
+        agregar(empaquetar(move));
+        avisarAgregado();
+    }
+
+    /**
+     * Añade un movimiento hecho en el tablero sin crear ningun texto
+     *
+     * @param tipo Tipo de pieza movida (Posicion.PEON a Posicion.REY)
+     * @param blanco true si mueven las blancas
+     * @param desde Casilla de origen (fila * 8 + columna, fila 0 es la octava)
+     * @param hacia Casilla de destino
+     */
+    public void addMovimiento(int tipo, boolean blanco, int desde, int hacia) {
+        agregar(empaquetar(tipo, blanco, desde, hacia));
+        avisarAgregado();
+    }
+
+    /**
+     * Quita el ultimo movimiento del historial (al deshacerlo en el tablero)
+     */
+    public void quitarUltimo() {
+        if (cantidad == 0) {
+            return;
+        }
+        char jugada = jugadas[--cantidad];
+        if ((jugada >> 12 & 7) == 0) {
+            textos.remove(textos.size() - 1);// Los textos se agregan en orden, el ultimo es el suyo
+        }
+        if (movimientosModel != null) {
+            if (cantidad % 2 == 0) {
+                movimientosModel.filaQuitada(cantidad / 2);// Era de blancas: desaparece la fila
+            } else {
+                movimientosModel.filaCambiada(cantidad / 2);// Era de negras: la fila queda solo con blancas
+            }
+        }
+    }
 
-        if (movimientos.size() % 2 == 0) {
-            // Si es un movimiento de blancas (par), crea una nueva entrada
-            int moveNumber = (movimientos.size() / 2) + 1;
-            formattedMove = String.format("%2d. %-10s", moveNumber, move);
-            movimientosModel.addElement(formattedMove);
+    /**
+     * Guarda un movimiento empaquetado, duplicando el arreglo si se llena
+     */
+    private void agregar(char jugada) {
+        if (cantidad == jugadas.length) {
+            jugadas = Arrays.copyOf(jugadas, cantidad * 2);
+        }
+        jugadas[cantidad++] = jugada;
+    }
+
+    /**
+     * Avisa a la lista del movimiento nuevo y la desplaza hasta el
+     */
+    private void avisarAgregado() {
+        if (movimientosModel == null) {
+            return;
+        }
+        int fila = (cantidad - 1) / 2;
+        if (cantidad % 2 == 1) {
+            movimientosModel.filaAgregada(fila); // Movimiento de blancas: fila nueva
         } else {
-            // Si es un movimiento de negras (impar), lo añade a la línea existente
-            String last = movimientosModel.get(movimientosModel.size() - 1);
-            formattedMove = String.format("%s %-10s", last, move);
-            movimientosModel.set(movimientosModel.size() - 1, formattedMove);
+            movimientosModel.filaCambiada(fila); // Movimiento de negras: completa la fila
         }
-        movimientos.add(move);// Guarda el movimiento original en la lista
 
         // Auto-scroll para mantener visible el último movimiento
         if (movimientosList != null) {
-            movimientosList.ensureIndexIsVisible(movimientosModel.size() - 1);
+            movimientosList.ensureIndexIsVisible(fila);
+        }
+    }
+
+    /**
+     * Empaqueta un movimiento en 16 bits
+     */
+    private static char empaquetar(int tipo, boolean blanco, int desde, int hacia) {
+        return (char) (desde | hacia << 6 | tipo << 12 | (blanco ? 0 : BIT_NEGRO));
+    }
+
+    /**
+     * Empaqueta un texto "Pieza Color a casilla" (el formato de Tablero)
+     * Cualquier otro texto se guarda en la lista aparte
+     */
+    private char empaquetar(String texto) {
+        String[] partes = texto.split(" ");
+        if (partes.length == 4 && partes[2].equals("a") && partes[3].length() == 2
+                && (partes[1].equals("Blanco") || partes[1].equals("Negro"))) {
+            int tipo = Arrays.asList(NOMBRES).indexOf(partes[0]);
+            int columna = partes[3].charAt(0) - 'a';
+            int fila = '8' - partes[3].charAt(1);
+            if (tipo > 0 && columna >= 0 && columna < 8 && fila >= 0 && fila < 8) {
+                int casilla = fila * 8 + columna;
+                return empaquetar(tipo, partes[1].equals("Blanco"), casilla, casilla);
+            }
+        }
+        if (textos.size() > MASCARA_TEXTO) {// El nuevo indice seria textos.size()
+            throw new IllegalStateException("Demasiados movimientos en texto libre");
         }
+        textos.add(texto);
+        return (char) (textos.size() - 1);
     }
 
     /**
-     * Crea y devuelve un panel con scroll que contiene el historial de movimientos
-     * Es util para integrarlo en la interfaz de usuario del tablero
+     * Texto de un movimiento empaquetado, igual al que genera Tablero
+     */
+    private String texto(char jugada) {
+        int tipo = jugada >> 12 & 7;
+        if (tipo == 0) {
+            return textos.get(jugada & MASCARA_TEXTO);
+        }
+        int hacia = jugada >> 6 & 63;
+        return NOMBRES[tipo] + ((jugada & BIT_NEGRO) == 0 ? " Blanco a " : " Negro a ")
+                + (char) ('a' + hacia % 8) + (8 - hacia / 8);
+    }
+
+    /**
+     * Devuelve el panel con scroll que contiene el historial de movimientos
+     * Se crea la primera vez y despues se reutiliza
      *
      * @return JScrollPane con la lista de movimientos configurada
      */
@@ -136,20 +248,59 @@ public class Historial implements Serializable {
             initComponents();
         }
 
-        // Crea un panel de desplazamiento para la lista
-        JScrollPane scrollPane = new JScrollPane(movimientosList);
-        scrollPane.setPreferredSize(new Dimension(200, 600));// Tamaño recomendado
+        if (scrollPane == null) {
+            scrollPane = new JScrollPane(movimientosList);
+            scrollPane.setPreferredSize(new Dimension(200, 600));// Tamaño recomendado
+        }
         return scrollPane;
     }
 
     /**
      * Obtiene la lista de todos los movimientos en su formato original
-     * Es util para guardar la partida o analizar la secuencia de movimientos
+     * Se construye en cada llamada: es util para guardar la partida,
+     * pero para recorrerla conviene usar getCantidad y getMovimiento
      *
      * @return ArrayList con los movimientos
      */
     public ArrayList<String> getMovimientos() {
-        return this.movimientos;
+        ArrayList<String> lista = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            lista.add(texto(jugadas[i]));
+        }
+        return lista;
+    }
+
+    /**
+     * @return Numero de movimientos (medias jugadas) del historial
+     */
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Obtiene un movimiento en su formato original
+     *
+     * @param i Indice del movimiento (0 es la primera jugada de blancas)
+     * @return Texto del movimiento
+     */
+    public String getMovimiento(int i) {
+        if (i < 0 || i >= cantidad) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return texto(jugadas[i]);
+    }
+
+    /**
+     * Obtiene un movimiento empaquetado en 16 bits (ver el comentario de la clase)
+     *
+     * @param i Indice del movimiento
+     * @return Movimiento empaquetado
+     */
+    public char getJugada(int i) {
+        if (i < 0 || i >= cantidad) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return jugadas[i];
     }
 
     /**
@@ -159,18 +310,76 @@ public class Historial implements Serializable {
      * @param movimientos Lista de movimientos
      */
     public void setMovimientos(ArrayList<String> movimientos) {
-        this.movimientos = movimientos;
-        initComponents();// Reconstruye la interfaz con los nuevos movimientos
+        jugadas = new char[Math.max(64, movimientos.size())];
+        textos = new ArrayList<>();
+        cantidad = 0;
+        for (String m : movimientos) {
+            agregar(empaquetar(m));
+        }
+        initComponents();// Avisa a la interfaz de los nuevos movimientos
     }
 
     /**
      * Obtiene el modelo de lista utilizado para la interfaz grafica
-     * Permite realizar operaciones avanzadas sobre el modelo de datos
+     * Cada fila tiene una jugada completa (blancas y negras)
      *
-     * @return DefaultListModel con los movimientos
+     * @return Modelo con las filas del historial
      */
-    public DefaultListModel<String> getMovimientosModel() {
+    public ListModel<String> getMovimientosModel() {
         return movimientosModel;
     }
 
-}
\ No newline at end of file
+    /**
+     * Modelo de la lista que lee directamente del arreglo empaquetado
+     * y da formato a cada fila solo cuando se pide
+     */
+    private class ModeloHistorial extends AbstractListModel<String> {
+        private static final long serialVersionUID = 1L;
+
+        private int filas = (cantidad + 1) / 2; // Filas que conoce la lista, para avisar los cambios correctamente
+
+        @Override
+        public int getSize() {
+            return filas;
+        }
+
+        @Override
+        public String getElementAt(int fila) {
+            int i = fila * 2;
+            String blancas = String.format("%2d. %-10s", fila + 1, texto(jugadas[i]));
+            if (i + 1 < cantidad) {
+                return blancas + " " + String.format("%-10s", texto(jugadas[i + 1]));
+            }
+            return blancas;
+        }
+
+        void filaAgregada(int fila) {
+            filas = fila + 1;
+            fireIntervalAdded(this, fila, fila);
+        }
+
+        void filaQuitada(int fila) {
+            filas = fila;
+            fireIntervalRemoved(this, fila, fila);
+        }
+
+        void filaCambiada(int fila) {
+            fireContentsChanged(this, fila, fila);
+        }
+
+        /**
+         * Ajusta el numero de filas despues de cambiar todos los movimientos
+         */
+        void recargar() {
+            int antes = filas;
+            filas = (cantidad + 1) / 2;
+            if (antes > 0) {
+                fireIntervalRemoved(this, 0, antes - 1);
+            }
+            if (filas > 0) {
+                fireIntervalAdded(this, 0, filas - 1);
+            }
+        }
+    }
+
+}
@@ -67,8 +67,8 @@ public class Input implements MouseListener, MouseMotionListener, Serializable {
     @Override
     public void mousePressed(MouseEvent e) {
 
-        // Verificar que el tablero exista
-        if (tablero == null) return;
+        // Verificar que el tablero exista y que no este pensando la computadora
+        if (tablero == null || tablero.esTurnoComputadora()) return;
 
         // Calcular la columna y fila de la casilla donde se hizo clic
         int columna=e.getX()/ tablero.tileSize;
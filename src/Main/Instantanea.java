@@ -0,0 +1,113 @@
+package Main;
+
+import Motor.Posicion;
+
+/**
+ * Copia inmutable de la posicion del tablero en un momento dado
+ * El tablero publica una nueva despues de cada movimiento en una referencia
+ * volatile, asi otros hilos (motor, dibujado, transmision por red) leen un
+ * estado completo y coherente sin bloquear al hilo de eventos ni usar locks
+ *
+ * Solo guarda arreglos primitivos y numeros: crearla cuesta copiar 64 bytes
+ */
+public final class Instantanea {
+    private final byte[] casillas;// Codigo de pieza de Posicion en cada casilla (0 si esta vacia)
+    private final int turno;// Color que mueve (Posicion.BLANCAS o Posicion.NEGRAS)
+    private final int enroques;// Derechos de enroque (combinacion de Posicion.ENROQUE_*)
+    private final int alPaso;// Casilla de captura al paso o -1
+    private final int reversibles;// Medias jugadas desde la ultima captura o movimiento de peon
+    private final int numeroJugada;// Numero de jugada completa
+    private final long hash;// Hash de Zobrist de la posicion
+    private final long version;// Aumenta con cada instantanea publicada por el mismo tablero
+    private final boolean terminada;// Si la partida ya termino
+
+    /**
+     * Crea la instantanea copiando el estado de una posicion del motor
+     *
+     * @param pos Posicion de la que se copia el estado (no se guarda la referencia)
+     * @param version Numero de version de la instantanea
+     * @param terminada Si la partida ya termino
+     */
+    Instantanea(Posicion pos, long version, boolean terminada) {
+        this.casillas = new byte[64];
+        for (int sq = 0; sq < 64; sq++) {
+            casillas[sq] = (byte) pos.getPieza(sq);
+        }
+        this.turno = pos.getTurno();
+        this.enroques = pos.getEnroques();
+        this.alPaso = pos.getAlPaso();
+        this.reversibles = pos.getReversibles();
+        this.numeroJugada = pos.getNumeroJugada();
+        this.hash = pos.getHash();
+        this.version = version;
+        this.terminada = terminada;
+    }
+
+    /**
+     * @param casilla Indice de la casilla (fila * 8 + columna)
+     * @return Codigo de la pieza de Posicion (Posicion.VACIO si no hay)
+     */
+    public int getPieza(int casilla) {
+        return casillas[casilla];
+    }
+
+    public int getTurno() {
+        return turno;
+    }
+
+    public int getEnroques() {
+        return enroques;
+    }
+
+    public int getAlPaso() {
+        return alPaso;
+    }
+
+    public int getReversibles() {
+        return reversibles;
+    }
+
+    public int getNumeroJugada() {
+        return numeroJugada;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean esTerminada() {
+        return terminada;
+    }
+
+    /**
+     * Crea una posicion del motor nueva con el estado de la instantanea
+     * (sin la historia de jugadas, que no se guarda)
+     *
+     * @return Posicion que el llamador puede modificar
+     */
+    public Posicion aPosicion() {
+        Posicion pos = new Posicion();
+        for (int sq = 0; sq < 64; sq++) {
+            if (casillas[sq] != Posicion.VACIO) {
+                pos.colocar(sq, casillas[sq]);
+            }
+        }
+        pos.setTurno(turno);
+        pos.setEnroques(enroques);
+        pos.setAlPaso(alPaso);
+        pos.setReversibles(reversibles);
+        pos.setNumeroJugada(numeroJugada);
+        return pos;
+    }
+
+    /**
+     * @return Cadena FEN de la posicion
+     */
+    public String aFen() {
+        return aPosicion().aFen();
+    }
+}
@@ -13,10 +13,14 @@ import java.util.ArrayList;
  * identificar las piezas que estan atacando al rey, y evaluar situaciones de jaque mate
  * Implementa Serializable para permitir que las instancias sean serializadas
  * junto con el estado del juego
+ *
+ * Cada escaner revisa solo su propio tablero y no guarda estado compartido,
+ * asi varios tableros (partidas, motores o pruebas) pueden usarse a la vez en
+ * hilos distintos, siempre que cada tablero se use desde un solo hilo
  */
 public class JaqueScanner implements Serializable{
     private static final long serialVersionUID=1L;
-    private static Tablero tablero;
+    private Tablero tablero;//Tablero que revisa este escaner (cada tablero tiene el suyo)
 
     /**
      * Constructor de la clase JaqueScanner
@@ -58,7 +62,7 @@ public class JaqueScanner implements Serializable{
      * @param mover Movimiento a evaluar que contiene la pieza a mover y su nueva posicion
      * @return true si el rey esta en jaque despues del movimiento, false en caso contrario
      */
-    public static boolean EsReyJaque(Movimientos mover){
+    public boolean EsReyJaque(Movimientos mover){
         Pieza rey=tablero.encontrarRey(mover.pieza.EsBlanco);
 
         if(rey==null){
@@ -74,22 +78,41 @@ public class JaqueScanner implements Serializable{
             reyFila = mover.newFila;
         }
 
+        // En la captura al paso el peon capturado no esta en la casilla de destino
+        Pieza alPaso = capturaAlPaso(mover);
+
         // Verifica jaque desde todas las direcciones posibles
-        return  hitByTorre(mover.newColumna,mover.newFila,rey,reyColumna,reyFila,0,1)||//arriba
-                hitByTorre(mover.newColumna,mover.newFila,rey,reyColumna,reyFila,1,0)||//derecha
-                hitByTorre(mover.newColumna,mover.newFila,rey,reyColumna,reyFila,0,-1)||//abajo
-                hitByTorre(mover.newColumna,mover.newFila,rey,reyColumna,reyFila,-1,0)||//izquierda
+        return  hitByTorre(mover,alPaso,rey,reyColumna,reyFila,0,1)||//arriba
+                hitByTorre(mover,alPaso,rey,reyColumna,reyFila,1,0)||//derecha
+                hitByTorre(mover,alPaso,rey,reyColumna,reyFila,0,-1)||//abajo
+                hitByTorre(mover,alPaso,rey,reyColumna,reyFila,-1,0)||//izquierda
 
-                hitByBishop(mover.newColumna,mover.newFila,rey,reyColumna,reyFila,-1,-1)||//arriba izq
-                hitByBishop(mover.newColumna,mover.newFila,rey,reyColumna,reyFila,1,-1)||//arriba der
-                hitByBishop(mover.newColumna,mover.newFila,rey,reyColumna,reyFila,1,1)||//abajo derecha
-                hitByBishop(mover.newColumna,mover.newFila,rey,reyColumna,reyFila,-1,1)||//abajo izq
+                hitByBishop(mover,alPaso,rey,reyColumna,reyFila,-1,-1)||//arriba izq
+                hitByBishop(mover,alPaso,rey,reyColumna,reyFila,1,-1)||//arriba der
+                hitByBishop(mover,alPaso,rey,reyColumna,reyFila,1,1)||//abajo derecha
+                hitByBishop(mover,alPaso,rey,reyColumna,reyFila,-1,1)||//abajo izq
 
                 hitByCaballo(mover.newColumna,mover.newFila,rey,reyColumna,reyFila)||
-                hitByPeon(mover.newColumna,mover.newFila,rey,reyColumna,reyFila)||
+                hitByPeon(mover.newColumna,mover.newFila,alPaso,rey,reyColumna,reyFila)||
                 hitByRey(rey,reyColumna,reyFila);
     }
 
+    /**
+     * Obtiene el peon que se captura al paso con un movimiento
+     * Ese peon esta al lado de la casilla de origen, no en la de destino,
+     * por eso no queda en mover.captura
+     *
+     * @param mover Movimiento a revisar
+     * @return Peon capturado al paso, o null si el movimiento no es una captura al paso
+     */
+    private Pieza capturaAlPaso(Movimientos mover){
+        if(mover.pieza.tipo == Pieza.PEON && mover.newColumna != mover.oldColumna && mover.captura == null
+                && tablero.getTileNum(mover.newColumna, mover.newFila) == tablero.enPassantTile){
+            return tablero.getPieza(mover.newColumna, mover.oldFila);
+        }
+        return null;
+    }
+
     /**
      * Encuentra todas las piezas enemigas que estan atacando al rey especificado
      * Este metodo examina el tablero y determina que piezas
@@ -151,11 +174,11 @@ public class JaqueScanner implements Serializable{
     public ArrayList<Point> getCaminoAtaque(Pieza rey, Pieza atacante) {
         ArrayList<Point> camino = new ArrayList<>();
 
-        if (rey == null || atacante == null || atacante.name.equals("Caballo")) {
+        if (rey == null || atacante == null || atacante.tipo == Pieza.CABALLO) {
             return camino;
         }
 
-        if (atacante.name.equals("Peon")) {
+        if (atacante.tipo == Pieza.PEON) {
             camino.add(new Point(atacante.columna, atacante.fila));
             return camino;
         }
@@ -203,8 +226,8 @@ public class JaqueScanner implements Serializable{
      * desde su posicion actual
      * Tiene en cuenta la pieza que se esta moviendo para evitar falsos positivos
      *
-     * @param columna Columna de la pieza que se esta moviendo en este turno
-     * @param fila Fila de la pieza que se esta moviendo en este turno
+     * @param mover Movimiento que se esta evaluando (origen y destino de la pieza que se mueve)
+     * @param alPaso Peon capturado al paso por el movimiento (null si no es captura al paso)
      * @param rey Pieza del rey que se esta evaluando
      * @param reyColumna Columna actual o nueva del rey (dependiendo de si el rey es la pieza que se mueve)
      * @param reyFila Fila actual o nueva del rey (dependiendo de si el rey es la pieza que se mueve)
@@ -212,7 +235,7 @@ public class JaqueScanner implements Serializable{
      * @param filaValor Direccion en filas a revisar: 1 (abajo), -1 (arriba), o 0 (sin cambio)
      * @return true si el rey esta siendo atacado por una torre o reina en esa direccion, false en caso contrario
      */
-    private static boolean hitByTorre(int columna, int fila, Pieza rey, int reyColumna, int reyFila, int colValor, int filaValor){
+    private boolean hitByTorre(Movimientos mover, Pieza alPaso, Pieza rey, int reyColumna, int reyFila, int colValor, int filaValor){
         for(int i=1; i<8; i++){
             int checkColumna = reyColumna + (i * colValor);
             int checkFila = reyFila + (i * filaValor);
@@ -221,14 +244,18 @@ public class JaqueScanner implements Serializable{
                 break;
             }
 
-            // Si estamos evaluando la posicion de la pieza que se esta moviendo, continuamos
-            if(checkColumna == columna && checkFila == fila){
-                continue;// Ignora la pieza que se esta moviendo
+            // La casilla de donde sale la pieza que se mueve queda vacia
+            if(checkColumna == mover.oldColumna && checkFila == mover.oldFila){
+                continue;
+            }
+            // La pieza que se mueve tapa la casilla a la que llega (aunque capture ahi)
+            if(checkColumna == mover.newColumna && checkFila == mover.newFila){
+                break;
             }
 
             Pieza p = tablero.getPieza(checkColumna, checkFila);
-            if(p != null){
-                if(!tablero.sameColor(p, rey) && (p.name.equals("Torre") || p.name.equals("Reina"))){
+            if(p != null && p != alPaso){
+                if(!tablero.sameColor(p, rey) && (p.tipo == Pieza.TORRE || p.tipo == Pieza.REINA)){
                     return true;// Torre o reina enemiga encontrada
                 }
                 break; // Otra pieza bloquea el camino
@@ -245,8 +272,8 @@ public class JaqueScanner implements Serializable{
      * Tiene en cuenta la pieza que se esta moviendo para evitar falsos
      * positivos
      *
-     * @param columna Columna de la pieza que se esta moviendo en este turno
-     * @param fila Fila de la pieza que se esta moviendo en este turno
+     * @param mover Movimiento que se esta evaluando (origen y destino de la pieza que se mueve)
+     * @param alPaso Peon capturado al paso por el movimiento (null si no es captura al paso)
      * @param rey Pieza del rey que se esta evaluando
      * @param reyColumna Columna actual o nueva del rey (dependiendo de si el rey es la pieza que se mueve)
      * @param reyFila Fila actual o nueva del rey (dependiendo de si el rey es la pieza que se mueve)
@@ -254,7 +281,7 @@ public class JaqueScanner implements Serializable{
      * @param filaValor Direccion diagonal en filas: 1 (abajo) o -1 (arriba)
      * @return true si el rey esta siendo atacado por un alfil o reina en esa direccion diagonal, false en caso contrario
      */
-    private static boolean hitByBishop(int columna, int fila, Pieza rey, int reyColumna, int reyFila, int colValor, int filaValor){
+    private boolean hitByBishop(Movimientos mover, Pieza alPaso, Pieza rey, int reyColumna, int reyFila, int colValor, int filaValor){
         for(int i=1; i<8; i++){
             int checkColumna = reyColumna + (i * colValor);
             int checkFila = reyFila + (i * filaValor);
@@ -263,15 +290,18 @@ public class JaqueScanner implements Serializable{
                 break;
             }
 
-            // Si estamos evaluando la posicion de la pieza que se esta moviendo, continuamos
-            if(checkColumna == columna && checkFila == fila){
-                continue;// Ignora la pieza que se está moviendo
+            // La casilla de donde sale la pieza que se mueve queda vacia
+            if(checkColumna == mover.oldColumna && checkFila == mover.oldFila){
+                continue;
+            }
+            // La pieza que se mueve tapa la casilla a la que llega (aunque capture ahi)
+            if(checkColumna == mover.newColumna && checkFila == mover.newFila){
+                break;
             }
 
             Pieza p = tablero.getPieza(checkColumna, checkFila);
-            if(p != null){
-                // Comprueba tanto "Bishop" como "Alfil"
-                if(!tablero.sameColor(p, rey) && (p.name.equals("Bishop") || p.name.equals("Alfil") || p.name.equals("Reina"))){
+            if(p != null && p != alPaso){
+                if(!tablero.sameColor(p, rey) && (p.tipo == Pieza.ALFIL || p.tipo == Pieza.REINA)){
                     return true;// Alfil o reina enemiga encontrada
                 }
                 break;// Otra pieza bloquea el camino
@@ -293,7 +323,7 @@ public class JaqueScanner implements Serializable{
      * @param reyFila Fila actual o nueva del rey
      * @return true si el rey esta siendo atacado por al menos un caballo enemigo, false en caso contrario
      */
-    private static boolean hitByCaballo(int columna, int fila, Pieza rey, int reyColumna, int reyFila){
+    private boolean hitByCaballo(int columna, int fila, Pieza rey, int reyColumna, int reyFila){
         return JaqueCaballo(tablero.getPieza(reyColumna-1,reyFila-2),rey,columna,fila)||
                 JaqueCaballo(tablero.getPieza(reyColumna+1,reyFila-2),rey,columna,fila)||
                 JaqueCaballo(tablero.getPieza(reyColumna+2,reyFila-1),rey,columna,fila)||
@@ -316,8 +346,8 @@ public class JaqueScanner implements Serializable{
      * @return true si la pieza es un caballo enemigo que amenaza al rey y no es la pieza que se esta moviendo,
      *         false en caso contrario o si p es null
      */
-    private static boolean JaqueCaballo(Pieza p, Pieza r, int columna, int fila){
-        return p!=null && !tablero.sameColor(p,r) && p.name.equals("Caballo") && !(p.columna == columna && p.fila==fila);
+    private boolean JaqueCaballo(Pieza p, Pieza r, int columna, int fila){
+        return p!=null && !tablero.sameColor(p,r) && p.tipo == Pieza.CABALLO && !(p.columna == columna && p.fila==fila);
     }
 
     /**
@@ -330,7 +360,7 @@ public class JaqueScanner implements Serializable{
      * @param reyFila Fila actual o nueva del rey
      * @return true si el rey esta siendo atacado por el rey enemigo, false en caso contrario
      */
-    private static boolean hitByRey(Pieza rey, int reyColumna, int reyFila){
+    private boolean hitByRey(Pieza rey, int reyColumna, int reyFila){
         return JaqueRey(tablero.getPieza(reyColumna-1,reyFila-1),rey)||
                 JaqueRey(tablero.getPieza(reyColumna+1,reyFila-1),rey)||
                 JaqueRey(tablero.getPieza(reyColumna,reyFila-1),rey)||
@@ -351,8 +381,8 @@ public class JaqueScanner implements Serializable{
      * @param r Pieza del rey que se esta evaluando
      * @return true si la pieza es el rey enemigo, false en caso contrario o si p es null
      */
-    private static boolean JaqueRey(Pieza p, Pieza r){
-        return p!=null && !tablero.sameColor(p,r) && p.name.equals("Rey");
+    private boolean JaqueRey(Pieza p, Pieza r){
+        return p!=null && !tablero.sameColor(p,r) && p.tipo == Pieza.REY;
     }
 
     /**
@@ -362,15 +392,18 @@ public class JaqueScanner implements Serializable{
      *
      * @param columna Columna de la pieza que se esta moviendo en este turno
      * @param fila Fila de la pieza que se esta moviendo en este turno
+     * @param alPaso Peon capturado al paso por el movimiento (null si no es captura al paso)
      * @param rey Pieza del rey que se esta evaluando
      * @param reyColumna Columna actual o nueva del rey
      * @param reyFila Fila actual o nueva del rey
      * @return true si el rey esta siendo atacado por al menos un peon enemigo, false en caso contrario
      */
-    private static boolean hitByPeon(int columna, int fila, Pieza rey, int reyColumna, int reyFila){
+    private boolean hitByPeon(int columna, int fila, Pieza alPaso, Pieza rey, int reyColumna, int reyFila){
         int colorVal=rey.EsBlanco ? -1:1; // Direccion según el color del rey
-        return JaquePeon(tablero.getPieza(reyColumna+1,reyFila+colorVal),rey,columna,fila)||
-                JaquePeon(tablero.getPieza(reyColumna-1,reyFila+colorVal),rey,columna,fila);
+        Pieza izquierda = tablero.getPieza(reyColumna-1,reyFila+colorVal);
+        Pieza derecha = tablero.getPieza(reyColumna+1,reyFila+colorVal);
+        return (derecha != alPaso && JaquePeon(derecha,rey,columna,fila))||
+                (izquierda != alPaso && JaquePeon(izquierda,rey,columna,fila));
 
     }
 
@@ -386,8 +419,8 @@ public class JaqueScanner implements Serializable{
      * @return true si la pieza es un peon enemigo que amenaza al rey y no es la pieza que se esta moviendo,
      *         false en caso contrario o si p es null
      */
-    private static boolean JaquePeon(Pieza p, Pieza r, int columna, int fila){
-        return p!=null && !tablero.sameColor(p,r) && p.name.equals("Peon") && !(p.columna==columna && p.fila==fila);
+    private boolean JaquePeon(Pieza p, Pieza r, int columna, int fila){
+        return p!=null && !tablero.sameColor(p,r) && p.tipo == Pieza.PEON && !(p.columna==columna && p.fila==fila);
     }
 
     /**
@@ -398,8 +431,9 @@ public class JaqueScanner implements Serializable{
      *
      * Sigue los siguientes pasos:
      * 1. Verifica si el rey puede moverse a alguna casilla segura
-     * 2. Si hay mas de un atacante, solo el rey puede salvarse (y ya verificamos que no puede)
-     * 3. Si hay un solo atacante, intenta:
+     * 2. Si no hay atacantes, es ahogado solo si ninguna otra pieza puede moverse
+     * 3. Si hay mas de un atacante, solo el rey puede salvarse (y ya verificamos que no puede)
+     * 4. Si hay un solo atacante, intenta:
      *    a. Capturar al atacante con otra pieza
      *    b. Bloquear el camino entre el atacante y el rey (si es posible)
      *
@@ -414,7 +448,8 @@ public class JaqueScanner implements Serializable{
         // Verificar si el rey se puede mover a alguna casilla segura
         for(int f = Math.max(0, rey.fila-1); f <= Math.min(7, rey.fila+1); f++){
             for (int c = Math.max(0, rey.columna-1); c <= Math.min(7, rey.columna+1); c++){
-                if((c != rey.columna || f != rey.fila) && rey.esMovimientoValido(c, f) && !rey.movimientoChocaPieza(c, f)){
+                if((c != rey.columna || f != rey.fila) && !tablero.sameColor(rey, tablero.getPieza(c, f))
+                        && rey.esMovimientoValido(c, f) && !rey.movimientoChocaPieza(c, f)){
                     Movimientos mover = new Movimientos(tablero, rey, c, f);
                     // Si al mover no queda en jaque
                     if(!EsReyJaque(mover)){
@@ -427,6 +462,11 @@ public class JaqueScanner implements Serializable{
         // Obtener lista de piezas atacantes
         ArrayList<Pieza> atacantes = encontrarAtacantes(rey);
 
+        // Sin jaque solo es fin (ahogado) si ninguna otra pieza puede moverse
+        if (atacantes.isEmpty()) {
+            return !hayMovimientoDePiezas(rey);
+        }
+
         // Si hay mas de un atacante, solo el rey puede salvarse
         if (atacantes.size() > 1) {
             return true;
@@ -450,8 +490,20 @@ public class JaqueScanner implements Serializable{
                 }
             }
 
+            // Capturar al paso el peon que acaba de avanzar dos casillas (el destino no es su casilla)
+            if (tablero.enPassantTile >= 0) {
+                int c = tablero.enPassantTile % 8;
+                int f = tablero.enPassantTile / 8;
+                for (Pieza p : tablero.piezasList) {
+                    if (tablero.sameColor(p, rey) && p.tipo == Pieza.PEON
+                            && tablero.esMovimientoValido(new Movimientos(tablero, p, c, f))) {
+                        return false;// No es jaque mate
+                    }
+                }
+            }
+
             // Si el atacante es un caballo o peon en el primer movimiento, no podemos bloquear
-            if (!atacante.name.equals("Caballo")) {
+            if (atacante.tipo != Pieza.CABALLO) {
                 // Los caballos no pueden ser bloqueados
                 // Obtener el camino entre el atacante y el rey
                 ArrayList<Point> camino = getCaminoAtaque(rey, atacante);
@@ -477,4 +529,28 @@ public class JaqueScanner implements Serializable{
         // Si no hay forma de evitar el jaque, es jaque mate
         return true;
     }
+
+    /**
+     * Busca si alguna pieza del color del rey (sin contar al rey) tiene un
+     * movimiento valido, para distinguir el ahogado de una posicion en la que
+     * solo el rey esta encerrado
+     *
+     * @param rey Pieza del rey del color que se revisa
+     * @return true si alguna otra pieza de ese color puede moverse
+     */
+    private boolean hayMovimientoDePiezas(Pieza rey){
+        for (Pieza p : new ArrayList<>(tablero.piezasList)) {
+            if (p == rey || !tablero.sameColor(p, rey)) {
+                continue;
+            }
+            for (int f = 0; f < 8; f++) {
+                for (int c = 0; c < 8; c++) {
+                    if ((c != p.columna || f != p.fila) && tablero.esMovimientoValido(new Movimientos(tablero, p, c, f))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
 }
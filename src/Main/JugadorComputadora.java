@@ -0,0 +1,254 @@
+package Main;
+
+import Motor.BusquedaParalela;
+import Motor.Jugada;
+import Motor.LimitesBusqueda;
+import Motor.Posicion;
+import Motor.ResultadoBusqueda;
+import Motor.TablaTransposicion;
+
+import javax.swing.*;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Jugador controlado por el motor de busqueda
+ * Cuando le toca mover, busca la mejor jugada en un hilo en segundo plano
+ * (para no congelar la ventana) y la ejecuta en el tablero a traves de
+ * hacerMovimiento, igual que una jugada hecha con el mouse
+ *
+ * Mientras el rival piensa, la computadora sigue buscando en la posicion que
+ * resultaria de la respuesta que espera (ponder). Si el rival hace esa jugada
+ * la busqueda continua sin perder trabajo; si no, se descarta y la nueva
+ * busqueda aprovecha la tabla de transposicion compartida
+ */
+public class JugadorComputadora {
+    private static final long TIEMPO_SIN_RELOJ_MS = 2000;// Tiempo por jugada si la partida no tiene reloj
+    private final Tablero tablero;// Tablero en el que juega
+    private final boolean juegaBlancas;// Color con el que juega la computadora
+    private final LimitesBusqueda limites;// Limites de cada busqueda
+    private final TablaTransposicion tabla = new TablaTransposicion(64, false);// Se conserva entre jugadas
+    private final BusquedaParalela busqueda;// Motor de busqueda con uno o varios hilos
+    private SwingWorker<ResultadoBusqueda, Void> pensando;// Busqueda en curso (null si no piensa)
+    private CountDownLatch iniciada;// Se abre cuando la busqueda en curso ya acepta detener y ponderhit
+    private boolean ponderando;// La busqueda en curso es sobre la respuesta esperada del rival
+    private long prediccion;// Hash de la posicion esperada tras la respuesta del rival
+    private boolean ponder = true;// Pensar en el tiempo del rival
+    private ResultadoBusqueda ultimoResultado;// Resultado de la ultima jugada
+
+    /**
+     * Constructor del jugador computadora
+     *
+     * @param tablero Tablero en el que juega
+     * @param juegaBlancas true si juega con las blancas
+     * @param limites Limites de profundidad, nodos o tiempo por jugada
+     *                (sin limites = repartir el tiempo del reloj de la partida)
+     */
+    public JugadorComputadora(Tablero tablero, boolean juegaBlancas, LimitesBusqueda limites) {
+        this(tablero, juegaBlancas, limites, 1);
+    }
+
+    /**
+     * Constructor del jugador computadora con busqueda en varios hilos
+     *
+     * @param tablero Tablero en el que juega
+     * @param juegaBlancas true si juega con las blancas
+     * @param limites Limites de profundidad, nodos o tiempo por jugada
+     *                (sin limites = repartir el tiempo del reloj de la partida)
+     * @param hilos Numero de hilos de busqueda
+     */
+    public JugadorComputadora(Tablero tablero, boolean juegaBlancas, LimitesBusqueda limites, int hilos) {
+        this.tablero = tablero;
+        this.juegaBlancas = juegaBlancas;
+        this.limites = limites;
+        this.busqueda = new BusquedaParalela(tabla, hilos);
+    }
+
+    /**
+     * @return true si la computadora juega con las blancas
+     */
+    public boolean juegaBlancas() {
+        return juegaBlancas;
+    }
+
+    /**
+     * @return Resultado de la ultima busqueda completada (null si aun no ha movido)
+     */
+    public ResultadoBusqueda getUltimoResultado() {
+        return ultimoResultado;
+    }
+
+    /**
+     * Activa o desactiva pensar en el tiempo del rival
+     *
+     * @param ponder true para seguir buscando mientras el rival piensa
+     */
+    public void setPonder(boolean ponder) {
+        this.ponder = ponder;
+    }
+
+    /**
+     * Comprueba si le toca mover y, en ese caso, empieza a buscar su jugada
+     * Se llama desde el hilo de eventos de Swing despues de cada movimiento
+     */
+    public void turno() {
+        boolean leToca = !tablero.GameOver && juegaBlancas == tablero.TurnoBlanco;
+        Posicion pos = leToca ? tablero.getPosicion() : null;
+
+        // El rival acaba de mover: si hizo la jugada esperada, la busqueda en
+        // curso pasa a ser la de este turno; si no, se descarta
+        if (ponderando) {
+            ponderando = false;
+            esperarInicio();
+            if (leToca && pos.getHash() == prediccion) {
+                busqueda.ponderhit(limitesTurno());
+                return;
+            }
+            busqueda.detener();
+            pensando.cancel(false);
+            pensando = null;
+        }
+        if (!leToca || pensando != null) {
+            return;
+        }
+
+        // La busqueda trabaja sobre una copia, el tablero sigue intacto
+        pensar(pos, limitesTurno());
+    }
+
+    /**
+     * Empieza una busqueda en segundo plano; al terminar juega su resultado
+     *
+     * @param pos Posicion a analizar
+     * @param limitesBusqueda Limites de la busqueda
+     */
+    private void pensar(Posicion pos, LimitesBusqueda limitesBusqueda) {
+        CountDownLatch inicio = new CountDownLatch(1);
+        iniciada = inicio;
+        pensando = new SwingWorker<>() {
+            @Override
+            protected ResultadoBusqueda doInBackground() {
+                try {
+                    return busqueda.buscar(pos, limitesBusqueda, null, inicio::countDown);
+                } finally {
+                    inicio.countDown();// Si la busqueda fallo antes de registrarse
+                }
+            }
+
+            @Override
+            protected void done() {
+                if (pensando != this) {
+                    return;// Busqueda descartada
+                }
+                pensando = null;
+                try {
+                    if (!isCancelled()) {
+                        jugar(get());
+                    }
+                } catch (Exception e) {
+                    System.err.println("Error en la busqueda de la computadora: " + e.getMessage());
+                }
+            }
+        };
+        pensando.execute();
+    }
+
+    /**
+     * Espera a que la busqueda en segundo plano se registre en el motor,
+     * para que el ponderhit o el detener que se le mandan no se pierdan
+     * si el rival movio antes de que empezara
+     */
+    private void esperarInicio() {
+        try {
+            iniciada.await();// Sin espera activa: el hilo de eventos duerme hasta que se registre
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Empieza a pensar en el tiempo del rival, suponiendo que respondera con
+     * la segunda jugada de la variante principal
+     *
+     * @param resultado Resultado de la busqueda que acaba de jugarse
+     */
+    private void empezarPonder(ResultadoBusqueda resultado) {
+        if (!ponder || tablero.GameOver || resultado.pv.length < 2) {
+            return;
+        }
+        Posicion pos = tablero.getPosicion();
+        int respuesta = resultado.pv[1];
+        int[] legales = new int[Posicion.MAX_JUGADAS];
+        int n = pos.generarLegales(legales);
+        for (int i = 0; i < n; i++) {
+            if (legales[i] == respuesta) {
+                pos.hacer(respuesta);
+                prediccion = pos.getHash();
+                ponderando = true;
+                pensar(pos, LimitesBusqueda.ponder());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Limites de la busqueda de este turno
+     * Si no se dieron limites fijos, se usa el tiempo que le queda en el reloj
+     * de la partida para que el gestor de tiempo lo reparta
+     *
+     * @return Limites para la siguiente busqueda
+     */
+    private LimitesBusqueda limitesTurno() {
+        if (!limites.sinLimites()) {
+            return limites;
+        }
+        MejorasVisuales mv = tablero.getMejorasVisuales();
+        if (mv == null || mv.getReloj() == null) {
+            return LimitesBusqueda.tiempo(TIEMPO_SIN_RELOJ_MS);
+        }
+        Clock reloj = mv.getReloj();
+        long restante = Math.max(0, juegaBlancas ? reloj.getBlancoMs() : reloj.getNegroMs());
+        // El retraso Bronstein devuelve como mucho lo usado: para repartir cuenta como incremento
+        long incremento = reloj.getModo() == Clock.SIN_INCREMENTO ? 0 : reloj.getIncrementoMs();
+        return LimitesBusqueda.reloj(restante, incremento, tablero.numeroJugada);
+    }
+
+    /**
+     * Ejecuta en el tablero la jugada encontrada
+     *
+     * @param resultado Resultado de la busqueda
+     */
+    private void jugar(ResultadoBusqueda resultado) {
+        ultimoResultado = resultado;
+        if (tablero.GameOver || resultado.mejorJugada() == Jugada.NULA) {
+            return;
+        }
+        Movimientos mover = tablero.aMovimientos(resultado.mejorJugada());
+        if (mover != null && tablero.esMovimientoValido(mover)) {
+            tablero.hacerMovimiento(mover);
+            tablero.repaint();
+            empezarPonder(resultado);
+        }
+    }
+
+    /**
+     * Descarta la busqueda en curso sin jugar (por ejemplo al deshacer una jugada)
+     * El motor sigue disponible: la proxima llamada a turno() vuelve a pensar
+     */
+    public void cancelar() {
+        if (pensando != null) {
+            busqueda.detener();
+            pensando.cancel(false);
+            pensando = null;
+        }
+        ponderando = false;
+    }
+
+    /**
+     * Detiene la busqueda en curso sin jugar y libera los hilos del motor
+     * (por ejemplo al cerrar la partida)
+     */
+    public void detener() {
+        cancelar();
+        busqueda.close();
+    }
+}
@@ -1,5 +1,8 @@
 package Main;
 
+import Motor.LimitesBusqueda;
+import Motor.ServicioAnalisis;
+
 import javax.swing.*;
 import java.awt.*;
 import java.io.*;
@@ -18,6 +21,8 @@ public class Main {
     private MejorasVisuales mejorasVisuales;//Componente que contiene elementos visuales adicionales como cronometro
     private Historial historial;//Componente que almacena y muestra el historial de movimientos
     private JPanel panelContenedor;//Panel contenedor principal que organiza todos los componentes
+    //Servicio de analisis compartido por todas las partidas (sus hilos son daemon)
+    private final ServicioAnalisis servicioAnalisis = new ServicioAnalisis(1, 32);
 
 
     /**
@@ -81,6 +86,7 @@ public class Main {
 
         // Creacion de los botones para las diferentes opciones
         JButton nuevaPartidaBtn = new JButton("Nueva Partida");
+        JButton computadoraBtn = new JButton("Vs Computadora");
         JButton cargarPartidaBtn = new JButton("Cargar Partida");
         JButton verHistorialBtn = new JButton("Ver Historial");
         JButton salirBtn = new JButton("Salir");
@@ -88,12 +94,14 @@ public class Main {
         // Aplicar el mismo estilo visual a todos los botones
         Dimension btnDimension = new Dimension(200, 40);
         configurarBoton(nuevaPartidaBtn, btnDimension);
+        configurarBoton(computadoraBtn, btnDimension);
         configurarBoton(cargarPartidaBtn, btnDimension);
         configurarBoton(verHistorialBtn, btnDimension);
         configurarBoton(salirBtn, btnDimension);
 
         // Configuracion de los eventos para cada boton
         nuevaPartidaBtn.addActionListener(e -> iniciarNuevaPartida());// Iniciar juego nuevo
+        computadoraBtn.addActionListener(e -> iniciarPartidaComputadora());// Jugar contra el motor
         cargarPartidaBtn.addActionListener(e -> cargarPartida());// Cargar partida guardada
         verHistorialBtn.addActionListener(e -> verHistorialPartidas());// Ver historial de partidas
         salirBtn.addActionListener(e -> System.exit(0));// Salir de la aplicacion
@@ -104,6 +112,8 @@ public class Main {
         menuPanel.add(Box.createRigidArea(new Dimension(0, 30)));// Espacio fijo entre titulo y botones
         menuPanel.add(nuevaPartidaBtn);
         menuPanel.add(Box.createRigidArea(new Dimension(0, 15)));// Espacio entre botones
+        menuPanel.add(computadoraBtn);
+        menuPanel.add(Box.createRigidArea(new Dimension(0, 15)));
         menuPanel.add(cargarPartidaBtn);
         menuPanel.add(Box.createRigidArea(new Dimension(0, 15)));
         menuPanel.add(verHistorialBtn);  // Agregar nuevo boton
@@ -122,8 +132,53 @@ public class Main {
      * Cierra la ventana actual y crea una nueva con el tablero de juego
      */
     private void iniciarNuevaPartida() {
+        long[] control = elegirControlTiempo();
+        if (control == null) {
+            return;// El usuario cancelo, se queda en el menu
+        }
+        ventana.dispose();// Cierra la ventana actual
+        iniciarJuego(false, null, control);// Inicia el juego sin cargar archivo
+    }
+
+    /**
+     * Inicia una nueva partida contra la computadora
+     * El jugador lleva las blancas y el motor responde con las negras,
+     * repartiendo el tiempo de su reloj entre las jugadas
+     */
+    private void iniciarPartidaComputadora() {
+        long[] control = elegirControlTiempo();
+        if (control == null) {
+            return;
+        }
         ventana.dispose();// Cierra la ventana actual
-        iniciarJuego(false, null);// Inicia el juego sin cargar archivo
+        iniciarJuego(false, null, control);
+        int hilos = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);// Deja nucleos libres para la interfaz
+        tablero.setJugadorComputadora(new JugadorComputadora(tablero, false, new LimitesBusqueda(), hilos));
+    }
+
+    /**
+     * Pregunta al usuario el control de tiempo de la nueva partida
+     *
+     * @return {tiempo base en ms, incremento en ms, modo del reloj}, o null si se cancela
+     */
+    private long[] elegirControlTiempo() {
+        String[] opciones = {"10 min", "5 min + 3 s Fischer", "5 min + 3 s Bronstein"};
+        int eleccion = JOptionPane.showOptionDialog(ventana,
+                "Elige el control de tiempo",
+                "Control de tiempo",
+                JOptionPane.DEFAULT_OPTION,
+                JOptionPane.QUESTION_MESSAGE,
+                null, opciones, opciones[0]);
+        switch (eleccion) {
+            case 0:
+                return new long[]{10 * 60_000L, 0, Clock.SIN_INCREMENTO};
+            case 1:
+                return new long[]{5 * 60_000L, 3_000L, Clock.FISCHER};
+            case 2:
+                return new long[]{5 * 60_000L, 3_000L, Clock.BRONSTEIN};
+            default:
+                return null;// Se cerro el dialogo
+        }
     }
 
     /**
@@ -137,7 +192,8 @@ public class Main {
         if (fileChooser.showOpenDialog(ventana) == JFileChooser.APPROVE_OPTION) {
             File archivo = fileChooser.getSelectedFile();
             ventana.dispose();// Cierra la ventana actual
-            iniciarJuego(true, archivo.getPath());// Inicia el juego cargando el archivo seleccionado
+            // El tiempo, el incremento y el modo del reloj se restauran desde el archivo
+            iniciarJuego(true, archivo.getPath(), new long[]{10 * 60_000L, 0, Clock.SIN_INCREMENTO});
         }
     }
 
@@ -148,8 +204,9 @@ public class Main {
      *
      * @param cargar true si se esta cargando una partida guardada
      * @param rutaArchivo Ruta del archivo a cargar (puede ser null)
+     * @param control Tiempo base en ms, incremento en ms y modo del reloj
      */
-    private void iniciarJuego(boolean cargar, String rutaArchivo) {
+    private void iniciarJuego(boolean cargar, String rutaArchivo, long[] control) {
         // Crear y configurar la ventana principal
         ventana = new JFrame("Ajedrez");
         ventana.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -163,11 +220,12 @@ public class Main {
         panelContenedor = new JPanel(new BorderLayout());
 
         // Crear el panel de mejoras visuales (cronometro, estado)
-        mejorasVisuales = new MejorasVisuales(tablero);
+        mejorasVisuales = new MejorasVisuales(tablero, control[0], control[1], (int) control[2]);
 
         // Configurar referencias cruzadas entre componentes
         tablero.setMejorasVisuales(mejorasVisuales);
         tablero.setHistorial(historial);
+        tablero.setServicioAnalisis(servicioAnalisis);
 
         // Crear panel de botones con el boton para volver al menu
         JPanel panelBotones = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -251,6 +309,14 @@ public class Main {
      * Permite al usuario abandonar la partida actual sin cerrar la aplicacion
      */
     private void volverAlMenu() {
+        // Detiene a la computadora si estaba pensando
+        if (tablero != null && tablero.getJugadorComputadora() != null) {
+            tablero.getJugadorComputadora().detener();
+        }
+        // Detiene el analisis de la partida que se cierra
+        if (tablero != null) {
+            tablero.setAnalisisActivo(false);
+        }
         ventana.dispose();// Cerrar la ventana actual
         iniciarMenuPrincipal();// Mostrar nuevamente el menu principal
     }
@@ -1,18 +1,24 @@
 package Main;
 
+import Motor.ResultadoBusqueda;
 import Piezas.Pieza;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Arrays;
+import java.util.concurrent.Flow;
 
 /**
  * Clase que implementa mejoras visuales para la interfaz del juego de ajedrez
  * Proporciona elementos como el reloj de los jugadores, etiquetas de estado
- * (para mostrar turno, jaque) y botones para guardar la partida
+ * (para mostrar turno, jaque), botones para guardar la partida y el
+ * analisis del motor de la posicion actual
  */
 public class MejorasVisuales extends JPanel {
+    // Valor que se calculaba antes de los cambios, para seguir cargando las partidas guardadas
+    private static final long serialVersionUID = -5310501269579847915L;
     private JLabel estatus; // Etiqueta para mostrar el estado actual del juego (turno, jaque, mate)
     private Tablero tablero; // Referencia al tablero principal del juego
 
@@ -21,6 +27,11 @@ public class MejorasVisuales extends JPanel {
     private transient Clock clock;// Objeto que maneja la logica del reloj
 
     private JButton saveButton; // Boton para guardar la partida
+    private JButton deshacerButton; // Boton para deshacer el ultimo movimiento
+    private JButton rehacerButton; // Boton para rehacer un movimiento deshecho
+    private JCheckBox analisisCheck; // Activa el analisis de la posicion actual
+    private JLabel analisisLabel; // Muestra la profundidad, puntuacion y variante del analisis
+    private transient int versionAnalisis; // Aumenta con cada analisis nuevo, para ignorar las actualizaciones de los anteriores
 
     /**
      * Constructor de MejorasVisuales
@@ -30,17 +41,29 @@ public class MejorasVisuales extends JPanel {
      * @param tablero Hace referencia al tablero del juego para actualizar estados y acciones
      */
     public MejorasVisuales(Tablero tablero) {
+        this(tablero, 10 * 60_000L, 0, Clock.SIN_INCREMENTO);// Reloj con 10 minutos por jugador
+    }
+
+    /**
+     * Constructor de MejorasVisuales con un control de tiempo a elegir
+     *
+     * @param tablero Hace referencia al tablero del juego para actualizar estados y acciones
+     * @param baseMs Tiempo inicial en milisegundos para cada jugador
+     * @param incrementoMs Incremento (Fischer) o retraso (Bronstein) por jugada
+     * @param modo Clock.SIN_INCREMENTO, Clock.FISCHER o Clock.BRONSTEIN
+     */
+    public MejorasVisuales(Tablero tablero, long baseMs, long incrementoMs, int modo) {
         this.tablero = tablero;
 
         // Configura el panel principal
         setLayout(new FlowLayout(FlowLayout.LEFT));
-        setPreferredSize(new Dimension(tablero.getWidth(), 30));
+        setPreferredSize(new Dimension(tablero.getWidth(), 60));// Dos filas: reloj y analisis
         setBackground(Color.WHITE);
 
         // Inicializa componentes del reloj
-        blancoClock = new JLabel("10:00"); // Etiqueta inicial para tiempo blanco
-        negroClock = new JLabel("10:00");// Etiqueta inicial para tiempo negro
-        clock = new Clock(10, blancoClock, negroClock, tablero);// Reloj con 10 minutos por jugador
+        blancoClock = new JLabel(); // Etiqueta para tiempo blanco, el reloj pone el texto inicial
+        negroClock = new JLabel();// Etiqueta para tiempo negro
+        clock = new Clock(baseMs, incrementoMs, modo, blancoClock, negroClock, tablero);
 
         // Inicializa etiqueta de estado
         estatus = new JLabel();
@@ -50,12 +73,26 @@ public class MejorasVisuales extends JPanel {
         // Inicializa etiqueta de estado
         saveButton = new JButton("Guardar");
         configurarBoton(saveButton, new Dimension(100, 25));
+        deshacerButton = new JButton("Deshacer");
+        configurarBoton(deshacerButton, new Dimension(100, 25));
+        rehacerButton = new JButton("Rehacer");
+        configurarBoton(rehacerButton, new Dimension(100, 25));
+
+        // Inicializa los componentes del analisis
+        analisisCheck = new JCheckBox("Analisis");
+        analisisCheck.setBackground(Color.WHITE);
+        analisisLabel = new JLabel();
+        analisisLabel.setFont(new Font("Monospaced", Font.PLAIN, 12));
 
         // Añade todos los componentes al panel en el orden deseado
         add(blancoClock);
         add(estatus);
         add(negroClock);
         add(saveButton);
+        add(deshacerButton);
+        add(rehacerButton);
+        add(analisisCheck);
+        add(analisisLabel);
 
         // Configura los eventos de los botones y otros componentes
         configurarEventos();
@@ -92,9 +129,16 @@ public class MejorasVisuales extends JPanel {
     /**
      * Configura los eventos de los componentes interactivos
      * Establece los listeners para manejar las acciones del usuario
-     * Actualmente maneja el evento de guardar partida
+     * Maneja el evento de guardar partida, deshacer, rehacer y la casilla de analisis
      */
     private void configurarEventos() {
+        // Evento de la casilla de analisis: el tablero pide o cancela el analisis
+        analisisCheck.addActionListener(e -> tablero.setAnalisisActivo(analisisCheck.isSelected()));
+
+        // Eventos de deshacer y rehacer: el tablero restaura piezas, historial y reloj
+        deshacerButton.addActionListener(e -> tablero.deshacerMovimiento());
+        rehacerButton.addActionListener(e -> tablero.rehacerMovimiento());
+
         saveButton.addActionListener(new ActionListener() {
             // Evento del boton guardar
             // muestra un dialogo para seleccionar ubicacion y nombre del archivo
@@ -119,6 +163,76 @@ public class MejorasVisuales extends JPanel {
         });
     }
 
+    /**
+     * Limpia la etiqueta de analisis
+     * Las actualizaciones que aun lleguen de analisis anteriores se ignoran
+     */
+    public void limpiarAnalisis() {
+        versionAnalisis++;
+        analisisLabel.setText("");
+    }
+
+    /**
+     * Crea el suscriptor que muestra las actualizaciones de un analisis nuevo
+     * Se pasa al servicio al pedir el analisis, asi queda suscrito antes de que
+     * empiece la busqueda y no se pierde ninguna iteracion (ni siquiera si el
+     * analisis termina enseguida, por ejemplo al encontrar un mate)
+     * Cada iteracion llega en un hilo del servicio y se pasa al hilo de eventos
+     * con invokeLater, asi la ventana nunca espera al motor. Las actualizaciones
+     * de un analisis ya reemplazado se ignoran
+     *
+     * @return Suscriptor para ServicioAnalisis.analizar
+     */
+    public Flow.Subscriber<ResultadoBusqueda> suscriptorAnalisis() {
+        int version = ++versionAnalisis;
+        analisisLabel.setText("Analizando...");
+        return new Flow.Subscriber<ResultadoBusqueda>() {
+            @Override
+            public void onSubscribe(Flow.Subscription suscripcion) {
+                suscripcion.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ResultadoBusqueda r) {
+                SwingUtilities.invokeLater(() -> {
+                    if (versionAnalisis == version) {
+                        analisisLabel.setText(textoAnalisis(r));
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                SwingUtilities.invokeLater(() -> {
+                    if (versionAnalisis == version) {
+                        analisisLabel.setText("Error en el analisis: " + error.getMessage());
+                    }
+                });
+            }
+
+            @Override
+            public void onComplete() {
+                // La ultima iteracion ya se mostro en onNext
+            }
+        };
+    }
+
+    /**
+     * Da formato a una iteracion del analisis, por ejemplo "prof 8  cp 35  e2e4 e7e5 g1f3"
+     * La puntuacion es desde el punto de vista del que mueve
+     *
+     * @param r Resultado de la iteracion
+     * @return Texto para la etiqueta de analisis
+     */
+    private static String textoAnalisis(ResultadoBusqueda r) {
+        String pv = r.pvTexto();
+        String[] jugadas = pv.split(" ");
+        if (jugadas.length > 6) {
+            pv = String.join(" ", Arrays.copyOf(jugadas, 6)) + " ...";
+        }
+        return "prof " + r.profundidad + "  " + r.puntosTexto() + "  " + pv;
+    }
+
     /**
      * Pausa el reloj del juego
      * Detiene temporalmente la cuenta atras del reloj sin detener el temporizador
@@ -173,7 +287,7 @@ public class MejorasVisuales extends JPanel {
 
         // Busca el rey del jugador actual para verificar si esta en jaque
         Pieza rey = tablero.encontrarRey(tablero.TurnoBlanco);
-        if (rey != null && JaqueScanner.EsReyJaque(new Movimientos(tablero, rey, rey.columna, rey.fila))) {
+        if (rey != null && tablero.getJaqueScanner().EsReyJaque(new Movimientos(tablero, rey, rey.columna, rey.fila))) {
             // Si hay jaque, lo indica y cambia el color a rojo
             estado = " - ¡JAQUE!";
             colorEstado = Color.RED;
@@ -181,7 +295,7 @@ public class MejorasVisuales extends JPanel {
 
         // Si el juego ha terminado, actualiza el mensaje final
         if (tablero.GameOver) {
-            if (rey != null && JaqueScanner.EsReyJaque(new Movimientos(tablero, rey, rey.columna, rey.fila))) {
+            if (rey != null && tablero.getJaqueScanner().EsReyJaque(new Movimientos(tablero, rey, rey.columna, rey.fila))) {
                 // Jaque mate, el jugador en turno ha perdido
                 estado = " - ¡JAQUE MATE! " + (tablero.TurnoBlanco ? "Negras ganan" : "Blancas ganan");
             } else {
@@ -7,6 +7,8 @@ import Piezas.*;
  * Almacena la informacion necesaria para realizar y deshacer movimientos,
  * incluyendo las posiciones de origen y destino, la pieza movida
  * y la pieza capturada (si existe)
+ * Despues de hacerse guarda tambien el estado irreversible (enroque,
+ * captura al paso, promocion y reloj) para que Tablero pueda deshacerlo
  */
 public class Movimientos {
     int oldColumna;//Columna de origen de la pieza antes del movimiento
@@ -16,6 +18,19 @@ public class Movimientos {
 
     Pieza pieza;//Referencia a la pieza que esta siendo movida
     Pieza captura;//Referencia a la pieza que sera capturada en este movimiento (null si no hay captura)
+    int promocion;//Tipo de pieza a la que corona un peon (Posicion.CABALLO a Posicion.REINA), 0 para preguntar al jugador
+
+    // Estado que se pierde al hacer el movimiento, guardado para poder deshacerlo
+    int jugada;//Jugada compacta del motor equivalente (ver Motor.Jugada)
+    boolean primerMovimiento;//Si la pieza aun no se habia movido antes de este movimiento
+    int alPasoAnterior;//Casilla de captura al paso que habia antes del movimiento
+    int reversiblesAnterior;//Medias jugadas reversibles que habia antes del movimiento
+    Pieza torre;//Torre que se movio en el enroque (null si no fue enroque)
+    Pieza promovida;//Pieza nueva en la que corono el peon (null si no hubo promocion)
+    long blancoAntesMs;//Tiempo de las blancas antes del movimiento
+    long negroAntesMs;//Tiempo de las negras antes del movimiento
+    long blancoDespuesMs;//Tiempo de las blancas despues del movimiento (con el incremento ya aplicado)
+    long negroDespuesMs;//Tiempo de las negras despues del movimiento
 
     /**
      * Constructor de la clase Movimientos
@@ -11,6 +11,9 @@ import java.io.InputStream;
  * como movimientos de piezas y capturas
  */
 public class Sonido {
+    // Se marca cuando el equipo no tiene salida de audio, para no volver a intentarlo en cada movimiento
+    private static volatile boolean sinAudio = false;
+
     /**
      * Reproduce el sonido que corresponde a un movimiento de piezas
      * Este metodo encapsula la llamada al metodo playSound con el archivo especifico
@@ -38,6 +41,9 @@ public class Sonido {
      *                 se desea reproducir (debe estar en la carpeta "rec/")
      */
     private static void playSound(String filename) {
+        if (sinAudio) {
+            return;
+        }
         try {
             // Intenta cargar el sonido como un recurso desde el classpath
             InputStream inputStream = Sonido.class.getClassLoader().getResourceAsStream("rec/" + filename);
@@ -65,12 +71,19 @@ public class Sonido {
 
             // Inicia la reproduccion del sonido
             clip.start();
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
+        } catch (LineUnavailableException e) {
+            // No hay una linea de audio disponible: el juego sigue sin sonido
+            sinAudio = true;
+            System.err.println("Sonido no disponible: " + e.getMessage());
+        } catch (UnsupportedAudioFileException | IOException e) {
             // Error si el formato de audio no es compatible
             // Error si hay problemas de lectura del archivo
-            // Error si no hay una linea de audio disponible para reproduccion
             System.err.println("Error al reproducir sonido: " + e.getMessage());
             e.printStackTrace();
+        } catch (IllegalArgumentException e) {
+            // El equipo no tiene dispositivo de audio: el juego sigue sin sonido
+            sinAudio = true;
+            System.err.println("Sonido no disponible: " + e.getMessage());
         }
     }
 }
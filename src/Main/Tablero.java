@@ -1,5 +1,12 @@
 package Main;
 
+import Motor.Analisis;
+import Motor.Jugada;
+import Motor.LimitesBusqueda;
+import Motor.Material;
+import Motor.Posicion;
+import Motor.Repeticion;
+import Motor.ServicioAnalisis;
 import Piezas.*;
 
 import javax.swing.*;
@@ -7,7 +14,6 @@ import java.awt.*;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
 
 
 /**
@@ -16,6 +22,8 @@ import java.util.stream.Collectors;
  * asi como la validacion de movimientos y reglas especiales del ajedrez
  */
 public class Tablero extends JPanel {
+    // Valor que se calculaba antes de los cambios, para seguir cargando las partidas guardadas
+    private static final long serialVersionUID = -4713393445268635884L;
 
     //Notacion FEN (Forsyth-Edwards Notation) para la posicion inicial estandar del ajedrez
     public String fenStartingPosition="rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
@@ -46,9 +54,25 @@ public class Tablero extends JPanel {
     public boolean TurnoBlanco=true;//Indica si es el turno de las piezas blancas (true) o negras (false)
     public boolean GameOver=false;//Indica si el juego ha terminado
 
+    public int jugadasReversibles=0;//Medias jugadas desde la ultima captura o movimiento de peon (regla de 50 movimientos)
+    public int numeroJugada=1;//Numero de jugada completa, aumenta despues de cada movimiento de las negras
+
     private MejorasVisuales mv;//Referencia a las mejoras visuales del tablero
     private Historial h;//Referencia al historial de movimientos
     private Input i;//Gestor de entrada de usuario (clicks del mouse)
+    private transient JugadorComputadora computadora;//Jugador controlado por el motor (null si juegan dos personas)
+    private transient ServicioAnalisis servicioAnalisis;//Servicio que analiza las posiciones en segundo plano
+    private transient Analisis analisisActual;//Analisis de la posicion actual (null si no se analiza)
+    private transient boolean analisisActivo;//Indica si se analiza cada posicion nueva
+    private transient ArrayList<Movimientos> hechos = new ArrayList<>();//Movimientos hechos, el ultimo es el que se deshace
+    private transient ArrayList<Movimientos> deshechos = new ArrayList<>();//Movimientos deshechos que se pueden rehacer
+    private transient Posicion inicio;//Posicion antes del primer movimiento de hechos, para la repeticion
+    private transient Posicion posicion;//Posicion del motor que sigue a hechos, guarda los hashes para detectar repeticiones
+    private transient volatile Instantanea instantanea;//Ultima copia inmutable publicada, para leerla desde otros hilos
+    private transient long versionInstantanea;//Version de la ultima instantanea (solo la cambia el hilo de eventos)
+
+    //Tiempo maximo de analisis de cada posicion en milisegundos
+    private static final long TIEMPO_ANALISIS_MS = 30000;
 
     /**
      * Constructor del tablero
@@ -113,6 +137,15 @@ public class Tablero extends JPanel {
         this.js = new JaqueScanner(this);
     }
 
+    /**
+     * Obtiene el escaner de jaque de este tablero
+     *
+     * @return Escaner que revisa las piezas de este tablero
+     */
+    public JaqueScanner getJaqueScanner() {
+        return js;
+    }
+
     /**
      * Establece las mejoras visuales para el tablero
      * @param mv Mejoras visuales a establecer
@@ -148,6 +181,85 @@ public class Tablero extends JPanel {
         }
     }
 
+    /**
+     * Establece el jugador controlado por el motor
+     * Si le toca mover, empieza a pensar su jugada inmediatamente
+     *
+     * @param computadora Jugador computadora o null para dos jugadores humanos
+     */
+    public void setJugadorComputadora(JugadorComputadora computadora) {
+        this.computadora = computadora;
+        if (computadora != null) {
+            computadora.turno();
+        }
+    }
+
+    /**
+     * Obtiene el jugador controlado por el motor
+     * @return Jugador computadora o null si no hay
+     */
+    public JugadorComputadora getJugadorComputadora() {
+        return computadora;
+    }
+
+    /**
+     * Indica si el turno actual le corresponde a la computadora
+     * Mientras sea asi, el jugador humano no puede mover piezas
+     *
+     * @return true si la computadora tiene el turno
+     */
+    public boolean esTurnoComputadora() {
+        return computadora != null && computadora.juegaBlancas() == TurnoBlanco;
+    }
+
+    /**
+     * Establece el servicio que analiza las posiciones de la partida
+     *
+     * @param servicioAnalisis Servicio de analisis (puede ser null)
+     */
+    public void setServicioAnalisis(ServicioAnalisis servicioAnalisis) {
+        this.servicioAnalisis = servicioAnalisis;
+    }
+
+    /**
+     * Activa o desactiva el analisis de cada posicion nueva
+     *
+     * @param activo true para analizar la posicion actual y las siguientes
+     */
+    public void setAnalisisActivo(boolean activo) {
+        this.analisisActivo = activo;
+        analizarPosicion();
+    }
+
+    /**
+     * Obtiene el analisis de la posicion actual
+     *
+     * @return Analisis en curso o terminado, null si no se esta analizando
+     */
+    public Analisis getAnalisisActual() {
+        return analisisActual;
+    }
+
+    /**
+     * Cancela el analisis anterior y, si el analisis esta activo, pide el de la
+     * posicion actual al servicio. Nunca bloquea el hilo de eventos: las
+     * actualizaciones llegan a MejorasVisuales a traves de su suscripcion
+     */
+    public void analizarPosicion() {
+        if (analisisActual != null) {
+            analisisActual.cancelar();
+            analisisActual = null;
+        }
+        if (!analisisActivo || servicioAnalisis == null || GameOver) {
+            if (mv != null) {
+                mv.limpiarAnalisis();
+            }
+            return;
+        }
+        analisisActual = servicioAnalisis.analizar(getPosicion(), LimitesBusqueda.tiempo(TIEMPO_ANALISIS_MS),
+                mv != null ? mv.suscriptorAnalisis() : null);
+    }
+
     /**
      * Metodo para deserializacion
      * Reconstruye objetos no serializables y restaura referencias
@@ -163,6 +275,13 @@ public class Tablero extends JPanel {
         // Reconstruye componentes no serializables
         this.js = new JaqueScanner(this);
         this.i = new Input(this);
+        this.hechos = new ArrayList<>();
+        this.deshechos = new ArrayList<>();
+
+        // Las partidas guardadas antes de los contadores no los traen
+        if (numeroJugada < 1) {
+            numeroJugada = 1;
+        }
 
         // Reinicializa los componentes del historial si existe
         if (this.h != null) {
@@ -190,6 +309,7 @@ public class Tablero extends JPanel {
                     p.loadImageFromPath();
                 }
             }
+            publicarInstantanea();
         }
     }
 
@@ -220,18 +340,43 @@ public class Tablero extends JPanel {
      * @param mover Movimiento a realizar
      */
     public void hacerMovimiento(Movimientos mover){
-        // Registra el movimiento en el historial si esta disponible
-        if(h != null) {
-            String piezaNombre = obtenerNombre(mover.pieza.name);
-            String color = TurnoBlanco ? "Blanco" : "Negro";
+        // Un movimiento nuevo descarta los que se podian rehacer
+        deshechos.clear();
+        ejecutarMovimiento(mover, false);
+    }
+
+    /**
+     * Ejecuta un movimiento guardando antes el estado que se pierde,
+     * para poder deshacerlo despues
+     *
+     * @param mover Movimiento a realizar
+     * @param rehaciendo true si se rehace un movimiento deshecho: se restauran
+     *                   los tiempos que tenia el reloj y no se avisa a la computadora
+     */
+    private void ejecutarMovimiento(Movimientos mover, boolean rehaciendo){
+        if (hechos.isEmpty()) {
+            inicio = construirPosicion();// Punto de partida de la repeticion
+            posicion = inicio.copiar();
+        }
 
-            String movimiento = String.format("%s %s a %c%d",
-                    piezaNombre,
-                    color,
-                    (char)('a' + mover.newColumna),
-                    (8 - mover.newFila));
+        // Guarda el estado irreversible antes de modificar el tablero
+        mover.primerMovimiento = mover.pieza.esPrimerMovimiento;
+        mover.alPasoAnterior = enPassantTile;
+        mover.reversiblesAnterior = jugadasReversibles;
+        mover.torre = null;
+        mover.promovida = null;
+        Clock reloj = mv != null ? mv.getReloj() : null;
+        if (reloj != null) {
+            mover.blancoAntesMs = reloj.getBlancoMs();
+            mover.negroAntesMs = reloj.getNegroMs();
+        }
 
-            h.addMovimiento(movimiento);
+        // Registra el movimiento en el historial si esta disponible
+        if(h != null) {
+            // Se guarda empaquetado: el texto lo arma el historial solo cuando se muestra
+            h.addMovimiento(tipoMotor(mover.pieza), TurnoBlanco,
+                    mover.oldFila * 8 + mover.oldColumna,
+                    mover.newFila * 8 + mover.newColumna);
         }
 
         // Reproduce el sonido correspondiente segun sea captura o movimiento normal
@@ -243,7 +388,7 @@ public class Tablero extends JPanel {
 
 
         // Maneja movimientos especiales segun el tipo de pieza
-        if(mover.pieza.name.equals("Peon")) {
+        if(mover.pieza.tipo == Pieza.PEON) {
             // Maneja movimientos especiales del peon (en passant, promocion)
             moverPeon(mover);
         } else {
@@ -251,7 +396,7 @@ public class Tablero extends JPanel {
             enPassantTile = -1;
         }
 
-        if(mover.pieza.name.equals("Rey")) {
+        if(mover.pieza.tipo == Pieza.REY) {
             // Maneja el enroque si es un rey
             moverRey(mover);
         }
@@ -265,40 +410,245 @@ public class Tablero extends JPanel {
 
         // Elimina la pieza capturada si la hay
         captura(mover.captura);
+        mover.jugada = jugadaMotor(mover);
+        hechos.add(mover);
+        posicion.hacer(mover.jugada);
+
+        // Actualiza los contadores de la regla de 50 movimientos y de jugadas
+        boolean irreversible = mover.captura != null || mover.pieza.tipo == Pieza.PEON;
+        jugadasReversibles = irreversible ? 0 : jugadasReversibles + 1;
+        if (!TurnoBlanco) {
+            numeroJugada++;
+        }
 
         // Cambiar turno despues de registrar
         TurnoBlanco = !TurnoBlanco;
+        publicarInstantanea();
 
         // Actualiza las mejoras visuales si estan disponibles
         if(mv != null) {
             mv.cambiarClock();
+            if (reloj != null) {
+                if (rehaciendo) {
+                    // Al rehacer, el reloj vuelve a como quedo la primera vez
+                    reloj.setBlancoMs(mover.blancoDespuesMs);
+                    reloj.setNegroMs(mover.negroDespuesMs);
+                } else {
+                    mover.blancoDespuesMs = reloj.getBlancoMs();
+                    mover.negroDespuesMs = reloj.getNegroMs();
+                }
+            }
             mv.updateEstatus();
         }
 
         // Verifica si el juego ha terminado (jaque mate, ahogado)
         actualizarJuego();
 
+        if (rehaciendo) {
+            return;// Quien rehace actualiza el analisis y la computadora al terminar
+        }
+
+        // Analiza la nueva posicion si el analisis esta activo
+        if(analisisActivo) {
+            analizarPosicion();
+        }
+
+        // Si juega la computadora, le avisa que puede ser su turno
+        if(computadora != null) {
+            computadora.turno();
+        }
+
+    }
+
+    /**
+     * Obtiene la jugada compacta del motor equivalente a un movimiento ya hecho
+     *
+     * @param mover Movimiento ya ejecutado en el tablero
+     * @return Jugada compacta con su bandera (captura, enroque, promocion...)
+     */
+    private int jugadaMotor(Movimientos mover) {
+        int desde = getTileNum(mover.oldColumna, mover.oldFila);
+        int hacia = getTileNum(mover.newColumna, mover.newFila);
+        int bandera;
+        if (mover.torre != null) {
+            bandera = mover.newColumna > mover.oldColumna ? Jugada.ENROQUE_CORTO : Jugada.ENROQUE_LARGO;
+        } else if (mover.promovida != null) {
+            bandera = Jugada.PROMOCION | (mover.captura != null ? Jugada.CAPTURA : 0)
+                    | (tipoMotor(mover.promovida) - Posicion.CABALLO);
+        } else if (mover.captura != null) {
+            // Al paso el peon capturado no esta en la casilla destino
+            bandera = mover.captura.fila != mover.newFila ? Jugada.AL_PASO : Jugada.CAPTURA;
+        } else if (mover.pieza.tipo == Pieza.PEON && Math.abs(mover.oldFila - mover.newFila) == 2) {
+            bandera = Jugada.DOBLE_PEON;
+        } else {
+            bandera = Jugada.TRANQUILA;
+        }
+        return Jugada.crear(desde, hacia, bandera);
+    }
+
+    /**
+     * Deshace el ultimo movimiento
+     * Si juega la computadora, deshace tambien su respuesta para que
+     * vuelva a tocarle al jugador
+     *
+     * @return true si se deshizo algun movimiento
+     */
+    public boolean deshacerMovimiento() {
+        Clock reloj = mv != null ? mv.getReloj() : null;
+        // Una partida perdida por tiempo no se puede deshacer
+        if (hechos.isEmpty() || reloj != null && (reloj.getBlancoMs() <= 0 || reloj.getNegroMs() <= 0)) {
+            return false;
+        }
+        if (computadora != null) {
+            computadora.cancelar();
+        }
+        boolean terminada = GameOver;
+        deshacerUltimo(reloj);
+        if (esTurnoComputadora() && !hechos.isEmpty()) {
+            deshacerUltimo(reloj);
+        }
+        if (terminada && mv != null) {
+            mv.reanudarReloj();
+        }
+        despuesDeDeshacer();
+        return true;
+    }
+
+    /**
+     * Rehace el ultimo movimiento deshecho (y la respuesta de la computadora si juega)
+     *
+     * @return true si se rehizo algun movimiento
+     */
+    public boolean rehacerMovimiento() {
+        if (deshechos.isEmpty() || GameOver) {
+            return false;
+        }
+        if (computadora != null) {
+            computadora.cancelar();
+        }
+        rehacerUltimo();
+        if (esTurnoComputadora() && !deshechos.isEmpty() && !GameOver) {
+            rehacerUltimo();
+        }
+        despuesDeDeshacer();
+        return true;
+    }
+
+    /**
+     * @return true si hay movimientos que deshacer
+     */
+    public boolean puedeDeshacer() {
+        return !hechos.isEmpty();
+    }
+
+    /**
+     * @return true si hay movimientos deshechos que se pueden rehacer
+     */
+    public boolean puedeRehacer() {
+        return !deshechos.isEmpty();
+    }
+
+    /**
+     * Olvida los movimientos hechos y deshechos
+     * Se usa al cargar una partida, porque las piezas se reemplazan
+     */
+    public void limpiarMovimientos() {
+        hechos.clear();
+        deshechos.clear();
+        posicion = null;
+    }
+
+    /**
+     * Crea la repeticion de los movimientos hechos en este tablero
+     *
+     * @return Repeticion de la partida, o null si no hay movimientos
+     */
+    public Repeticion getRepeticion() {
+        if (hechos.isEmpty()) {
+            return null;
+        }
+        int[] jugadas = new int[hechos.size()];
+        for (int k = 0; k < jugadas.length; k++) {
+            jugadas[k] = hechos.get(k).jugada;
+        }
+        return new Repeticion(inicio, jugadas);
+    }
+
+    /**
+     * Devuelve el tablero al estado anterior al ultimo movimiento
+     * Solo restaura lo que guardo ese movimiento, sin recorrer la partida
+     */
+    private void deshacerUltimo(Clock reloj) {
+        Movimientos m = hechos.remove(hechos.size() - 1);
+        posicion.deshacer(m.jugada);
+
+        // Devuelve la pieza a su casilla (si corono, cambia la pieza nueva por el peon)
+        if (m.promovida != null) {
+            piezasList.remove(m.promovida);
+            piezasList.add(m.pieza);
+        }
+        m.pieza.columna = m.oldColumna;
+        m.pieza.fila = m.oldFila;
+        m.pieza.xPos = m.oldColumna * tileSize;
+        m.pieza.yPos = m.oldFila * tileSize;
+        m.pieza.esPrimerMovimiento = m.primerMovimiento;
+
+        // Devuelve la torre del enroque
+        if (m.torre != null) {
+            m.torre.columna = m.newColumna > m.oldColumna ? 7 : 0;
+            m.torre.xPos = m.torre.columna * tileSize;
+        }
 
+        // La pieza capturada no se modifico al capturarla, solo vuelve a la lista
+        if (m.captura != null) {
+            piezasList.add(m.captura);
+        }
+
+        enPassantTile = m.alPasoAnterior;
+        jugadasReversibles = m.reversiblesAnterior;
+        TurnoBlanco = !TurnoBlanco;
+        if (!TurnoBlanco) {
+            numeroJugada--;
+        }
+        GameOver = false;
+        if (h != null) {
+            h.quitarUltimo();
+        }
+        if (reloj != null) {
+            reloj.setTurnoBlanco(TurnoBlanco);
+            reloj.setBlancoMs(m.blancoAntesMs);
+            reloj.setNegroMs(m.negroAntesMs);
+        }
+        deshechos.add(m);
     }
 
     /**
-     * Convierte el nombre de la pieza de ingles a español
-     * Sirve mas que nada para el alfil
-     * @param nombre Nombre de la pieza
-     * @return Nombre en español de la pieza
+     * Vuelve a hacer el ultimo movimiento deshecho
      */
-    private String obtenerNombre(String nombre) {
-        switch(nombre) {
-            case "Bishop": return "Alfil";
-            case "Caballo": return "Caballo";
-            case "Peon": return "Peon";
-            case "Torre": return "Torre";
-            case "Reina": return "Reina";
-            case "Rey": return "Rey";
-            default: return nombre;
+    private void rehacerUltimo() {
+        Movimientos m = deshechos.remove(deshechos.size() - 1);
+        if (m.promovida != null) {
+            m.promocion = tipoMotor(m.promovida);// Corona en la misma pieza sin preguntar
         }
+        m.captura = getPieza(m.newColumna, m.newFila);// Al paso la vuelve a buscar moverPeon
+        ejecutarMovimiento(m, true);
     }
 
+    /**
+     * Actualiza la interfaz, el analisis y la computadora despues de deshacer o rehacer
+     */
+    private void despuesDeDeshacer() {
+        piezaSeleccionada = null;
+        publicarInstantanea();
+        if (mv != null) {
+            mv.updateEstatus();
+        }
+        repaint();
+        analizarPosicion();
+        if (computadora != null) {
+            computadora.turno();
+        }
+    }
 
     /**
      * Maneja el movimiento especial del rey (enroque)
@@ -323,6 +673,7 @@ public class Tablero extends JPanel {
             }
             // Actualiza la posicion visual de la torre
             torre.xPos=torre.columna*tileSize;
+            mover.torre=torre;// Se recuerda para poder deshacer el enroque
         }
     }
 
@@ -368,16 +719,22 @@ public class Tablero extends JPanel {
         // Opciones de promocion
         String[] opciones = {"Reina", "Torre", "Alfil", "Caballo"};
 
-        // Muestra un dialogo para que el jugador elija la pieza
-        int eleccion = JOptionPane.showOptionDialog(
-                this,
-                "Selecciona pieza para promocion:",
-                "Promocion de Peon",
-                JOptionPane.DEFAULT_OPTION,
-                JOptionPane.QUESTION_MESSAGE,
-                null,
-                opciones,
-                opciones[0]);
+        int eleccion;
+        if (mover.promocion != 0) {
+            // La pieza ya viene elegida (por ejemplo, en una jugada de la computadora)
+            eleccion = Posicion.REINA - mover.promocion;
+        } else {
+            // Muestra un dialogo para que el jugador elija la pieza
+            eleccion = JOptionPane.showOptionDialog(
+                    this,
+                    "Selecciona pieza para promocion:",
+                    "Promocion de Peon",
+                    JOptionPane.DEFAULT_OPTION,
+                    JOptionPane.QUESTION_MESSAGE,
+                    null,
+                    opciones,
+                    opciones[0]);
+        }
 
         // Crear la pieza seleccionada segUn la eleccion del jugador
         Pieza nuevaPieza = null;
@@ -399,9 +756,13 @@ public class Tablero extends JPanel {
                 nuevaPieza = new Reina(this, mover.newColumna, mover.newFila, mover.pieza.EsBlanco);
         }
 
+        // La pieza coronada ya se movio: una torre nueva en la esquina no da derecho a enrocar
+        nuevaPieza.esPrimerMovimiento = false;
+
         // Eliminar el peon y añadir la nueva pieza
         piezasList.remove(mover.pieza);
         piezasList.add(nuevaPieza);
+        mover.promovida = nuevaPieza;
 
         // Actualizar la captura si es necesario
         captura(mover.captura);
@@ -427,7 +788,7 @@ public class Tablero extends JPanel {
         }
 
         // Prevenir la captura del Rey - no permitido en ajedrez
-        if(mover.captura != null && mover.captura.name.equals("Rey")){
+        if(mover.captura != null && mover.captura.tipo == Pieza.REY){
             return false;
         }
 
@@ -504,7 +865,7 @@ public class Tablero extends JPanel {
     public Pieza encontrarRey(boolean EsBlanco){
         // Busca en la lista de piezas un rey del color especificado
         for(Pieza p: piezasList){
-            if(EsBlanco==p.EsBlanco && p.name.equals("Rey")){
+            if(EsBlanco==p.EsBlanco && p.tipo == Pieza.REY){
                 return p;
             }
         }
@@ -514,6 +875,108 @@ public class Tablero extends JPanel {
     }
 
 
+    /**
+     * Obtiene una Posicion del motor con el estado actual del tablero
+     * La posicion es independiente: se puede modificar o pasar a otro hilo
+     * Si la partida se jugo en este tablero, la posicion trae los hashes de
+     * las jugadas reversibles, para que el motor vea las repeticiones
+     *
+     * @return Posicion equivalente a la del tablero
+     */
+    public Posicion getPosicion() {
+        Posicion pos = construirPosicion();
+        // Solo se usa la posicion seguida si coincide con las piezas (por si se movieron a mano)
+        if (posicion != null && posicion.getHash() == pos.getHash()) {
+            return posicion.copiar();
+        }
+        return pos;
+    }
+
+    /**
+     * Obtiene la ultima instantanea publicada de la posicion
+     * Se puede llamar desde cualquier hilo: no bloquea y la instantanea no cambia
+     *
+     * @return Instantanea inmutable de la posicion despues del ultimo movimiento
+     */
+    public Instantanea getInstantanea() {
+        return instantanea;
+    }
+
+    /**
+     * Publica una instantanea nueva con el estado actual del tablero
+     * Se llama desde el hilo que modifica el tablero despues de cada cambio;
+     * la escritura volatile hace visible la instantanea completa a los demas hilos
+     */
+    void publicarInstantanea() {
+        instantanea = new Instantanea(construirPosicion(), ++versionInstantanea, GameOver);
+    }
+
+    /**
+     * Construye una Posicion del motor a partir de las piezas del tablero, sin historia
+     */
+    private Posicion construirPosicion() {
+        Posicion pos = new Posicion();
+        for (Pieza p : piezasList) {
+            pos.colocar(getTileNum(p.columna, p.fila), Posicion.pieza(tipoMotor(p), p.EsBlanco ? Posicion.BLANCAS : Posicion.NEGRAS));
+        }
+        pos.setTurno(TurnoBlanco ? Posicion.BLANCAS : Posicion.NEGRAS);
+
+        // Los derechos de enroque se deducen de las piezas que no se han movido
+        int enroques = 0;
+        if (sinMover(4, 7, Pieza.REY)) {
+            if (sinMover(7, 7, Pieza.TORRE)) enroques |= Posicion.ENROQUE_BLANCO_CORTO;
+            if (sinMover(0, 7, Pieza.TORRE)) enroques |= Posicion.ENROQUE_BLANCO_LARGO;
+        }
+        if (sinMover(4, 0, Pieza.REY)) {
+            if (sinMover(7, 0, Pieza.TORRE)) enroques |= Posicion.ENROQUE_NEGRO_CORTO;
+            if (sinMover(0, 0, Pieza.TORRE)) enroques |= Posicion.ENROQUE_NEGRO_LARGO;
+        }
+        pos.setEnroques(enroques);
+        pos.setAlPaso(enPassantTile);
+        pos.setReversibles(jugadasReversibles);
+        pos.setNumeroJugada(numeroJugada);
+        return pos;
+    }
+
+    /**
+     * Verifica que en una casilla este una pieza del tipo indicado sin haberse movido
+     */
+    private boolean sinMover(int columna, int fila, byte tipo) {
+        Pieza p = getPieza(columna, fila);
+        return p != null && p.tipo == tipo && p.esPrimerMovimiento;
+    }
+
+    /**
+     * Obtiene el tipo de pieza del motor que corresponde a una pieza del tablero
+     *
+     * @param p Pieza del tablero
+     * @return Tipo de pieza de Posicion
+     */
+    private static int tipoMotor(Pieza p) {
+        return p.tipo;// Pieza usa los mismos valores que Posicion
+    }
+
+    /**
+     * Convierte una jugada compacta del motor en un Movimientos del tablero
+     * para ejecutarla por el mismo camino que las jugadas del jugador (hacerMovimiento)
+     *
+     * @param jugada Jugada compacta
+     * @return Movimiento equivalente o null si no hay pieza en la casilla de origen
+     */
+    public Movimientos aMovimientos(int jugada) {
+        int desde = Jugada.desde(jugada);
+        int hacia = Jugada.hacia(jugada);
+        Pieza pieza = getPieza(desde % columna, desde / columna);
+        if (pieza == null) {
+            return null;
+        }
+        Movimientos mover = new Movimientos(this, pieza, hacia % columna, hacia / columna);
+        if (Jugada.esPromocion(jugada)) {
+            mover.promocion = Jugada.piezaPromocion(jugada);
+        }
+        return mover;
+    }
+
     /**
      * Carga una posicion desde una cadena FEN
      * Establece las piezas, el turno, derechos de enroque y casilla de captura al paso
@@ -529,6 +992,7 @@ public class Tablero extends JPanel {
 
         // Limpia el tablero de piezas existentes
         piezasList.clear();
+        limpiarMovimientos();
 
         // Divide la cadena FEN en sus componentes
         String[] parts = fenString.split(" ");
@@ -584,6 +1048,22 @@ public class Tablero extends JPanel {
             TurnoBlanco = parts[1].equals("w");
         }
 
+        // Contadores de medias jugadas reversibles y de jugada completa (si el FEN los trae)
+        jugadasReversibles = 0;
+        numeroJugada = 1;
+        try {
+            if (parts.length > 4) {
+                jugadasReversibles = Math.max(0, Integer.parseInt(parts[4]));
+            }
+            if (parts.length > 5) {
+                numeroJugada = Math.max(1, Integer.parseInt(parts[5]));
+            }
+        } catch (NumberFormatException e) {
+            // Contadores invalidos: se empieza desde cero
+            jugadasReversibles = 0;
+            numeroJugada = 1;
+        }
+
         // Establece los derechos de enroque para las torres
         Pieza bqr = getPieza(0, 0);
         if (bqr instanceof Torre) {
@@ -613,6 +1093,7 @@ public class Tablero extends JPanel {
             }
 
         }
+        publicarInstantanea();
     }
 
     /**
@@ -634,6 +1115,7 @@ public class Tablero extends JPanel {
             // Verificar si el juego ha terminado
             if (js.esGameOver(rey)) {
                 GameOver = true;
+                publicarInstantanea();
 
                 // Detiene el reloj si esta disponible
                 if (mv != null) {
@@ -663,28 +1145,51 @@ public class Tablero extends JPanel {
                     mv.updateEstatus();
                 }
             }
-        } else if (insuficienteMaterial(true) && insuficienteMaterial(false)) {
-            // Tablas por material insuficiente (no hay piezas suficientes para dar jaque mate)
-            GameOver = true;
+        }
 
-            // Detiene el reloj si esta disponible
-            if (mv != null) {
-                mv.pausarReloj();
-            }
+        // Tablas por material insuficiente (no hay piezas suficientes para dar jaque mate)
+        if (!GameOver && insuficienteMaterial()) {
+            terminarEnTablas("Tablas por material insuficiente");
+        }
 
-            // Muestra mensaje de tablas
-            JOptionPane.showMessageDialog(this,
-                    "Tablas por material insuficiente",
-                    "Fin del Juego",
-                    JOptionPane.INFORMATION_MESSAGE);
+        // Tablas por triple repeticion: la posicion ya aparecio dos veces con el mismo turno
+        if (!GameOver && posicion != null && posicion.repeticiones() >= 2) {
+            terminarEnTablas("Tablas por triple repeticion");
+        }
+
+        // Tablas por la regla de 50 movimientos (el mate en la ultima jugada ya se reviso arriba)
+        if (!GameOver && jugadasReversibles >= 100) {
+            terminarEnTablas("Tablas por la regla de 50 movimientos");
+        }
+    }
 
-            // Guarda la partida finalizada
-            String nombreArchivo = "partida_finalizada_" + System.currentTimeMillis();
-            Guardar.saveGame(this, nombreArchivo);
+    /**
+     * Termina la partida en tablas
+     * Detiene el reloj, muestra el motivo, guarda la partida y ofrece las opciones de fin
+     *
+     * @param motivo Mensaje que se muestra al jugador
+     */
+    private void terminarEnTablas(String motivo) {
+        GameOver = true;
+        publicarInstantanea();
 
-            // Muestra opciones al finalizar
-            mostrarOpcionesFinJuego();
+        // Detiene el reloj si esta disponible
+        if (mv != null) {
+            mv.pausarReloj();
         }
+
+        // Muestra mensaje de tablas
+        JOptionPane.showMessageDialog(this,
+                motivo,
+                "Fin del Juego",
+                JOptionPane.INFORMATION_MESSAGE);
+
+        // Guarda la partida finalizada
+        String nombreArchivo = "partida_finalizada_" + System.currentTimeMillis();
+        Guardar.saveGame(this, nombreArchivo);
+
+        // Muestra opciones al finalizar
+        mostrarOpcionesFinJuego();
     }
 
     /**
@@ -737,13 +1242,27 @@ public class Tablero extends JPanel {
     }
 
 
+    /**
+     * Muestra la repeticion de la partida, donde se puede ir a cualquier jugada
+     * Si la partida se cargo de un archivo (sin los movimientos del tablero)
+     * muestra el historial completo en texto
+     */
+    private void mostrarHistorialCompleto() {
+        Repeticion repeticion = getRepeticion();
+        if (repeticion != null) {
+            new VisorRepeticion(this, repeticion).setVisible(true);
+            return;
+        }
+        mostrarHistorialTexto();
+    }
+
     /**
      * Muestra el historial completo de movimientos en un dialogo
      * Da formato a los movimientos en pares numerados (blancas y negras)
      */
-    private void mostrarHistorialCompleto() {
+    private void mostrarHistorialTexto() {
         // Verifica si hay movimientos registrados
-        if (h == null || h.getMovimientos().isEmpty()) {
+        if (h == null || h.getCantidad() == 0) {
             JOptionPane.showMessageDialog(this,
                     "No hay movimientos registrados",
                     "Historial",
@@ -755,18 +1274,15 @@ public class Tablero extends JPanel {
         StringBuilder historialCompleto = new StringBuilder();
         historialCompleto.append("Historial completo de movimientos:\n\n");
 
-        // Obtiene la lista de movimientos
-        ArrayList<String> movimientos = h.getMovimientos();
-
         // Formatea los movimientos en pares (blancas/negras)
-        for (int i = 0; i < movimientos.size(); i++) {
+        for (int i = 0; i < h.getCantidad(); i++) {
             if (i % 2 == 0) {
                 // Para jugadas blancas, añade el nUmero de movimiento
                 int moveNum = (i / 2) + 1;
-                historialCompleto.append(String.format("%2d. %s", moveNum, movimientos.get(i)));
+                historialCompleto.append(String.format("%2d. %s", moveNum, h.getMovimiento(i)));
             } else {
                 // Para jugadas negras, completa la linea
-                historialCompleto.append(String.format("   %s\n", movimientos.get(i)));
+                historialCompleto.append(String.format("   %s\n", h.getMovimiento(i)));
             }
         }
 
@@ -779,22 +1295,14 @@ public class Tablero extends JPanel {
     }
 
     /**
-     * Verifica si hay material insuficiente para dar jaque mate
+     * Verifica si hay material insuficiente para que cualquiera de los dos de jaque mate
+     * Usa la firma de material de la posicion del motor, que se actualiza con cada movimiento
      *
-     * @param EsBlanco true para verificar las blancas, false para las negras
      * @return true si hay material insuficiente, false en caso contrario
      */
-    private boolean insuficienteMaterial(boolean EsBlanco){
-        // Obtiene una lista con los nombres de las piezas restantes del color especificado
-        ArrayList<String> nombres=piezasList.stream().filter(p->p.EsBlanco==EsBlanco).map(p->p.name).collect(Collectors.toCollection(ArrayList::new));
-
-        // Si existe una reina, torre o peon, hay suficiente material para dar mate
-        if(nombres.contains("Reina")||nombres.contains("Torre")||nombres.contains("Peon")){
-            return false;
-        }
-
-        // Si solo quedan el rey y una pieza mas (o solo el rey), el material es insuficiente
-        return nombres.size()<3;
+    private boolean insuficienteMaterial(){
+        Posicion pos = posicion != null ? posicion : construirPosicion();
+        return Material.esInsuficiente(pos.getMaterial());
     }
 
     /**
@@ -0,0 +1,155 @@
+package Main;
+
+import Motor.Jugada;
+import Motor.Notacion;
+import Motor.Posicion;
+import Motor.Repeticion;
+import Piezas.*;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Ventana para reproducir una partida jugada por jugada
+ * Una barra deslizante permite saltar a cualquier punto de la partida;
+ * la posicion sale de Repeticion, que parte de la copia guardada mas
+ * cercana, asi que el salto es inmediato aunque la partida sea larga
+ *
+ * Las piezas se dibujan con una pieza de muestra por tipo y color
+ * (se cargan sus imagenes una sola vez) en lugar de crear piezas nuevas
+ */
+public class VisorRepeticion extends JDialog {
+    private static final long serialVersionUID = 1L;// La ventana no se guarda con la partida
+    private final Tablero tablero;// Tablero de la partida, para colores y tamaño de casilla
+    private final transient Repeticion repeticion;// Jugadas y copias de la posicion
+    private final Pieza[] muestras = new Pieza[16];// Pieza de muestra por codigo de Posicion
+    private final JSlider barra;// Jugada que se muestra
+    private final JLabel jugadaLabel;// Numero y SAN de la ultima jugada mostrada
+    private final PanelPosicion panel = new PanelPosicion();
+    private transient Posicion posicion;// Posicion que se dibuja
+    private int ultimaJugada = Jugada.NULA;// Jugada que llevo a la posicion, para resaltarla
+
+    /**
+     * Crea la ventana mostrando la posicion final de la partida
+     *
+     * @param tablero Tablero de la partida
+     * @param repeticion Partida a reproducir
+     */
+    public VisorRepeticion(Tablero tablero, Repeticion repeticion) {
+        super(SwingUtilities.getWindowAncestor(tablero), "Repeticion de la partida", ModalityType.APPLICATION_MODAL);
+        this.tablero = tablero;
+        this.repeticion = repeticion;
+        crearMuestras();
+
+        // Barra para saltar a cualquier jugada y botones para ir de una en una
+        barra = new JSlider(0, repeticion.getPlies(), repeticion.getPlies());
+        barra.addChangeListener(e -> mostrar(barra.getValue()));
+        jugadaLabel = new JLabel();
+        jugadaLabel.setFont(new Font("Monospaced", Font.BOLD, 14));
+
+        JPanel controles = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        controles.add(boton("|<", () -> barra.setValue(0)));
+        controles.add(boton("<", () -> barra.setValue(barra.getValue() - 1)));
+        controles.add(jugadaLabel);
+        controles.add(boton(">", () -> barra.setValue(barra.getValue() + 1)));
+        controles.add(boton(">|", () -> barra.setValue(repeticion.getPlies())));
+
+        JPanel sur = new JPanel(new BorderLayout());
+        sur.add(barra, BorderLayout.NORTH);
+        sur.add(controles, BorderLayout.SOUTH);
+
+        setLayout(new BorderLayout());
+        add(panel, BorderLayout.CENTER);
+        add(sur, BorderLayout.SOUTH);
+        mostrar(repeticion.getPlies());
+        pack();
+        setLocationRelativeTo(tablero);
+    }
+
+    /**
+     * Crea un boton de la barra de controles
+     */
+    private static JButton boton(String texto, Runnable accion) {
+        JButton boton = new JButton(texto);
+        boton.setFocusPainted(false);
+        boton.addActionListener(e -> accion.run());
+        return boton;
+    }
+
+    /**
+     * Crea una pieza de muestra por tipo y color, indexada por su codigo de Posicion
+     */
+    private void crearMuestras() {
+        for (int color = Posicion.BLANCAS; color <= Posicion.NEGRAS; color++) {
+            boolean blanco = color == Posicion.BLANCAS;
+            muestras[Posicion.pieza(Posicion.PEON, color)] = new Peon(tablero, 0, 0, blanco);
+            muestras[Posicion.pieza(Posicion.CABALLO, color)] = new Caballo(tablero, 0, 0, blanco);
+            muestras[Posicion.pieza(Posicion.ALFIL, color)] = new Bishop(tablero, 0, 0, blanco);
+            muestras[Posicion.pieza(Posicion.TORRE, color)] = new Torre(tablero, 0, 0, blanco);
+            muestras[Posicion.pieza(Posicion.REINA, color)] = new Reina(tablero, 0, 0, blanco);
+            muestras[Posicion.pieza(Posicion.REY, color)] = new Rey(tablero, 0, 0, blanco);
+        }
+    }
+
+    /**
+     * Muestra la posicion despues de un numero de medias jugadas
+     *
+     * @param ply Medias jugadas desde el inicio
+     */
+    private void mostrar(int ply) {
+        String texto = "Inicio";
+        ultimaJugada = Jugada.NULA;
+        if (ply > 0) {
+            // La SAN se calcula en la posicion anterior; luego se avanza una sola jugada
+            Posicion antes = repeticion.posicion(ply - 1);
+            ultimaJugada = repeticion.getJugada(ply - 1);
+            int numero = (ply + 1) / 2;
+            texto = numero + (antes.getTurno() == Posicion.BLANCAS ? ". " : "... ") + Notacion.san(antes, ultimaJugada);
+        }
+        posicion = repeticion.posicion(ply);
+        jugadaLabel.setText(String.format("%-14s %3d/%d", texto, ply, repeticion.getPlies()));
+        panel.repaint();
+    }
+
+    /**
+     * Panel que dibuja la posicion actual con los colores del tablero
+     */
+    private class PanelPosicion extends JPanel {
+        private static final long serialVersionUID = 1L;
+
+        PanelPosicion() {
+            setPreferredSize(new Dimension(8 * tablero.tileSize, 8 * tablero.tileSize));
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            Graphics2D g2d = (Graphics2D) g;
+            int t = tablero.tileSize;
+            for (int sq = 0; sq < 64; sq++) {
+                int c = sq & 7;
+                int f = sq >> 3;
+                g2d.setColor((c + f) % 2 == 0 ? tablero.claro : tablero.oscuro);
+                g2d.fillRect(c * t, f * t, t, t);
+            }
+
+            // Resalta el origen y el destino de la ultima jugada
+            if (ultimaJugada != Jugada.NULA) {
+                g2d.setColor(new Color(255, 215, 0, 110));
+                for (int sq : new int[]{Jugada.desde(ultimaJugada), Jugada.hacia(ultimaJugada)}) {
+                    g2d.fillRect((sq & 7) * t, (sq >> 3) * t, t, t);
+                }
+            }
+
+            for (int sq = 0; sq < 64; sq++) {
+                int p = posicion.getPieza(sq);
+                if (p != Posicion.VACIO) {
+                    Pieza muestra = muestras[p];
+                    muestra.xPos = (sq & 7) * t;
+                    muestra.yPos = (sq >> 3) * t;
+                    muestra.paint(g2d);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package Motor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Un analisis en curso pedido a ServicioAnalisis
+ * Da acceso al resultado final como CompletableFuture y a las iteraciones
+ * intermedias (profundidad, puntuacion, PV) como un Flow.Publisher
+ *
+ * Ninguno de los dos bloquea al que los usa: los suscriptores reciben las
+ * actualizaciones en hilos del servicio, y si no las consumen a tiempo las
+ * mas antiguas se descartan en lugar de frenar la busqueda
+ */
+public final class Analisis {
+
+    private final CompletableFuture<ResultadoBusqueda> resultado = new CompletableFuture<>();
+    private final SubmissionPublisher<ResultadoBusqueda> actualizaciones;
+    private volatile Busqueda busqueda;// Busqueda en curso (null hasta que empieza)
+    private volatile boolean cancelado;
+
+    /**
+     * @param publicador Publicador de las actualizaciones, cerrado al terminar el analisis
+     */
+    Analisis(SubmissionPublisher<ResultadoBusqueda> publicador) {
+        this.actualizaciones = publicador;
+        // Cancelar el futuro tambien detiene la busqueda
+        resultado.whenComplete((r, e) -> {
+            if (resultado.isCancelled()) {
+                cancelar();
+            }
+        });
+    }
+
+    /**
+     * @return Futuro que se completa con el resultado de la ultima iteracion terminada
+     */
+    public CompletableFuture<ResultadoBusqueda> resultado() {
+        return resultado;
+    }
+
+    /**
+     * @return Publicador de cada iteracion completada; termina con onComplete al acabar el analisis
+     */
+    public Flow.Publisher<ResultadoBusqueda> actualizaciones() {
+        return actualizaciones;
+    }
+
+    /**
+     * Detiene el analisis lo antes posible
+     * El futuro se completa con lo encontrado hasta ese momento
+     * Se puede llamar desde cualquier hilo, incluido el de eventos de Swing
+     */
+    public void cancelar() {
+        cancelado = true;
+        Busqueda b = busqueda;
+        if (b != null) {
+            b.detener();
+        }
+    }
+
+    /**
+     * Ejecuta la busqueda en el hilo que llama (un hilo de busqueda del servicio)
+     */
+    ResultadoBusqueda ejecutar(Posicion pos, LimitesBusqueda limites, TablaTransposicion tabla) {
+        Busqueda b = new Busqueda(pos, tabla);
+        busqueda = b;
+        if (cancelado) {
+            b.detener();// Se cancelo antes de empezar
+        }
+        return b.buscar(limites, r -> actualizaciones.offer(r, null));
+    }
+
+    /**
+     * Termina el analisis con un resultado
+     */
+    void completar(ResultadoBusqueda r) {
+        actualizaciones.close();
+        resultado.complete(r);
+    }
+
+    /**
+     * Termina el analisis con un error (por ejemplo, un FEN invalido)
+     */
+    void fallar(Throwable error) {
+        actualizaciones.closeExceptionally(error);
+        resultado.completeExceptionally(error);
+    }
+}
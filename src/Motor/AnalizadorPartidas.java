@@ -0,0 +1,481 @@
+package Motor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Analizador de partidas por lotes
+ * Lee todas las partidas de un directorio o de un archivo zip, analiza cada
+ * posicion con un presupuesto fijo y escribe cada partida anotada, marcando
+ * imprecisiones (?!), errores (?) y errores graves (??) segun cuanto empeora
+ * la evaluacion con la jugada hecha
+ *
+ * Formatos de entrada:
+ * - Los archivos "_movimientos.txt" que guarda el juego (Guardar.saveGame),
+ *   por ejemplo los de "partida_finalizada_*", con jugadas como "Caballo Blanco a f3"
+ * - Archivos PGN con jugadas en SAN (Nf3) o en notacion de coordenadas (e2e4)
+ *
+ * Las partidas anotadas se escriben en SAN
+ *
+ * Las posiciones de cada partida se reparten entre todos los nucleos y
+ * comparten una tabla de transposicion por partida; se analizan desde la
+ * ultima hacia la primera para que la tabla ya tenga lo que viene despues
+ *
+ * Uso: java Motor.AnalizadorPartidas <directorio | archivo.zip> [-profundidad N | -nodos N | -movetime ms]
+ *                                    [-hilos N] [-salida directorio]
+ */
+public final class AnalizadorPartidas {
+
+    // Perdida de evaluacion (centipeones) a partir de la cual se marca la jugada
+    public static final int IMPRECISION = 50;
+    public static final int ERROR = 100;
+    public static final int ERROR_GRAVE = 300;
+
+    private static final int LIMITE_PUNTOS = 1000;// Los mates cuentan como 10 peones para la perdida
+    private static final Pattern JUGADA_TEXTO = Pattern.compile("(Peon|Caballo|Alfil|Torre|Reina|Rey) (Blanco|Negro) a ([a-h][1-8])");
+    private static final Pattern JUGADA_COORDENADAS = Pattern.compile("[a-h][1-8][a-h][1-8][qrbn]?");
+    private static final Pattern JUGADA_SAN = Pattern.compile("[NBRQK]?[a-h]?[1-8]?x?[a-h][1-8](=?[NBRQ])?|[O0]-[O0](-[O0])?");
+
+    public LimitesBusqueda limites = LimitesBusqueda.profundidad(8);// Presupuesto de cada posicion
+    public int hilos = Runtime.getRuntime().availableProcessors();
+    public long megabytesTabla = 16;// Tabla de transposicion de cada partida
+
+    private long posicionesAnalizadas;
+    private long nanosAnalisis;
+
+    /**
+     * Una partida leida de un archivo
+     */
+    public static final class Partida {
+        public final String nombre;// Nombre del archivo (y numero de partida si hay varias)
+        public final String fen;// Posicion inicial
+        public final int[] jugadas;
+        public final String[] textos;// Cada jugada como venia en el archivo
+
+        Partida(String nombre, String fen, int[] jugadas, String[] textos) {
+            this.nombre = nombre;
+            this.fen = fen;
+            this.jugadas = jugadas;
+            this.textos = textos;
+        }
+    }
+
+    /**
+     * Resultado del analisis de una partida
+     */
+    public static final class PartidaAnalizada {
+        public final Partida partida;
+        public final int[] puntos;// Evaluacion de cada posicion (jugadas.length + 1) desde el punto de vista del que mueve
+        public final int[] mejores;// Mejor jugada de cada posicion segun el motor
+        public final int[] perdidas;// Centipeones que perdio cada jugada
+        public final String texto;// Partida anotada
+        public final long nanos;// Tiempo que llevo el analisis
+
+        PartidaAnalizada(Partida partida, int[] puntos, int[] mejores, int[] perdidas, String texto, long nanos) {
+            this.partida = partida;
+            this.puntos = puntos;
+            this.mejores = mejores;
+            this.perdidas = perdidas;
+            this.texto = texto;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return Posiciones de la partida analizadas por segundo
+         */
+        public double posicionesPorSegundo() {
+            return puntos.length * 1e9 / Math.max(1, nanos);
+        }
+    }
+
+    /**
+     * Punto de entrada del analizador
+     *
+     * @param args Entrada seguida de las opciones, ver la documentacion de la clase
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Uso: java Motor.AnalizadorPartidas <directorio | archivo.zip> [opciones]");
+            return;
+        }
+        AnalizadorPartidas analizador = new AnalizadorPartidas();
+        Path entrada = Paths.get(args[0]);
+        Path salida = null;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            String valor = args[i + 1];
+            switch (args[i]) {
+                case "-profundidad" -> analizador.limites = LimitesBusqueda.profundidad(Integer.parseInt(valor));
+                case "-nodos" -> {
+                    analizador.limites = new LimitesBusqueda();
+                    analizador.limites.nodos = Long.parseLong(valor);
+                }
+                case "-movetime" -> analizador.limites = LimitesBusqueda.tiempo(Long.parseLong(valor));
+                case "-hilos" -> analizador.hilos = Integer.parseInt(valor);
+                case "-salida" -> salida = Paths.get(valor);
+                default -> System.out.println("Opcion desconocida: " + args[i]);
+            }
+        }
+        List<PartidaAnalizada> analizadas = analizador.analizar(entrada, salida, a -> System.out.printf(
+                "%s: %d posiciones, %.1f posiciones/s%n", a.partida.nombre, a.puntos.length, a.posicionesPorSegundo()));
+        System.out.printf("%d partidas, %d posiciones, %.1f posiciones/s%n",
+                analizadas.size(), analizador.getPosicionesAnalizadas(), analizador.posicionesPorSegundo());
+    }
+
+    /**
+     * Analiza todas las partidas de un directorio o zip y escribe cada una anotada
+     *
+     * @param entrada Directorio (se recorre con subdirectorios) o archivo .zip
+     * @param salida Directorio para las partidas anotadas; null para usar "analisis" junto a la entrada
+     * @return Partidas analizadas
+     * @throws IOException Si no se pudo leer la entrada o escribir la salida
+     */
+    public List<PartidaAnalizada> analizar(Path entrada, Path salida) throws IOException {
+        return analizar(entrada, salida, null);
+    }
+
+    /**
+     * Analiza todas las partidas de un directorio o zip y escribe cada una anotada,
+     * avisando al terminar cada partida
+     *
+     * @param entrada Directorio (se recorre con subdirectorios) o archivo .zip
+     * @param salida Directorio para las partidas anotadas; null para usar "analisis" junto a la entrada
+     * @param progreso Recibe cada partida ya analizada y escrita (puede ser null)
+     * @return Partidas analizadas
+     * @throws IOException Si no se pudo leer la entrada o escribir la salida
+     */
+    public List<PartidaAnalizada> analizar(Path entrada, Path salida, Consumer<PartidaAnalizada> progreso) throws IOException {
+        if (salida == null) {
+            Path base = Files.isDirectory(entrada) ? entrada : entrada.toAbsolutePath().getParent();
+            salida = base.resolve("analisis");
+        }
+        Files.createDirectories(salida);
+
+        List<Partida> partidas = leer(entrada);
+        List<PartidaAnalizada> analizadas = new ArrayList<>();
+        ExecutorService grupo = Executors.newFixedThreadPool(Math.max(1, hilos), r -> {
+            Thread t = new Thread(r, "analizador");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            for (Partida p : partidas) {
+                PartidaAnalizada a = analizar(p, grupo);
+                synchronized (this) {
+                    posicionesAnalizadas += p.jugadas.length + 1;
+                    nanosAnalisis += a.nanos;
+                }
+                analizadas.add(a);
+                Path archivo = salida.resolve(p.nombre.replaceAll("[^A-Za-z0-9_.-]", "_") + "_analisis.pgn");
+                Files.writeString(archivo, a.texto, StandardCharsets.UTF_8);
+                if (progreso != null) {
+                    progreso.accept(a);
+                }
+            }
+        } finally {
+            grupo.shutdown();
+        }
+        return analizadas;
+    }
+
+    /**
+     * @return Posiciones analizadas hasta ahora
+     */
+    public synchronized long getPosicionesAnalizadas() {
+        return posicionesAnalizadas;
+    }
+
+    /**
+     * @return Rendimiento medio en posiciones por segundo
+     */
+    public synchronized double posicionesPorSegundo() {
+        return posicionesAnalizadas * 1e9 / Math.max(1, nanosAnalisis);
+    }
+
+    /**
+     * Analiza las posiciones de una partida en paralelo con una tabla compartida
+     *
+     * @param p Partida
+     * @param grupo Hilos del analizador
+     * @return Partida analizada
+     */
+    PartidaAnalizada analizar(Partida p, ExecutorService grupo) throws IOException {
+        long inicio = System.nanoTime();
+        int n = p.jugadas.length;
+        Posicion[] posiciones = new Posicion[n + 1];
+        posiciones[0] = Posicion.desdeFen(p.fen);
+        for (int i = 0; i < n; i++) {
+            posiciones[i + 1] = posiciones[i].copiar();
+            posiciones[i + 1].hacer(p.jugadas[i]);
+        }
+
+        int[] puntos = new int[n + 1];
+        int[] mejores = new int[n + 1];
+        try (TablaTransposicion tabla = new TablaTransposicion(megabytesTabla, false)) {
+            List<Future<ResultadoBusqueda>> futuros = new ArrayList<>();
+            for (int i = n; i >= 0; i--) {
+                Posicion pos = posiciones[i];
+                futuros.add(grupo.submit(() -> new Busqueda(pos.copiar(), tabla).buscar(limites.copiar(), null)));
+            }
+            for (int i = n; i >= 0; i--) {
+                ResultadoBusqueda r = futuros.get(n - i).get();
+                puntos[i] = r.puntos;
+                mejores[i] = r.mejorJugada();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Analisis interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error al analizar " + p.nombre, e.getCause());
+        }
+
+        // La jugada pierde lo que habia antes menos lo que queda despues (visto por el mismo lado)
+        int[] perdidas = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (p.jugadas[i] != mejores[i]) {
+                perdidas[i] = Math.max(0, acotar(puntos[i]) + acotar(puntos[i + 1]));
+            }
+        }
+        String texto = anotar(p, posiciones, puntos, mejores, perdidas);
+        return new PartidaAnalizada(p, puntos, mejores, perdidas, texto, System.nanoTime() - inicio);
+    }
+
+    /**
+     * Limita las puntuaciones de mate para que la perdida no dependa de su distancia
+     */
+    private static int acotar(int puntos) {
+        return Math.max(-LIMITE_PUNTOS, Math.min(LIMITE_PUNTOS, puntos));
+    }
+
+    /**
+     * @param perdida Centipeones perdidos por la jugada
+     * @return "??", "?", "?!" o "" segun la perdida
+     */
+    public static String marca(int perdida) {
+        if (perdida >= ERROR_GRAVE) {
+            return "??";
+        }
+        if (perdida >= ERROR) {
+            return "?";
+        }
+        if (perdida >= IMPRECISION) {
+            return "?!";
+        }
+        return "";
+    }
+
+    /**
+     * Escribe la partida en PGN con las marcas y, en las jugadas marcadas,
+     * un comentario con la evaluacion (desde blancas) y la jugada del motor
+     */
+    private String anotar(Partida p, Posicion[] posiciones, int[] puntos, int[] mejores, int[] perdidas) {
+        int[] cuenta = new int[3];
+        StringBuilder movimientos = new StringBuilder();
+        int numero = Torneo.numeroJugada(p.fen);
+        for (int i = 0; i < p.jugadas.length; i++) {
+            Posicion pos = posiciones[i];
+            boolean blancas = pos.getTurno() == Posicion.BLANCAS;
+            if (blancas) {
+                movimientos.append(numero).append(". ");
+            } else {
+                if (i == 0) {
+                    movimientos.append(numero).append("... ");
+                }
+                numero++;
+            }
+            String marca = marca(perdidas[i]);
+            movimientos.append(Notacion.san(pos, p.jugadas[i])).append(marca);
+            if (!marca.isEmpty()) {
+                cuenta[marca.equals("??") ? 2 : marca.equals("?") ? 1 : 0]++;
+                int despues = blancas ? -puntos[i + 1] : puntos[i + 1];
+                movimientos.append(" {").append(peones(despues)).append(", mejor ")
+                        .append(mejores[i] == Jugada.NULA ? "--" : Notacion.san(pos, mejores[i])).append(' ').append(peones(blancas ? puntos[i] : -puntos[i])).append('}');
+            }
+            movimientos.append(!blancas || i == p.jugadas.length - 1 ? "\n" : " ");
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("[Event \"").append(p.nombre).append("\"]\n");
+        sb.append("[Annotator \"PIA_POO\"]\n");
+        if (!p.fen.equals(Posicion.FEN_INICIAL)) {
+            sb.append("[SetUp \"1\"]\n");
+            sb.append("[FEN \"").append(p.fen).append("\"]\n");
+        }
+        sb.append("{Imprecisiones: ").append(cuenta[0]).append(", errores: ").append(cuenta[1])
+                .append(", errores graves: ").append(cuenta[2]).append("}\n\n");
+        sb.append(movimientos);
+        sb.append("*\n");
+        return sb.toString();
+    }
+
+    /**
+     * Evaluacion en peones con signo, o "#N" para los mates
+     */
+    private static String peones(int puntos) {
+        if (Math.abs(puntos) >= Busqueda.MATE_LIMITE) {
+            int jugadas = (Busqueda.MATE - Math.abs(puntos) + 1) / 2;
+            return (puntos > 0 ? "#" : "#-") + jugadas;
+        }
+        return String.format("%+.2f", puntos / 100.0);
+    }
+
+    /**
+     * Lee las partidas de un directorio o de un zip
+     *
+     * @param entrada Directorio o archivo .zip
+     * @return Partidas encontradas, en orden de nombre de archivo
+     */
+    public static List<Partida> leer(Path entrada) throws IOException {
+        List<Partida> partidas = new ArrayList<>();
+        if (Files.isDirectory(entrada)) {
+            List<Path> archivos;
+            try (Stream<Path> s = Files.walk(entrada)) {
+                archivos = s.filter(Files::isRegularFile).filter(f -> esPartida(f.getFileName().toString())).sorted().toList();
+            }
+            for (Path f : archivos) {
+                leerTexto(f.getFileName().toString(), Files.readString(f, StandardCharsets.UTF_8), partidas);
+            }
+        } else {
+            try (ZipFile zip = new ZipFile(entrada.toFile())) {
+                Enumeration<? extends ZipEntry> entradas = zip.entries();
+                while (entradas.hasMoreElements()) {
+                    ZipEntry e = entradas.nextElement();
+                    String nombre = Paths.get(e.getName()).getFileName().toString();
+                    if (!e.isDirectory() && esPartida(nombre)) {
+                        try (InputStream in = zip.getInputStream(e)) {
+                            leerTexto(nombre, new String(in.readAllBytes(), StandardCharsets.UTF_8), partidas);
+                        }
+                    }
+                }
+            }
+        }
+        return partidas;
+    }
+
+    /**
+     * Indica si el archivo tiene un formato que el analizador entiende
+     */
+    private static boolean esPartida(String nombre) {
+        return nombre.endsWith("_movimientos.txt") || nombre.endsWith(".pgn") && !nombre.endsWith("_analisis.pgn");
+    }
+
+    /**
+     * Lee las partidas de un archivo ya cargado en memoria
+     *
+     * @param nombre Nombre del archivo
+     * @param contenido Contenido del archivo
+     * @param partidas Lista donde se agregan las partidas leidas
+     */
+    static void leerTexto(String nombre, String contenido, List<Partida> partidas) {
+        String base = nombre.replaceFirst("(_movimientos\\.txt|\\.pgn)$", "");
+        if (nombre.endsWith("_movimientos.txt")) {
+            partidas.add(leerMovimientos(base, contenido));
+            return;
+        }
+        // Un PGN puede traer varias partidas, cada una empieza con sus etiquetas
+        String[] bloques = contenido.split("(?m)^(?=\\[Event )");
+        int numero = 0;
+        for (String bloque : bloques) {
+            if (bloque.isBlank()) {
+                continue;
+            }
+            numero++;
+            partidas.add(leerPgn(bloques.length > 1 ? base + "_" + numero : base, bloque));
+        }
+    }
+
+    /**
+     * Lee el historial que guarda el juego: "1. Peon Blanco a e4 Peon Negro a e5"
+     * Cada jugada da la pieza y la casilla de llegada; se busca la jugada legal
+     * que coincide (en una promocion se supone reina)
+     */
+    private static Partida leerMovimientos(String nombre, String contenido) {
+        Posicion pos = Posicion.desdeFen(Posicion.FEN_INICIAL);
+        int[] legales = new int[Posicion.MAX_JUGADAS];
+        List<Integer> jugadas = new ArrayList<>();
+        List<String> textos = new ArrayList<>();
+        Matcher m = JUGADA_TEXTO.matcher(contenido);
+        while (m.find()) {
+            int tipo = switch (m.group(1)) {
+                case "Peon" -> Posicion.PEON;
+                case "Caballo" -> Posicion.CABALLO;
+                case "Alfil" -> Posicion.ALFIL;
+                case "Torre" -> Posicion.TORRE;
+                case "Reina" -> Posicion.REINA;
+                default -> Posicion.REY;
+            };
+            int hacia = (8 - (m.group(3).charAt(1) - '0')) * 8 + (m.group(3).charAt(0) - 'a');
+            int elegida = Jugada.NULA;
+            int n = pos.generarLegales(legales);
+            for (int i = 0; i < n; i++) {
+                int j = legales[i];
+                if (Jugada.hacia(j) == hacia && Posicion.tipo(pos.getPieza(Jugada.desde(j))) == tipo
+                        && (!Jugada.esPromocion(j) || Jugada.piezaPromocion(j) == Posicion.REINA)) {
+                    elegida = j;
+                    break;
+                }
+            }
+            if (elegida == Jugada.NULA) {
+                break;// Jugada que no corresponde a la posicion: se analiza hasta aqui
+            }
+            pos.hacer(elegida);
+            jugadas.add(elegida);
+            textos.add(m.group());
+        }
+        return new Partida(nombre, Posicion.FEN_INICIAL, jugadas.stream().mapToInt(Integer::intValue).toArray(), textos.toArray(new String[0]));
+    }
+
+    /**
+     * Lee una partida PGN con jugadas en SAN o en notacion de coordenadas
+     * Se ignoran comentarios, variantes, numeros de jugada y resultados
+     */
+    private static Partida leerPgn(String nombre, String contenido) {
+        String fen = Posicion.FEN_INICIAL;
+        Matcher etiqueta = Pattern.compile("(?m)^\\[FEN \"([^\"]+)\"\\]").matcher(contenido);
+        if (etiqueta.find()) {
+            fen = etiqueta.group(1);
+        }
+        String movimientos = contenido.replaceAll("(?m)^\\[.*\\]$", " ")
+                .replaceAll("\\{[^}]*\\}", " ")
+                .replaceAll("\\([^)]*\\)", " ");
+
+        Posicion pos = Posicion.desdeFen(fen);
+        int[] legales = new int[Posicion.MAX_JUGADAS];
+        List<Integer> jugadas = new ArrayList<>();
+        List<String> textos = new ArrayList<>();
+        for (String token : movimientos.split("\\s+")) {
+            token = token.replaceAll("^\\d+\\.+", "").replaceAll("[?!+#]+$", "");
+            int jugada;
+            if (JUGADA_COORDENADAS.matcher(token).matches()) {
+                jugada = Uci.buscarJugada(pos, token, legales);
+            } else if (JUGADA_SAN.matcher(token).matches()) {
+                jugada = Notacion.buscar(pos, token, legales);
+            } else {
+                continue;
+            }
+            if (jugada == Jugada.NULA) {
+                break;
+            }
+            pos.hacer(jugada);
+            jugadas.add(jugada);
+            textos.add(token);
+        }
+        return new Partida(nombre, fen, jugadas.stream().mapToInt(Integer::intValue).toArray(), textos.toArray(new String[0]));
+    }
+}
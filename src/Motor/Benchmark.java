@@ -0,0 +1,125 @@
+package Motor;
+
+/**
+ * Pruebas de rendimiento del motor desde la linea de comandos
+ * Uso: java Motor.Benchmark smp [profundidad] [maxHilos]
+ *      java Motor.Benchmark ordenamiento [profundidad]
+ *
+ * Los resultados se imprimen por la salida estandar en forma de tabla
+ */
+public class Benchmark {
+
+    // Posiciones de prueba: apertura, medio juego tactico y final
+    static final String[] POSICIONES = {
+            Posicion.FEN_INICIAL,
+            "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+    };
+
+    /**
+     * Punto de entrada de las pruebas de rendimiento
+     *
+     * @param args Tipo de prueba seguido de sus parametros
+     */
+    public static void main(String[] args) {
+        String prueba = args.length > 0 ? args[0] : "smp";
+        switch (prueba) {
+            case "smp":
+                int profundidad = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+                int maxHilos = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+                smp(profundidad, maxHilos);
+                break;
+            case "ordenamiento":
+                ordenamiento(args.length > 1 ? Integer.parseInt(args[1]) : 5);
+                break;
+            default:
+                System.out.println("Prueba desconocida: " + prueba);
+        }
+    }
+
+    /**
+     * Mide el tiempo hasta una profundidad y los nodos por segundo de la
+     * busqueda paralela con 1, 2, 4... hasta maxHilos hilos
+     *
+     * @param profundidad Profundidad fija de cada busqueda
+     * @param maxHilos Maximo numero de hilos a probar
+     */
+    static void smp(int profundidad, int maxHilos) {
+        System.out.printf("Lazy SMP, profundidad %d, %d posiciones%n", profundidad, POSICIONES.length);
+        System.out.printf("%6s %12s %10s %12s %10s %10s%n", "hilos", "tiempo(ms)", "acelerac.", "nodos", "nps", "escala nps");
+        long tiempoBase = 0;
+        long npsBase = 0;
+        for (int hilos = 1; hilos <= maxHilos; hilos = hilos < maxHilos && hilos * 2 > maxHilos ? maxHilos : hilos * 2) {
+            long tiempo = 0;
+            long nodos = 0;
+            try (TablaTransposicion tabla = new TablaTransposicion(64, false);
+                 BusquedaParalela busqueda = new BusquedaParalela(tabla, hilos)) {
+                for (String fen : POSICIONES) {
+                    tabla.limpiar();
+                    long t = System.nanoTime();
+                    ResultadoBusqueda r = busqueda.buscar(Posicion.desdeFen(fen), LimitesBusqueda.profundidad(profundidad), null);
+                    tiempo += (System.nanoTime() - t) / 1_000_000L;
+                    nodos += r.nodos;
+                }
+            }
+            long nps = nodos * 1000 / Math.max(1, tiempo);
+            if (hilos == 1) {
+                tiempoBase = tiempo;
+                npsBase = nps;
+            }
+            System.out.printf("%6d %12d %10.2f %12d %10d %10.2f%n", hilos, tiempo,
+                    (double) tiempoBase / Math.max(1, tiempo), nodos, nps, (double) nps / Math.max(1, npsBase));
+            if (hilos == maxHilos) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Compara los nodos de la busqueda con y sin ordenamiento de jugadas
+     * Para cada profundidad imprime los nodos totales de todas las posiciones
+     * y el factor de ramificacion efectivo, nodos(d) / nodos(d - 1): lo que
+     * crece el arbol al buscar una profundidad mas (en la primera no hay con que compararlo)
+     *
+     * @param maxProfundidad Profundidad maxima a medir
+     */
+    static void ordenamiento(int maxProfundidad) {
+        System.out.printf("Ordenamiento de jugadas, %d posiciones%n", POSICIONES.length);
+        System.out.printf("%5s %12s %8s %12s %8s %10s%n", "prof", "nodos sin", "EBF sin", "nodos con", "EBF con", "reduccion");
+        long anteriorSin = 0;
+        long anteriorCon = 0;
+        for (int prof = 1; prof <= maxProfundidad; prof++) {
+            long sin = nodosTotales(prof, false);
+            long con = nodosTotales(prof, true);
+            System.out.printf("%5d %12d %8s %12d %8s %9.1f%%%n", prof, sin, ramificacion(sin, anteriorSin),
+                    con, ramificacion(con, anteriorCon), 100.0 * (sin - con) / Math.max(1, sin));
+            anteriorSin = sin;
+            anteriorCon = con;
+        }
+    }
+
+    /**
+     * @return Factor de ramificacion efectivo con dos decimales, o "-" si no hay profundidad anterior
+     */
+    private static String ramificacion(long nodos, long anteriores) {
+        return anteriores > 0 ? String.format("%.2f", nodos / (double) anteriores) : "-";
+    }
+
+    /**
+     * Suma los nodos de buscar todas las posiciones a una profundidad fija,
+     * cada una con una tabla de transposicion vacia
+     */
+    private static long nodosTotales(int prof, boolean ordenar) {
+        long nodos = 0;
+        for (String fen : POSICIONES) {
+            try (TablaTransposicion tabla = new TablaTransposicion(16, false)) {
+                Busqueda busqueda = new Busqueda(Posicion.desdeFen(fen), tabla);
+                busqueda.setOrdenamiento(ordenar);
+                nodos += busqueda.buscar(LimitesBusqueda.profundidad(prof), null).nodos;
+            }
+        }
+        return nodos;
+    }
+}
@@ -0,0 +1,530 @@
+package Motor;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Busqueda alfa-beta en formato negamax con profundizacion iterativa,
+ * terminada en una busqueda de quietud sobre capturas y promociones
+ * Trabaja sobre una Posicion sin interfaz grafica y conserva la variante
+ * principal (PV) de cada iteracion
+ *
+ * Se detiene al completar la profundidad pedida, al agotar el numero de nodos
+ * o el tiempo, o cuando otro hilo llama a detener()
+ * Una busqueda en modo ponder (pensando en el tiempo del rival) no tiene
+ * limite de tiempo hasta que otro hilo llama a ponderhit()
+ * Una instancia no es segura para usarse desde varios hilos a la vez,
+ * salvo el metodo detener()
+ */
+public final class Busqueda {
+
+    public static final int MAX_PLY = 64;// Profundidad maxima de la busqueda
+    public static final int MATE = 32000;// Puntuacion de un mate inmediato
+    public static final int MATE_LIMITE = MATE - MAX_PLY;// Cualquier puntuacion por encima es un mate
+    public static final int INFINITO = 32001;
+    private static final int MARGEN_DELTA = 200;// Margen de la poda delta en la busqueda de quietud
+
+    private final Posicion pos;// Posicion sobre la que se busca
+    private final TablaTransposicion tabla;// Tabla de transposicion (puede compartirse entre hilos)
+
+    // Arreglos preasignados para no crear objetos durante la busqueda
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLargo = new int[MAX_PLY + 1];
+    private final OrdenMovimientos orden = new OrdenMovimientos();// Heuristicas de orden de este hilo
+    private final SelectorMovimientos[] selectores = new SelectorMovimientos[MAX_PLY];// Uno por ply
+    private boolean ordenar = true;// false = probar las jugadas en el orden del generador
+
+    private volatile boolean detener;// Peticion externa para detener la busqueda
+    private volatile boolean ponder;// Se piensa en el tiempo del rival: sin limite de tiempo
+    private volatile LimitesBusqueda ponderhit;// Limites recibidos de ponderhit() desde otro hilo
+    private GestorTiempo gestor;// Reparto del reloj de la partida (null si no se juega con reloj)
+    private long inicioReloj;// Instante desde el que cuenta el tiempo de la jugada
+    private boolean abortada;// La iteracion actual se interrumpio
+    private long nodos;// Nodos visitados
+    private long limiteNodos;// Maximo de nodos (0 = sin limite)
+    private int maxProfundidad;// Ultima profundidad de la profundizacion iterativa
+    private int profundidadActual;// Profundidad de la iteracion en curso
+    private long limiteTiempo;// Instante limite en System.nanoTime() (0 = sin limite)
+    private long inicio;// Instante de inicio de la busqueda
+    private int ayudante;// Indice de hilo ayudante en la busqueda paralela (0 = hilo principal)
+
+    /**
+     * Crea una busqueda sobre una posicion con una tabla de transposicion propia
+     * La posicion se modifica durante la busqueda y queda igual al terminar
+     *
+     * @param pos Posicion a analizar
+     */
+    public Busqueda(Posicion pos) {
+        this(pos, new TablaTransposicion(8, false));
+    }
+
+    /**
+     * Crea una busqueda sobre una posicion usando una tabla de transposicion dada
+     * La tabla se puede conservar entre jugadas o compartir con otras busquedas
+     *
+     * @param pos Posicion a analizar
+     * @param tabla Tabla de transposicion
+     */
+    public Busqueda(Posicion pos, TablaTransposicion tabla) {
+        this.pos = pos;
+        this.tabla = tabla;
+        for (int i = 0; i < MAX_PLY; i++) {
+            selectores[i] = new SelectorMovimientos(orden);
+        }
+    }
+
+    /**
+     * Pide que la busqueda termine lo antes posible
+     * Se puede llamar desde cualquier hilo, incluso antes de que la busqueda
+     * empiece: la peticion se conserva hasta que termine la siguiente busqueda
+     */
+    public void detener() {
+        detener = true;
+        synchronized (this) {
+            notifyAll();// Despierta una busqueda en ponder que ya termino
+        }
+    }
+
+    /**
+     * El rival hizo la jugada esperada: la busqueda en modo ponder continua
+     * sin perder lo ya buscado, pero desde ahora con limites de tiempo
+     * Se puede llamar desde cualquier hilo; como detener(), la peticion se
+     * conserva hasta que termine la siguiente busqueda
+     *
+     * @param limites Limites de tiempo de la jugada, contados desde este momento
+     */
+    public synchronized void ponderhit(LimitesBusqueda limites) {
+        ponderhit = limites;
+        notifyAll();
+    }
+
+    /**
+     * Convierte esta busqueda en un hilo ayudante de la busqueda paralela
+     * Los ayudantes empiezan en profundidades distintas y recorren la raiz
+     * en otro orden, asi exploran partes diferentes del arbol y llenan la
+     * tabla de transposicion compartida con informacion util para los demas
+     *
+     * @param indice Indice del ayudante (1 en adelante)
+     */
+    public void setAyudante(int indice) {
+        this.ayudante = indice;
+    }
+
+    /**
+     * Activa o desactiva el ordenamiento de jugadas de la busqueda principal
+     * (la busqueda de quietud siempre ordena sus capturas)
+     * Solo tiene sentido desactivarlo para medir su efecto en las pruebas de rendimiento
+     *
+     * @param ordenar true para usar tabla, MVV-LVA, asesinas e historia
+     */
+    public void setOrdenamiento(boolean ordenar) {
+        this.ordenar = ordenar;
+    }
+
+    /**
+     * Busca la mejor jugada con profundizacion iterativa
+     *
+     * @param limites Limites de profundidad, nodos y tiempo
+     * @param oyente Recibe el resultado de cada iteracion completada (puede ser null)
+     * @return Resultado de la ultima iteracion completada
+     */
+    public ResultadoBusqueda buscar(LimitesBusqueda limites, Consumer<ResultadoBusqueda> oyente) {
+        abortada = false;
+        nodos = 0;
+        inicio = System.nanoTime();
+        limiteTiempo = 0;
+        gestor = null;
+        ponder = limites.ponder;
+        aplicarProfundidadYNodos(limites);
+        if (ponder) {
+            revisarPonderhit();
+        } else {
+            aplicarTiempo(limites);
+        }
+        if (ayudante == 0) {
+            tabla.nuevaBusqueda();// Con varios hilos solo el principal cambia la edad
+        }
+        orden.nuevaBusqueda();
+
+        // Sin jugadas legales: mate o ahogado
+        int[] raiz = new int[Posicion.MAX_JUGADAS];
+        int n = pos.generarLegales(raiz);
+        if (n == 0) {
+            detener = false;
+            ponder = false;
+            ponderhit = null;
+            return new ResultadoBusqueda(0, pos.enJaque() ? -MATE : 0, 0, 0, new int[0]);
+        }
+
+        // Los ayudantes rotan la lista de la raiz y se saltan profundidades
+        if (ayudante > 0) {
+            rotar(raiz, n, ayudante % n);
+        }
+        ResultadoBusqueda mejor = null;
+        for (int prof = 1 + (ayudante & 1); prof <= maxProfundidad; prof += ayudante > 0 && prof % 3 == ayudante % 3 ? 2 : 1) {
+            profundidadActual = prof;
+            int puntos = buscarRaiz(raiz, n, prof);
+            if (abortada) {
+                break;// La iteracion incompleta no es fiable
+            }
+
+            mejor = new ResultadoBusqueda(prof, puntos, nodos, milisegundos(), Arrays.copyOf(pv[0], pvLargo[0]));
+            if (oyente != null) {
+                oyente.accept(mejor);
+            }
+            revisarPonderhit();
+
+            // Un mate encontrado a esta profundidad ya no puede mejorar
+            if (mejor.esMate() && MATE - Math.abs(puntos) <= prof) {
+                break;
+            }
+
+            // El gestor decide si queda tiempo para otra iteracion
+            // (con una sola jugada legal no hay nada que pensar)
+            if (gestor != null) {
+                gestor.iteracion(mejor.mejorJugada(), puntos);
+                if (n == 1 || !gestor.seguir((System.nanoTime() - inicioReloj) / 1_000_000L)) {
+                    break;
+                }
+            }
+        }
+
+        // Si ni la primera iteracion termino, devuelve la primera jugada legal
+        if (mejor == null) {
+            mejor = new ResultadoBusqueda(0, 0, nodos, milisegundos(), new int[]{raiz[0]});
+        }
+        esperarPonderhit();
+        detener = false;
+        ponder = false;
+        ponderhit = null;
+        return mejor;
+    }
+
+    /**
+     * Fija la profundidad maxima y el limite de nodos (los nodos cuentan desde
+     * el inicio de la busqueda, incluidos los buscados en modo ponder)
+     */
+    private void aplicarProfundidadYNodos(LimitesBusqueda limites) {
+        maxProfundidad = limites.profundidad > 0 ? Math.min(limites.profundidad, MAX_PLY - 1) : MAX_PLY - 1;
+        limiteNodos = limites.nodos;
+    }
+
+    /**
+     * Fija el limite de tiempo y el gestor del reloj contando desde ahora
+     */
+    private void aplicarTiempo(LimitesBusqueda limites) {
+        inicioReloj = System.nanoTime();
+        limiteTiempo = limites.tiempoMs > 0 ? inicioReloj + limites.tiempoMs * 1_000_000L : 0;
+
+        // Con reloj de partida el gestor fija el limite duro y decide entre iteraciones
+        if (limites.relojMs > 0 && ayudante == 0) {
+            gestor = new GestorTiempo(limites.relojMs, limites.incrementoMs, limites.numeroJugada, limites.jugadasHastaControl);
+            long duro = inicioReloj + gestor.getDuro() * 1_000_000L;
+            limiteTiempo = limiteTiempo == 0 ? duro : Math.min(limiteTiempo, duro);
+        }
+    }
+
+    /**
+     * Si llego un ponderhit, sale del modo ponder con los limites de la jugada:
+     * empieza a contar el tiempo y toma su profundidad y sus nodos
+     */
+    private void revisarPonderhit() {
+        LimitesBusqueda limites = ponderhit;
+        if (ponder && limites != null) {
+            aplicarProfundidadYNodos(limites);
+            aplicarTiempo(limites);
+            ponder = false;
+        }
+    }
+
+    /**
+     * Una busqueda en modo ponder que ya termino (mate encontrado o profundidad
+     * maxima) no devuelve su resultado hasta que llegue ponderhit o detener
+     */
+    private synchronized void esperarPonderhit() {
+        while (ponder && ponderhit == null && !detener) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rota los primeros n elementos de una lista k posiciones a la izquierda
+     */
+    private static void rotar(int[] lista, int n, int k) {
+        int[] copia = Arrays.copyOf(lista, n);
+        for (int i = 0; i < n; i++) {
+            lista[i] = copia[(i + k) % n];
+        }
+    }
+
+    /**
+     * Busca todas las jugadas de la raiz a una profundidad
+     * La mejor jugada se mueve al inicio de la lista para la siguiente iteracion
+     */
+    private int buscarRaiz(int[] raiz, int n, int prof) {
+        int alfa = -INFINITO;
+        pvLargo[0] = 0;
+        for (int i = 0; i < n; i++) {
+            int jugada = raiz[i];
+            pos.hacer(jugada);
+            int puntos = -alfaBeta(prof - 1, -INFINITO, -alfa, 1);
+            pos.deshacer(jugada);
+            if (abortada) {
+                return alfa;
+            }
+            if (puntos > alfa) {
+                alfa = puntos;
+                actualizarPv(0, jugada);
+                System.arraycopy(raiz, 0, raiz, 1, i);
+                raiz[0] = jugada;
+            }
+        }
+        return alfa;
+    }
+
+    /**
+     * Busqueda alfa-beta recursiva
+     *
+     * @param prof Profundidad restante
+     * @param alfa Cota inferior
+     * @param beta Cota superior
+     * @param ply Distancia a la raiz
+     * @return Puntuacion desde el punto de vista del que mueve
+     */
+    private int alfaBeta(int prof, int alfa, int beta, int ply) {
+        pvLargo[ply] = 0;
+        nodos++;
+        revisarLimites();
+        if (abortada) {
+            return 0;
+        }
+        // Una posicion repetida (en el arbol o en la partida) o la regla de 50 jugadas son tablas
+        if (ply > 0 && (pos.esRegla50() || pos.esRepeticion())) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return Evaluacion.evaluar(pos);
+        }
+        if (prof <= 0) {
+            return quietud(alfa, beta, ply);
+        }
+
+        // Consulta la tabla de transposicion: si la posicion ya se busco a
+        // suficiente profundidad, su puntuacion puede cortar el nodo
+        long entrada = tabla.buscar(pos.getHash());
+        int jugadaTabla = entrada != 0 ? TablaTransposicion.jugada(entrada) : Jugada.NULA;
+        if (entrada != 0 && TablaTransposicion.profundidad(entrada) >= prof) {
+            int puntos = desdeTabla(TablaTransposicion.puntos(entrada), ply);
+            int cota = TablaTransposicion.cota(entrada);
+            if (cota == TablaTransposicion.COTA_EXACTA
+                    || (cota == TablaTransposicion.COTA_INFERIOR && puntos >= beta)
+                    || (cota == TablaTransposicion.COTA_SUPERIOR && puntos <= alfa)) {
+                if (jugadaTabla != Jugada.NULA) {
+                    pv[ply][0] = jugadaTabla;
+                    pvLargo[ply] = 1;
+                }
+                return puntos;
+            }
+        }
+
+        int alfaOriginal = alfa;
+        SelectorMovimientos selector = selectores[ply];
+        selector.iniciar(pos, jugadaTabla, ply, false, ordenar);
+        int legales = 0;
+        int mejor = -INFINITO;
+        int mejorJugada = Jugada.NULA;
+        for (int jugada = selector.siguiente(); jugada != Jugada.NULA; jugada = selector.siguiente()) {
+            pos.hacer(jugada);
+            if (pos.dejoReyEnJaque()) {
+                pos.deshacer(jugada);
+                continue;
+            }
+            legales++;
+            int puntos = -alfaBeta(prof - 1, -beta, -alfa, ply + 1);
+            pos.deshacer(jugada);
+            if (abortada) {
+                return 0;
+            }
+
+            if (puntos > mejor) {
+                mejor = puntos;
+                mejorJugada = jugada;
+                if (puntos > alfa) {
+                    alfa = puntos;
+                    actualizarPv(ply, jugada);
+                    if (alfa >= beta) {
+                        orden.corte(pos, jugada, prof, ply);
+                        break;// Corte beta
+                    }
+                }
+            }
+        }
+
+        // Sin jugadas legales: mate (preferir el mas corto) o ahogado
+        if (legales == 0) {
+            return pos.enJaque() ? -MATE + ply : 0;
+        }
+
+        int cota = mejor >= beta ? TablaTransposicion.COTA_INFERIOR
+                : mejor > alfaOriginal ? TablaTransposicion.COTA_EXACTA : TablaTransposicion.COTA_SUPERIOR;
+        tabla.guardar(pos.getHash(), mejorJugada, aTabla(mejor, ply), prof, cota);
+        return mejor;
+    }
+
+    /**
+     * Busqueda de quietud: al final de la busqueda principal solo sigue
+     * capturas y promociones hasta llegar a una posicion tranquila, para no
+     * evaluar una posicion a mitad de un intercambio
+     * El que mueve puede quedarse con la evaluacion estatica (stand pat) en
+     * lugar de capturar, y no se prueban capturas que ni ganando la pieza
+     * (mas un margen) llegarian a alfa (poda delta)
+     * Si el rey esta en jaque se prueban todas las jugadas para poder detectar el mate
+     *
+     * @param alfa Cota inferior
+     * @param beta Cota superior
+     * @param ply Distancia a la raiz
+     * @return Puntuacion desde el punto de vista del que mueve
+     */
+    private int quietud(int alfa, int beta, int ply) {
+        pvLargo[ply] = 0;
+        nodos++;
+        revisarLimites();
+        if (abortada) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return Evaluacion.evaluar(pos);
+        }
+
+        boolean jaque = pos.enJaque();
+        int estatica = -INFINITO;
+        if (!jaque) {
+            estatica = Evaluacion.evaluar(pos);
+            if (estatica >= beta) {
+                return estatica;// Stand pat
+            }
+            if (estatica > alfa) {
+                alfa = estatica;
+            }
+        }
+
+        SelectorMovimientos selector = selectores[ply];
+        selector.iniciar(pos, Jugada.NULA, ply, !jaque, true);// Sin MVV-LVA la quietud se dispara
+        int mejor = estatica;
+        int legales = 0;
+        for (int jugada = selector.siguiente(); jugada != Jugada.NULA; jugada = selector.siguiente()) {
+            // Poda delta: ni ganando la pieza capturada se alcanzaria alfa
+            if (!jaque && estatica + ganancia(jugada) + MARGEN_DELTA <= alfa) {
+                continue;
+            }
+            pos.hacer(jugada);
+            if (pos.dejoReyEnJaque()) {
+                pos.deshacer(jugada);
+                continue;
+            }
+            legales++;
+            int puntos = -quietud(-beta, -alfa, ply + 1);
+            pos.deshacer(jugada);
+            if (abortada) {
+                return 0;
+            }
+
+            if (puntos > mejor) {
+                mejor = puntos;
+                if (puntos > alfa) {
+                    alfa = puntos;
+                    if (alfa >= beta) {
+                        break;// Corte beta
+                    }
+                }
+            }
+        }
+
+        // En jaque y sin jugadas legales: mate
+        if (jaque && legales == 0) {
+            return -MATE + ply;
+        }
+        return mejor;
+    }
+
+    /**
+     * Material que gana como maximo una captura o promocion
+     */
+    private int ganancia(int jugada) {
+        int valor = Jugada.bandera(jugada) == Jugada.AL_PASO ? Evaluacion.VALOR[Posicion.PEON]
+                : Evaluacion.VALOR[Posicion.tipo(pos.getPieza(Jugada.hacia(jugada)))];
+        if (Jugada.esPromocion(jugada)) {
+            valor += Evaluacion.VALOR[Jugada.piezaPromocion(jugada)] - Evaluacion.VALOR[Posicion.PEON];
+        }
+        return valor;
+    }
+
+    /**
+     * Convierte una puntuacion de mate relativa a la raiz en una relativa al nodo,
+     * para que la entrada de la tabla sirva sin importar a que distancia se encuentre
+     */
+    private static int aTabla(int puntos, int ply) {
+        if (puntos >= MATE_LIMITE) return puntos + ply;
+        if (puntos <= -MATE_LIMITE) return puntos - ply;
+        return puntos;
+    }
+
+    /**
+     * Inversa de aTabla: convierte una puntuacion de la tabla a relativa a la raiz
+     */
+    private static int desdeTabla(int puntos, int ply) {
+        if (puntos >= MATE_LIMITE) return puntos - ply;
+        if (puntos <= -MATE_LIMITE) return puntos + ply;
+        return puntos;
+    }
+
+    /**
+     * Copia la variante del siguiente ply detras de la jugada actual
+     */
+    private void actualizarPv(int ply, int jugada) {
+        pv[ply][0] = jugada;
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLargo[ply + 1]);
+        pvLargo[ply] = pvLargo[ply + 1] + 1;
+    }
+
+    /**
+     * Marca la busqueda como abortada si se agotaron los nodos o el tiempo
+     * El reloj (y un posible ponderhit) solo se consulta cada 1024 nodos
+     * porque es relativamente caro
+     */
+    private void revisarLimites() {
+        if (detener || (limiteNodos > 0 && nodos >= limiteNodos)) {
+            abortada = true;
+        } else if ((nodos & 1023) == 0) {
+            if (ponder) {
+                revisarPonderhit();
+                // Un ponderhit con menos profundidad corta la iteracion que ya la pasa
+                if (!ponder && profundidadActual > maxProfundidad) {
+                    abortada = true;
+                }
+            }
+            if (limiteTiempo != 0 && System.nanoTime() >= limiteTiempo) {
+                abortada = true;
+            }
+        }
+    }
+
+    /**
+     * @return Milisegundos desde el inicio de la busqueda
+     */
+    private long milisegundos() {
+        return (System.nanoTime() - inicio) / 1_000_000L;
+    }
+
+    /**
+     * @return Nodos visitados en la ultima busqueda (aproximado si se lee desde otro hilo)
+     */
+    public long getNodos() {
+        return nodos;
+    }
+}
@@ -0,0 +1,178 @@
+package Motor;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Busqueda paralela "Lazy SMP"
+ * Varios hilos buscan la misma raiz al mismo tiempo, cada uno con su propia
+ * copia de la posicion, compartiendo una unica tabla de transposicion
+ * El hilo principal decide cuando termina la busqueda y los ayudantes, que
+ * empiezan en profundidades distintas, solo sirven para llenar la tabla
+ *
+ * Los hilos ayudantes se crean una vez y se reutilizan entre busquedas,
+ * por eso hay que llamar a close() cuando ya no se necesite
+ */
+public final class BusquedaParalela implements AutoCloseable {
+
+    private final TablaTransposicion tabla;// Tabla compartida por todos los hilos
+    private final int hilos;// Numero total de hilos, incluido el principal
+    private final ExecutorService ayudantes;// Hilos de plataforma para los ayudantes (null si hilos == 1)
+    private final ArrayList<Busqueda> activas = new ArrayList<>();// Busquedas en curso
+
+    /**
+     * Crea una busqueda paralela
+     *
+     * @param tabla Tabla de transposicion compartida
+     * @param hilos Numero de hilos (1 equivale a la busqueda normal)
+     */
+    public BusquedaParalela(TablaTransposicion tabla, int hilos) {
+        this.tabla = tabla;
+        this.hilos = Math.max(1, hilos);
+        this.ayudantes = this.hilos > 1 ? Executors.newFixedThreadPool(this.hilos - 1, r -> {
+            Thread t = new Thread(r, "ayudante-busqueda");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+    }
+
+    /**
+     * @return Numero de hilos de la busqueda
+     */
+    public int getHilos() {
+        return hilos;
+    }
+
+    /**
+     * Busca la mejor jugada con todos los hilos
+     * Bloquea el hilo que llama, que actua como hilo principal
+     *
+     * @param pos Posicion a analizar (no se modifica)
+     * @param limites Limites de la busqueda, los controla el hilo principal
+     * @param oyente Recibe cada iteracion del hilo principal con los nodos de todos los hilos (puede ser null)
+     * @return Resultado de mayor profundidad entre todos los hilos
+     */
+    public ResultadoBusqueda buscar(Posicion pos, LimitesBusqueda limites, Consumer<ResultadoBusqueda> oyente) {
+        return buscar(pos, limites, oyente, null);
+    }
+
+    /**
+     * Busca la mejor jugada con todos los hilos y avisa cuando la busqueda
+     * ya acepta detener() y ponderhit(), para que quien los mande no tenga
+     * que esperar activamente
+     *
+     * @param pos Posicion a analizar (no se modifica)
+     * @param limites Limites de la busqueda, los controla el hilo principal
+     * @param oyente Recibe cada iteracion del hilo principal con los nodos de todos los hilos (puede ser null)
+     * @param alEmpezar Se ejecuta en el hilo que llama en cuanto la busqueda se registra (puede ser null)
+     * @return Resultado de mayor profundidad entre todos los hilos
+     */
+    public ResultadoBusqueda buscar(Posicion pos, LimitesBusqueda limites, Consumer<ResultadoBusqueda> oyente, Runnable alEmpezar) {
+        Busqueda principal = new Busqueda(pos.copiar(), tabla);
+        ArrayList<Busqueda> todas = new ArrayList<>();
+        todas.add(principal);
+
+        // Lanza los ayudantes sin limites: se detienen cuando termina el principal
+        ArrayList<Future<ResultadoBusqueda>> futuros = new ArrayList<>();
+        for (int i = 1; i < hilos; i++) {
+            Busqueda ayudante = new Busqueda(pos.copiar(), tabla);
+            ayudante.setAyudante(i);
+            todas.add(ayudante);
+            LimitesBusqueda sinLimite = LimitesBusqueda.profundidad(limites.profundidad);
+            futuros.add(ayudantes.submit(() -> ayudante.buscar(sinLimite, null)));
+        }
+        synchronized (activas) {
+            activas.addAll(todas);
+        }
+        if (alEmpezar != null) {
+            alEmpezar.run();
+        }
+
+        ResultadoBusqueda mejor;
+        try {
+            mejor = principal.buscar(limites, oyente == null ? null : r -> oyente.accept(conNodos(r, todas)));
+        } finally {
+            for (Busqueda b : todas) {
+                b.detener();
+            }
+        }
+
+        // Espera a los ayudantes y se queda con la iteracion mas profunda
+        for (Future<ResultadoBusqueda> f : futuros) {
+            try {
+                ResultadoBusqueda r = f.get();
+                if (r.profundidad > mejor.profundidad && r.pv.length > 0) {
+                    mejor = r;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.err.println("Error en un hilo ayudante: " + e.getCause());
+            }
+        }
+        synchronized (activas) {
+            activas.removeAll(todas);
+        }
+        return conNodos(mejor, todas);
+    }
+
+    /**
+     * Pide a todos los hilos que terminen la busqueda en curso
+     * Se puede llamar desde cualquier hilo
+     */
+    public void detener() {
+        synchronized (activas) {
+            for (Busqueda b : activas) {
+                b.detener();
+            }
+        }
+    }
+
+    /**
+     * @return true si hay una busqueda en curso que ya acepta detener() y ponderhit()
+     */
+    public boolean enCurso() {
+        synchronized (activas) {
+            return !activas.isEmpty();
+        }
+    }
+
+    /**
+     * Avisa a la busqueda en modo ponder que el rival hizo la jugada esperada
+     * El hilo principal sigue con lo ya buscado, ahora con limites de tiempo
+     *
+     * @param limites Limites de tiempo de la jugada
+     */
+    public void ponderhit(LimitesBusqueda limites) {
+        synchronized (activas) {
+            for (Busqueda b : activas) {
+                b.ponderhit(limites);// Los ayudantes no estan en ponder y lo ignoran
+            }
+        }
+    }
+
+    /**
+     * Devuelve una copia del resultado con el total de nodos de todos los hilos
+     */
+    private static ResultadoBusqueda conNodos(ResultadoBusqueda r, ArrayList<Busqueda> todas) {
+        long total = 0;
+        for (Busqueda b : todas) {
+            total += b.getNodos();
+        }
+        return new ResultadoBusqueda(r.profundidad, r.puntos, total, r.tiempoMs, r.pv);
+    }
+
+    /**
+     * Termina los hilos ayudantes
+     */
+    @Override
+    public void close() {
+        if (ayudantes != null) {
+            ayudantes.shutdownNow();
+        }
+    }
+}
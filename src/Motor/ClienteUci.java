@@ -0,0 +1,442 @@
+package Motor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Cliente UCI: controla un motor externo que corre como proceso hijo
+ * Sirve para analizar con otros motores o jugar contra ellos, y tambien
+ * para hablar con el modo UCI de este mismo proyecto (Motor.Uci)
+ *
+ * Un hilo lector propio consume la salida del motor linea por linea,
+ * asi ninguna llamada de esta clase bloquea al que la hace: todas
+ * devuelven un CompletableFuture que se completa cuando llega la
+ * respuesta (uciok, readyok o bestmove). Las busquedas pedidas mientras
+ * otra esta en curso se encolan y se envian al terminar la anterior
+ */
+public final class ClienteUci implements AutoCloseable {
+
+    private static final long ESPERA_CIERRE_MS = 1000;// Tiempo que se espera al motor tras quit
+
+    private final Process proceso;
+    private final PrintWriter escritor;
+    private final Thread lector;
+    private final CompletableFuture<Void> saludo = new CompletableFuture<>();// Se completa con uciok
+    private final Queue<CompletableFuture<Void>> listos = new ConcurrentLinkedQueue<>();// Esperan readyok
+    private volatile String nombre = "";
+    private volatile IOException cerrado;// Error con el que fallan las peticiones tras cerrarse el motor
+    private volatile Peticion actual;// Busqueda enviada al motor (null si no hay)
+    private CompletableFuture<Void> cola = CompletableFuture.completedFuture(null);// Termina cuando acaba la ultima busqueda pedida
+
+    /**
+     * Una busqueda pedida al motor
+     */
+    private static final class Peticion {
+        final Posicion pos;
+        final LimitesBusqueda limites;
+        final Consumer<ResultadoBusqueda> oyente;
+        final CompletableFuture<ResultadoBusqueda> resultado = new CompletableFuture<>();
+        final CompletableFuture<Void> terminada = new CompletableFuture<>();// Llego bestmove (aunque se haya cancelado)
+        ResultadoBusqueda ultimo;// Ultima linea info con variante principal
+
+        Peticion(Posicion pos, LimitesBusqueda limites, Consumer<ResultadoBusqueda> oyente) {
+            this.pos = pos;
+            this.limites = limites;
+            this.oyente = oyente;
+        }
+    }
+
+    /**
+     * Lanza el motor y empieza a leer su salida
+     * Hay que llamar a iniciar() antes de pedir busquedas
+     *
+     * @param comando Programa y argumentos del motor, por ejemplo ["stockfish"]
+     * @throws IOException Si no se pudo lanzar el proceso
+     */
+    public ClienteUci(List<String> comando) throws IOException {
+        proceso = new ProcessBuilder(comando)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        escritor = new PrintWriter(new OutputStreamWriter(proceso.getOutputStream(), StandardCharsets.UTF_8), false);
+        lector = new Thread(this::leer, "cliente-uci-lector");
+        lector.setDaemon(true);
+        lector.start();
+    }
+
+    /**
+     * Envia uci y espera uciok
+     *
+     * @return Futuro que se completa cuando el motor termina de presentarse
+     */
+    public CompletableFuture<Void> iniciar() {
+        enviar("uci");
+        return saludo;
+    }
+
+    /**
+     * @return Nombre que el motor dio en "id name" (vacio antes de uciok)
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Cambia una opcion del motor (setoption name ... value ...)
+     *
+     * @param opcion Nombre de la opcion, por ejemplo "Hash"
+     * @param valor Valor nuevo
+     */
+    public void opcion(String opcion, String valor) {
+        enviar("setoption name " + opcion + " value " + valor);
+    }
+
+    /**
+     * Envia isready
+     *
+     * @return Futuro que se completa con readyok
+     */
+    public CompletableFuture<Void> listo() {
+        CompletableFuture<Void> f = new CompletableFuture<>();
+        synchronized (escritor) {
+            listos.add(f);// Se encola antes de enviar para no perder una respuesta rapida
+            enviar("isready");
+        }
+        return f;
+    }
+
+    /**
+     * Avisa al motor que empieza una partida nueva
+     */
+    public void nuevaPartida() {
+        enviar("ucinewgame");
+    }
+
+    /**
+     * Pide el analisis de una posicion
+     * Si el futuro se cancela se envia stop al motor
+     *
+     * @param pos Posicion a analizar (se copia)
+     * @param limites Limites de la busqueda; sin limites se usa go infinite
+     * @param oyente Recibe cada linea info con variante principal (puede ser null); se llama en el hilo lector
+     * @return Futuro con la ultima iteracion, cuya primera jugada es el bestmove del motor
+     */
+    public synchronized CompletableFuture<ResultadoBusqueda> analizar(Posicion pos, LimitesBusqueda limites, Consumer<ResultadoBusqueda> oyente) {
+        Peticion p = new Peticion(pos.copiar(), limites, oyente);
+        p.resultado.whenComplete((r, e) -> {
+            if (p.resultado.isCancelled()) {
+                detener(p);
+            }
+        });
+        // Empieza cuando la busqueda anterior haya recibido su bestmove
+        cola.thenRun(() -> comenzar(p));
+        cola = p.terminada;
+        return p.resultado;
+    }
+
+    /**
+     * Pide la mejor jugada de una posicion
+     *
+     * @param pos Posicion a analizar (se copia)
+     * @param limites Limites de la busqueda
+     * @return Futuro con la jugada elegida (Jugada.NULA si el motor no tiene jugadas)
+     */
+    public CompletableFuture<Integer> mejorJugada(Posicion pos, LimitesBusqueda limites) {
+        return analizar(pos, limites, null).thenApply(ResultadoBusqueda::mejorJugada);
+    }
+
+    /**
+     * Pide al motor que termine la busqueda en curso (stop)
+     */
+    public void detener() {
+        if (actual != null) {
+            enviar("stop");
+        }
+    }
+
+    /**
+     * Envia stop solo si la peticion cancelada es la que busca el motor
+     * Si todavia esta en la cola, comenzar() la descarta sin enviarla
+     *
+     * @param p Peticion cancelada
+     */
+    private void detener(Peticion p) {
+        synchronized (escritor) {
+            if (actual == p) {
+                enviar("stop");
+            }
+        }
+    }
+
+    /**
+     * Avisa al motor que el rival hizo la jugada que pensaba en modo ponder
+     */
+    public void ponderhit() {
+        enviar("ponderhit");
+    }
+
+    /**
+     * Envia la posicion y el go de una peticion
+     */
+    private void comenzar(Peticion p) {
+        if (p.resultado.isDone()) {
+            p.terminada.complete(null);// Se cancelo mientras esperaba en la cola
+            return;
+        }
+        if (cerrado != null) {
+            p.resultado.completeExceptionally(cerrado);
+            p.terminada.complete(null);
+            return;
+        }
+        synchronized (escritor) {
+            actual = p;
+            enviar("position fen " + p.pos.aFen());
+            enviar(go(p.limites, p.pos.getTurno()));
+        }
+        if (cerrado != null && actual == p) {
+            actual = null;// El motor se cerro mientras se enviaba
+            p.resultado.completeExceptionally(cerrado);
+            p.terminada.complete(null);
+        }
+    }
+
+    /**
+     * Traduce los limites al comando go
+     *
+     * @param limites Limites de la busqueda
+     * @param turno Color que mueve, dueño del reloj de los limites
+     * @return Comando go
+     */
+    static String go(LimitesBusqueda limites, int turno) {
+        StringBuilder sb = new StringBuilder("go");
+        if (limites.ponder) {
+            sb.append(" ponder");
+        }
+        if (limites.profundidad > 0) {
+            sb.append(" depth ").append(limites.profundidad);
+        }
+        if (limites.nodos > 0) {
+            sb.append(" nodes ").append(limites.nodos);
+        }
+        if (limites.tiempoMs > 0) {
+            sb.append(" movetime ").append(limites.tiempoMs);
+        }
+        if (limites.relojMs > 0) {
+            String lado = turno == Posicion.BLANCAS ? "w" : "b";
+            sb.append(' ').append(lado).append("time ").append(limites.relojMs);
+            if (limites.incrementoMs > 0) {
+                sb.append(' ').append(lado).append("inc ").append(limites.incrementoMs);
+            }
+            if (limites.jugadasHastaControl > 0) {
+                sb.append(" movestogo ").append(limites.jugadasHastaControl);
+            }
+        }
+        if (limites.sinLimites() && !limites.ponder) {
+            sb.append(" infinite");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Bucle del hilo lector: atiende cada linea del motor hasta que cierra su salida
+     */
+    private void leer() {
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(proceso.getInputStream(), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = r.readLine()) != null) {
+                linea(linea.trim());
+            }
+        } catch (IOException e) {
+            // El proceso termino o se cerro la tuberia
+        }
+        terminar(new IOException("El motor cerro su salida"));
+    }
+
+    /**
+     * Atiende una linea de la salida del motor
+     */
+    private void linea(String linea) {
+        if (linea.startsWith("info ")) {
+            Peticion p = actual;
+            if (p != null) {
+                ResultadoBusqueda r = leerInfo(linea, p.pos);
+                if (r != null) {
+                    p.ultimo = r;
+                    if (p.oyente != null) {
+                        p.oyente.accept(r);
+                    }
+                }
+            }
+        } else if (linea.startsWith("bestmove")) {
+            Peticion p = actual;
+            actual = null;
+            if (p != null) {
+                p.resultado.complete(resultadoFinal(linea, p));
+                p.terminada.complete(null);
+            }
+        } else if (linea.equals("readyok")) {
+            CompletableFuture<Void> f = listos.poll();
+            if (f != null) {
+                f.complete(null);
+            }
+        } else if (linea.equals("uciok")) {
+            saludo.complete(null);
+        } else if (linea.startsWith("id name ")) {
+            nombre = linea.substring(8);
+        }
+    }
+
+    /**
+     * Lee una linea info con profundidad y variante principal
+     * Las demas (currmove, string, hashfull...) se ignoran
+     *
+     * @param linea Linea recibida
+     * @param pos Posicion analizada, para convertir la variante a jugadas compactas
+     * @return Resultado de la iteracion o null si la linea no trae variante
+     */
+    static ResultadoBusqueda leerInfo(String linea, Posicion pos) {
+        String[] t = linea.split("\\s+");
+        int profundidad = -1;
+        int puntos = 0;
+        long nodos = 0;
+        long tiempo = 0;
+        int inicioPv = -1;
+        try {
+            for (int i = 1; i < t.length && inicioPv < 0; i++) {
+                switch (t[i]) {
+                    case "depth" -> profundidad = Integer.parseInt(t[++i]);
+                    case "nodes" -> nodos = Long.parseLong(t[++i]);
+                    case "time" -> tiempo = Long.parseLong(t[++i]);
+                    case "score" -> {
+                        String tipo = t[++i];
+                        int valor = Integer.parseInt(t[++i]);
+                        puntos = tipo.equals("mate") ? puntosMate(valor) : valor;
+                    }
+                    case "pv" -> inicioPv = i + 1;
+                    case "string" -> {
+                        return null;
+                    }
+                    default -> {
+                        // seldepth, nps, hashfull, multipv, lowerbound...
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            return null;// Linea mal formada
+        }
+        if (profundidad < 0 || inicioPv < 0 || inicioPv >= t.length) {
+            return null;
+        }
+
+        // Recorre la variante en una copia; se corta en la primera jugada que no sea legal
+        Posicion copia = pos.copiar();
+        int[] legales = new int[Posicion.MAX_JUGADAS];
+        int[] pv = new int[t.length - inicioPv];
+        int n = 0;
+        for (int i = inicioPv; i < t.length; i++) {
+            int jugada = Uci.buscarJugada(copia, t[i], legales);
+            if (jugada == Jugada.NULA) {
+                break;
+            }
+            copia.hacer(jugada);
+            pv[n++] = jugada;
+        }
+        if (n == 0) {
+            return null;
+        }
+        return new ResultadoBusqueda(profundidad, puntos, nodos, tiempo, Arrays.copyOf(pv, n));
+    }
+
+    /**
+     * Convierte "mate N" (en jugadas completas) a la escala de puntos del motor
+     */
+    private static int puntosMate(int jugadas) {
+        return jugadas > 0 ? Busqueda.MATE - (2 * jugadas - 1) : -(Busqueda.MATE - 2 * -jugadas);
+    }
+
+    /**
+     * Arma el resultado final con el bestmove y la ultima iteracion
+     */
+    private static ResultadoBusqueda resultadoFinal(String linea, Peticion p) {
+        String[] t = linea.split("\\s+");
+        int[] legales = new int[Posicion.MAX_JUGADAS];
+        int mejor = t.length > 1 ? Uci.buscarJugada(p.pos, t[1], legales) : Jugada.NULA;
+        ResultadoBusqueda u = p.ultimo;
+        if (mejor == Jugada.NULA) {
+            return new ResultadoBusqueda(u != null ? u.profundidad : 0, u != null ? u.puntos : 0,
+                    u != null ? u.nodos : 0, u != null ? u.tiempoMs : 0, new int[0]);
+        }
+        if (u != null && u.mejorJugada() == mejor) {
+            return u;
+        }
+        // El bestmove no coincide con la ultima variante: se queda solo con el (y su ponder)
+        int[] pv = {mejor};
+        if (t.length > 3 && t[2].equals("ponder")) {
+            Posicion copia = p.pos.copiar();
+            copia.hacer(mejor);
+            int ponder = Uci.buscarJugada(copia, t[3], legales);
+            if (ponder != Jugada.NULA) {
+                pv = new int[]{mejor, ponder};
+            }
+        }
+        return new ResultadoBusqueda(u != null ? u.profundidad : 0, u != null ? u.puntos : 0,
+                u != null ? u.nodos : 0, u != null ? u.tiempoMs : 0, pv);
+    }
+
+    /**
+     * Falla todo lo pendiente cuando el motor ya no responde
+     */
+    private void terminar(IOException error) {
+        cerrado = error;// Las peticiones que quedan en la cola fallan al llegar su turno
+        saludo.completeExceptionally(error);
+        CompletableFuture<Void> f;
+        while ((f = listos.poll()) != null) {
+            f.completeExceptionally(error);
+        }
+        Peticion p = actual;
+        actual = null;
+        if (p != null) {
+            p.resultado.completeExceptionally(error);
+            p.terminada.complete(null);
+        }
+    }
+
+    /**
+     * Escribe un comando al motor
+     */
+    private void enviar(String comando) {
+        synchronized (escritor) {
+            escritor.println(comando);
+            escritor.flush();
+        }
+    }
+
+    /**
+     * Envia quit y espera a que el motor termine; si no lo hace, lo destruye
+     */
+    @Override
+    public void close() {
+        if (proceso.isAlive()) {
+            enviar("stop");
+            enviar("quit");
+            try {
+                if (!proceso.waitFor(ESPERA_CIERRE_MS, TimeUnit.MILLISECONDS)) {
+                    proceso.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                proceso.destroyForcibly();
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package Motor;
+
+/**
+ * Reparte el tiempo del reloj de la partida entre las jugadas del motor
+ * Para cada jugada calcula dos presupuestos:
+ * - Blando: tiempo objetivo; al terminar una iteracion no se empieza otra
+ *   si ya se gasto buena parte de el
+ * - Duro: tiempo maximo absoluto; la busqueda se corta aunque este a medias
+ *
+ * El objetivo se ajusta con la estabilidad de la mejor jugada: si cambia
+ * entre iteraciones o la puntuacion cae se da mas tiempo (sin pasar del
+ * duro), y si se repite varias iteraciones seguidas se termina antes
+ */
+public final class GestorTiempo {
+
+    // Tiempo que se reserva para la comunicacion y para ejecutar la jugada en el tablero
+    static final long MARGEN_MS = 50;
+    // Jugadas que se suponen restantes con muerte subita al inicio de la partida
+    private static final int JUGADAS_ESTIMADAS = 50;
+    // Nunca se supone que quedan menos jugadas que estas, para no gastar todo en una
+    private static final int JUGADAS_MINIMAS = 20;
+    // Caida de puntuacion (centipeones) que se considera una mala noticia
+    private static final int CAIDA_PUNTOS = 30;
+
+    private final long blando;
+    private final long duro;
+    private int estabilidad;// Iteraciones seguidas con la misma mejor jugada
+    private int ultimaJugada = Jugada.NULA;
+    private int ultimosPuntos;
+    private boolean cayo;// La puntuacion bajo en la ultima iteracion
+
+    /**
+     * Calcula los presupuestos de una jugada
+     *
+     * @param restanteMs Tiempo que le queda en el reloj al que mueve
+     * @param incrementoMs Tiempo que se suma al reloj despues de cada jugada
+     * @param numeroJugada Numero de jugada de la partida (1 en la primera)
+     * @param jugadasHastaControl Jugadas hasta el siguiente control de tiempo (0 = muerte subita)
+     */
+    public GestorTiempo(long restanteMs, long incrementoMs, int numeroJugada, int jugadasHastaControl) {
+        long disponible = restanteMs - MARGEN_MS;
+        if (disponible <= 0) {
+            // Casi sin tiempo: basta con la primera iteracion
+            blando = 1;
+            duro = 1;
+            return;
+        }
+
+        int jugadas = jugadasHastaControl > 0 ? Math.min(jugadasHastaControl, JUGADAS_ESTIMADAS)
+                : Math.max(JUGADAS_MINIMAS, JUGADAS_ESTIMADAS - numeroJugada);
+
+        // El duro nunca pasa de una fraccion del reloj, asi no se pierde por tiempo
+        long maximo = jugadas == 1 ? disponible * 4 / 5 : disponible / 3;
+        long objetivo = disponible / jugadas + incrementoMs * 3 / 4;
+        this.duro = Math.max(1, Math.min(objetivo * 5, maximo));
+        this.blando = Math.max(1, Math.min(objetivo, duro));
+    }
+
+    /**
+     * @return Tiempo objetivo de la jugada en milisegundos
+     */
+    public long getBlando() {
+        return blando;
+    }
+
+    /**
+     * @return Tiempo maximo de la jugada en milisegundos
+     */
+    public long getDuro() {
+        return duro;
+    }
+
+    /**
+     * Registra el resultado de una iteracion completa
+     *
+     * @param mejorJugada Mejor jugada de la iteracion
+     * @param puntos Puntuacion de la iteracion
+     */
+    public void iteracion(int mejorJugada, int puntos) {
+        if (mejorJugada == ultimaJugada) {
+            estabilidad++;
+        } else {
+            estabilidad = 0;
+        }
+        cayo = ultimaJugada != Jugada.NULA && puntos < ultimosPuntos - CAIDA_PUNTOS;
+        ultimaJugada = mejorJugada;
+        ultimosPuntos = puntos;
+    }
+
+    /**
+     * Decide si vale la pena empezar otra iteracion
+     * La siguiente iteracion suele tardar mas que todas las anteriores juntas,
+     * por eso no se empieza si ya se gasto la mitad del objetivo
+     *
+     * @param transcurridoMs Tiempo gastado en esta jugada
+     * @return true si se debe seguir buscando
+     */
+    public boolean seguir(long transcurridoMs) {
+        return transcurridoMs < objetivo() / 2;
+    }
+
+    /**
+     * @return Tiempo objetivo ajustado por la estabilidad de la mejor jugada
+     */
+    long objetivo() {
+        double escala;
+        if (estabilidad == 0) {
+            escala = 1.6;// La mejor jugada acaba de cambiar
+        } else if (estabilidad >= 4) {
+            escala = 0.5;// La misma jugada varias iteraciones seguidas
+        } else if (estabilidad >= 2) {
+            escala = 0.8;
+        } else {
+            escala = 1.0;
+        }
+        if (cayo) {
+            escala *= 1.3;
+        }
+        return Math.min(duro, (long) (blando * escala));
+    }
+}
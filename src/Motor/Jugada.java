@@ -0,0 +1,122 @@
+package Motor;
+
+/**
+ * Utilidades para las jugadas compactas del motor
+ * Cada jugada se guarda en un int de 16 bits:
+ * - bits 0-5: casilla de origen (0-63)
+ * - bits 6-11: casilla de destino (0-63)
+ * - bits 12-15: bandera con el tipo de jugada (captura, enroque, promocion...)
+ *
+ * Las casillas usan el mismo indice que Tablero.getTileNum (fila*8+columna,
+ * con la fila 0 del lado de las negras)
+ */
+public final class Jugada {
+
+    // Jugada vacia, nunca es legal porque el origen y el destino coinciden
+    public static final int NULA = 0;
+
+    // Banderas de tipo de jugada
+    public static final int TRANQUILA = 0;
+    public static final int DOBLE_PEON = 1;
+    public static final int ENROQUE_CORTO = 2;
+    public static final int ENROQUE_LARGO = 3;
+    public static final int CAPTURA = 4;
+    public static final int AL_PASO = 5;
+    public static final int PROMOCION = 8;// 8-11 promocion, 12-15 promocion con captura
+
+    private Jugada() {
+    }
+
+    /**
+     * Crea una jugada compacta
+     *
+     * @param desde Casilla de origen
+     * @param hacia Casilla de destino
+     * @param bandera Tipo de jugada
+     * @return Jugada codificada en 16 bits
+     */
+    public static int crear(int desde, int hacia, int bandera) {
+        return desde | (hacia << 6) | (bandera << 12);
+    }
+
+    /**
+     * @param jugada Jugada compacta
+     * @return Casilla de origen
+     */
+    public static int desde(int jugada) {
+        return jugada & 63;
+    }
+
+    /**
+     * @param jugada Jugada compacta
+     * @return Casilla de destino
+     */
+    public static int hacia(int jugada) {
+        return (jugada >>> 6) & 63;
+    }
+
+    /**
+     * @param jugada Jugada compacta
+     * @return Bandera con el tipo de jugada
+     */
+    public static int bandera(int jugada) {
+        return (jugada >>> 12) & 15;
+    }
+
+    /**
+     * Indica si la jugada captura una pieza (incluye captura al paso)
+     *
+     * @param jugada Jugada compacta
+     * @return true si es captura
+     */
+    public static boolean esCaptura(int jugada) {
+        return (bandera(jugada) & CAPTURA) != 0;
+    }
+
+    /**
+     * Indica si la jugada corona un peon
+     *
+     * @param jugada Jugada compacta
+     * @return true si es promocion
+     */
+    public static boolean esPromocion(int jugada) {
+        return (bandera(jugada) & PROMOCION) != 0;
+    }
+
+    /**
+     * Obtiene el tipo de pieza al que corona el peon
+     *
+     * @param jugada Jugada de promocion
+     * @return Tipo de pieza (Posicion.CABALLO a Posicion.REINA)
+     */
+    public static int piezaPromocion(int jugada) {
+        return Posicion.CABALLO + (bandera(jugada) & 3);
+    }
+
+    /**
+     * Convierte una casilla a notacion algebraica (por ejemplo "e4")
+     *
+     * @param casilla Indice de la casilla (0-63)
+     * @return Nombre de la casilla
+     */
+    public static String casilla(int casilla) {
+        return "" + (char) ('a' + (casilla & 7)) + (char) ('8' - (casilla >> 3));
+    }
+
+    /**
+     * Convierte una jugada a notacion de coordenadas (e2e4, e7e8q)
+     *
+     * @param jugada Jugada compacta
+     * @return Texto de la jugada o "0000" si es nula
+     */
+    public static String texto(int jugada) {
+        if (jugada == NULA) {
+            return "0000";
+        }
+        String s = casilla(desde(jugada)) + casilla(hacia(jugada));
+        if (esPromocion(jugada)) {
+            s += "nbrq".charAt(bandera(jugada) & 3);
+        }
+        return s;
+    }
+}
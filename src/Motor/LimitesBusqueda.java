@@ -0,0 +1,102 @@
+package Motor;
+
+/**
+ * Limites que detienen una busqueda: profundidad maxima,
+ * numero maximo de nodos y tiempo maximo
+ * Un valor de 0 en cualquiera de ellos indica que no hay limite
+ *
+ * En lugar de un tiempo fijo se puede dar el estado del reloj de la
+ * partida, y la busqueda decide cuanto gastar con un GestorTiempo
+ */
+public class LimitesBusqueda {
+    public int profundidad;// Profundidad maxima en medias jugadas
+    public long nodos;// Numero maximo de nodos a visitar
+    public long tiempoMs;// Tiempo maximo en milisegundos
+    public long relojMs;// Tiempo restante en el reloj del que mueve (0 = no se juega con reloj)
+    public long incrementoMs;// Incremento por jugada del reloj
+    public int numeroJugada;// Numero de jugada de la partida, para repartir el tiempo
+    public int jugadasHastaControl;// Jugadas hasta el siguiente control de tiempo (0 = muerte subita)
+    public boolean ponder;// Pensar en el tiempo del rival: sin limite de tiempo hasta ponderhit
+
+    /**
+     * Crea unos limites vacios (busqueda hasta la profundidad maxima del motor)
+     */
+    public LimitesBusqueda() {
+    }
+
+    /**
+     * @param profundidad Profundidad maxima
+     * @return Limites que solo restringen la profundidad
+     */
+    public static LimitesBusqueda profundidad(int profundidad) {
+        LimitesBusqueda l = new LimitesBusqueda();
+        l.profundidad = profundidad;
+        return l;
+    }
+
+    /**
+     * @param ms Tiempo maximo en milisegundos
+     * @return Limites que solo restringen el tiempo
+     */
+    public static LimitesBusqueda tiempo(long ms) {
+        LimitesBusqueda l = new LimitesBusqueda();
+        l.tiempoMs = ms;
+        return l;
+    }
+
+    /**
+     * @param relojMs Tiempo restante en el reloj del que mueve
+     * @param incrementoMs Incremento por jugada
+     * @param numeroJugada Numero de jugada de la partida (1 en la primera)
+     * @return Limites que reparten el tiempo del reloj de la partida
+     */
+    public static LimitesBusqueda reloj(long relojMs, long incrementoMs, int numeroJugada) {
+        LimitesBusqueda l = new LimitesBusqueda();
+        l.relojMs = Math.max(1, relojMs);
+        l.incrementoMs = incrementoMs;
+        l.numeroJugada = numeroJugada;
+        return l;
+    }
+
+    /**
+     * @return Limites para pensar en el tiempo del rival (los de tiempo llegan con ponderhit)
+     */
+    public static LimitesBusqueda ponder() {
+        LimitesBusqueda l = new LimitesBusqueda();
+        l.ponder = true;
+        return l;
+    }
+
+    /**
+     * @return Copia independiente de estos limites
+     */
+    public LimitesBusqueda copiar() {
+        LimitesBusqueda l = new LimitesBusqueda();
+        l.profundidad = profundidad;
+        l.nodos = nodos;
+        l.tiempoMs = tiempoMs;
+        l.relojMs = relojMs;
+        l.incrementoMs = incrementoMs;
+        l.numeroJugada = numeroJugada;
+        l.jugadasHastaControl = jugadasHastaControl;
+        l.ponder = ponder;
+        return l;
+    }
+
+    /**
+     * @return true si ningun limite esta puesto
+     */
+    public boolean sinLimites() {
+        return profundidad == 0 && nodos == 0 && tiempoMs == 0 && relojMs == 0;
+    }
+
+    /**
+     * @param nodos Numero maximo de nodos
+     * @return Limites que solo restringen los nodos
+     */
+    public static LimitesBusqueda nodos(long nodos) {
+        LimitesBusqueda l = new LimitesBusqueda();
+        l.nodos = nodos;
+        return l;
+    }
+}
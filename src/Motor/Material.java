@@ -0,0 +1,216 @@
+package Motor;
+
+/**
+ * Firma de material de una posicion: cuantas piezas hay de cada tipo y color
+ * empaquetadas en un long, con 4 bits por contador
+ *
+ * Cada contador ocupa la posicion del codigo de pieza de Posicion (tipo | color << 3).
+ * Los alfiles se cuentan aparte segun el color de su casilla: los de casilla
+ * clara usan el lugar del codigo ALFIL y los de casilla oscura el codigo 7,
+ * que no corresponde a ninguna pieza
+ *
+ * La Posicion mantiene la firma al poner y quitar piezas (sumando UNIDAD),
+ * asi que las preguntas sobre el material (tablas por material insuficiente,
+ * tipo de final, escala de la evaluacion) son operaciones de bits y una
+ * consulta a tablas, sin recorrer el tablero
+ */
+public final class Material {
+
+    // Tipos de final segun el material
+    public static final int NORMAL = 0;
+    public static final int TABLAS = 1;// Ningun lado puede dar mate (material insuficiente)
+    public static final int SIN_GANANCIA = 2;// El mate es posible pero no se puede forzar (rey y dos caballos contra rey)
+    public static final int ALFILES_OPUESTOS = 3;// Un alfil por lado en casillas de distinto color, con peones
+
+    public static final int ESCALA_NORMAL = 64;// Escala que deja la evaluacion igual
+
+    // UNIDAD[pieza][casilla] se suma a la firma al poner la pieza y se resta al quitarla
+    static final long[][] UNIDAD = new long[16][64];
+
+    private static final int OSCURO = 7;// Lugar de los alfiles de casilla oscura (mas el color << 3)
+
+    // Mascaras de los contadores de cada grupo de piezas (ambos colores)
+    private static final long PEONES = mascara(Posicion.PEON);
+    private static final long CABALLOS = mascara(Posicion.CABALLO);
+    private static final long PESADAS = mascara(Posicion.TORRE) | mascara(Posicion.REINA);
+
+    // Lugares de la firma que forman la clave de piezas menores, en orden
+    private static final int[] LUGARES_MENORES = {
+            Posicion.CABALLO, Posicion.ALFIL, OSCURO,
+            Posicion.CABALLO | 8, Posicion.ALFIL | 8, OSCURO | 8
+    };
+
+    // Tipo de final de las posiciones con solo piezas menores, por clave de contadores (ver claveMenores)
+    private static final byte[] MENORES = new byte[729];
+
+    static {
+        for (int p = 0; p < 16; p++) {
+            int tipo = Posicion.tipo(p);
+            if (tipo < Posicion.PEON || tipo > Posicion.REY) {
+                continue;
+            }
+            for (int sq = 0; sq < 64; sq++) {
+                int lugar = tipo == Posicion.ALFIL && !esClara(sq) ? OSCURO | (p & 8) : p;
+                UNIDAD[p][sq] = 1L << (4 * lugar);
+            }
+        }
+        for (int clave = 0; clave < MENORES.length; clave++) {
+            MENORES[clave] = (byte) clasificarMenores(clave);
+        }
+    }
+
+    private Material() {
+    }
+
+    /**
+     * @return true si la casilla es clara (a8 es clara, como en Tablero)
+     */
+    private static boolean esClara(int sq) {
+        return ((sq >> 3) + (sq & 7)) % 2 == 0;
+    }
+
+    /**
+     * @return Mascara con los dos contadores (blancas y negras) de un lugar
+     */
+    private static long mascara(int lugar) {
+        return (15L << (4 * lugar)) | (15L << (4 * (lugar | 8)));
+    }
+
+    /**
+     * @return Contador de un lugar de la firma
+     */
+    private static int contador(long firma, int lugar) {
+        return (int) (firma >>> (4 * lugar)) & 15;
+    }
+
+    /**
+     * Cantidad de piezas de un tipo y color
+     *
+     * @param firma Firma de material
+     * @param tipo Tipo de pieza (PEON a REY)
+     * @param color BLANCAS o NEGRAS
+     * @return Cantidad de piezas
+     */
+    public static int cantidad(long firma, int tipo, int color) {
+        int n = contador(firma, Posicion.pieza(tipo, color));
+        if (tipo == Posicion.ALFIL) {
+            n += contador(firma, OSCURO | (color << 3));
+        }
+        return n;
+    }
+
+    /**
+     * Suma el valor de las piezas (sin peones ni rey) de un color
+     *
+     * @param firma Firma de material
+     * @param color BLANCAS o NEGRAS
+     * @return Material de piezas en centipeones
+     */
+    public static int piezas(long firma, int color) {
+        return cantidad(firma, Posicion.CABALLO, color) * Evaluacion.VALOR[Posicion.CABALLO]
+                + cantidad(firma, Posicion.ALFIL, color) * Evaluacion.VALOR[Posicion.ALFIL]
+                + cantidad(firma, Posicion.TORRE, color) * Evaluacion.VALOR[Posicion.TORRE]
+                + cantidad(firma, Posicion.REINA, color) * Evaluacion.VALOR[Posicion.REINA];
+    }
+
+    /**
+     * Clasifica el final por el material
+     *
+     * @param firma Firma de material
+     * @return NORMAL, TABLAS, SIN_GANANCIA o ALFILES_OPUESTOS
+     */
+    public static int clasificar(long firma) {
+        if ((firma & (PEONES | PESADAS)) == 0) {
+            int clave = claveMenores(firma);
+            return clave < 0 ? NORMAL : MENORES[clave];
+        }
+        if ((firma & (CABALLOS | PESADAS)) == 0 && (firma & PEONES) != 0) {
+            // Un alfil por lado, cada uno en un color de casilla distinto
+            int blancoClaro = contador(firma, Posicion.pieza(Posicion.ALFIL, Posicion.BLANCAS));
+            int blancoOscuro = contador(firma, OSCURO);
+            int negroClaro = contador(firma, Posicion.pieza(Posicion.ALFIL, Posicion.NEGRAS));
+            int negroOscuro = contador(firma, OSCURO | 8);
+            if (blancoClaro + blancoOscuro == 1 && negroClaro + negroOscuro == 1 && blancoClaro != negroClaro) {
+                return ALFILES_OPUESTOS;
+            }
+        }
+        return NORMAL;
+    }
+
+    /**
+     * Indica si ningun lado puede dar mate: rey contra rey, rey y una pieza
+     * menor contra rey, o solo alfiles y todos del mismo color de casilla
+     *
+     * @param firma Firma de material
+     * @return true si la partida es tablas por material insuficiente
+     */
+    public static boolean esInsuficiente(long firma) {
+        return clasificar(firma) == TABLAS;
+    }
+
+    /**
+     * Factor por el que se multiplica la evaluacion (sobre ESCALA_NORMAL)
+     * segun lo que puede ganar el lado que va mejor
+     *
+     * @param firma Firma de material
+     * @param fuerte Color que va mejor segun la evaluacion
+     * @return Escala entre 0 y ESCALA_NORMAL
+     */
+    public static int escala(long firma, int fuerte) {
+        int clase = clasificar(firma);
+        if (clase == TABLAS || clase == SIN_GANANCIA) {
+            return 0;
+        }
+        // Sin peones hace falta al menos una torre de ventaja para ganar
+        if (contador(firma, Posicion.pieza(Posicion.PEON, fuerte)) == 0) {
+            int propio = piezas(firma, fuerte);
+            int rival = piezas(firma, fuerte ^ 1);
+            if (propio - rival <= Evaluacion.VALOR[Posicion.ALFIL]) {
+                return propio < Evaluacion.VALOR[Posicion.TORRE] ? 0 : rival <= Evaluacion.VALOR[Posicion.ALFIL] ? 4 : 14;
+            }
+        }
+        return clase == ALFILES_OPUESTOS ? ESCALA_NORMAL / 2 : ESCALA_NORMAL;
+    }
+
+    /**
+     * Clave de las piezas menores en base 3 (caballos, alfiles claros y
+     * oscuros de cada color, hasta 2 de cada uno)
+     *
+     * @return Clave entre 0 y 728, o -1 si algun contador pasa de 2
+     */
+    private static int claveMenores(long firma) {
+        int clave = 0;
+        for (int lugar : LUGARES_MENORES) {
+            int n = contador(firma, lugar);
+            if (n > 2) {
+                return -1;
+            }
+            clave = clave * 3 + n;
+        }
+        return clave;
+    }
+
+    /**
+     * Clasifica una combinacion de piezas menores (se usa al llenar la tabla)
+     */
+    private static int clasificarMenores(int clave) {
+        int[] n = new int[6];// Caballos, alfiles claros y oscuros de blancas, luego de negras
+        for (int i = 5; i >= 0; i--) {
+            n[i] = clave % 3;
+            clave /= 3;
+        }
+        int caballos = n[0] + n[3];
+        int claros = n[1] + n[4];
+        int oscuros = n[2] + n[5];
+        if (caballos + claros + oscuros <= 1 || caballos == 0 && (claros == 0 || oscuros == 0)) {
+            return TABLAS;
+        }
+        // Dos caballos contra el rey solo no fuerzan el mate
+        int blancas = n[0] + n[1] + n[2];
+        int negras = n[3] + n[4] + n[5];
+        if (blancas == 0 && n[3] == 2 && negras == 2 || negras == 0 && n[0] == 2 && blancas == 2) {
+            return SIN_GANANCIA;
+        }
+        return NORMAL;
+    }
+}
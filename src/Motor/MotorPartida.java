@@ -0,0 +1,123 @@
+package Motor;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Un motor que juega partidas en el torneo
+ * Puede ser la busqueda de este proyecto (en el mismo proceso) o un
+ * motor externo controlado por UCI con ClienteUci
+ *
+ * Cada instancia la usa un solo hilo a la vez
+ */
+public interface MotorPartida extends AutoCloseable {
+
+    /**
+     * @return Nombre del motor para el PGN y el marcador
+     */
+    String getNombre();
+
+    /**
+     * Avisa que empieza una partida nueva (se olvida lo aprendido en la anterior)
+     */
+    void nuevaPartida();
+
+    /**
+     * Busca la jugada de la posicion
+     *
+     * @param pos Posicion actual (no se modifica)
+     * @param limites Limites de la jugada, con el reloj del que mueve si se juega con reloj
+     * @return Resultado con la jugada elegida y su puntuacion desde el punto de vista del que mueve
+     * @throws IOException Si el motor dejo de responder
+     */
+    ResultadoBusqueda jugar(Posicion pos, LimitesBusqueda limites) throws IOException;
+
+    /**
+     * Libera el motor
+     */
+    @Override
+    void close();
+
+    /**
+     * Crea un motor con la busqueda de este proyecto y su propia tabla de transposicion
+     *
+     * @param nombre Nombre del motor
+     * @param megabytes Tamaño de la tabla de transposicion
+     * @param ordenar false para desactivar el ordenamiento de jugadas (para comparar versiones)
+     * @return Motor interno
+     */
+    static MotorPartida interno(String nombre, long megabytes, boolean ordenar) {
+        TablaTransposicion tabla = new TablaTransposicion(megabytes, false);
+        return new MotorPartida() {
+            @Override
+            public String getNombre() {
+                return nombre;
+            }
+
+            @Override
+            public void nuevaPartida() {
+                tabla.limpiar();
+            }
+
+            @Override
+            public ResultadoBusqueda jugar(Posicion pos, LimitesBusqueda limites) {
+                Busqueda busqueda = new Busqueda(pos.copiar(), tabla);
+                busqueda.setOrdenamiento(ordenar);
+                return busqueda.buscar(limites, null);
+            }
+
+            @Override
+            public void close() {
+                tabla.close();
+            }
+        };
+    }
+
+    /**
+     * Lanza un motor UCI externo y espera su uciok
+     *
+     * @param comando Programa y argumentos del motor
+     * @return Motor externo
+     * @throws IOException Si no se pudo lanzar o no respondio al saludo
+     */
+    static MotorPartida externo(List<String> comando) throws IOException {
+        ClienteUci cliente = new ClienteUci(comando);
+        try {
+            cliente.iniciar().get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            cliente.close();
+            throw new IOException("El motor no respondio a uci: " + String.join(" ", comando), e);
+        }
+        return new MotorPartida() {
+            @Override
+            public String getNombre() {
+                return cliente.getNombre().isEmpty() ? comando.get(0) : cliente.getNombre();
+            }
+
+            @Override
+            public void nuevaPartida() {
+                cliente.nuevaPartida();
+            }
+
+            @Override
+            public ResultadoBusqueda jugar(Posicion pos, LimitesBusqueda limites) throws IOException {
+                try {
+                    return cliente.analizar(pos, limites, null).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrumpido esperando al motor", e);
+                } catch (ExecutionException e) {
+                    throw new IOException("El motor fallo: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+
+            @Override
+            public void close() {
+                cliente.close();
+            }
+        };
+    }
+}
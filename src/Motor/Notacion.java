@@ -0,0 +1,175 @@
+package Motor;
+
+/**
+ * Notacion algebraica estandar (SAN): e4, Nf3, exd5, Rad1, e8=Q, O-O, Qh5+, Qxf7#
+ *
+ * Todo se calcula con la lista de jugadas legales que el llamador ya genero
+ * para la posicion: la desambiguacion solo recorre esa lista, y el sufijo
+ * de jaque hace la jugada y revisa si el rey contrario esta atacado. Solo
+ * cuando hay jaque se buscan respuestas legales, y se para en la primera,
+ * para distinguir el jaque del mate
+ *
+ * Las letras de las piezas van en ingles (N, B, R, Q, K) como pide el PGN
+ */
+public final class Notacion {
+
+    private static final String LETRAS = "  NBRQK";// Letra de cada tipo de pieza (el peon no lleva)
+    private static final String PROMOCIONES = "NBRQ";
+
+    private Notacion() {
+    }
+
+    /**
+     * Convierte una jugada a SAN generando las jugadas legales de la posicion
+     * Para muchas jugadas conviene usar la version que recibe la lista
+     *
+     * @param pos Posicion antes de la jugada (queda igual al terminar)
+     * @param jugada Jugada legal en la posicion
+     * @return Jugada en SAN
+     */
+    public static String san(Posicion pos, int jugada) {
+        int[] legales = new int[Posicion.MAX_JUGADAS];
+        int n = pos.generarLegales(legales);
+        return san(pos, jugada, legales, n);
+    }
+
+    /**
+     * Convierte una jugada a SAN usando las jugadas legales ya generadas
+     *
+     * @param pos Posicion antes de la jugada (queda igual al terminar)
+     * @param jugada Jugada legal en la posicion
+     * @param legales Jugadas legales de la posicion
+     * @param n Cantidad de jugadas legales
+     * @return Jugada en SAN
+     */
+    public static String san(Posicion pos, int jugada, int[] legales, int n) {
+        StringBuilder sb = new StringBuilder(8);
+        agregar(sb, pos, jugada, legales, n);
+        return sb.toString();
+    }
+
+    /**
+     * Agrega una jugada en SAN al final de un StringBuilder, sin crear
+     * cadenas intermedias (para exportar muchas partidas)
+     *
+     * @param sb Donde se escribe la jugada
+     * @param pos Posicion antes de la jugada (queda igual al terminar)
+     * @param jugada Jugada legal en la posicion
+     * @param legales Jugadas legales de la posicion
+     * @param n Cantidad de jugadas legales
+     */
+    public static void agregar(StringBuilder sb, Posicion pos, int jugada, int[] legales, int n) {
+        agregarSinSufijo(sb, pos, jugada, legales, n);
+        pos.hacer(jugada);
+        if (pos.enJaque()) {
+            sb.append(hayJugadaLegal(pos) ? '+' : '#');
+        }
+        pos.deshacer(jugada);
+    }
+
+    /**
+     * Escribe la jugada sin el sufijo de jaque o mate
+     */
+    private static void agregarSinSufijo(StringBuilder sb, Posicion pos, int jugada, int[] legales, int n) {
+        int desde = Jugada.desde(jugada);
+        int hacia = Jugada.hacia(jugada);
+        int bandera = Jugada.bandera(jugada);
+        if (bandera == Jugada.ENROQUE_CORTO) {
+            sb.append("O-O");
+            return;
+        }
+        if (bandera == Jugada.ENROQUE_LARGO) {
+            sb.append("O-O-O");
+            return;
+        }
+
+        int pieza = pos.getPieza(desde);
+        int tipo = Posicion.tipo(pieza);
+        if (tipo == Posicion.PEON) {
+            // El peon que captura se identifica por su columna
+            if (Jugada.esCaptura(jugada)) {
+                sb.append((char) ('a' + (desde & 7))).append('x');
+            }
+            agregarCasilla(sb, hacia);
+            if (Jugada.esPromocion(jugada)) {
+                sb.append('=').append(PROMOCIONES.charAt(bandera & 3));
+            }
+            return;
+        }
+
+        sb.append(LETRAS.charAt(tipo));
+        // Desambiguacion: otras piezas iguales que tambien pueden ir a la casilla destino
+        boolean otra = false;
+        boolean mismaColumna = false;
+        boolean mismaFila = false;
+        for (int i = 0; i < n; i++) {
+            int m = legales[i];
+            int otroDesde = Jugada.desde(m);
+            if (Jugada.hacia(m) == hacia && otroDesde != desde && pos.getPieza(otroDesde) == pieza) {
+                otra = true;
+                mismaColumna |= (otroDesde & 7) == (desde & 7);
+                mismaFila |= (otroDesde >> 3) == (desde >> 3);
+            }
+        }
+        if (otra) {
+            if (!mismaColumna) {
+                sb.append((char) ('a' + (desde & 7)));
+            } else if (!mismaFila) {
+                sb.append((char) ('8' - (desde >> 3)));
+            } else {
+                agregarCasilla(sb, desde);
+            }
+        }
+        if (Jugada.esCaptura(jugada)) {
+            sb.append('x');
+        }
+        agregarCasilla(sb, hacia);
+    }
+
+    private static void agregarCasilla(StringBuilder sb, int casilla) {
+        sb.append((char) ('a' + (casilla & 7))).append((char) ('8' - (casilla >> 3)));
+    }
+
+    /**
+     * Indica si el bando que mueve tiene alguna jugada legal
+     * Se detiene en la primera que encuentra
+     */
+    private static boolean hayJugadaLegal(Posicion pos) {
+        int[] pseudo = new int[Posicion.MAX_JUGADAS];
+        int n = pos.generarPseudo(pseudo, 0);
+        for (int i = 0; i < n; i++) {
+            if (pos.esLegal(pseudo[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Busca la jugada legal que corresponde a un texto en SAN
+     * Acepta el texto con o sin sufijos (+, #, !, ?), con o sin el "=" de la
+     * promocion y los enroques escritos con ceros
+     *
+     * @param pos Posicion actual
+     * @param texto Jugada en SAN
+     * @param legales Arreglo auxiliar de al menos Posicion.MAX_JUGADAS elementos
+     * @return Jugada o Jugada.NULA si no es legal
+     */
+    public static int buscar(Posicion pos, String texto, int[] legales) {
+        String buscado = texto.replaceAll("[+#!?]+$", "").replace("=", "").replace('0', 'O');
+        int n = pos.generarLegales(legales);
+        StringBuilder sb = new StringBuilder(8);
+        for (int i = 0; i < n; i++) {
+            sb.setLength(0);
+            agregarSinSufijo(sb, pos, legales[i], legales, n);
+            int igual = sb.indexOf("=");
+            if (igual >= 0) {
+                sb.deleteCharAt(igual);
+            }
+            if (buscado.contentEquals(sb)) {
+                return legales[i];
+            }
+        }
+        return Jugada.NULA;
+    }
+}
@@ -0,0 +1,160 @@
+package Motor;
+
+/**
+ * Ordenamiento de jugadas para la busqueda alfa-beta
+ * Cuanto antes se prueba la mejor jugada, antes llegan los cortes beta y
+ * menos nodos hay que visitar. El orden es:
+ * 1. La jugada guardada en la tabla de transposicion
+ * 2. Capturas y promociones, por MVV-LVA (victima mas valiosa, atacante menos valioso)
+ * 3. Jugadas asesinas (killers): jugadas tranquilas que cortaron en el mismo ply
+ * 4. El resto de jugadas tranquilas, por la tabla de historia
+ *
+ * Las puntuaciones se escriben en un arreglo preasignado y las jugadas se
+ * eligen una a una con seleccion parcial, asi no se crean objetos ni se
+ * ordena la lista completa si hay un corte temprano
+ * La jugada de la tabla la prueba SelectorMovimientos antes de generar nada
+ * Cada Busqueda tiene su propia instancia (no es segura entre hilos)
+ */
+final class OrdenMovimientos {
+
+    // Rangos de puntuacion de cada grupo de jugadas
+    private static final int PUNTOS_CAPTURA = 1 << 24;
+    private static final int PUNTOS_ASESINA = 1 << 22;
+    private static final int MAX_HISTORIA = 1 << 20;// Las jugadas tranquilas nunca superan a las asesinas
+
+    private final int[][] asesinas = new int[Busqueda.MAX_PLY][2];// Dos jugadas asesinas por ply
+    private final int[][] historia = new int[16][64];// Indice: pieza que mueve, casilla destino
+
+    /**
+     * Borra las jugadas asesinas y reduce la historia al empezar una busqueda nueva
+     * (la historia de la jugada anterior sigue siendo util, pero pesa menos)
+     */
+    void nuevaBusqueda() {
+        for (int[] a : asesinas) {
+            a[0] = Jugada.NULA;
+            a[1] = Jugada.NULA;
+        }
+        for (int[] h : historia) {
+            for (int i = 0; i < 64; i++) {
+                h[i] >>= 3;
+            }
+        }
+    }
+
+    /**
+     * Puntua capturas y promociones por MVV-LVA
+     *
+     * @param pos Posicion antes de hacer las jugadas
+     * @param lista Jugadas generadas
+     * @param puntos Arreglo donde se escriben las puntuaciones (mismo indice que lista)
+     * @param desde Primer indice a puntuar
+     * @param hasta Indice siguiente al ultimo
+     */
+    void puntuarCapturas(Posicion pos, int[] lista, int[] puntos, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            int jugada = lista[i];
+            puntos[i] = PUNTOS_CAPTURA + mvvLva(pos, jugada, Posicion.tipo(pos.getPieza(Jugada.desde(jugada))));
+        }
+    }
+
+    /**
+     * Puntua las jugadas tranquilas: primero las asesinas del ply y despues por historia
+     *
+     * @param pos Posicion antes de hacer las jugadas
+     * @param lista Jugadas generadas
+     * @param puntos Arreglo donde se escriben las puntuaciones (mismo indice que lista)
+     * @param desde Primer indice a puntuar
+     * @param hasta Indice siguiente al ultimo
+     * @param ply Distancia a la raiz
+     */
+    void puntuarTranquilas(Posicion pos, int[] lista, int[] puntos, int desde, int hasta, int ply) {
+        int asesina0 = asesinas[ply][0];
+        int asesina1 = asesinas[ply][1];
+        for (int i = desde; i < hasta; i++) {
+            int jugada = lista[i];
+            if (jugada == asesina0) {
+                puntos[i] = PUNTOS_ASESINA + 1;
+            } else if (jugada == asesina1) {
+                puntos[i] = PUNTOS_ASESINA;
+            } else {
+                puntos[i] = historia[pos.getPieza(Jugada.desde(jugada))][Jugada.hacia(jugada)];
+            }
+        }
+    }
+
+    /**
+     * Puntuacion MVV-LVA de una captura o promocion
+     * La victima domina y, entre capturas de la misma pieza, gana el atacante mas barato
+     */
+    private static int mvvLva(Posicion pos, int jugada, int atacante) {
+        int victima;
+        if (Jugada.bandera(jugada) == Jugada.AL_PASO) {
+            victima = Posicion.PEON;
+        } else {
+            victima = Posicion.tipo(pos.getPieza(Jugada.hacia(jugada)));
+        }
+        int valor = Evaluacion.VALOR[victima] * 8 - atacante;
+        if (Jugada.esPromocion(jugada)) {
+            valor += Evaluacion.VALOR[Jugada.piezaPromocion(jugada)] * 8;
+        }
+        return valor;
+    }
+
+    /**
+     * Lleva al indice i la jugada con mayor puntuacion entre i y n-1
+     * (un paso de ordenamiento por seleccion)
+     *
+     * @param lista Jugadas
+     * @param puntos Puntuaciones de las jugadas
+     * @param i Indice a llenar
+     * @param n Numero de jugadas
+     * @return Jugada que queda en el indice i
+     */
+    static int siguiente(int[] lista, int[] puntos, int i, int n) {
+        int mejor = i;
+        for (int j = i + 1; j < n; j++) {
+            if (puntos[j] > puntos[mejor]) {
+                mejor = j;
+            }
+        }
+        if (mejor != i) {
+            int jugada = lista[mejor];
+            lista[mejor] = lista[i];
+            lista[i] = jugada;
+            int p = puntos[mejor];
+            puntos[mejor] = puntos[i];
+            puntos[i] = p;
+        }
+        return lista[i];
+    }
+
+    /**
+     * Registra una jugada tranquila que produjo un corte beta
+     * La guarda como asesina de su ply y le suma historia segun la profundidad
+     *
+     * @param pos Posicion antes de hacer la jugada
+     * @param jugada Jugada que corto
+     * @param prof Profundidad restante del nodo
+     * @param ply Distancia a la raiz
+     */
+    void corte(Posicion pos, int jugada, int prof, int ply) {
+        if (Jugada.esCaptura(jugada) || Jugada.esPromocion(jugada)) {
+            return;// Las capturas ya se ordenan por MVV-LVA
+        }
+        if (asesinas[ply][0] != jugada) {
+            asesinas[ply][1] = asesinas[ply][0];
+            asesinas[ply][0] = jugada;
+        }
+        int[] h = historia[pos.getPieza(Jugada.desde(jugada))];
+        int hacia = Jugada.hacia(jugada);
+        h[hacia] += prof * prof;
+        if (h[hacia] >= MAX_HISTORIA) {
+            // Reduce toda la tabla para que ningun valor alcance a las asesinas
+            for (int[] fila : historia) {
+                for (int i = 0; i < 64; i++) {
+                    fila[i] >>= 1;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,1000 @@
+package Motor;
+
+import java.util.Arrays;
+
+/**
+ * Nucleo de posicion sin interfaz grafica
+ * Guarda el tablero como un arreglo de 64 enteros y permite hacer y deshacer
+ * jugadas compactas (ver Jugada) sin crear objetos, lo que la hace apta para
+ * la busqueda del motor
+ *
+ * Las casillas usan el mismo indice que Tablero.getTileNum (fila*8+columna),
+ * por lo que la fila 0 es la octava fila del ajedrez (lado de las negras)
+ */
+public final class Posicion {
+
+    // Tipos de pieza
+    public static final int VACIO = 0;
+    public static final int PEON = 1;
+    public static final int CABALLO = 2;
+    public static final int ALFIL = 3;
+    public static final int TORRE = 4;
+    public static final int REINA = 5;
+    public static final int REY = 6;
+
+    // Colores, una pieza se codifica como tipo | (color << 3)
+    public static final int BLANCAS = 0;
+    public static final int NEGRAS = 1;
+
+    // Derechos de enroque
+    public static final int ENROQUE_BLANCO_CORTO = 1;
+    public static final int ENROQUE_BLANCO_LARGO = 2;
+    public static final int ENROQUE_NEGRO_CORTO = 4;
+    public static final int ENROQUE_NEGRO_LARGO = 8;
+
+    // Numero maximo de jugadas legales en cualquier posicion
+    public static final int MAX_JUGADAS = 256;
+
+    // Clases de jugadas que puede producir el generador (se combinan con |)
+    static final int GENERAR_CAPTURAS = 1;// Capturas, al paso y todas las promociones
+    static final int GENERAR_TRANQUILAS = 2;// Resto de jugadas, incluidos los enroques
+    static final int GENERAR_TODAS = GENERAR_CAPTURAS | GENERAR_TRANQUILAS;
+
+    public static final String FEN_INICIAL = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Desplazamientos de fila y columna de cada direccion (0-3 rectas, 4-7 diagonales)
+    private static final int[] DIR_FILA = {-1, 1, 0, 0, -1, -1, 1, 1};
+    private static final int[] DIR_COLUMNA = {0, 0, -1, 1, -1, 1, -1, 1};
+
+    // Casillas de cada rayo desde cada casilla, precalculadas
+    static final int[][][] RAYOS = new int[64][8][];
+    static final int[][] SALTOS_CABALLO = new int[64][];
+    static final int[][] PASOS_REY = new int[64][];
+
+    // Mascara que conserva los derechos de enroque al mover desde o hacia cada casilla
+    private static final int[] MASCARA_ENROQUE = new int[64];
+
+    static {
+        int[][] caballo = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+        for (int sq = 0; sq < 64; sq++) {
+            int f = sq >> 3;
+            int c = sq & 7;
+            for (int d = 0; d < 8; d++) {
+                int[] tmp = new int[7];
+                int n = 0;
+                for (int ff = f + DIR_FILA[d], cc = c + DIR_COLUMNA[d];
+                     ff >= 0 && ff < 8 && cc >= 0 && cc < 8;
+                     ff += DIR_FILA[d], cc += DIR_COLUMNA[d]) {
+                    tmp[n++] = ff * 8 + cc;
+                }
+                RAYOS[sq][d] = Arrays.copyOf(tmp, n);
+            }
+            SALTOS_CABALLO[sq] = vecinos(f, c, caballo);
+            int[][] rey = new int[8][];
+            for (int d = 0; d < 8; d++) {
+                rey[d] = new int[]{DIR_FILA[d], DIR_COLUMNA[d]};
+            }
+            PASOS_REY[sq] = vecinos(f, c, rey);
+            MASCARA_ENROQUE[sq] = 15;
+        }
+        MASCARA_ENROQUE[60] &= ~(ENROQUE_BLANCO_CORTO | ENROQUE_BLANCO_LARGO);
+        MASCARA_ENROQUE[63] &= ~ENROQUE_BLANCO_CORTO;
+        MASCARA_ENROQUE[56] &= ~ENROQUE_BLANCO_LARGO;
+        MASCARA_ENROQUE[4] &= ~(ENROQUE_NEGRO_CORTO | ENROQUE_NEGRO_LARGO);
+        MASCARA_ENROQUE[7] &= ~ENROQUE_NEGRO_CORTO;
+        MASCARA_ENROQUE[0] &= ~ENROQUE_NEGRO_LARGO;
+    }
+
+    /**
+     * Calcula las casillas validas alcanzables con un conjunto de saltos
+     *
+     * @param f Fila de origen
+     * @param c Columna de origen
+     * @param saltos Pares {fila, columna} de desplazamiento
+     * @return Casillas dentro del tablero
+     */
+    private static int[] vecinos(int f, int c, int[][] saltos) {
+        int[] tmp = new int[8];
+        int n = 0;
+        for (int[] s : saltos) {
+            int ff = f + s[0];
+            int cc = c + s[1];
+            if (ff >= 0 && ff < 8 && cc >= 0 && cc < 8) {
+                tmp[n++] = ff * 8 + cc;
+            }
+        }
+        return Arrays.copyOf(tmp, n);
+    }
+
+    private final int[] casillas = new int[64];// Pieza en cada casilla (0 si esta vacia)
+    private final int[] reyCasilla = {-1, -1};// Casilla del rey de cada color
+    private int turno = BLANCAS;// Color que mueve
+    private int enroques;// Derechos de enroque disponibles
+    private int alPaso = -1;// Casilla de captura al paso (-1 si no hay)
+    private int reversibles;// Medias jugadas desde la ultima captura o movimiento de peon (regla de 50 jugadas)
+    private int numeroJugada = 1;// Numero de jugada completa, aumenta despues de cada jugada de negras
+    private long hash;// Hash de Zobrist, actualizado de forma incremental
+    private int medioJuego;// Suma de material y tablas de casillas de medio juego (blancas - negras)
+    private int finalJuego;// Suma de material y tablas de casillas de final (blancas - negras)
+    private int fase;// Fase de la partida segun las piezas que quedan (ver Evaluacion)
+    private long material;// Firma de material: cantidad de piezas por tipo y color (ver Material)
+
+    // Pila con la informacion irreversible de cada jugada hecha, para deshacerla
+    // pilaHash[i] es el hash de la posicion despues de i jugadas: sirve tambien para las repeticiones
+    private int[] pila = new int[64];
+    private long[] pilaHash = new long[64];
+    private int ply;// Numero de jugadas hechas sobre esta posicion
+    private final int[] auxiliar = new int[32];// Jugadas de una sola pieza, para esPseudoLegal
+
+    /**
+     * Crea una posicion vacia, con turno de las blancas y sin derechos de enroque
+     * Se completa con colocar() y los setters, o se usa desdeFen()
+     */
+    public Posicion() {
+    }
+
+    /**
+     * Crea una posicion a partir de una cadena FEN
+     *
+     * @param fen Cadena FEN (si es null o vacia se usa la posicion inicial)
+     * @return Posicion nueva
+     * @throws IllegalArgumentException Si la cadena no es un FEN valido
+     */
+    public static Posicion desdeFen(String fen) {
+        if (fen == null || fen.isBlank()) {
+            fen = FEN_INICIAL;
+        }
+        String[] partes = fen.trim().split("\\s+");
+        Posicion p = new Posicion();
+
+        // Coloca las piezas
+        int f = 0;
+        int c = 0;
+        for (char ch : partes[0].toCharArray()) {
+            if (ch == '/') {
+                f++;
+                c = 0;
+            } else if (Character.isDigit(ch)) {
+                c += ch - '0';
+            } else {
+                int tipo = "pnbrqk".indexOf(Character.toLowerCase(ch)) + 1;
+                if (tipo == 0 || f > 7 || c > 7) {
+                    throw new IllegalArgumentException("FEN invalido: " + fen);
+                }
+                p.colocar(f * 8 + c, pieza(tipo, Character.isUpperCase(ch) ? BLANCAS : NEGRAS));
+                c++;
+            }
+        }
+
+        // Turno, enroques y casilla al paso
+        p.setTurno(partes.length < 2 || partes[1].equals("w") ? BLANCAS : NEGRAS);
+        int derechos = 0;
+        if (partes.length > 2) {
+            for (char ch : partes[2].toCharArray()) {
+                switch (ch) {
+                    case 'K': derechos |= ENROQUE_BLANCO_CORTO; break;
+                    case 'Q': derechos |= ENROQUE_BLANCO_LARGO; break;
+                    case 'k': derechos |= ENROQUE_NEGRO_CORTO; break;
+                    case 'q': derechos |= ENROQUE_NEGRO_LARGO; break;
+                }
+            }
+        }
+        p.setEnroques(derechos);
+        if (partes.length > 3 && !partes[3].equals("-")) {
+            p.setAlPaso(('8' - partes[3].charAt(1)) * 8 + (partes[3].charAt(0) - 'a'));
+        }
+
+        // Contadores de medias jugadas reversibles y de jugada completa (opcionales)
+        try {
+            if (partes.length > 4) {
+                p.setReversibles(Integer.parseInt(partes[4]));
+            }
+            if (partes.length > 5) {
+                p.setNumeroJugada(Integer.parseInt(partes[5]));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("FEN invalido: " + fen, e);
+        }
+        return p;
+    }
+
+    /**
+     * Convierte la posicion a notacion FEN
+     *
+     * @return Cadena FEN de la posicion
+     */
+    public String aFen() {
+        StringBuilder sb = new StringBuilder();
+        for (int f = 0; f < 8; f++) {
+            int vacias = 0;
+            for (int c = 0; c < 8; c++) {
+                int p = casillas[f * 8 + c];
+                if (p == VACIO) {
+                    vacias++;
+                    continue;
+                }
+                if (vacias > 0) {
+                    sb.append(vacias);
+                    vacias = 0;
+                }
+                char ch = " pnbrqk".charAt(tipo(p));
+                sb.append(color(p) == BLANCAS ? Character.toUpperCase(ch) : ch);
+            }
+            if (vacias > 0) {
+                sb.append(vacias);
+            }
+            if (f < 7) {
+                sb.append('/');
+            }
+        }
+        sb.append(turno == BLANCAS ? " w " : " b ");
+        if (enroques == 0) {
+            sb.append('-');
+        } else {
+            if ((enroques & ENROQUE_BLANCO_CORTO) != 0) sb.append('K');
+            if ((enroques & ENROQUE_BLANCO_LARGO) != 0) sb.append('Q');
+            if ((enroques & ENROQUE_NEGRO_CORTO) != 0) sb.append('k');
+            if ((enroques & ENROQUE_NEGRO_LARGO) != 0) sb.append('q');
+        }
+        sb.append(' ').append(alPaso < 0 ? "-" : Jugada.casilla(alPaso));
+        sb.append(' ').append(reversibles).append(' ').append(numeroJugada);
+        return sb.toString();
+    }
+
+    /**
+     * Crea una copia independiente de la posicion
+     * Util para entregar la posicion a otro hilo
+     * Se copian los hashes desde la ultima jugada irreversible, para que la
+     * copia detecte repeticiones con la partida, pero no se pueden deshacer
+     * en ella las jugadas anteriores a la copia
+     *
+     * @return Copia de la posicion
+     */
+    public Posicion copiar() {
+        Posicion p = new Posicion();
+        for (int sq = 0; sq < 64; sq++) {
+            if (casillas[sq] != VACIO) {
+                p.colocar(sq, casillas[sq]);
+            }
+        }
+        p.setTurno(turno);
+        p.setEnroques(enroques);
+        p.setAlPaso(alPaso);
+        p.reversibles = reversibles;
+        p.numeroJugada = numeroJugada;
+        int historia = Math.min(reversibles, ply);
+        if (historia > 0) {
+            p.pila = new int[Math.max(64, historia * 2)];
+            p.pilaHash = new long[p.pila.length];
+            System.arraycopy(pilaHash, ply - historia, p.pilaHash, 0, historia);
+            p.ply = historia;
+        }
+        return p;
+    }
+
+    /**
+     * Copia sobre esta posicion el estado de otra, sin crear objetos
+     * La pila de jugadas queda vacia (no se copia la historia para repeticiones)
+     *
+     * @param otra Posicion a copiar
+     */
+    public void copiarDe(Posicion otra) {
+        System.arraycopy(otra.casillas, 0, casillas, 0, 64);
+        reyCasilla[BLANCAS] = otra.reyCasilla[BLANCAS];
+        reyCasilla[NEGRAS] = otra.reyCasilla[NEGRAS];
+        turno = otra.turno;
+        enroques = otra.enroques;
+        alPaso = otra.alPaso;
+        reversibles = otra.reversibles;
+        numeroJugada = otra.numeroJugada;
+        hash = otra.hash;
+        medioJuego = otra.medioJuego;
+        finalJuego = otra.finalJuego;
+        fase = otra.fase;
+        material = otra.material;
+        ply = 0;
+    }
+
+    /**
+     * Codifica una pieza a partir de su tipo y color
+     *
+     * @param tipo Tipo de pieza (PEON a REY)
+     * @param color BLANCAS o NEGRAS
+     * @return Codigo de la pieza
+     */
+    public static int pieza(int tipo, int color) {
+        return tipo | (color << 3);
+    }
+
+    /**
+     * @param pieza Codigo de pieza
+     * @return Tipo de la pieza (PEON a REY, o VACIO)
+     */
+    public static int tipo(int pieza) {
+        return pieza & 7;
+    }
+
+    /**
+     * @param pieza Codigo de pieza (no vacia)
+     * @return Color de la pieza
+     */
+    public static int color(int pieza) {
+        return pieza >> 3;
+    }
+
+    /**
+     * Coloca una pieza en una casilla vacia, usado al preparar una posicion
+     *
+     * @param casilla Casilla destino
+     * @param pieza Codigo de la pieza
+     */
+    public void colocar(int casilla, int pieza) {
+        if (casillas[casilla] != VACIO) {
+            quitar(casilla);
+        }
+        poner(casilla, pieza);
+    }
+
+    /**
+     * @param turno Color que mueve (BLANCAS o NEGRAS)
+     */
+    public void setTurno(int turno) {
+        if (turno != this.turno) {
+            hash ^= Zobrist.TURNO;
+        }
+        this.turno = turno;
+    }
+
+    /**
+     * @param enroques Derechos de enroque (combinacion de ENROQUE_*)
+     */
+    public void setEnroques(int enroques) {
+        hash ^= Zobrist.ENROQUE[this.enroques] ^ Zobrist.ENROQUE[enroques];
+        this.enroques = enroques;
+    }
+
+    /**
+     * @param alPaso Casilla de captura al paso o -1
+     */
+    public void setAlPaso(int alPaso) {
+        if (this.alPaso >= 0) {
+            hash ^= Zobrist.AL_PASO[this.alPaso & 7];
+        }
+        if (alPaso >= 0) {
+            hash ^= Zobrist.AL_PASO[alPaso & 7];
+        }
+        this.alPaso = alPaso;
+    }
+
+    /**
+     * @param casilla Indice de la casilla
+     * @return Codigo de la pieza en la casilla (VACIO si no hay)
+     */
+    public int getPieza(int casilla) {
+        return casillas[casilla];
+    }
+
+    public int getTurno() {
+        return turno;
+    }
+
+    public int getEnroques() {
+        return enroques;
+    }
+
+    public int getAlPaso() {
+        return alPaso;
+    }
+
+    /**
+     * @return Hash de Zobrist de la posicion
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @param color Color del rey
+     * @return Casilla del rey de ese color (-1 si no existe)
+     */
+    public int getRey(int color) {
+        return reyCasilla[color];
+    }
+
+    /**
+     * @return Puntuacion incremental de medio juego, vista por las blancas
+     */
+    public int getMedioJuego() {
+        return medioJuego;
+    }
+
+    /**
+     * @return Puntuacion incremental de final, vista por las blancas
+     */
+    public int getFinal() {
+        return finalJuego;
+    }
+
+    /**
+     * @return Fase de la partida (Evaluacion.FASE_MAXIMA al inicio, 0 con solo reyes y peones)
+     */
+    public int getFase() {
+        return fase;
+    }
+
+    /**
+     * @return Firma de material incremental (ver Material)
+     */
+    public long getMaterial() {
+        return material;
+    }
+
+    /**
+     * @return Numero de jugadas hechas desde que se preparo la posicion
+     *         (en una copia incluye las posiciones de la historia que se copiaron)
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * @return Medias jugadas desde la ultima captura o movimiento de peon
+     */
+    public int getReversibles() {
+        return reversibles;
+    }
+
+    /**
+     * @param reversibles Medias jugadas desde la ultima captura o movimiento de peon
+     */
+    public void setReversibles(int reversibles) {
+        if (reversibles < 0 || reversibles > 0xFFFF) {
+            throw new IllegalArgumentException("Contador de medias jugadas invalido: " + reversibles);
+        }
+        this.reversibles = reversibles;
+    }
+
+    /**
+     * @return Numero de jugada completa (empieza en 1)
+     */
+    public int getNumeroJugada() {
+        return numeroJugada;
+    }
+
+    /**
+     * @param numeroJugada Numero de jugada completa (1 o mas)
+     */
+    public void setNumeroJugada(int numeroJugada) {
+        if (numeroJugada < 1) {
+            throw new IllegalArgumentException("Numero de jugada invalido: " + numeroJugada);
+        }
+        this.numeroJugada = numeroJugada;
+    }
+
+    /**
+     * Indica si la regla de 50 jugadas permite reclamar tablas
+     * (cien medias jugadas sin captura ni movimiento de peon)
+     *
+     * @return true si se cumplio la regla
+     */
+    public boolean esRegla50() {
+        return reversibles >= 100;
+    }
+
+    /**
+     * Cuenta cuantas veces aparecio antes la posicion actual
+     * Solo se comparan los hashes desde la ultima jugada irreversible (antes
+     * no se puede repetir) y de dos en dos, porque una posicion con el otro
+     * bando al turno nunca es igual. Cuesta O(jugadas reversibles)
+     *
+     * @return Apariciones anteriores (2 significa triple repeticion)
+     */
+    public int repeticiones() {
+        int veces = 0;
+        int limite = Math.max(0, ply - reversibles);
+        for (int i = ply - 4; i >= limite; i -= 2) {
+            if (pilaHash[i] == hash) {
+                veces++;
+            }
+        }
+        return veces;
+    }
+
+    /**
+     * Indica si la posicion actual ya aparecio antes
+     * La busqueda la cuenta como tablas: si un lado pudo repetir una vez, puede repetir de nuevo
+     *
+     * @return true si la posicion se repite
+     */
+    public boolean esRepeticion() {
+        int limite = Math.max(0, ply - reversibles);
+        for (int i = ply - 4; i >= limite; i -= 2) {
+            if (pilaHash[i] == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Pone una pieza en una casilla vacia
+     * Es el unico punto por el que entra material al tablero
+     *
+     * @param sq Casilla
+     * @param pieza Codigo de la pieza
+     */
+    private void poner(int sq, int pieza) {
+        casillas[sq] = pieza;
+        hash ^= Zobrist.PIEZA[pieza][sq];
+        medioJuego += Evaluacion.MG[pieza][sq];
+        finalJuego += Evaluacion.EG[pieza][sq];
+        fase += Evaluacion.FASE[tipo(pieza)];
+        material += Material.UNIDAD[pieza][sq];
+        if (tipo(pieza) == REY) {
+            reyCasilla[color(pieza)] = sq;
+        }
+    }
+
+    /**
+     * Quita la pieza de una casilla ocupada
+     * Es el unico punto por el que sale material del tablero
+     *
+     * @param sq Casilla
+     * @return Pieza que habia en la casilla
+     */
+    private int quitar(int sq) {
+        int pieza = casillas[sq];
+        casillas[sq] = VACIO;
+        hash ^= Zobrist.PIEZA[pieza][sq];
+        medioJuego -= Evaluacion.MG[pieza][sq];
+        finalJuego -= Evaluacion.EG[pieza][sq];
+        fase -= Evaluacion.FASE[tipo(pieza)];
+        material -= Material.UNIDAD[pieza][sq];
+        return pieza;
+    }
+
+    /**
+     * Hace una jugada sobre la posicion
+     * La jugada debe ser al menos pseudo-legal (generada por esta posicion)
+     *
+     * @param jugada Jugada compacta
+     */
+    public void hacer(int jugada) {
+        int desde = Jugada.desde(jugada);
+        int hacia = Jugada.hacia(jugada);
+        int bandera = Jugada.bandera(jugada);
+        int nosotros = turno;
+
+        // Guarda el estado irreversible: pieza capturada, enroques, casilla al paso y jugadas reversibles
+        if (ply == pila.length) {
+            pila = Arrays.copyOf(pila, ply * 2);
+            pilaHash = Arrays.copyOf(pilaHash, ply * 2);
+        }
+        pilaHash[ply] = hash;
+        int capturada = VACIO;
+        if (bandera == Jugada.AL_PASO) {
+            capturada = quitar(hacia + (nosotros == BLANCAS ? 8 : -8));
+        } else if (casillas[hacia] != VACIO) {
+            capturada = quitar(hacia);
+        }
+        pila[ply++] = capturada | (enroques << 4) | ((alPaso + 1) << 8) | (reversibles << 16);
+
+        // Mueve la pieza, cambiandola si es una promocion
+        int pieza = quitar(desde);
+        reversibles = capturada != VACIO || tipo(pieza) == PEON ? 0 : reversibles + 1;
+        if (Jugada.esPromocion(jugada)) {
+            pieza = pieza(Jugada.piezaPromocion(jugada), nosotros);
+        }
+        poner(hacia, pieza);
+
+        // En el enroque tambien se mueve la torre
+        if (bandera == Jugada.ENROQUE_CORTO) {
+            poner(hacia - 1, quitar(hacia + 1));
+        } else if (bandera == Jugada.ENROQUE_LARGO) {
+            poner(hacia + 1, quitar(hacia - 2));
+        }
+
+        setAlPaso(bandera == Jugada.DOBLE_PEON ? (desde + hacia) >> 1 : -1);
+        setEnroques(enroques & MASCARA_ENROQUE[desde] & MASCARA_ENROQUE[hacia]);
+        if (nosotros == NEGRAS) {
+            numeroJugada++;
+        }
+        turno ^= 1;
+        hash ^= Zobrist.TURNO;
+    }
+
+    /**
+     * Deshace la ultima jugada hecha con hacer()
+     *
+     * @param jugada La misma jugada que se paso a hacer()
+     */
+    public void deshacer(int jugada) {
+        int desde = Jugada.desde(jugada);
+        int hacia = Jugada.hacia(jugada);
+        int bandera = Jugada.bandera(jugada);
+        turno ^= 1;
+        int nosotros = turno;
+
+        int info = pila[--ply];
+        enroques = (info >> 4) & 15;
+        alPaso = ((info >> 8) & 255) - 1;
+        reversibles = info >>> 16;
+        if (nosotros == NEGRAS) {
+            numeroJugada--;
+        }
+
+        // Devuelve la torre del enroque
+        if (bandera == Jugada.ENROQUE_CORTO) {
+            poner(hacia + 1, quitar(hacia - 1));
+        } else if (bandera == Jugada.ENROQUE_LARGO) {
+            poner(hacia - 2, quitar(hacia + 1));
+        }
+
+        // Devuelve la pieza (un peon si fue promocion) y lo capturado
+        int pieza = quitar(hacia);
+        if (Jugada.esPromocion(jugada)) {
+            pieza = pieza(PEON, nosotros);
+        }
+        poner(desde, pieza);
+        int capturada = info & 15;
+        if (capturada != VACIO) {
+            poner(bandera == Jugada.AL_PASO ? hacia + (nosotros == BLANCAS ? 8 : -8) : hacia, capturada);
+        }
+        hash = pilaHash[ply];
+    }
+
+    /**
+     * Verifica si una casilla esta atacada por las piezas de un color
+     *
+     * @param sq Casilla a revisar
+     * @param porColor Color atacante
+     * @return true si alguna pieza de ese color ataca la casilla
+     */
+    public boolean atacada(int sq, int porColor) {
+        // Peones: un peon blanco ataca hacia la fila anterior, uno negro hacia la siguiente
+        int f = sq >> 3;
+        int c = sq & 7;
+        int fPeon = porColor == BLANCAS ? f + 1 : f - 1;
+        int peon = pieza(PEON, porColor);
+        if (fPeon >= 0 && fPeon < 8) {
+            if (c > 0 && casillas[fPeon * 8 + c - 1] == peon) return true;
+            if (c < 7 && casillas[fPeon * 8 + c + 1] == peon) return true;
+        }
+
+        // Caballos y rey
+        int caballo = pieza(CABALLO, porColor);
+        for (int t : SALTOS_CABALLO[sq]) {
+            if (casillas[t] == caballo) return true;
+        }
+        int rey = pieza(REY, porColor);
+        for (int t : PASOS_REY[sq]) {
+            if (casillas[t] == rey) return true;
+        }
+
+        // Piezas de largo alcance: torre y reina en rectas, alfil y reina en diagonales
+        int reina = pieza(REINA, porColor);
+        for (int d = 0; d < 8; d++) {
+            int deslizante = pieza(d < 4 ? TORRE : ALFIL, porColor);
+            for (int t : RAYOS[sq][d]) {
+                int p = casillas[t];
+                if (p != VACIO) {
+                    if (p == deslizante || p == reina) return true;
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true si el rey del color que mueve esta en jaque
+     */
+    public boolean enJaque() {
+        int rey = reyCasilla[turno];
+        return rey >= 0 && atacada(rey, turno ^ 1);
+    }
+
+    /**
+     * Indica si la ultima jugada hecha dejo en jaque al rey del bando que la hizo
+     * (es decir, si fue ilegal)
+     *
+     * @return true si el rey del color que no mueve esta atacado
+     */
+    public boolean dejoReyEnJaque() {
+        return atacada(reyCasilla[turno ^ 1], turno);
+    }
+
+    /**
+     * Genera las jugadas pseudo-legales (pueden dejar al rey en jaque)
+     *
+     * @param lista Arreglo donde se escriben las jugadas
+     * @param n Posicion del arreglo a partir de la cual escribir
+     * @return Nueva cantidad de elementos en el arreglo
+     */
+    public int generarPseudo(int[] lista, int n) {
+        return generar(lista, n, GENERAR_TODAS);
+    }
+
+    /**
+     * Genera solo las capturas (incluida al paso) y las promociones pseudo-legales
+     * Es la primera etapa del generador por etapas y lo unico que necesita la
+     * busqueda de quietud
+     *
+     * @param lista Arreglo donde se escriben las jugadas
+     * @param n Posicion del arreglo a partir de la cual escribir
+     * @return Nueva cantidad de elementos en el arreglo
+     */
+    public int generarCapturas(int[] lista, int n) {
+        return generar(lista, n, GENERAR_CAPTURAS);
+    }
+
+    /**
+     * Genera las jugadas pseudo-legales que no son capturas ni promociones
+     * Junto con generarCapturas produce exactamente las jugadas de generarPseudo
+     *
+     * @param lista Arreglo donde se escriben las jugadas
+     * @param n Posicion del arreglo a partir de la cual escribir
+     * @return Nueva cantidad de elementos en el arreglo
+     */
+    public int generarTranquilas(int[] lista, int n) {
+        return generar(lista, n, GENERAR_TRANQUILAS);
+    }
+
+    /**
+     * Recorre el tablero generando las jugadas de las clases pedidas
+     *
+     * @param tipos Combinacion de GENERAR_CAPTURAS y GENERAR_TRANQUILAS
+     */
+    private int generar(int[] lista, int n, int tipos) {
+        int nosotros = turno;
+        for (int sq = 0; sq < 64; sq++) {
+            int p = casillas[sq];
+            if (p != VACIO && color(p) == nosotros) {
+                n = generarCasilla(sq, p, lista, n, tipos);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Genera las jugadas de la pieza p situada en la casilla sq
+     */
+    private int generarCasilla(int sq, int p, int[] lista, int n, int tipos) {
+        int ellos = turno ^ 1;
+        switch (tipo(p)) {
+            case PEON:
+                n = generarPeon(sq, lista, n, tipos);
+                break;
+            case CABALLO:
+                n = generarSaltos(sq, SALTOS_CABALLO[sq], ellos, lista, n, tipos);
+                break;
+            case ALFIL:
+                n = generarRayos(sq, 4, 8, ellos, lista, n, tipos);
+                break;
+            case TORRE:
+                n = generarRayos(sq, 0, 4, ellos, lista, n, tipos);
+                break;
+            case REINA:
+                n = generarRayos(sq, 0, 8, ellos, lista, n, tipos);
+                break;
+            case REY:
+                n = generarSaltos(sq, PASOS_REY[sq], ellos, lista, n, tipos);
+                if ((tipos & GENERAR_TRANQUILAS) != 0) {
+                    n = generarEnroques(sq, lista, n);
+                }
+                break;
+        }
+        return n;
+    }
+
+    /**
+     * Comprueba si una jugada es pseudo-legal en esta posicion sin generar
+     * todas las jugadas (solo las de la pieza que mueve)
+     * Sirve para validar la jugada de la tabla de transposicion, que puede
+     * venir de otra posicion con el mismo hash
+     *
+     * @param jugada Jugada a comprobar
+     * @return true si el generador produciria esa jugada
+     */
+    public boolean esPseudoLegal(int jugada) {
+        if (jugada == Jugada.NULA) {
+            return false;
+        }
+        int desde = Jugada.desde(jugada);
+        int p = casillas[desde];
+        if (p == VACIO || color(p) != turno) {
+            return false;
+        }
+        int n = generarCasilla(desde, p, auxiliar, 0, GENERAR_TODAS);
+        for (int i = 0; i < n; i++) {
+            if (auxiliar[i] == jugada) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Genera todas las jugadas legales de la posicion
+     *
+     * @param lista Arreglo de al menos MAX_JUGADAS elementos
+     * @return Numero de jugadas legales escritas al inicio del arreglo
+     */
+    public int generarLegales(int[] lista) {
+        int n = generarPseudo(lista, 0);
+        int legales = 0;
+        for (int i = 0; i < n; i++) {
+            if (esLegal(lista[i])) {
+                lista[legales++] = lista[i];
+            }
+        }
+        return legales;
+    }
+
+    /**
+     * Verifica que una jugada pseudo-legal no deje al propio rey en jaque
+     *
+     * @param jugada Jugada pseudo-legal
+     * @return true si la jugada es legal
+     */
+    public boolean esLegal(int jugada) {
+        hacer(jugada);
+        boolean legal = !dejoReyEnJaque();
+        deshacer(jugada);
+        return legal;
+    }
+
+    /**
+     * Genera las jugadas de un peon, incluyendo promociones y captura al paso
+     */
+    private int generarPeon(int sq, int[] lista, int n, int tipos) {
+        int nosotros = turno;
+        int avance = nosotros == BLANCAS ? -8 : 8;
+        int filaInicial = nosotros == BLANCAS ? 6 : 1;
+        int filaPromocion = nosotros == BLANCAS ? 1 : 6;
+        int f = sq >> 3;
+        int c = sq & 7;
+        boolean promueve = f == filaPromocion;
+        boolean capturas = (tipos & GENERAR_CAPTURAS) != 0;
+        boolean tranquilas = (tipos & GENERAR_TRANQUILAS) != 0;
+
+        // Avances
+        int uno = sq + avance;
+        if (casillas[uno] == VACIO) {
+            if (promueve) {
+                if (capturas) {
+                    n = agregarPromociones(sq, uno, Jugada.PROMOCION, lista, n);
+                }
+            } else if (tranquilas) {
+                lista[n++] = Jugada.crear(sq, uno, Jugada.TRANQUILA);
+                if (f == filaInicial && casillas[uno + avance] == VACIO) {
+                    lista[n++] = Jugada.crear(sq, uno + avance, Jugada.DOBLE_PEON);
+                }
+            }
+        }
+
+        // Capturas en diagonal
+        if (!capturas) {
+            return n;
+        }
+        for (int dc = -1; dc <= 1; dc += 2) {
+            if (c + dc < 0 || c + dc > 7) {
+                continue;
+            }
+            int t = uno + dc;
+            int p = casillas[t];
+            if (p != VACIO && color(p) != nosotros) {
+                if (promueve) {
+                    n = agregarPromociones(sq, t, Jugada.PROMOCION | Jugada.CAPTURA, lista, n);
+                } else {
+                    lista[n++] = Jugada.crear(sq, t, Jugada.CAPTURA);
+                }
+            } else if (t == alPaso) {
+                lista[n++] = Jugada.crear(sq, t, Jugada.AL_PASO);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Agrega las cuatro promociones posibles, empezando por la reina
+     */
+    private static int agregarPromociones(int desde, int hacia, int base, int[] lista, int n) {
+        for (int i = 3; i >= 0; i--) {
+            lista[n++] = Jugada.crear(desde, hacia, base | i);
+        }
+        return n;
+    }
+
+    /**
+     * Genera jugadas a casillas fijas (caballo y rey)
+     */
+    private int generarSaltos(int sq, int[] destinos, int ellos, int[] lista, int n, int tipos) {
+        boolean capturas = (tipos & GENERAR_CAPTURAS) != 0;
+        boolean tranquilas = (tipos & GENERAR_TRANQUILAS) != 0;
+        for (int t : destinos) {
+            int p = casillas[t];
+            if (p == VACIO) {
+                if (tranquilas) {
+                    lista[n++] = Jugada.crear(sq, t, Jugada.TRANQUILA);
+                }
+            } else if (capturas && color(p) == ellos) {
+                lista[n++] = Jugada.crear(sq, t, Jugada.CAPTURA);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Genera jugadas de piezas de largo alcance en las direcciones [dirInicio, dirFin)
+     */
+    private int generarRayos(int sq, int dirInicio, int dirFin, int ellos, int[] lista, int n, int tipos) {
+        boolean capturas = (tipos & GENERAR_CAPTURAS) != 0;
+        boolean tranquilas = (tipos & GENERAR_TRANQUILAS) != 0;
+        for (int d = dirInicio; d < dirFin; d++) {
+            for (int t : RAYOS[sq][d]) {
+                int p = casillas[t];
+                if (p == VACIO) {
+                    if (tranquilas) {
+                        lista[n++] = Jugada.crear(sq, t, Jugada.TRANQUILA);
+                    }
+                } else {
+                    if (capturas && color(p) == ellos) {
+                        lista[n++] = Jugada.crear(sq, t, Jugada.CAPTURA);
+                    }
+                    break;
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Genera los enroques disponibles
+     * El rey no puede estar en jaque ni cruzar casillas atacadas
+     */
+    private int generarEnroques(int sq, int[] lista, int n) {
+        int nosotros = turno;
+        int ellos = nosotros ^ 1;
+        int corto = nosotros == BLANCAS ? ENROQUE_BLANCO_CORTO : ENROQUE_NEGRO_CORTO;
+        int largo = nosotros == BLANCAS ? ENROQUE_BLANCO_LARGO : ENROQUE_NEGRO_LARGO;
+        int origen = nosotros == BLANCAS ? 60 : 4;
+        if (sq != origen || (enroques & (corto | largo)) == 0 || atacada(sq, ellos)) {
+            return n;
+        }
+        int torre = pieza(TORRE, nosotros);
+        if ((enroques & corto) != 0 && casillas[sq + 3] == torre
+                && casillas[sq + 1] == VACIO && casillas[sq + 2] == VACIO
+                && !atacada(sq + 1, ellos)) {
+            lista[n++] = Jugada.crear(sq, sq + 2, Jugada.ENROQUE_CORTO);
+        }
+        if ((enroques & largo) != 0 && casillas[sq - 4] == torre
+                && casillas[sq - 1] == VACIO && casillas[sq - 2] == VACIO && casillas[sq - 3] == VACIO
+                && !atacada(sq - 1, ellos)) {
+            lista[n++] = Jugada.crear(sq, sq - 2, Jugada.ENROQUE_LARGO);
+        }
+        return n;
+    }
+
+    /**
+     * Cuenta los nodos hoja del arbol de jugadas legales a cierta profundidad
+     * Se usa para comprobar que el generador de jugadas es correcto
+     *
+     * @param profundidad Profundidad en medias jugadas
+     * @return Numero de nodos hoja
+     */
+    public long perft(int profundidad) {
+        int[] lista = new int[MAX_JUGADAS];
+        int n = generarLegales(lista);
+        if (profundidad <= 1) {
+            return profundidad == 1 ? n : 1;
+        }
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            hacer(lista[i]);
+            total += perft(profundidad - 1);
+            deshacer(lista[i]);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,94 @@
+package Motor;
+
+import java.util.Arrays;
+
+/**
+ * Partida guardada para reproducirla saltando a cualquier jugada
+ * Se guardan las jugadas compactas y una copia de la posicion cada
+ * INTERVALO medias jugadas; para llegar a cualquier punto se parte de la
+ * copia anterior mas cercana y se hacen como mucho INTERVALO - 1 jugadas
+ *
+ * Avanzar o retroceder una jugada desde la posicion actual no vuelve a la
+ * copia: se hace o se deshace solo esa jugada
+ */
+public final class Repeticion {
+
+    public static final int INTERVALO = 16;// Medias jugadas entre cada copia de la posicion
+
+    private final int[] jugadas;
+    private final Posicion[] copias;// copias[k] es la posicion despues de k * INTERVALO jugadas
+    private final Posicion actual;// Posicion que se devuelve, se mueve con cada consulta
+    private int plyActual;// Medias jugadas de la partida que representa actual
+    private int desdeCopia;// Jugadas hechas en actual desde que se restauro (las que se pueden deshacer)
+
+    /**
+     * Crea la repeticion recorriendo la partida una sola vez
+     *
+     * @param inicial Posicion antes de la primera jugada (no se modifica)
+     * @param jugadas Jugadas legales de la partida, en orden
+     */
+    public Repeticion(Posicion inicial, int[] jugadas) {
+        this.jugadas = Arrays.copyOf(jugadas, jugadas.length);
+        this.copias = new Posicion[jugadas.length / INTERVALO + 1];
+        Posicion pos = inicial.copiar();
+        for (int i = 0; i < jugadas.length; i++) {
+            if (i % INTERVALO == 0) {
+                copias[i / INTERVALO] = pos.copiar();
+            }
+            pos.hacer(jugadas[i]);
+        }
+        if (jugadas.length % INTERVALO == 0) {
+            copias[jugadas.length / INTERVALO] = pos.copiar();
+        }
+        this.actual = copias[0].copiar();
+        this.plyActual = 0;
+        this.desdeCopia = 0;
+    }
+
+    /**
+     * @return Numero de medias jugadas de la partida
+     */
+    public int getPlies() {
+        return jugadas.length;
+    }
+
+    /**
+     * @param ply Indice de la jugada (0 es la primera)
+     * @return Jugada compacta
+     */
+    public int getJugada(int ply) {
+        return jugadas[ply];
+    }
+
+    /**
+     * Obtiene la posicion despues de un numero de medias jugadas
+     * La posicion devuelta es interna: no se debe modificar y cambia en la
+     * siguiente llamada (se puede copiar con Posicion.copiar)
+     *
+     * @param ply Medias jugadas desde el inicio (de 0 a getPlies())
+     * @return Posicion en ese punto de la partida
+     */
+    public Posicion posicion(int ply) {
+        if (ply < 0 || ply > jugadas.length) {
+            throw new IndexOutOfBoundsException(ply);
+        }
+        int copia = ply / INTERVALO;
+        if (ply == plyActual - 1 && desdeCopia > 0) {
+            // Un paso atras: se deshace la ultima jugada
+            actual.deshacer(jugadas[--plyActual]);
+            desdeCopia--;
+            return actual;
+        }
+        if (ply < plyActual || copia > plyActual / INTERVALO) {
+            // Se vuelve a la copia anterior mas cercana
+            actual.copiarDe(copias[copia]);
+            plyActual = copia * INTERVALO;
+            desdeCopia = 0;
+        }
+        while (plyActual < ply) {
+            actual.hacer(jugadas[plyActual++]);
+            desdeCopia++;
+        }
+        return actual;
+    }
+}
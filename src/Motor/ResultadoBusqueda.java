@@ -0,0 +1,88 @@
+package Motor;
+
+/**
+ * Resultado de una iteracion de la busqueda
+ * Se usa tanto para informar el progreso de cada profundidad
+ * como para devolver el resultado final
+ */
+public class ResultadoBusqueda {
+    public final int profundidad;// Profundidad completada
+    public final int puntos;// Puntuacion desde el punto de vista del que mueve
+    public final long nodos;// Nodos visitados
+    public final long tiempoMs;// Tiempo transcurrido en milisegundos
+    public final int[] pv;// Variante principal (jugadas compactas)
+
+    /**
+     * Constructor del resultado
+     *
+     * @param profundidad Profundidad completada
+     * @param puntos Puntuacion en centipeones o de mate
+     * @param nodos Nodos visitados
+     * @param tiempoMs Tiempo transcurrido
+     * @param pv Variante principal
+     */
+    public ResultadoBusqueda(int profundidad, int puntos, long nodos, long tiempoMs, int[] pv) {
+        this.profundidad = profundidad;
+        this.puntos = puntos;
+        this.nodos = nodos;
+        this.tiempoMs = tiempoMs;
+        this.pv = pv;
+    }
+
+    /**
+     * @return Mejor jugada encontrada o Jugada.NULA si no hay
+     */
+    public int mejorJugada() {
+        return pv.length > 0 ? pv[0] : Jugada.NULA;
+    }
+
+    /**
+     * @return Nodos por segundo de la busqueda
+     */
+    public long nps() {
+        return nodos * 1000 / Math.max(1, tiempoMs);
+    }
+
+    /**
+     * Indica si la puntuacion es de mate
+     *
+     * @return true si se encontro un mate
+     */
+    public boolean esMate() {
+        return Math.abs(puntos) >= Busqueda.MATE_LIMITE;
+    }
+
+    /**
+     * Convierte la puntuacion a texto: "cp 35" o "mate 3" (en jugadas completas)
+     *
+     * @return Puntuacion en formato de texto
+     */
+    public String puntosTexto() {
+        if (esMate()) {
+            int plies = Busqueda.MATE - Math.abs(puntos);
+            int jugadas = (plies + 1) / 2;
+            return "mate " + (puntos > 0 ? jugadas : -jugadas);
+        }
+        return "cp " + puntos;
+    }
+
+    /**
+     * @return Variante principal en notacion de coordenadas separada por espacios
+     */
+    public String pvTexto() {
+        StringBuilder sb = new StringBuilder();
+        for (int j : pv) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(Jugada.texto(j));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + profundidad + " score " + puntosTexto() + " nodes " + nodos
+                + " nps " + nps() + " time " + tiempoMs + " pv " + pvTexto();
+    }
+}
@@ -0,0 +1,130 @@
+package Motor;
+
+/**
+ * Generador de jugadas por etapas para la busqueda
+ * En lugar de generar y ordenar todas las jugadas de golpe, las entrega
+ * una a una y solo genera cada grupo cuando hace falta:
+ * 1. La jugada de la tabla de transposicion (sin generar nada)
+ * 2. Capturas y promociones, ordenadas por MVV-LVA
+ * 3. Jugadas tranquilas, ordenadas por asesinas e historia
+ *
+ * Si la primera jugada produce un corte beta no se genera nada mas, y la
+ * busqueda de quietud nunca llega a la tercera etapa
+ * Las jugadas son pseudo-legales: la busqueda comprueba el jaque al hacerlas
+ *
+ * Busqueda guarda un selector por ply para no crear objetos
+ */
+final class SelectorMovimientos {
+
+    // Etapas del selector
+    private static final int ETAPA_TABLA = 0;
+    private static final int ETAPA_GENERAR_CAPTURAS = 1;
+    private static final int ETAPA_CAPTURAS = 2;
+    private static final int ETAPA_GENERAR_TRANQUILAS = 3;
+    private static final int ETAPA_TRANQUILAS = 4;
+    private static final int ETAPA_SIN_ORDEN = 5;
+    private static final int ETAPA_FIN = 6;
+
+    private final int[] lista = new int[Posicion.MAX_JUGADAS];
+    private final int[] puntos = new int[Posicion.MAX_JUGADAS];
+    private final OrdenMovimientos orden;// Heuristicas compartidas por todos los ply de la busqueda
+
+    private Posicion pos;
+    private int etapa;
+    private int indice;// Siguiente jugada a entregar
+    private int n;// Jugadas generadas hasta ahora
+    private int jugadaTabla;
+    private int ply;
+    private boolean soloCapturas;
+
+    /**
+     * @param orden Heuristicas de orden de la busqueda
+     */
+    SelectorMovimientos(OrdenMovimientos orden) {
+        this.orden = orden;
+    }
+
+    /**
+     * Prepara el selector para un nodo
+     *
+     * @param pos Posicion del nodo (no debe cambiar entre llamadas a siguiente, salvo hacer/deshacer)
+     * @param jugadaTabla Jugada de la tabla de transposicion (Jugada.NULA si no hay)
+     * @param ply Distancia a la raiz
+     * @param soloCapturas true para entregar solo capturas y promociones (busqueda de quietud)
+     * @param ordenar false para entregar todas las jugadas en el orden del generador
+     */
+    void iniciar(Posicion pos, int jugadaTabla, int ply, boolean soloCapturas, boolean ordenar) {
+        this.pos = pos;
+        this.jugadaTabla = jugadaTabla;
+        this.ply = ply;
+        this.soloCapturas = soloCapturas;
+        this.indice = 0;
+        this.n = 0;
+        if (!ordenar) {
+            n = soloCapturas ? pos.generarCapturas(lista, 0) : pos.generarPseudo(lista, 0);
+            etapa = ETAPA_SIN_ORDEN;
+        } else {
+            etapa = ETAPA_TABLA;
+        }
+    }
+
+    /**
+     * Entrega la siguiente jugada pseudo-legal
+     *
+     * @return Jugada, o Jugada.NULA cuando ya no quedan
+     */
+    @SuppressWarnings("fallthrough")// Cada etapa sigue con la siguiente a proposito
+    int siguiente() {
+        switch (etapa) {
+            case ETAPA_TABLA:
+                etapa = ETAPA_GENERAR_CAPTURAS;
+                if ((!soloCapturas || esTactica(jugadaTabla)) && pos.esPseudoLegal(jugadaTabla)) {
+                    return jugadaTabla;
+                }
+                // sigue con la siguiente etapa
+            case ETAPA_GENERAR_CAPTURAS:
+                n = pos.generarCapturas(lista, 0);
+                orden.puntuarCapturas(pos, lista, puntos, 0, n);
+                etapa = ETAPA_CAPTURAS;
+                // sigue con la siguiente etapa
+            case ETAPA_CAPTURAS:
+                while (indice < n) {
+                    int jugada = OrdenMovimientos.siguiente(lista, puntos, indice++, n);
+                    if (jugada != jugadaTabla) {
+                        return jugada;
+                    }
+                }
+                if (soloCapturas) {
+                    etapa = ETAPA_FIN;
+                    return Jugada.NULA;
+                }
+                etapa = ETAPA_GENERAR_TRANQUILAS;
+                // sigue con la siguiente etapa
+            case ETAPA_GENERAR_TRANQUILAS:
+                n = pos.generarTranquilas(lista, indice);
+                orden.puntuarTranquilas(pos, lista, puntos, indice, n, ply);
+                etapa = ETAPA_TRANQUILAS;
+                // sigue con la siguiente etapa
+            case ETAPA_TRANQUILAS:
+                while (indice < n) {
+                    int jugada = OrdenMovimientos.siguiente(lista, puntos, indice++, n);
+                    if (jugada != jugadaTabla) {
+                        return jugada;
+                    }
+                }
+                etapa = ETAPA_FIN;
+                return Jugada.NULA;
+            case ETAPA_SIN_ORDEN:
+                return indice < n ? lista[indice++] : Jugada.NULA;
+            default:
+                return Jugada.NULA;
+        }
+    }
+
+    /**
+     * @return true si la jugada es una captura o una promocion
+     */
+    static boolean esTactica(int jugada) {
+        return Jugada.esCaptura(jugada) || Jugada.esPromocion(jugada);
+    }
+}
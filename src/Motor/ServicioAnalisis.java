@@ -0,0 +1,123 @@
+package Motor;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Servicio de analisis asincrono
+ * Recibe posiciones (FEN o una copia de Posicion) con sus limites y
+ * devuelve enseguida un Analisis, sin bloquear nunca al que lo pide
+ *
+ * Cada peticion se atiende en un hilo virtual, que prepara la posicion y
+ * espera el resultado; la busqueda en si corre en un grupo fijo de hilos de
+ * plataforma, porque es trabajo de CPU puro y no debe ocupar los hilos
+ * portadores de los hilos virtuales
+ * Todas las busquedas comparten una tabla de transposicion
+ */
+public final class ServicioAnalisis implements AutoCloseable {
+
+    private final ExecutorService peticiones = Executors.newVirtualThreadPerTaskExecutor();// Un hilo virtual por peticion
+    private final ExecutorService busquedas;// Hilos de plataforma que ejecutan las busquedas
+    private final TablaTransposicion tabla;
+    private final Set<Analisis> enCurso = ConcurrentHashMap.newKeySet();// Para poder detenerlos al cerrar
+
+    /**
+     * Crea el servicio
+     *
+     * @param busquedasSimultaneas Numero maximo de busquedas que corren a la vez (las demas esperan)
+     * @param megabytesTabla Tamaño de la tabla de transposicion compartida
+     */
+    public ServicioAnalisis(int busquedasSimultaneas, long megabytesTabla) {
+        this.tabla = new TablaTransposicion(megabytesTabla, false);
+        this.busquedas = Executors.newFixedThreadPool(Math.max(1, busquedasSimultaneas), r -> {
+            Thread t = new Thread(r, "analisis-busqueda");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Pide el analisis de una posicion dada en FEN
+     * Si el FEN no es valido el futuro del analisis termina con IllegalArgumentException
+     *
+     * @param fen Posicion a analizar
+     * @param limites Limites de la busqueda
+     * @return Analisis en curso
+     */
+    public Analisis analizar(String fen, LimitesBusqueda limites) {
+        return enviar(fen, null, limites, null);
+    }
+
+    /**
+     * Pide el analisis de una posicion
+     * Se copia la posicion en el hilo que llama, asi esta puede seguir cambiando
+     *
+     * @param pos Posicion a analizar
+     * @param limites Limites de la busqueda
+     * @return Analisis en curso
+     */
+    public Analisis analizar(Posicion pos, LimitesBusqueda limites) {
+        return enviar(null, pos.copiar(), limites, null);
+    }
+
+    /**
+     * Pide el analisis de una posicion y suscribe a sus actualizaciones antes
+     * de que empiece la busqueda, asi no se pierde ninguna iteracion
+     * (suscribirse despues con actualizaciones() solo recibe las siguientes)
+     *
+     * @param pos Posicion a analizar
+     * @param limites Limites de la busqueda
+     * @param suscriptor Recibe cada iteracion y el fin del analisis
+     * @return Analisis en curso
+     */
+    public Analisis analizar(Posicion pos, LimitesBusqueda limites, Flow.Subscriber<? super ResultadoBusqueda> suscriptor) {
+        return enviar(null, pos.copiar(), limites, suscriptor);
+    }
+
+    /**
+     * Crea el analisis, le suscribe el suscriptor (si hay) y lanza su peticion en un hilo virtual
+     */
+    private Analisis enviar(String fen, Posicion copia, LimitesBusqueda limites, Flow.Subscriber<? super ResultadoBusqueda> suscriptor) {
+        SubmissionPublisher<ResultadoBusqueda> publicador = new SubmissionPublisher<>(peticiones, Flow.defaultBufferSize());
+        if (suscriptor != null) {
+            publicador.subscribe(suscriptor);
+        }
+        Analisis analisis = new Analisis(publicador);
+        enCurso.add(analisis);
+        analisis.resultado().whenComplete((r, e) -> enCurso.remove(analisis));
+        peticiones.execute(() -> {
+            try {
+                Posicion pos = copia != null ? copia : Posicion.desdeFen(fen);
+                Future<ResultadoBusqueda> busqueda = busquedas.submit(() -> analisis.ejecutar(pos, limites, tabla));
+                analisis.completar(busqueda.get());// Solo bloquea este hilo virtual
+            } catch (ExecutionException e) {
+                analisis.fallar(e.getCause());
+            } catch (InterruptedException e) {
+                analisis.cancelar();
+                analisis.fallar(e);
+            } catch (RuntimeException e) {
+                analisis.fallar(e);
+            }
+        });
+        return analisis;
+    }
+
+    /**
+     * Detiene los hilos del servicio; los analisis pendientes se interrumpen
+     */
+    @Override
+    public void close() {
+        for (Analisis analisis : enCurso) {
+            analisis.cancelar();
+        }
+        peticiones.shutdownNow();
+        busquedas.shutdownNow();
+        tabla.close();
+    }
+}
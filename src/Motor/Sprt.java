@@ -0,0 +1,146 @@
+package Motor;
+
+/**
+ * Prueba secuencial de razon de probabilidades (SPRT) para decidir si un
+ * cambio del motor mejora su fuerza, jugando solo las partidas necesarias
+ *
+ * Compara dos hipotesis sobre la diferencia de Elo del motor A sobre B:
+ * H0 (elo0, normalmente 0: el cambio no ayuda) y H1 (elo1: ayuda al menos
+ * tanto). Despues de cada par de partidas (misma apertura, colores
+ * invertidos) calcula el logaritmo de la razon de probabilidades (LLR) y
+ * se detiene cuando cruza uno de los dos limites (nunca antes de unos
+ * pocos pares, porque con tan pocos la varianza estimada no sirve)
+ *
+ * El LLR usa la aproximacion normal sobre los resultados por pares
+ * (pentanomial): como cada par juega la misma apertura con los dos
+ * colores, la varianza es menor que contando partidas sueltas
+ */
+public final class Sprt {
+
+    public static final int CONTINUAR = 0;// Aun no hay suficiente evidencia
+    public static final int ACEPTAR = 1;// Se acepta H1: el cambio gana al menos elo1
+    public static final int RECHAZAR = 2;// Se acepta H0: el cambio no gana mas de elo0
+
+    private static final double REGULARIZACION = 1e-3;// Se suma a los conteos vacios para evitar varianza 0
+    private static final int PARES_MINIMOS = 8;// Con menos pares la aproximacion normal no es fiable
+
+    private final double elo0;
+    private final double elo1;
+    private final double limiteInferior;// ln(beta / (1 - alfa))
+    private final double limiteSuperior;// ln((1 - beta) / alfa)
+    private final int[] pares = new int[5];// Pares con 0, 1, 2, 3 y 4 medios puntos de A
+    private int decision = CONTINUAR;
+
+    /**
+     * Crea la prueba
+     *
+     * @param elo0 Elo de la hipotesis nula
+     * @param elo1 Elo de la hipotesis alternativa (mayor que elo0)
+     * @param alfa Probabilidad de aceptar H1 cuando es cierta H0 (falso positivo)
+     * @param beta Probabilidad de aceptar H0 cuando es cierta H1 (falso negativo)
+     */
+    public Sprt(double elo0, double elo1, double alfa, double beta) {
+        if (elo1 <= elo0) {
+            throw new IllegalArgumentException("elo1 debe ser mayor que elo0");
+        }
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.limiteInferior = Math.log(beta / (1 - alfa));
+        this.limiteSuperior = Math.log((1 - beta) / alfa);
+    }
+
+    /**
+     * Suma el resultado de un par de partidas con colores invertidos
+     *
+     * @param mediosPuntos Medios puntos del motor A en el par (de 0 a 4)
+     * @return Decision despues de sumar el par
+     */
+    public synchronized int sumarPar(int mediosPuntos) {
+        pares[mediosPuntos]++;
+        if (decision == CONTINUAR && getPares() >= PARES_MINIMOS) {
+            double llr = llr();
+            if (llr >= limiteSuperior) {
+                decision = ACEPTAR;
+            } else if (llr <= limiteInferior) {
+                decision = RECHAZAR;
+            }
+        }
+        return decision;
+    }
+
+    /**
+     * Logaritmo de la razon de probabilidades de H1 contra H0
+     * Con n pares de puntuacion media s y varianza v:
+     * LLR = n (s1 - s0) (2s - s0 - s1) / (2v)
+     *
+     * @return LLR con los pares jugados hasta ahora
+     */
+    public synchronized double llr() {
+        double n = 0;
+        double suma = 0;
+        double[] conteo = new double[5];
+        for (int i = 0; i < 5; i++) {
+            conteo[i] = pares[i] == 0 ? REGULARIZACION : pares[i];
+            n += conteo[i];
+            suma += conteo[i] * i / 4.0;
+        }
+        if (getPares() == 0) {
+            return 0;
+        }
+        double media = suma / n;
+        double varianza = 0;
+        for (int i = 0; i < 5; i++) {
+            double d = i / 4.0 - media;
+            varianza += conteo[i] * d * d;
+        }
+        varianza /= n;
+        double s0 = puntuacion(elo0);
+        double s1 = puntuacion(elo1);
+        return n * (s1 - s0) * (2 * media - s0 - s1) / (2 * varianza);
+    }
+
+    /**
+     * Puntuacion esperada para una diferencia de Elo (modelo logistico)
+     */
+    static double puntuacion(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     * @return Decision actual: CONTINUAR, ACEPTAR o RECHAZAR
+     */
+    public synchronized int getDecision() {
+        return decision;
+    }
+
+    /**
+     * @return Numero de pares sumados
+     */
+    public synchronized int getPares() {
+        int total = 0;
+        for (int p : pares) {
+            total += p;
+        }
+        return total;
+    }
+
+    public double getLimiteInferior() {
+        return limiteInferior;
+    }
+
+    public double getLimiteSuperior() {
+        return limiteSuperior;
+    }
+
+    @Override
+    public synchronized String toString() {
+        String estado = switch (decision) {
+            case ACEPTAR -> "H1 aceptada";
+            case RECHAZAR -> "H0 aceptada";
+            default -> "continua";
+        };
+        return String.format("SPRT [%.1f, %.1f] LLR %.2f (%.2f, %.2f) pares %d [%d %d %d %d %d] %s",
+                elo0, elo1, llr(), limiteInferior, limiteSuperior, getPares(),
+                pares[0], pares[1], pares[2], pares[3], pares[4], estado);
+    }
+}
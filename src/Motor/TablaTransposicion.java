@@ -0,0 +1,226 @@
+package Motor;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Tabla de transposicion de tamaño fijo indexada por el hash de Zobrist
+ * Guarda para cada posicion buscada la mejor jugada, la puntuacion, la
+ * profundidad, el tipo de cota y la edad (numero de busqueda)
+ *
+ * Cada entrada ocupa dos longs: el primero es clave XOR datos y el segundo los
+ * datos empaquetados. Al leer se comprueba que (primero XOR segundo) sea la
+ * clave buscada, asi una entrada escrita a medias por otro hilo simplemente no
+ * coincide y se descarta. Por eso la tabla se puede compartir entre varios hilos
+ * de busqueda sin ningun candado
+ *
+ * Las entradas se agrupan en cubetas de 4 (64 bytes, una linea de cache)
+ * Los datos pueden vivir en el heap (long[]) o fuera de el en un MemorySegment,
+ * de modo que una tabla de varios gigabytes no cargue al recolector de basura
+ */
+public final class TablaTransposicion implements AutoCloseable {
+
+    // Tipos de cota de la puntuacion guardada
+    public static final int COTA_NINGUNA = 0;
+    public static final int COTA_SUPERIOR = 1;// La puntuacion real es <= a la guardada (fail-low)
+    public static final int COTA_INFERIOR = 2;// La puntuacion real es >= a la guardada (fail-high)
+    public static final int COTA_EXACTA = 3;
+
+    private static final int ENTRADAS_POR_CUBETA = 4;
+    private static final int BYTES_POR_ENTRADA = 16;
+
+    private final long[] datos;// Almacen en el heap (null si se usa memoria externa)
+    private final Arena arena;// Dueño de la memoria externa (null si se usa el heap)
+    private final MemorySegment segmento;// Almacen fuera del heap
+    private final long mascaraCubetas;// Numero de cubetas - 1 (potencia de 2)
+    private int edad;// Edad actual, se incrementa en cada busqueda nueva
+
+    /**
+     * Crea una tabla de transposicion
+     * El numero de entradas se redondea hacia abajo a una potencia de 2
+     *
+     * @param megabytes Tamaño aproximado en megabytes
+     * @param fueraDelHeap true para reservar la memoria fuera del heap de Java
+     */
+    public TablaTransposicion(long megabytes, boolean fueraDelHeap) {
+        long cubetas = Long.highestOneBit(Math.max(1, megabytes * 1024 * 1024 / (BYTES_POR_ENTRADA * ENTRADAS_POR_CUBETA)));
+        this.mascaraCubetas = cubetas - 1;
+        long longs = cubetas * ENTRADAS_POR_CUBETA * 2;
+        if (fueraDelHeap) {
+            this.datos = null;
+            this.arena = Arena.ofShared();
+            this.segmento = arena.allocate(longs * Long.BYTES, 64);
+        } else {
+            if (longs > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Tabla demasiado grande para el heap, usa memoria externa");
+            }
+            this.datos = new long[(int) longs];
+            this.arena = null;
+            this.segmento = null;
+        }
+    }
+
+    /**
+     * Empieza una busqueda nueva: las entradas antiguas pasan a ser
+     * las primeras candidatas a reemplazarse
+     */
+    public void nuevaBusqueda() {
+        edad = (edad + 1) & 63;
+    }
+
+    /**
+     * Borra todas las entradas
+     */
+    public void limpiar() {
+        if (datos != null) {
+            java.util.Arrays.fill(datos, 0L);
+        } else {
+            segmento.fill((byte) 0);
+        }
+        edad = 0;
+    }
+
+    /**
+     * Busca la entrada de una posicion
+     *
+     * @param clave Hash de Zobrist de la posicion
+     * @return Datos empaquetados de la entrada (leer con jugada(), puntos(), ...) o 0 si no esta
+     */
+    public long buscar(long clave) {
+        long base = (clave & mascaraCubetas) * ENTRADAS_POR_CUBETA * 2;
+        for (int i = 0; i < ENTRADAS_POR_CUBETA; i++) {
+            long indice = base + i * 2L;
+            long d = leer(indice + 1);
+            if ((leer(indice) ^ d) == clave && d != 0) {
+                return d;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Guarda el resultado de una posicion
+     * Reemplaza la entrada de la misma posicion o, si no esta, la menos
+     * valiosa de la cubeta (poca profundidad y busquedas antiguas)
+     *
+     * @param clave Hash de Zobrist
+     * @param jugada Mejor jugada encontrada (o Jugada.NULA)
+     * @param puntos Puntuacion (ya ajustada para mates, ver Busqueda)
+     * @param profundidad Profundidad de la busqueda
+     * @param cota Tipo de cota (COTA_*)
+     */
+    public void guardar(long clave, int jugada, int puntos, int profundidad, int cota) {
+        long base = (clave & mascaraCubetas) * ENTRADAS_POR_CUBETA * 2;
+        long reemplazo = base;
+        int peorValor = Integer.MAX_VALUE;
+        for (int i = 0; i < ENTRADAS_POR_CUBETA; i++) {
+            long indice = base + i * 2L;
+            long d = leer(indice + 1);
+            if ((leer(indice) ^ d) == clave) {
+                // Misma posicion: conserva la jugada si la nueva no trae una
+                if (jugada == Jugada.NULA) {
+                    jugada = jugada(d);
+                }
+                reemplazo = indice;
+                break;
+            }
+            int valor = d == 0 ? Integer.MIN_VALUE : profundidad(d) - 8 * ((edad - edad(d)) & 63);
+            if (valor < peorValor) {
+                peorValor = valor;
+                reemplazo = indice;
+            }
+        }
+        long d = empaquetar(jugada, puntos, profundidad, cota, edad);
+        escribir(reemplazo, clave ^ d);
+        escribir(reemplazo + 1, d);
+    }
+
+    /**
+     * Calcula el porcentaje de uso en tantos por mil (muestra las primeras entradas)
+     *
+     * @return Entradas ocupadas por la busqueda actual, en tantos por mil
+     */
+    public int usoPorMil() {
+        int usadas = 0;
+        int muestra = (int) Math.min(1000, (mascaraCubetas + 1) * ENTRADAS_POR_CUBETA);
+        for (int i = 0; i < muestra; i++) {
+            long d = leer(i * 2L + 1);
+            if (d != 0 && edad(d) == edad) {
+                usadas++;
+            }
+        }
+        return usadas * 1000 / Math.max(1, muestra);
+    }
+
+    /**
+     * Libera la memoria externa (no hace nada si la tabla vive en el heap)
+     * La tabla no debe usarse despues de cerrarla
+     */
+    @Override
+    public void close() {
+        if (arena != null) {
+            arena.close();
+        }
+    }
+
+    private long leer(long indice) {
+        return datos != null ? datos[(int) indice] : segmento.getAtIndex(ValueLayout.JAVA_LONG, indice);
+    }
+
+    private void escribir(long indice, long valor) {
+        if (datos != null) {
+            datos[(int) indice] = valor;
+        } else {
+            segmento.setAtIndex(ValueLayout.JAVA_LONG, indice, valor);
+        }
+    }
+
+    /**
+     * Empaqueta los campos de una entrada en un long:
+     * jugada (16 bits), puntos (16 bits con signo), profundidad (8), cota (2), edad (6)
+     */
+    private static long empaquetar(int jugada, int puntos, int profundidad, int cota, int edad) {
+        return (jugada & 0xFFFFL)
+                | ((puntos & 0xFFFFL) << 16)
+                | ((long) (profundidad & 0xFF) << 32)
+                | ((long) cota << 40)
+                | ((long) edad << 42);
+    }
+
+    /**
+     * @param datos Datos devueltos por buscar()
+     * @return Mejor jugada guardada
+     */
+    public static int jugada(long datos) {
+        return (int) (datos & 0xFFFF);
+    }
+
+    /**
+     * @param datos Datos devueltos por buscar()
+     * @return Puntuacion guardada
+     */
+    public static int puntos(long datos) {
+        return (short) (datos >>> 16);
+    }
+
+    /**
+     * @param datos Datos devueltos por buscar()
+     * @return Profundidad guardada
+     */
+    public static int profundidad(long datos) {
+        return (int) ((datos >>> 32) & 0xFF);
+    }
+
+    /**
+     * @param datos Datos devueltos por buscar()
+     * @return Tipo de cota guardada
+     */
+    public static int cota(long datos) {
+        return (int) ((datos >>> 40) & 3);
+    }
+
+    private static int edad(long datos) {
+        return (int) ((datos >>> 42) & 63);
+    }
+}
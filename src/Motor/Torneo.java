@@ -0,0 +1,588 @@
+package Motor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Torneo entre dos motores sin interfaz grafica
+ * Juega muchas partidas a la vez (un hilo por nucleo) a partir de una lista
+ * de aperturas; cada apertura se juega dos veces, una con cada color
+ *
+ * Las partidas terminan por mate o ahogado, triple repeticion, regla de las
+ * 50 jugadas, material insuficiente, tiempo, jugada ilegal, o se adjudican
+ * cuando la evaluacion de los motores es clara (abandono o tablas)
+ *
+ * Uso: java Motor.Torneo [-partidas N] [-hilos N] [-tc base+inc | -profundidad N | -nodos N | -movetime ms]
+ *                        [-aperturas archivo] [-pgn archivo] [-a motor] [-b motor] [-sprt elo0 elo1]
+ * Un motor es "interno", "interno-sinorden" o "uci:comando con argumentos"
+ *
+ * Las partidas se reparten por pares (misma apertura, colores invertidos) y
+ * cada hilo juega los dos del par seguidos. Con -sprt el torneo para en
+ * cuanto la prueba secuencial acepta o rechaza el cambio (ver Sprt)
+ */
+public final class Torneo {
+
+    // Aperturas por defecto: posiciones equilibradas tras unas pocas jugadas
+    static final String[] APERTURAS = {
+            Posicion.FEN_INICIAL,
+            "rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2",
+            "rnbqkbnr/pp1ppppp/8/2p5/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2",
+            "rnbqkbnr/ppp1pppp/8/3p4/3P4/8/PPP1PPPP/RNBQKBNR w KQkq - 0 2",
+            "rnbqkb1r/pppppppp/5n2/8/2P5/8/PP1PPPPP/RNBQKBNR w KQkq - 1 2",
+            "r1bqkbnr/pppp1ppp/2n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R b KQkq - 3 3",
+            "rnbqkbnr/pp2pppp/2p5/3p4/2PP4/8/PP2PPPP/RNBQKBNR w KQkq - 0 3",
+            "rnbqkb1r/pppp1ppp/4pn2/8/2PP4/8/PP2PPPP/RNBQKBNR w KQkq - 0 3",
+    };
+
+    /**
+     * Crea un motor para un hilo del torneo
+     */
+    @FunctionalInterface
+    public interface Fabrica {
+        MotorPartida crear() throws IOException;
+    }
+
+    public int partidas = 100;// Numero total de partidas (conviene que sea par)
+    public int hilos = Runtime.getRuntime().availableProcessors();// Partidas simultaneas
+    public LimitesBusqueda control = LimitesBusqueda.reloj(10_000, 100, 1);// Con relojMs > 0 se lleva el reloj de cada lado
+    public List<String> aperturas = Arrays.asList(APERTURAS);// Posiciones iniciales en FEN
+    public Path pgn;// Archivo donde se agregan las partidas (null = no se guardan)
+    public int umbralAbandono = 1000;// Evaluacion en centipeones para adjudicar una victoria
+    public int jugadasAbandono = 4;// Jugadas seguidas de cada motor por encima del umbral
+    public int umbralTablas = 10;// Evaluacion maxima para adjudicar tablas
+    public int jugadasTablas = 8;// Jugadas seguidas de cada motor dentro del umbral de tablas
+    public int jugadaMinimaTablas = 40;// No se adjudican tablas antes de esta jugada
+    public Consumer<Partida> oyente;// Recibe cada partida terminada (desde los hilos del torneo)
+    public Sprt sprt;// Con SPRT el torneo se detiene al haber decision y partidas es el maximo (null = sin SPRT)
+
+    /**
+     * Una partida terminada
+     */
+    public static final class Partida {
+        public final int numero;// Numero de partida, desde 1
+        public final String blancas;// Nombre del motor con blancas
+        public final String negras;
+        public final String resultado;// "1-0", "0-1" o "1/2-1/2"
+        public final String motivo;// Por que termino, por ejemplo "triple repeticion"
+        public final boolean aJuegaBlancas;// El motor A llevo las blancas
+        public final String pgn;
+
+        Partida(int numero, String blancas, String negras, String resultado, String motivo, boolean aJuegaBlancas, String pgn) {
+            this.numero = numero;
+            this.blancas = blancas;
+            this.negras = negras;
+            this.resultado = resultado;
+            this.motivo = motivo;
+            this.aJuegaBlancas = aJuegaBlancas;
+            this.pgn = pgn;
+        }
+
+        /**
+         * @return Puntos del motor A en medios puntos: 2 gano, 1 tablas, 0 perdio
+         */
+        public int mediosPuntosA() {
+            if (resultado.equals("1/2-1/2")) {
+                return 1;
+            }
+            return resultado.equals("1-0") == aJuegaBlancas ? 2 : 0;
+        }
+    }
+
+    /**
+     * Marcador del motor A contra el motor B
+     * Es seguro usarlo desde varios hilos
+     */
+    public static final class Marcador {
+        private int ganadas;
+        private int tablas;
+        private int perdidas;
+        private final long inicio = System.nanoTime();
+
+        /**
+         * Suma una partida
+         *
+         * @param p Partida terminada
+         */
+        public synchronized void sumar(Partida p) {
+            switch (p.mediosPuntosA()) {
+                case 2 -> ganadas++;
+                case 1 -> tablas++;
+                default -> perdidas++;
+            }
+        }
+
+        public synchronized int getGanadas() {
+            return ganadas;
+        }
+
+        public synchronized int getTablas() {
+            return tablas;
+        }
+
+        public synchronized int getPerdidas() {
+            return perdidas;
+        }
+
+        public synchronized int getPartidas() {
+            return ganadas + tablas + perdidas;
+        }
+
+        /**
+         * @return Fraccion de puntos del motor A (0.5 = igualados)
+         */
+        public synchronized double puntuacion() {
+            int n = getPartidas();
+            return n == 0 ? 0.5 : (ganadas + tablas / 2.0) / n;
+        }
+
+        /**
+         * @return Diferencia de Elo estimada de A sobre B
+         */
+        public synchronized double elo() {
+            return elo(puntuacion());
+        }
+
+        /**
+         * Margen del intervalo de confianza del 95% de la diferencia de Elo
+         * Se calcula con la varianza de los puntos por partida
+         *
+         * @return Mitad del ancho del intervalo, en puntos Elo
+         */
+        public synchronized double errorElo() {
+            int n = getPartidas();
+            if (n < 2) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double s = puntuacion();
+            double varianza = (ganadas * (1 - s) * (1 - s) + tablas * (0.5 - s) * (0.5 - s) + perdidas * s * s) / n;
+            double margen = 1.96 * Math.sqrt(varianza / n);
+            return (elo(s + margen) - elo(s - margen)) / 2;
+        }
+
+        /**
+         * @return Partidas terminadas por minuto desde que se creo el marcador
+         */
+        public synchronized double partidasPorMinuto() {
+            double minutos = (System.nanoTime() - inicio) / 60e9;
+            return getPartidas() / Math.max(minutos, 1e-9);
+        }
+
+        /**
+         * Convierte una fraccion de puntos en diferencia de Elo
+         */
+        static double elo(double s) {
+            s = Math.max(1e-6, Math.min(1 - 1e-6, s));
+            return -400 * Math.log10(1 / s - 1);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("+%d =%d -%d  %.1f%%  Elo %+.1f +/- %.1f  %.1f partidas/min",
+                    ganadas, tablas, perdidas, 100 * puntuacion(), elo(), errorElo(), partidasPorMinuto());
+        }
+    }
+
+    /**
+     * Punto de entrada del torneo
+     *
+     * @param args Opciones, ver la documentacion de la clase
+     */
+    public static void main(String[] args) throws IOException {
+        Torneo torneo = new Torneo();
+        String a = "interno";
+        String b = "interno";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String valor = args[i + 1];
+            switch (args[i]) {
+                case "-partidas" -> torneo.partidas = Integer.parseInt(valor);
+                case "-hilos" -> torneo.hilos = Integer.parseInt(valor);
+                case "-tc" -> torneo.control = controlTiempo(valor);
+                case "-profundidad" -> torneo.control = LimitesBusqueda.profundidad(Integer.parseInt(valor));
+                case "-nodos" -> {
+                    torneo.control = new LimitesBusqueda();
+                    torneo.control.nodos = Long.parseLong(valor);
+                }
+                case "-movetime" -> torneo.control = LimitesBusqueda.tiempo(Long.parseLong(valor));
+                case "-aperturas" -> torneo.aperturas = leerAperturas(Paths.get(valor));
+                case "-pgn" -> torneo.pgn = Paths.get(valor);
+                case "-a" -> a = valor;
+                case "-b" -> b = valor;
+                case "-sprt" -> {
+                    // -sprt elo0 elo1, con alfa = beta = 0.05
+                    torneo.sprt = new Sprt(Double.parseDouble(valor), Double.parseDouble(args[i + 2]), 0.05, 0.05);
+                    i++;
+                }
+                default -> System.out.println("Opcion desconocida: " + args[i]);
+            }
+        }
+        String motorA = a;
+        String motorB = b;
+        Marcador m = torneo.jugar(() -> motor(motorA, "A"), () -> motor(motorB, "B"));
+        System.out.println("Final: " + m);
+        if (torneo.sprt != null) {
+            System.out.println(torneo.sprt);
+        }
+    }
+
+    /**
+     * Lee un control de tiempo "base+incremento" en segundos, por ejemplo "10+0.1"
+     */
+    static LimitesBusqueda controlTiempo(String texto) {
+        String[] partes = texto.split("\\+");
+        long base = Math.round(Double.parseDouble(partes[0]) * 1000);
+        long incremento = partes.length > 1 ? Math.round(Double.parseDouble(partes[1]) * 1000) : 0;
+        return LimitesBusqueda.reloj(base, incremento, 1);
+    }
+
+    /**
+     * Lee un archivo de aperturas: un FEN (o EPD) por linea
+     * Las lineas vacias y las que empiezan con # se ignoran
+     */
+    static List<String> leerAperturas(Path archivo) throws IOException {
+        List<String> fens = new ArrayList<>();
+        for (String linea : Files.readAllLines(archivo, StandardCharsets.UTF_8)) {
+            linea = linea.trim();
+            if (linea.isEmpty() || linea.startsWith("#")) {
+                continue;
+            }
+            String[] campos = linea.split("\\s+");
+            if (campos.length < 4) {
+                continue;
+            }
+            // En EPD los contadores faltan o son operaciones: se usan los 4 primeros campos
+            String fen = String.join(" ", Arrays.copyOf(campos, 4));
+            if (campos.length >= 6 && campos[4].matches("\\d+") && campos[5].matches("\\d+")) {
+                fen += " " + campos[4] + " " + campos[5];
+            } else {
+                fen += " 0 1";
+            }
+            fens.add(fen);
+        }
+        return fens;
+    }
+
+    /**
+     * Crea un motor a partir de su descripcion en la linea de comandos
+     */
+    private static MotorPartida motor(String descripcion, String nombre) throws IOException {
+        if (descripcion.equals("interno")) {
+            return MotorPartida.interno("PIA_POO " + nombre, 16, true);
+        }
+        if (descripcion.equals("interno-sinorden")) {
+            return MotorPartida.interno("PIA_POO sin orden " + nombre, 16, false);
+        }
+        if (descripcion.startsWith("uci:")) {
+            return MotorPartida.externo(Arrays.asList(descripcion.substring(4).trim().split("\\s+")));
+        }
+        throw new IllegalArgumentException("Motor desconocido: " + descripcion);
+    }
+
+    /**
+     * Juega el torneo completo
+     * Cada hilo crea sus dos motores una vez y juega pares de partidas hasta que
+     * no quedan o hasta que el SPRT (si lo hay) tenga una decision
+     * El motor A lleva las blancas en las partidas impares (1, 3, 5...)
+     *
+     * @param a Fabrica del motor A
+     * @param b Fabrica del motor B
+     * @return Marcador final del motor A
+     */
+    public Marcador jugar(Fabrica a, Fabrica b) throws IOException {
+        Marcador marcador = new Marcador();
+        AtomicInteger siguiente = new AtomicInteger();// Siguiente par de partidas por jugar
+        int pares = (partidas + 1) / 2;
+        BufferedWriter salidaPgn = pgn == null ? null : Files.newBufferedWriter(pgn, StandardCharsets.UTF_8);
+        ExecutorService grupo = Executors.newFixedThreadPool(Math.max(1, hilos), r -> {
+            Thread t = new Thread(r, "torneo");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> trabajadores = new ArrayList<>();
+            for (int h = 0; h < Math.max(1, hilos); h++) {
+                trabajadores.add(grupo.submit(() -> {
+                    try (MotorPartida motorA = a.crear(); MotorPartida motorB = b.crear()) {
+                        // Cada hilo juega un par completo: la misma apertura con los colores invertidos
+                        int par;
+                        while ((par = siguiente.getAndIncrement()) < pares) {
+                            int medios = 0;
+                            for (int i = 2 * par; i < Math.min(2 * par + 2, partidas); i++) {
+                                Partida p = jugarPartida(i, motorA, motorB);
+                                medios += p.mediosPuntosA();
+                                registrar(p, marcador, salidaPgn);
+                            }
+                            if (sprt != null && 2 * par + 1 < partidas && sprt.sumarPar(medios) != Sprt.CONTINUAR) {
+                                siguiente.set(pares);// Hay decision: no se empiezan mas pares
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : trabajadores) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IOException io) {
+                throw io;
+            }
+            if (causa instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Error en una partida del torneo", causa);
+        } finally {
+            siguiente.set(pares);// Los demas hilos terminan en cuanto acaben su par
+            grupo.shutdown();
+            if (salidaPgn != null) {
+                salidaPgn.close();
+            }
+        }
+        return marcador;
+    }
+
+    /**
+     * Cuenta una partida terminada, la agrega al PGN y la informa
+     */
+    private void registrar(Partida p, Marcador marcador, BufferedWriter salidaPgn) throws IOException {
+        marcador.sumar(p);
+        if (salidaPgn != null) {
+            synchronized (salidaPgn) {
+                salidaPgn.write(p.pgn);
+                salidaPgn.newLine();
+                salidaPgn.flush();
+            }
+        }
+        if (oyente != null) {
+            oyente.accept(p);
+        } else {
+            System.out.printf("Partida %d/%d: %s - %s %s (%s) | %s%s%n", p.numero, partidas,
+                    p.blancas, p.negras, p.resultado, p.motivo, marcador, sprt == null ? "" : " | " + sprt);
+        }
+    }
+
+    /**
+     * Juega una partida entre los dos motores
+     *
+     * @param indice Indice de la partida, desde 0; decide la apertura y los colores
+     * @param motorA Motor A
+     * @param motorB Motor B
+     * @return Partida terminada
+     * @throws IOException Si un motor externo dejo de responder
+     */
+    Partida jugarPartida(int indice, MotorPartida motorA, MotorPartida motorB) throws IOException {
+        String apertura = aperturas.get((indice / 2) % aperturas.size());
+        boolean aJuegaBlancas = indice % 2 == 0;
+        MotorPartida[] motores = aJuegaBlancas ? new MotorPartida[]{motorA, motorB} : new MotorPartida[]{motorB, motorA};
+        motorA.nuevaPartida();
+        motorB.nuevaPartida();
+
+        Posicion pos = Posicion.desdeFen(apertura);
+        int[] legales = new int[Posicion.MAX_JUGADAS];
+        long[] reloj = {control.relojMs, control.relojMs};
+        int seguidasAbandono = 0;// Medias jugadas seguidas con una ventaja clara para el mismo lado
+        int ladoAbandono = 0;// 1 si la ventaja es de blancas, -1 si es de negras
+        int seguidasTablas = 0;
+        List<Integer> jugadas = new ArrayList<>();
+        String resultado;
+        String motivo;
+
+        while (true) {
+            int turno = pos.getTurno();
+            int numero = pos.getNumeroJugada();
+
+            // Fin de la partida por las reglas
+            if (pos.generarLegales(legales) == 0) {
+                if (pos.enJaque()) {
+                    resultado = turno == Posicion.BLANCAS ? "0-1" : "1-0";
+                    motivo = "jaque mate";
+                } else {
+                    resultado = "1/2-1/2";
+                    motivo = "ahogado";
+                }
+                break;
+            }
+            if (Material.esInsuficiente(pos.getMaterial())) {
+                resultado = "1/2-1/2";
+                motivo = "material insuficiente";
+                break;
+            }
+            if (pos.esRegla50()) {
+                resultado = "1/2-1/2";
+                motivo = "regla de 50 jugadas";
+                break;
+            }
+            if (pos.repeticiones() >= 2) {
+                resultado = "1/2-1/2";
+                motivo = "triple repeticion";
+                break;
+            }
+
+            // Pide la jugada con el reloj del que mueve
+            LimitesBusqueda limites = control.copiar();
+            if (control.relojMs > 0) {
+                limites.relojMs = Math.max(1, reloj[turno]);
+                limites.numeroJugada = numero;
+            }
+            long inicio = System.nanoTime();
+            ResultadoBusqueda r = motores[turno].jugar(pos, limites);
+            long ms = (System.nanoTime() - inicio) / 1_000_000L;
+            if (control.relojMs > 0) {
+                reloj[turno] -= ms;
+                if (reloj[turno] < 0) {
+                    resultado = turno == Posicion.BLANCAS ? "0-1" : "1-0";
+                    motivo = "tiempo agotado";
+                    break;
+                }
+                reloj[turno] += control.incrementoMs;
+            }
+            int jugada = r.mejorJugada();
+            if (jugada == Jugada.NULA || !pos.esLegal(jugada)) {
+                resultado = turno == Posicion.BLANCAS ? "0-1" : "1-0";
+                motivo = "jugada ilegal";
+                break;
+            }
+
+            // Juega (la posicion lleva los contadores y los hashes para las repeticiones)
+            pos.hacer(jugada);
+            jugadas.add(jugada);
+
+            // Adjudicacion por evaluacion (puntos desde el punto de vista de blancas)
+            int puntos = turno == Posicion.BLANCAS ? r.puntos : -r.puntos;
+            int lado = Integer.signum(puntos);
+            if (Math.abs(puntos) >= umbralAbandono && lado == ladoAbandono) {
+                seguidasAbandono++;
+            } else {
+                seguidasAbandono = Math.abs(puntos) >= umbralAbandono ? 1 : 0;
+                ladoAbandono = lado;
+            }
+            if (seguidasAbandono >= 2 * jugadasAbandono) {
+                resultado = ladoAbandono > 0 ? "1-0" : "0-1";
+                motivo = "adjudicada por evaluacion";
+                break;
+            }
+            seguidasTablas = numero >= jugadaMinimaTablas && Math.abs(puntos) <= umbralTablas ? seguidasTablas + 1 : 0;
+            if (seguidasTablas >= 2 * jugadasTablas) {
+                resultado = "1/2-1/2";
+                motivo = "tablas adjudicadas por evaluacion";
+                break;
+            }
+        }
+
+        String blancas = motores[0].getNombre();
+        String negras = motores[1].getNombre();
+        String texto = pgn(indice + 1, blancas, negras, apertura, jugadas, resultado, motivo);
+        return new Partida(indice + 1, blancas, negras, resultado, motivo, aJuegaBlancas, texto);
+    }
+
+    /**
+     * @return Numero de jugada del FEN (sexto campo), 1 si no lo tiene
+     */
+    static int numeroJugada(String fen) {
+        String[] campos = fen.trim().split("\\s+");
+        try {
+            return campos.length >= 6 ? Math.max(1, Integer.parseInt(campos[5])) : 1;
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * Escribe la partida en formato PGN
+     * Las jugadas van en SAN (Nf3, exd5, e8=Q+)
+     */
+    private String pgn(int ronda, String blancas, String negras, String fen, List<Integer> jugadas, String resultado, String motivo) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[Event \"Torneo PIA_POO\"]\n");
+        sb.append("[Site \"local\"]\n");
+        sb.append("[Date \"").append(LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy.MM.dd"))).append("\"]\n");
+        sb.append("[Round \"").append(ronda).append("\"]\n");
+        sb.append("[White \"").append(blancas).append("\"]\n");
+        sb.append("[Black \"").append(negras).append("\"]\n");
+        sb.append("[Result \"").append(resultado).append("\"]\n");
+        if (!fen.equals(Posicion.FEN_INICIAL)) {
+            sb.append("[SetUp \"1\"]\n");
+            sb.append("[FEN \"").append(fen).append("\"]\n");
+        }
+        sb.append("[TimeControl \"").append(textoControl()).append("\"]\n");
+        sb.append("[Termination \"").append(terminacion(motivo)).append("\"]\n\n");
+
+        StringBuilder linea = new StringBuilder();
+        Posicion pos = Posicion.desdeFen(fen);
+        int[] legales = new int[Posicion.MAX_JUGADAS];
+        StringBuilder token = new StringBuilder();
+        int numero = numeroJugada(fen);
+        for (int i = 0; i < jugadas.size(); i++) {
+            token.setLength(0);
+            if (pos.getTurno() == Posicion.BLANCAS) {
+                token.append(numero).append(". ");
+            } else if (i == 0) {
+                token.append(numero).append("... ");
+            }
+            int n = pos.generarLegales(legales);
+            Notacion.agregar(token, pos, jugadas.get(i), legales, n);
+            if (pos.getTurno() == Posicion.NEGRAS) {
+                numero++;
+            }
+            pos.hacer(jugadas.get(i));
+            agregar(sb, linea, token.toString());
+        }
+        agregar(sb, linea, "{" + motivo + "}");
+        agregar(sb, linea, resultado);
+        sb.append(linea).append('\n');
+        return sb.toString();
+    }
+
+    /**
+     * Agrega un token al movimiento del PGN cortando las lineas a 80 caracteres
+     */
+    private static void agregar(StringBuilder sb, StringBuilder linea, String token) {
+        if (linea.length() > 0 && linea.length() + 1 + token.length() > 80) {
+            sb.append(linea).append('\n');
+            linea.setLength(0);
+        }
+        if (linea.length() > 0) {
+            linea.append(' ');
+        }
+        linea.append(token);
+    }
+
+    /**
+     * @return Control de tiempo en el formato de PGN ("10+0.1") o "-" si no hay reloj
+     */
+    private String textoControl() {
+        if (control.relojMs <= 0) {
+            return "-";
+        }
+        return (control.relojMs / 1000.0) + "+" + (control.incrementoMs / 1000.0);
+    }
+
+    /**
+     * Traduce el motivo al valor estandar de la etiqueta Termination
+     */
+    private static String terminacion(String motivo) {
+        return switch (motivo) {
+            case "tiempo agotado" -> "time forfeit";
+            case "jugada ilegal" -> "rules infraction";
+            case "adjudicada por evaluacion", "tablas adjudicadas por evaluacion", "material insuficiente" -> "adjudication";
+            default -> "normal";
+        };
+    }
+}
@@ -0,0 +1,380 @@
+package Motor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Interfaz UCI (Universal Chess Interface) del motor, sin Swing
+ * Lee comandos por la entrada estandar y responde por la salida estandar,
+ * asi el motor se puede usar desde cualquier interfaz de ajedrez o desde
+ * otras herramientas. Uso: java Motor.Uci
+ *
+ * Comandos soportados: uci, isready, ucinewgame, setoption (Hash, Threads),
+ * position [startpos | fen ...] [moves ...], go (depth, nodes, movetime,
+ * wtime, btime, winc, binc, movestogo, infinite, ponder), stop, ponderhit, quit
+ *
+ * La busqueda corre en su propio hilo para que stop y ponderhit se lean
+ * mientras piensa; cada iteracion se escribe como una linea info
+ */
+public class Uci {
+
+    static final String NOMBRE = "PIA_POO";
+    static final String AUTOR = "MayelaLopez28";
+
+    private static final int HASH_DEFECTO = 64;
+    private static final int HASH_MAXIMO = 4096;
+    private static final int HILOS_MAXIMO = 256;
+
+    private final BufferedReader entrada;
+    private final PrintWriter salida;
+
+    private int megabytesHash = HASH_DEFECTO;
+    private int hilos = 1;
+    private TablaTransposicion tabla;
+    private BusquedaParalela busqueda;
+    private Posicion posicion = Posicion.desdeFen(Posicion.FEN_INICIAL);
+    private Thread pensando;// Hilo de la busqueda en curso (null si no hay)
+    private CountDownLatch iniciada;// Se abre cuando la busqueda en curso ya acepta detener y ponderhit
+    private LimitesBusqueda limitesPonderhit;// Limites que se aplican al recibir ponderhit
+
+    /**
+     * Crea la interfaz sobre una entrada y una salida de texto
+     *
+     * @param entrada Fuente de los comandos
+     * @param salida Destino de las respuestas
+     */
+    public Uci(Reader entrada, Writer salida) {
+        this.entrada = entrada instanceof BufferedReader b ? b : new BufferedReader(entrada);
+        this.salida = new PrintWriter(salida, false);
+    }
+
+    /**
+     * Punto de entrada del modo UCI
+     *
+     * @param args No se usan
+     */
+    public static void main(String[] args) throws IOException {
+        Uci uci = new Uci(new InputStreamReader(System.in, StandardCharsets.UTF_8),
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        uci.ejecutar();
+    }
+
+    /**
+     * Lee y atiende comandos hasta recibir quit o el fin de la entrada
+     */
+    public void ejecutar() throws IOException {
+        try {
+            String linea;
+            while ((linea = entrada.readLine()) != null) {
+                if (!comando(linea.trim())) {
+                    break;
+                }
+            }
+        } finally {
+            detenerBusqueda();
+            cerrarMotor();
+        }
+    }
+
+    /**
+     * Atiende un comando
+     *
+     * @param linea Linea recibida, sin espacios a los lados
+     * @return false si hay que terminar
+     */
+    boolean comando(String linea) {
+        String[] t = linea.split("\\s+");
+        switch (t[0]) {
+            case "uci":
+                escribir("id name " + NOMBRE);
+                escribir("id author " + AUTOR);
+                escribir("option name Hash type spin default " + HASH_DEFECTO + " min 1 max " + HASH_MAXIMO);
+                escribir("option name Threads type spin default 1 min 1 max " + HILOS_MAXIMO);
+                escribir("option name Ponder type check default false");
+                escribir("uciok");
+                break;
+            case "isready":
+                motor();// Reserva la tabla ahora y no en el primer go
+                escribir("readyok");
+                break;
+            case "ucinewgame":
+                detenerBusqueda();
+                motor();
+                tabla.limpiar();
+                break;
+            case "setoption":
+                detenerBusqueda();
+                opcion(t);
+                break;
+            case "position":
+                detenerBusqueda();
+                posicion(t);
+                break;
+            case "go":
+                detenerBusqueda();
+                go(t);
+                break;
+            case "stop":
+                detenerBusqueda();
+                break;
+            case "ponderhit":
+                if (pensando != null && limitesPonderhit != null) {
+                    esperarInicio();
+                    busqueda.ponderhit(limitesPonderhit);
+                    limitesPonderhit = null;
+                }
+                break;
+            case "quit":
+                return false;
+            case "":
+            case "debug":
+            case "register":
+                break;
+            default:
+                escribir("info string comando desconocido: " + t[0]);
+        }
+        return true;
+    }
+
+    /**
+     * setoption name <nombre> value <valor>
+     */
+    private void opcion(String[] t) {
+        String nombre = null;
+        String valor = null;
+        for (int i = 1; i < t.length - 1; i++) {
+            if (t[i].equals("name")) {
+                nombre = t[i + 1];
+            } else if (t[i].equals("value")) {
+                valor = t[i + 1];
+            }
+        }
+        if (nombre == null || valor == null) {
+            return;
+        }
+        try {
+            switch (nombre.toLowerCase()) {
+                case "hash":
+                    megabytesHash = Math.max(1, Math.min(HASH_MAXIMO, Integer.parseInt(valor)));
+                    cerrarMotor();
+                    break;
+                case "threads":
+                    hilos = Math.max(1, Math.min(HILOS_MAXIMO, Integer.parseInt(valor)));
+                    cerrarMotor();
+                    break;
+                default:
+                    // Ponder y demas opciones no requieren nada del motor
+            }
+        } catch (NumberFormatException e) {
+            escribir("info string valor no valido para " + nombre + ": " + valor);
+        }
+    }
+
+    /**
+     * position [startpos | fen <6 campos>] [moves <jugadas>]
+     */
+    private void posicion(String[] t) {
+        int i = 1;
+        Posicion pos;
+        try {
+            if (i < t.length && t[i].equals("startpos")) {
+                pos = Posicion.desdeFen(Posicion.FEN_INICIAL);
+                i++;
+            } else if (i < t.length && t[i].equals("fen")) {
+                StringBuilder fen = new StringBuilder();
+                for (i++; i < t.length && !t[i].equals("moves"); i++) {
+                    fen.append(t[i]).append(' ');
+                }
+                pos = Posicion.desdeFen(fen.toString().trim());
+            } else {
+                escribir("info string position sin startpos ni fen");
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            escribir("info string FEN no valido: " + e.getMessage());
+            return;
+        }
+
+        if (i < t.length && t[i].equals("moves")) {
+            int[] legales = new int[Posicion.MAX_JUGADAS];
+            for (i++; i < t.length; i++) {
+                int jugada = buscarJugada(pos, t[i], legales);
+                if (jugada == Jugada.NULA) {
+                    escribir("info string jugada ilegal: " + t[i]);
+                    break;
+                }
+                pos.hacer(jugada);
+            }
+        }
+        posicion = pos;
+    }
+
+    /**
+     * Busca entre las jugadas legales la que tiene el texto dado
+     *
+     * @param pos Posicion actual
+     * @param texto Jugada en notacion de coordenadas (por ejemplo "e2e4" o "e7e8q")
+     * @param legales Arreglo auxiliar
+     * @return Jugada o Jugada.NULA si no es legal
+     */
+    static int buscarJugada(Posicion pos, String texto, int[] legales) {
+        int n = pos.generarLegales(legales);
+        for (int i = 0; i < n; i++) {
+            if (Jugada.texto(legales[i]).equals(texto)) {
+                return legales[i];
+            }
+        }
+        return Jugada.NULA;
+    }
+
+    /**
+     * go [depth n] [nodes n] [movetime ms] [wtime ms] [btime ms] [winc ms] [binc ms]
+     * [movestogo n] [infinite] [ponder]
+     */
+    private void go(String[] t) {
+        LimitesBusqueda limites = new LimitesBusqueda();
+        long reloj = 0;
+        long incremento = 0;
+        boolean infinito = false;
+        boolean ponder = false;
+        boolean blancas = posicion.getTurno() == Posicion.BLANCAS;
+        try {
+            for (int i = 1; i < t.length; i++) {
+                switch (t[i]) {
+                    case "depth" -> limites.profundidad = Integer.parseInt(t[++i]);
+                    case "nodes" -> limites.nodos = Long.parseLong(t[++i]);
+                    case "movetime" -> limites.tiempoMs = Long.parseLong(t[++i]);
+                    case "wtime" -> reloj = blancas ? Long.parseLong(t[++i]) : saltar(t, ++i, reloj);
+                    case "btime" -> reloj = !blancas ? Long.parseLong(t[++i]) : saltar(t, ++i, reloj);
+                    case "winc" -> incremento = blancas ? Long.parseLong(t[++i]) : saltar(t, ++i, incremento);
+                    case "binc" -> incremento = !blancas ? Long.parseLong(t[++i]) : saltar(t, ++i, incremento);
+                    case "movestogo" -> limites.jugadasHastaControl = Integer.parseInt(t[++i]);
+                    case "infinite" -> infinito = true;
+                    case "ponder" -> ponder = true;
+                    default -> {
+                        // searchmoves, mate y demas parametros no soportados se ignoran
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            escribir("info string go mal formado: " + e.getMessage());
+            return;
+        }
+        if (reloj > 0) {
+            limites.relojMs = reloj;
+            limites.incrementoMs = incremento;
+            limites.numeroJugada = posicion.getNumeroJugada();// Cuenta tambien las jugadas del FEN
+        }
+
+        // Con infinite o ponder la busqueda no devuelve bestmove hasta stop o ponderhit
+        LimitesBusqueda limitesBusqueda = limites;
+        limitesPonderhit = null;
+        if (infinito || ponder) {
+            limitesBusqueda = limites.copiar();
+            limitesBusqueda.ponder = true;
+            if (ponder) {
+                limitesPonderhit = limites;
+            }
+        }
+
+        BusquedaParalela motor = motor();
+        Posicion pos = posicion.copiar();
+        LimitesBusqueda l = limitesBusqueda;
+        CountDownLatch inicio = new CountDownLatch(1);
+        iniciada = inicio;
+        pensando = new Thread(() -> {
+            ResultadoBusqueda r;
+            try {
+                r = motor.buscar(pos, l, it -> escribir("info " + it), inicio::countDown);
+            } finally {
+                inicio.countDown();// Si la busqueda fallo antes de registrarse
+            }
+            String mejor = "bestmove " + (r.mejorJugada() == Jugada.NULA ? "0000" : Jugada.texto(r.mejorJugada()));
+            if (r.pv.length > 1) {
+                mejor += " ponder " + Jugada.texto(r.pv[1]);
+            }
+            escribir(mejor);
+        }, "uci-busqueda");
+        pensando.start();
+    }
+
+    /**
+     * Salta el valor de un parametro que no corresponde al que mueve
+     */
+    private static long saltar(String[] t, int i, long actual) {
+        Long.parseLong(t[i]);// Solo valida el formato
+        return actual;
+    }
+
+    /**
+     * Espera a que la busqueda lanzada por go se registre en el motor,
+     * para que un ponderhit que llega enseguida no se pierda
+     */
+    private void esperarInicio() {
+        try {
+            iniciada.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Detiene la busqueda en curso (si la hay) y espera su bestmove
+     */
+    private void detenerBusqueda() {
+        Thread t = pensando;
+        if (t == null) {
+            return;
+        }
+        try {
+            // Se repite porque el stop puede llegar antes de que la busqueda se registre
+            while (t.isAlive()) {
+                busqueda.detener();
+                t.join(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pensando = null;
+        limitesPonderhit = null;
+    }
+
+    /**
+     * @return Motor con la tabla y los hilos configurados, creado si hace falta
+     */
+    private BusquedaParalela motor() {
+        if (busqueda == null) {
+            tabla = new TablaTransposicion(megabytesHash, false);
+            busqueda = new BusquedaParalela(tabla, hilos);
+        }
+        return busqueda;
+    }
+
+    /**
+     * Libera el motor actual; el siguiente uso lo crea con las opciones nuevas
+     */
+    private void cerrarMotor() {
+        if (busqueda != null) {
+            busqueda.close();
+            tabla.close();
+            busqueda = null;
+            tabla = null;
+        }
+    }
+
+    /**
+     * Escribe una linea y la envia de inmediato
+     * La usan el hilo de comandos y el de la busqueda, por eso es sincronizada
+     */
+    private synchronized void escribir(String linea) {
+        salida.println(linea);
+        salida.flush();
+    }
+}
@@ -0,0 +1,55 @@
+package Motor;
+
+/**
+ * Claves aleatorias de Zobrist para calcular el hash de una posicion
+ * El hash es el XOR de una clave por cada pieza en su casilla, mas las claves
+ * del turno, los derechos de enroque y la columna de captura al paso
+ * Las claves se generan con una semilla fija para que los hashes sean
+ * reproducibles entre ejecuciones
+ */
+final class Zobrist {
+
+    static final long[][] PIEZA = new long[16][64];// Indice: codigo de pieza, casilla
+    static final long[] ENROQUE = new long[16];// Indice: combinacion de derechos de enroque
+    static final long[] AL_PASO = new long[8];// Indice: columna de la casilla al paso
+    static final long TURNO;// Se aplica cuando mueven las negras
+
+    static {
+        long semilla = 0x9E3779B97F4A7C15L;
+        for (int p = 0; p < 16; p++) {
+            for (int sq = 0; sq < 64; sq++) {
+                semilla = siguiente(semilla);
+                PIEZA[p][sq] = mezclar(semilla);
+            }
+        }
+        for (int i = 0; i < 16; i++) {
+            semilla = siguiente(semilla);
+            ENROQUE[i] = mezclar(semilla);
+        }
+        ENROQUE[0] = 0;// Sin derechos de enroque no se altera el hash
+        for (int i = 0; i < 8; i++) {
+            semilla = siguiente(semilla);
+            AL_PASO[i] = mezclar(semilla);
+        }
+        TURNO = mezclar(siguiente(semilla));
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Avanza la semilla del generador (secuencia de Weyl)
+     */
+    private static long siguiente(long semilla) {
+        return semilla + 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Mezcla los bits de un valor (funcion final de SplitMix64)
+     */
+    private static long mezclar(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -24,6 +24,7 @@ public class Bishop extends Pieza{
         this.yPos=fila*tablero.tileSize;// Posicion y en pixeles
         this.EsBlanco=EsBlanco;
         this.name="Bishop";
+        this.tipo=ALFIL;
 
         // Carga la imagen correspondiente segun el color
         String imageName = EsBlanco ? "bishop_blanco.png" : "bishop_negro.png";
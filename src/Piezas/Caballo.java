@@ -25,6 +25,7 @@ public class Caballo extends Pieza{
         this.yPos=fila*tablero.tileSize;// Posicion y en pixeles
         this.EsBlanco=EsBlanco;
         this.name="Caballo";
+        this.tipo=CABALLO;
 
         // Carga la imagen correspondiente segun el color
         String imageName = EsBlanco ? "caballo_blanco.png" : "caballo_negro.png";
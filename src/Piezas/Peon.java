@@ -29,6 +29,7 @@ public class Peon extends Pieza{
         this.yPos=fila*tablero.tileSize;// Posicion y en pixeles
         this.EsBlanco=EsBlanco;
         this.name="Peon";
+        this.tipo=PEON;
 
         // Carga la imagen correspondiente segun el color
         String imageName = EsBlanco ? "peon_blanco.png" : "peon_negro.png";
@@ -87,7 +88,7 @@ public class Peon extends Pieza{
             // O si es una captura en passant valida
             if (tablero.getTileNum(columna, fila) == tablero.enPassantTile) {
                 Pieza peonPassant = tablero.getPieza(columna, fila + colorIndex);
-                if (peonPassant != null && peonPassant.name.equals("Peon") &&
+                if (peonPassant != null && peonPassant.tipo == PEON &&
                         peonPassant.EsBlanco != this.EsBlanco) {
                     return true;
                 }
@@ -13,11 +13,23 @@ import java.io.*;
  * Implementa Serializable para permitir guardar el estado del juego
  */
 public class Pieza implements Serializable {
+    // Valor que se calculaba antes de agregar el tipo, para seguir cargando las partidas guardadas
+    private static final long serialVersionUID = -6136763626001364659L;
+
+    // Tipos de pieza, con los mismos valores que Motor.Posicion
+    public static final byte PEON = 1;
+    public static final byte CABALLO = 2;
+    public static final byte ALFIL = 3;
+    public static final byte TORRE = 4;
+    public static final byte REINA = 5;
+    public static final byte REY = 6;
+    public static final int NEGRO = 8;//Bit de color del codigo de pieza (como Posicion.NEGRAS << 3)
 
     public int columna,fila;//Columna actual de la pieza en el tablero
     public int xPos,yPos;//Posicion en pixeles para el dibujado en pantalla
     public boolean EsBlanco;//Indica si la pieza pertenece al jugador de piezas blancas
-    public String name;//Nombre de la pieza (Rey, Reina, Torre, etc)
+    public String name;//Nombre de la pieza (Rey, Reina, Torre, etc), solo para mostrar y guardar
+    public byte tipo;//Tipo de pieza (PEON a REY), las reglas deciden con este valor y no con el nombre
 
 
     /**
@@ -43,6 +55,38 @@ public class Pieza implements Serializable {
         this.tablero = tablero;
     }
 
+    /**
+     * Obtiene el codigo de la pieza: su tipo y el bit de color
+     *
+     * @return Codigo igual al de Motor.Posicion (tipo | color << 3)
+     */
+    public int codigo() {
+        return EsBlanco ? tipo : tipo | NEGRO;
+    }
+
+    /**
+     * Obtiene el tipo que corresponde a un nombre de pieza
+     * Solo se usa con partidas guardadas antes de que existiera el tipo
+     *
+     * @param nombre Nombre de la pieza
+     * @return Tipo de pieza (0 si el nombre no se reconoce)
+     */
+    static byte tipoDesdeNombre(String nombre) {
+        if (nombre == null) {
+            return 0;
+        }
+        switch (nombre) {
+            case "Peon": return PEON;
+            case "Caballo": return CABALLO;
+            case "Bishop":
+            case "Alfil": return ALFIL;
+            case "Torre": return TORRE;
+            case "Reina": return REINA;
+            case "Rey": return REY;
+            default: return 0;
+        }
+    }
+
     /**
      * Obtiene la imagen actual de la pieza
      *
@@ -216,6 +260,11 @@ public class Pieza implements Serializable {
         // Reconstruimos la imagen desde el path
         this.imagePath = (String) in.readObject();
 
+        // Las partidas guardadas antes no traen el tipo: se deduce del nombre
+        if (this.tipo == 0) {
+            this.tipo = tipoDesdeNombre(name);
+        }
+
         // Cargar la imagen desde la ruta
         loadImageFromPath();
     }
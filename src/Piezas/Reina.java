@@ -27,6 +27,7 @@ public class Reina extends Pieza {
         this.yPos = fila * tablero.tileSize;
         this.EsBlanco = EsBlanco;
         this.name = "Reina";
+        this.tipo = REINA;
 
         // Carga la imagen correspondiente segun el color de la pieza
         String imageName = EsBlanco ? "reina_blanco.png" : "reina_negro.png";
@@ -28,6 +28,7 @@ public class Rey extends Pieza{
         this.yPos=fila*tablero.tileSize;
         this.EsBlanco=EsBlanco;
         this.name="Rey";
+        this.tipo=REY;
 
         // Carga la imagen correspondiente segun el color de la pieza
         String imageName = EsBlanco ? "rey_blanco.png" : "rey_negro.png";
@@ -64,7 +65,7 @@ public class Rey extends Pieza{
      * @return true si el enroque es posible, false en caso contrario
      */
     private boolean canCastle(int columna, int fila){
-        JaqueScanner js = new JaqueScanner(tablero);
+        JaqueScanner js = tablero.getJaqueScanner();
 
         // Si el Rey esta en jaque, no puede hacer enroque
         if (js.EsReyJaque(new Movimientos(tablero, this, this.columna, this.fila))) {
@@ -76,7 +77,7 @@ public class Rey extends Pieza{
             // Enroque corto (hacia la derecha)
             if (columna == 6) {
                 Pieza torre = tablero.getPieza(7, fila);
-                if (torre != null && torre.name.equals("Torre") && torre.esPrimerMovimiento) {
+                if (torre != null && torre.tipo == TORRE && torre.esPrimerMovimiento) {
                     // Verificar que las casillas entre el rey y la torre esten vacias
                     if (tablero.getPieza(5, fila) == null && tablero.getPieza(6, fila) == null) {
                         // Verificar que el rey no pase por jaque durante el enroque
@@ -87,7 +88,7 @@ public class Rey extends Pieza{
             // Enroque largo (hacia la izquierda)
             else if (columna == 2) {
                 Pieza torre = tablero.getPieza(0, fila);
-                if (torre != null && torre.name.equals("Torre") && torre.esPrimerMovimiento) {
+                if (torre != null && torre.tipo == TORRE && torre.esPrimerMovimiento) {
                     // Verificar que las casillas entre el rey y la torre esten vacias
                     if (tablero.getPieza(1, fila) == null &&
                             tablero.getPieza(2, fila) == null &&
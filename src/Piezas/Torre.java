@@ -26,6 +26,7 @@ public class Torre extends Pieza{
         this.yPos=fila*tablero.tileSize;
         this.EsBlanco=EsBlanco;
         this.name="Torre";
+        this.tipo=TORRE;
 
         // Carga la imagen correspondiente segun el color de la pieza
         String imageName = EsBlanco ? "torre_blanco.png" : "torre_negro.png";
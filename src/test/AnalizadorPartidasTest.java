@@ -0,0 +1,77 @@
+package test;
+
+import Motor.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de prueba para el analizador de partidas por lotes
+ * Usa el mate del pastor, donde la jugada 3... Cf6 es un error grave
+ */
+class AnalizadorPartidasTest {
+
+    // Historial con el formato que escribe Guardar.saveGame
+    private static final String PASTOR = "Historial de movimientos - \n"
+            + "----------------------------------\n"
+            + "1. Peon Blanco a e4 Peon Negro a e5\n"
+            + "2. Reina Blanco a h5 Caballo Negro a c6\n"
+            + "3. Alfil Blanco a c4 Caballo Negro a f6\n"
+            + "4. Reina Blanco a f7\n"
+            + "Partida finalizada: Blancas ganan\n";
+
+    @TempDir
+    Path carpeta;
+
+    /**
+     * Prueba un directorio con un historial del juego y un PGN en coordenadas:
+     * se leen ambos, se marca el error grave y se escribe la partida anotada
+     */
+    @Test
+    void testDirectorio() throws Exception {
+        Files.writeString(carpeta.resolve("partida_finalizada_1_movimientos.txt"), PASTOR, StandardCharsets.UTF_8);
+        Files.writeString(carpeta.resolve("corta.pgn"), "[Event \"x\"]\n\n1. e2e4 e7e5 2. g1f3 *\n", StandardCharsets.UTF_8);
+
+        AnalizadorPartidas analizador = new AnalizadorPartidas();
+        analizador.limites = LimitesBusqueda.profundidad(4);
+        analizador.hilos = 2;
+        analizador.megabytesTabla = 1;
+        List<AnalizadorPartidas.PartidaAnalizada> analizadas = analizador.analizar(carpeta, null);
+
+        assertEquals(2, analizadas.size());
+        assertEquals(5 + 4 + 3, analizador.getPosicionesAnalizadas(), "Las posiciones de ambas partidas y la final");
+        AnalizadorPartidas.PartidaAnalizada pastor = analizadas.get(1);
+        assertEquals(7, pastor.partida.jugadas.length);
+        assertEquals("??", AnalizadorPartidas.marca(pastor.perdidas[5]), "3... Cf6 permite el mate");
+        assertTrue(pastor.puntos[7] <= -Busqueda.MATE_LIMITE, "La posicion final es mate");
+
+        String texto = Files.readString(carpeta.resolve("analisis").resolve("partida_finalizada_1_analisis.pgn"));
+        assertTrue(texto.contains("Nf6??"), texto);
+        assertTrue(texto.contains("4. Qxf7#"), texto);
+    }
+
+    /**
+     * Prueba la lectura de partidas desde un zip
+     */
+    @Test
+    void testZip() throws Exception {
+        Path zip = carpeta.resolve("partidas.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("viejas/partida_finalizada_2_movimientos.txt"));
+            out.write(PASTOR.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        List<AnalizadorPartidas.Partida> partidas = AnalizadorPartidas.leer(zip);
+        assertEquals(1, partidas.size());
+        assertEquals("partida_finalizada_2", partidas.get(0).nombre);
+        assertEquals("Reina Blanco a f7", partidas.get(0).textos[6]);
+    }
+}
@@ -0,0 +1,170 @@
+package test;
+
+import Motor.*;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de prueba para la busqueda alfa-beta del motor
+ * Verifica que encuentre mates sencillos y que respete sus limites
+ */
+class BusquedaTest {
+
+    /**
+     * Prueba que la busqueda encuentre un mate en una jugada
+     * (mate del pasillo con la torre)
+     */
+    @Test
+    void testMateEnUno() {
+        Posicion pos = Posicion.desdeFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        ResultadoBusqueda r = new Busqueda(pos).buscar(LimitesBusqueda.profundidad(4), null);
+        assertEquals("a1a8", Jugada.texto(r.mejorJugada()));
+        assertEquals("mate 1", r.puntosTexto());
+    }
+
+    /**
+     * Prueba que la busqueda se detenga al llegar al limite de nodos
+     * y que aun asi devuelva una jugada legal
+     */
+    @Test
+    void testLimiteNodos() {
+        Posicion pos = Posicion.desdeFen(Posicion.FEN_INICIAL);
+        ResultadoBusqueda r = new Busqueda(pos).buscar(LimitesBusqueda.nodos(5000), null);
+        assertTrue(r.nodos <= 5000);
+        assertNotEquals(Jugada.NULA, r.mejorJugada());
+        assertEquals(Posicion.FEN_INICIAL, pos.aFen());
+    }
+
+    /**
+     * Prueba que una posicion de ahogado se evalue como tablas sin jugada
+     */
+    @Test
+    void testAhogado() {
+        Posicion pos = Posicion.desdeFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+        ResultadoBusqueda r = new Busqueda(pos).buscar(LimitesBusqueda.profundidad(3), null);
+        assertEquals(Jugada.NULA, r.mejorJugada());
+        assertEquals(0, r.puntos);
+    }
+
+    /**
+     * Prueba que el ordenamiento de jugadas reduzca los nodos visitados
+     * a la misma profundidad sin cambiar la jugada de un mate forzado
+     */
+    @Test
+    void testOrdenamientoReduceNodos() {
+        String fen = "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 0 1";
+        Busqueda sinOrden = new Busqueda(Posicion.desdeFen(fen));
+        sinOrden.setOrdenamiento(false);
+        long nodosSin = sinOrden.buscar(LimitesBusqueda.profundidad(4), null).nodos;
+        long nodosCon = new Busqueda(Posicion.desdeFen(fen)).buscar(LimitesBusqueda.profundidad(4), null).nodos;
+        assertTrue(nodosCon < nodosSin, nodosCon + " >= " + nodosSin);
+
+        Busqueda mate = new Busqueda(Posicion.desdeFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"));
+        assertEquals("a1a8", Jugada.texto(mate.buscar(LimitesBusqueda.profundidad(4), null).mejorJugada()));
+    }
+
+    /**
+     * Prueba que la busqueda de quietud vea la recaptura: a profundidad 1
+     * la dama no debe comerse un peon defendido
+     */
+    @Test
+    void testQuietudEvitaCapturaDefendida() {
+        Posicion pos = Posicion.desdeFen("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1");
+        ResultadoBusqueda r = new Busqueda(pos).buscar(LimitesBusqueda.profundidad(1), null);
+        assertNotEquals("d1d5", Jugada.texto(r.mejorJugada()));
+        assertTrue(r.puntos > 400, r.toString());
+    }
+
+    /**
+     * Prueba el reparto de tiempo: el presupuesto duro nunca pasa del reloj
+     * y una busqueda con poco reloj termina antes de gastarlo
+     */
+    @Test
+    void testGestorTiempo() {
+        GestorTiempo gestor = new GestorTiempo(60_000, 1_000, 10, 0);
+        assertTrue(gestor.getBlando() <= gestor.getDuro());
+        assertTrue(gestor.getDuro() < 60_000 / 2);
+        assertEquals(1, new GestorTiempo(20, 0, 1, 0).getDuro());
+
+        Posicion pos = Posicion.desdeFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        long inicio = System.nanoTime();
+        ResultadoBusqueda r = new Busqueda(pos).buscar(LimitesBusqueda.reloj(600, 0, 1), null);
+        long ms = (System.nanoTime() - inicio) / 1_000_000L;
+        assertTrue(ms < 600, "tardo " + ms + " ms");
+        assertNotEquals(Jugada.NULA, r.mejorJugada());
+    }
+
+        /**
+     * Prueba el modo ponder: la busqueda no termina sola aunque encuentre un
+     * mate, y tras ponderhit devuelve su resultado respetando el nuevo limite
+     */
+    @Test
+    void testPonderhit() throws Exception {
+        Posicion pos = Posicion.desdeFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        try (BusquedaParalela busqueda = new BusquedaParalela(new TablaTransposicion(4, false), 2)) {
+            CompletableFuture<ResultadoBusqueda> futuro = CompletableFuture
+                    .supplyAsync(() -> busqueda.buscar(pos, LimitesBusqueda.ponder(), null));
+            Thread.sleep(200);
+            assertFalse(futuro.isDone());
+            busqueda.ponderhit(LimitesBusqueda.tiempo(100));
+            ResultadoBusqueda r = futuro.get(5, TimeUnit.SECONDS);
+            assertEquals("a1a8", Jugada.texto(r.mejorJugada()));
+        }
+    }
+
+    /**
+     * Prueba que un ponderhit con limites de profundidad o de nodos (sin tiempo)
+     * tambien termine la busqueda, aunque en modo ponder ya vaya mas profundo
+     */
+    @Test
+    void testPonderhitProfundidadYNodos() throws Exception {
+        Posicion pos = Posicion.desdeFen(Posicion.FEN_INICIAL);
+        try (BusquedaParalela busqueda = new BusquedaParalela(new TablaTransposicion(4, false), 2)) {
+            CompletableFuture<ResultadoBusqueda> futuro = CompletableFuture
+                    .supplyAsync(() -> busqueda.buscar(pos, LimitesBusqueda.ponder(), null));
+            Thread.sleep(300);
+            busqueda.ponderhit(LimitesBusqueda.profundidad(3));
+            assertNotEquals(Jugada.NULA, futuro.get(5, TimeUnit.SECONDS).mejorJugada());
+        }
+
+        Busqueda sola = new Busqueda(pos);
+        CompletableFuture<ResultadoBusqueda> futuro = CompletableFuture
+                .supplyAsync(() -> sola.buscar(LimitesBusqueda.ponder(), null));
+        Thread.sleep(300);
+        LimitesBusqueda nodos = new LimitesBusqueda();
+        nodos.nodos = 20000;
+        sola.ponderhit(nodos);
+        assertNotEquals(Jugada.NULA, futuro.get(5, TimeUnit.SECONDS).mejorJugada());
+    }
+
+        /**
+     * Prueba la busqueda paralela con varios hilos y tabla compartida
+     * Debe encontrar el mismo mate y dejar la posicion original intacta
+     */
+    @Test
+    void testBusquedaParalela() {
+        Posicion pos = Posicion.desdeFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        try (BusquedaParalela busqueda = new BusquedaParalela(new TablaTransposicion(4, false), 3)) {
+            ResultadoBusqueda r = busqueda.buscar(pos, LimitesBusqueda.profundidad(5), null);
+            assertEquals("a1a8", Jugada.texto(r.mejorJugada()));
+            assertTrue(r.esMate());
+        }
+        assertEquals("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", pos.aFen());
+    }
+
+    /**
+     * Prueba que la busqueda cuente las repeticiones como tablas
+     * Las blancas tienen dos torres menos pero dan jaque perpetuo con la dama
+     */
+    @Test
+    void testJaquePerpetuo() {
+        Posicion pos = Posicion.desdeFen("6k1/6p1/8/8/8/8/1rr5/4Q1K1 w - - 0 1");
+        ResultadoBusqueda r = new Busqueda(pos).buscar(LimitesBusqueda.profundidad(8), null);
+        assertEquals("e1e8", Jugada.texto(r.mejorJugada()));
+        assertEquals(0, r.puntos);
+    }
+}
@@ -0,0 +1,120 @@
+package test;
+
+import Motor.*;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de prueba para el cliente UCI
+ * Como motor externo se lanza el modo UCI de este mismo proyecto
+ * en otra maquina virtual, con las mismas clases que las pruebas
+ */
+class ClienteUciTest {
+
+    private static final String MATE_EN_UNO = "6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1";
+
+    private ClienteUci cliente;
+
+    /**
+     * Lanza el motor y espera su uciok antes de cada prueba
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        List<String> comando = new ArrayList<>();
+        comando.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        // Repite --enable-preview y similares si las pruebas se compilaron con ellos
+        for (String argumento : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argumento.startsWith("--enable-preview")) {
+                comando.add(argumento);
+            }
+        }
+        comando.add("-cp");
+        // Carpeta (o jar) de donde se cargo el motor: no siempre esta en java.class.path
+        String clases = Paths.get(Uci.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        comando.add(clases + File.pathSeparator + System.getProperty("java.class.path"));
+        comando.add("Motor.Uci");
+        cliente = new ClienteUci(comando);
+        cliente.iniciar().get(10, TimeUnit.SECONDS);
+        cliente.opcion("Hash", "8");
+    }
+
+    /**
+     * Cierra el motor despues de cada prueba
+     */
+    @AfterEach
+    void tearDown() {
+        cliente.close();
+    }
+
+    /**
+     * Prueba el saludo y que isready responda
+     */
+    @Test
+    void testIniciarYListo() throws Exception {
+        assertEquals("PIA_POO", cliente.getNombre());
+        cliente.listo().get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Prueba que el motor externo encuentre un mate en uno y que las
+     * lineas info lleguen al oyente con la variante ya convertida
+     */
+    @Test
+    void testAnalizarConActualizaciones() throws Exception {
+        CopyOnWriteArrayList<ResultadoBusqueda> recibidos = new CopyOnWriteArrayList<>();
+        ResultadoBusqueda r = cliente.analizar(Posicion.desdeFen(Posicion.FEN_INICIAL),
+                LimitesBusqueda.profundidad(4), recibidos::add).get(30, TimeUnit.SECONDS);
+        assertEquals(4, recibidos.size(), "Una actualizacion por profundidad");
+        assertEquals(4, r.profundidad);
+        assertTrue(Posicion.desdeFen(Posicion.FEN_INICIAL).esLegal(r.mejorJugada()));
+
+        int mate = cliente.mejorJugada(Posicion.desdeFen(MATE_EN_UNO), LimitesBusqueda.profundidad(3)).get(30, TimeUnit.SECONDS);
+        assertEquals("a1a8", Jugada.texto(mate));
+    }
+
+    /**
+     * Prueba que varias busquedas pedidas a la vez se atiendan en orden
+     * y que cancelar un analisis infinito envie stop y deje libre al motor
+     * Cancelar una peticion que sigue en la cola no detiene la que esta en curso
+     */
+    @Test
+    void testColaYCancelacion() throws Exception {
+        CompletableFuture<ResultadoBusqueda> infinito = cliente.analizar(Posicion.desdeFen(MATE_EN_UNO), new LimitesBusqueda(), null);
+        CompletableFuture<ResultadoBusqueda> descartada = cliente.analizar(Posicion.desdeFen(MATE_EN_UNO), LimitesBusqueda.profundidad(2), null);
+        CompletableFuture<Integer> siguiente = cliente.mejorJugada(Posicion.desdeFen(Posicion.FEN_INICIAL), LimitesBusqueda.profundidad(2));
+        Thread.sleep(200);
+        assertFalse(siguiente.isDone(), "La segunda busqueda espera a que termine la primera");
+
+        descartada.cancel(true);
+        Thread.sleep(200);
+        assertFalse(infinito.isDone(), "La busqueda en curso sigue al cancelar una de la cola");
+
+        infinito.cancel(true);
+        assertThrows(CancellationException.class, infinito::join);
+        int jugada = siguiente.get(30, TimeUnit.SECONDS);
+        assertTrue(Posicion.desdeFen(Posicion.FEN_INICIAL).esLegal(jugada));
+    }
+
+    /**
+     * Prueba que si el motor termina, lo pendiente falle en lugar de esperar para siempre
+     */
+    @Test
+    void testMotorCerrado() {
+        cliente.close();
+        CompletableFuture<Integer> f = cliente.mejorJugada(Posicion.desdeFen(Posicion.FEN_INICIAL), LimitesBusqueda.profundidad(2));
+        Exception e = assertThrows(Exception.class, () -> f.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, e.getCause());
+    }
+}
@@ -0,0 +1,81 @@
+package test;
+
+import Main.*;
+import org.junit.jupiter.api.*;
+
+import javax.swing.JLabel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de prueba para el reloj de la partida
+ * Verifica que el tiempo se cobre en milisegundos al cambiar de turno,
+ * los modos Fischer y Bronstein, y que las pausas no se cobren
+ */
+class ClockTest {
+
+    private JLabel blanco;
+    private JLabel negro;
+
+    /**
+     * Crea las etiquetas del reloj antes de cada prueba
+     */
+    @BeforeEach
+    void setUp() {
+        blanco = new JLabel();
+        negro = new JLabel();
+    }
+
+    /**
+     * Prueba que una jugada de menos de un segundo se cobre y que el
+     * incremento Fischer se sume al que movio
+     */
+    @Test
+    void testFischer() throws InterruptedException {
+        Clock reloj = new Clock(60_000, 2_000, Clock.FISCHER, blanco, negro, null);
+        assertEquals("01:00", blanco.getText());
+        reloj.start();
+        Thread.sleep(300);
+        reloj.cambioTurno();
+        long usado = 60_000 + 2_000 - reloj.getBlancoMs();
+        assertTrue(usado >= 300 && usado < 1000, "Se cobro " + usado + " ms");
+        assertFalse(reloj.isTurnoBlanco());
+        assertEquals("01:02", blanco.getText());
+        assertEquals(60_000, reloj.getNegroMs(), 50, "Al negro apenas se le ha cobrado");
+    }
+
+    /**
+     * Prueba que con retraso Bronstein una jugada mas corta que el retraso
+     * no gaste tiempo, y una mas larga solo gaste el exceso
+     */
+    @Test
+    void testBronstein() throws InterruptedException {
+        Clock reloj = new Clock(60_000, 200, Clock.BRONSTEIN, blanco, negro, null);
+        reloj.start();
+        Thread.sleep(100);
+        reloj.cambioTurno();
+        assertEquals(60_000, reloj.getBlancoMs(), "Jugada dentro del retraso: no se cobra nada");
+
+        Thread.sleep(500);
+        reloj.cambioTurno();
+        long usado = 60_000 - reloj.getNegroMs();
+        assertTrue(usado >= 300 && usado < 800, "Solo se cobra lo que pasa del retraso: " + usado);
+    }
+
+    /**
+     * Prueba que el tiempo en pausa no se cobre y que por debajo de
+     * diez segundos se muestren las decimas
+     */
+    @Test
+    void testPausaYDecimas() throws InterruptedException {
+        Clock reloj = new Clock(5_000, 0, Clock.SIN_INCREMENTO, blanco, negro, null);
+        assertEquals("00:05.0", blanco.getText());
+        reloj.start();
+        reloj.pause();
+        Thread.sleep(300);
+        reloj.resume();
+        reloj.cambioTurno();
+        assertEquals(5_000, reloj.getBlancoMs(), 50, "La pausa no se cobra");
+        assertTrue(blanco.getText().matches("00:0[45]\\.\\d"), blanco.getText());
+    }
+}
@@ -1,6 +1,7 @@
 package test;
 
 import Main.*;
+import Piezas.Pieza;
 import org.junit.jupiter.api.*;
 import java.io.*;
 import java.nio.file.*;
@@ -75,6 +76,33 @@ class GuardarTest {
         assertEquals(tablero.TurnoBlanco, loadedTablero.TurnoBlanco);
         assertEquals(tablero.enPassantTile, loadedTablero.enPassantTile);
         assertEquals(tablero.GameOver, loadedTablero.GameOver);
+
+        // Las piezas cargadas conservan su tipo, que es lo que usan las reglas
+        assertEquals(tablero.getPosicion().aFen(), loadedTablero.getPosicion().aFen());
+        for (Pieza p : loadedTablero.piezasList) {
+            assertNotEquals(0, p.tipo, p.name);
+        }
+    }
+
+    /**
+     * Prueba que se sigan cargando las partidas guardadas con versiones anteriores
+     * Juego1.chess no trae los tiempos en milisegundos ni los contadores de
+     * jugadas, que se toman de los valores por defecto
+     */
+    @Test
+    void testCargarPartidaAnterior() {
+        Tablero cargado = new Tablero();
+        Guardar.loadGame(cargado, "Juego1.chess");
+
+        assertEquals(32, cargado.piezasList.size());
+        assertTrue(cargado.TurnoBlanco);
+        assertFalse(cargado.GameOver);
+        assertEquals(0, cargado.jugadasReversibles);
+        assertEquals(1, cargado.numeroJugada);
+        for (Pieza p : cargado.piezasList) {
+            assertNotEquals(0, p.tipo, p.name);
+        }
+        assertEquals("r1bqkbnr/p2ppppp/n7/1pp5/3P4/2P1B3/PP2PPPP/RN1QKBNR w KQkq - 0 1", cargado.getPosicion().aFen());
     }
 
     /**
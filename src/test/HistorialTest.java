@@ -1,6 +1,7 @@
 package test;
 
 import Main.Historial;
+import Motor.Posicion;
 import org.junit.jupiter.api.*;
 
 import java.io.*;
@@ -91,4 +92,62 @@ class HistorialTest {
         // Verificar
         assertEquals(historial.getMovimientos(), deserialized.getMovimientos());
     }
-}
\ No newline at end of file
+
+    /**
+     * Prueba los movimientos empaquetados que registra el tablero
+     * Verifica que el texto generado sea el mismo que antes y que
+     * la lista muestre una fila por jugada completa
+     */
+    @Test
+    void testMovimientoEmpaquetado() {
+        historial.addMovimiento(Posicion.PEON, true, 6 * 8 + 4, 4 * 8 + 4);
+        historial.addMovimiento(Posicion.CABALLO, false, 0 * 8 + 6, 2 * 8 + 5);
+        historial.addMovimiento(Posicion.ALFIL, true, 7 * 8 + 5, 4 * 8 + 2);
+
+        assertEquals(3, historial.getCantidad());
+        assertEquals("Peon Blanco a e4", historial.getMovimiento(0));
+        assertEquals("Caballo Negro a f6", historial.getMovimiento(1));
+        assertEquals("Alfil Blanco a c4", historial.getMovimiento(2));
+        assertEquals(2, historial.getMovimientosModel().getSize());
+        assertTrue(historial.getMovimientosModel().getElementAt(0).contains("Caballo Negro a f6"));
+        assertSame(historial.getScrollPane(), historial.getScrollPane());
+    }
+
+    /**
+     * Prueba que los textos de partidas guardadas se conserven exactamente
+     * al cargarlos, tanto los que se empaquetan como los de texto libre
+     */
+    @Test
+    void testTextosGuardados() {
+        ArrayList<String> movimientos = new ArrayList<>();
+        movimientos.add("Peon Blanco a e4");
+        movimientos.add("e5");
+        movimientos.add("Rey Blanco a e2");
+        historial.setMovimientos(movimientos);
+
+        assertEquals(movimientos, historial.getMovimientos());
+        assertEquals(2, historial.getMovimientosModel().getSize());
+        historial.addMovimiento("Reina Negro a h4");
+        assertEquals(4, historial.getCantidad());
+        assertEquals("Reina Negro a h4", historial.getMovimiento(3));
+    }
+
+    /**
+     * Prueba el limite de textos libres: su indice ocupa 12 bits, asi que
+     * caben 4096 y el siguiente se rechaza en lugar de leerse como una jugada
+     */
+    @Test
+    void testLimiteTextosLibres() {
+        for (int i = 0; i < 4096; i++) {
+            historial.addMovimiento("texto " + i);
+        }
+        assertEquals("texto 4095", historial.getMovimiento(4095));
+
+        // Quitar el ultimo tambien lo saca de la lista de textos
+        historial.quitarUltimo();
+        historial.addMovimiento("otro");
+        assertEquals("otro", historial.getMovimiento(4095));
+
+        assertThrows(IllegalStateException.class, () -> historial.addMovimiento("uno mas"));
+    }
+}
@@ -1,10 +1,19 @@
 package test;
 
 import Main.*;
+import Motor.Jugada;
+import Motor.Material;
+import Motor.Posicion;
 import Piezas.*;
 import org.junit.jupiter.api.*;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -85,5 +94,119 @@ class JaqueScannerTest {
         assertTrue(jaqueScanner.esGameOver(reyBlanco));
     }
 
+    /**
+     * Prueba los casos que el escaner resolvia mal: tapar un jaque, quitarlo
+     * capturando al paso, el mate en la ultima fila con peones propios junto al rey, y un rey
+     * encerrado sin jaque cuando otras piezas todavia pueden moverse
+     */
+    @Test
+    void testTaparJaqueYFinDeJuego() {
+        // El peon de c3 tapa en c4 el jaque de la reina de a6
+        tablero.loadPosition("r1bk1br1/pp1p3p/q3p1pn/2n2p2/3P1P2/2P1P1P1/PQ2K2P/RNB2BNR w - - 3 15");
+        Pieza peon = tablero.getPieza(2, 5);
+        assertTrue(jaqueScanner.EsReyJaque(new Movimientos(tablero, peon, 2, 5)));
+        assertTrue(tablero.esMovimientoValido(new Movimientos(tablero, peon, 2, 4)));
+
+        // Mate en la ultima fila: las casillas de los peones no son escapes
+        tablero.loadPosition("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1");
+        assertTrue(jaqueScanner.esGameOver(tablero.encontrarRey(false)));
+
+        // La captura al paso quita el peon de f5 que da jaque
+        tablero.loadPosition("r1bqk1nr/1pppp3/p2b4/4npPP/4K3/4P2P/PPPP4/RNBQNB1R w kq f6 0 12");
+        assertTrue(tablero.esMovimientoValido(new Movimientos(tablero, tablero.getPieza(6, 3), 5, 2)));
+        assertFalse(jaqueScanner.esGameOver(tablero.encontrarRey(true)));
+
+        // El rey negro no puede moverse, pero sus otras piezas si: no es ahogado
+        tablero.loadPosition("1n2kb1r/1p1b2np/q2p1Qp1/1pN1p3/1r1PPBP1/5P2/PPP4P/R1K2R2 b - - 2 25");
+        assertFalse(jaqueScanner.esGameOver(tablero.encontrarRey(false)));
+    }
+
+
+
+    /**
+     * Prueba de estres: muchos hilos juegan a la vez partidas al azar, cada uno
+     * en su propio tablero, y el resultado de cada hilo debe ser el mismo que
+     * da su semilla jugando sola
+     * Si los escaneres compartieran el tablero, los hilos verian piezas ajenas
+     * y aceptarian o rechazarian otras jugadas
+     */
+    @Test
+    void testTablerosConcurrentes() throws Exception {
+        int hilos = 8;
+        int partidasPorHilo = 250;
+
+        // Referencia: cada semilla jugada sin otros hilos
+        long[] esperado = new long[hilos];
+        for (int h = 0; h < hilos; h++) {
+            esperado[h] = jugarPartidas(new Random(1000 + h), partidasPorHilo / 10);
+        }
+
+        ExecutorService grupo = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<Long>> resultados = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                long semilla = 1000 + h;
+                resultados.add(grupo.submit(() -> {
+                    // Las primeras partidas se comparan con la referencia; el resto solo se revisa
+                    long firma = jugarPartidas(new Random(semilla), partidasPorHilo / 10);
+                    jugarPartidas(new Random(semilla * 31), partidasPorHilo - partidasPorHilo / 10);
+                    return firma;
+                }));
+            }
+            for (int h = 0; h < hilos; h++) {
+                assertEquals(esperado[h], resultados.get(h).get(5, TimeUnit.MINUTES), "Hilo " + h);
+            }
+        } finally {
+            grupo.shutdownNow();
+        }
+    }
 
-}
\ No newline at end of file
+    /**
+     * Juega partidas al azar en un tablero propio del hilo
+     * En cada turno se revisa que el tablero acepte todas las jugadas legales
+     * del motor, se elige una al azar, y se revisa que el tablero y el motor sigan en la
+     * misma posicion y coincidan en el jaque
+     * Cada partida para antes de la jugada que la terminaria, para no mostrar
+     * dialogos, y se deshace completa para empezar la siguiente
+     *
+     * @return Firma de las partidas (combina los hashes de todas las posiciones)
+     */
+    private static long jugarPartidas(Random azar, int partidas) {
+        Tablero propio = new Tablero();
+        JaqueScanner scanner = propio.getJaqueScanner();
+        int[] legales = new int[Posicion.MAX_JUGADAS];
+        long firma = 0;
+        for (int partida = 0; partida < partidas; partida++) {
+            Posicion pos = Posicion.desdeFen(Posicion.FEN_INICIAL);
+            for (int ply = 0; ply < 60; ply++) {
+                Pieza rey = propio.encontrarRey(propio.TurnoBlanco);
+                assertEquals(pos.enJaque(), scanner.EsReyJaque(new Movimientos(propio, rey, rey.columna, rey.fila)), pos.aFen());
+                // El tablero tiene que aceptar todas las jugadas legales del motor
+                int n = pos.generarLegales(legales);
+                for (int i = 0; i < n; i++) {
+                    assertTrue(propio.esMovimientoValido(propio.aMovimientos(legales[i])), pos.aFen() + " " + Jugada.texto(legales[i]));
+                }
+                if (n == 0) {
+                    break;
+                }
+
+                // Elige una jugada que no termine la partida
+                int jugada = legales[azar.nextInt(n)];
+                pos.hacer(jugada);
+                if (pos.generarLegales(legales) == 0 || Material.esInsuficiente(pos.getMaterial())
+                        || pos.repeticiones() >= 2 || pos.esRegla50()) {
+                    break;
+                }
+                String antes = propio.getPosicion().aFen();
+                propio.hacerMovimiento(propio.aMovimientos(jugada));
+                assertEquals(pos.aFen(), propio.getPosicion().aFen(), antes + " " + Jugada.texto(jugada));
+                firma = firma * 31 + pos.getHash() + n;
+            }
+            while (propio.deshacerMovimiento()) {
+                // Vuelve a la posicion inicial para la siguiente partida
+            }
+            assertEquals(Posicion.FEN_INICIAL, propio.getPosicion().aFen());
+        }
+        return firma;
+    }
+}
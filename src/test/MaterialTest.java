@@ -0,0 +1,90 @@
+package test;
+
+import Motor.Evaluacion;
+import Motor.Material;
+import Motor.Notacion;
+import Motor.Posicion;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de prueba para la firma de material
+ * Verifica los contadores, la deteccion de material insuficiente
+ * y la clasificacion de finales
+ */
+class MaterialTest {
+
+    private static long firma(String fen) {
+        return Posicion.desdeFen(fen).getMaterial();
+    }
+
+    /**
+     * Prueba que la firma cuente las piezas de cada tipo y color
+     * y que se mantenga igual al hacer y deshacer jugadas
+     */
+    @Test
+    void testContadores() {
+        Posicion pos = Posicion.desdeFen(Posicion.FEN_INICIAL);
+        long inicial = pos.getMaterial();
+        for (int color = Posicion.BLANCAS; color <= Posicion.NEGRAS; color++) {
+            assertEquals(8, Material.cantidad(inicial, Posicion.PEON, color));
+            assertEquals(2, Material.cantidad(inicial, Posicion.CABALLO, color));
+            assertEquals(2, Material.cantidad(inicial, Posicion.ALFIL, color));
+            assertEquals(2, Material.cantidad(inicial, Posicion.TORRE, color));
+            assertEquals(1, Material.cantidad(inicial, Posicion.REINA, color));
+            assertEquals(1, Material.cantidad(inicial, Posicion.REY, color));
+        }
+
+        // Promocion con captura: un peon negro y una torre blanca menos, una reina negra mas
+        Posicion promocion = Posicion.desdeFen("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 b kq - 0 1");
+        long antes = promocion.getMaterial();
+        int[] legales = new int[Posicion.MAX_JUGADAS];
+        int jugada = Notacion.buscar(promocion, "bxa1=Q", legales);
+        promocion.hacer(jugada);
+        long despues = promocion.getMaterial();
+        assertEquals(Material.cantidad(antes, Posicion.PEON, Posicion.NEGRAS) - 1, Material.cantidad(despues, Posicion.PEON, Posicion.NEGRAS));
+        assertEquals(Material.cantidad(antes, Posicion.REINA, Posicion.NEGRAS) + 1, Material.cantidad(despues, Posicion.REINA, Posicion.NEGRAS));
+        assertEquals(Material.cantidad(antes, Posicion.TORRE, Posicion.BLANCAS) - 1, Material.cantidad(despues, Posicion.TORRE, Posicion.BLANCAS));
+        promocion.deshacer(jugada);
+        assertEquals(antes, promocion.getMaterial());
+    }
+
+    /**
+     * Prueba las tablas por material insuficiente
+     */
+    @Test
+    void testMaterialInsuficiente() {
+        assertTrue(Material.esInsuficiente(firma("8/8/8/4k3/8/8/8/4K3 w - - 0 1")));
+        assertTrue(Material.esInsuficiente(firma("8/8/8/4k3/8/8/8/4K2N w - - 0 1")));
+        assertTrue(Material.esInsuficiente(firma("8/8/8/4k3/8/8/8/4KB2 w - - 0 1")));
+        // Alfiles en casillas del mismo color (f1 y c8 son claras)
+        assertTrue(Material.esInsuficiente(firma("2b5/8/8/4k3/8/8/8/4KB2 w - - 0 1")));
+
+        // Alfiles de distinto color, caballo contra alfil o cualquier peon: el mate es posible
+        assertFalse(Material.esInsuficiente(firma("1b6/8/8/4k3/8/8/8/4KB2 w - - 0 1")));
+        assertFalse(Material.esInsuficiente(firma("2b5/8/8/4k3/8/8/8/4K1N1 w - - 0 1")));
+        assertFalse(Material.esInsuficiente(firma("8/8/8/4k3/8/8/4P3/4K3 w - - 0 1")));
+        assertFalse(Material.esInsuficiente(firma(Posicion.FEN_INICIAL)));
+    }
+
+    /**
+     * Prueba la clasificacion de finales y la escala de la evaluacion
+     */
+    @Test
+    void testClasificacion() {
+        long caballos = firma("8/8/8/4k3/8/8/8/3NKN2 w - - 0 1");
+        assertEquals(Material.SIN_GANANCIA, Material.clasificar(caballos));
+        assertEquals(0, Material.escala(caballos, Posicion.BLANCAS));
+        assertEquals(0, Evaluacion.evaluar(Posicion.desdeFen("8/8/8/4k3/8/8/8/3NKN2 w - - 0 1")));
+
+        long opuestos = firma("1b6/6p1/8/4k3/8/8/4P3/4KB2 w - - 0 1");
+        assertEquals(Material.ALFILES_OPUESTOS, Material.clasificar(opuestos));
+        assertEquals(Material.ESCALA_NORMAL / 2, Material.escala(opuestos, Posicion.BLANCAS));
+
+        // Alfil y caballo contra rey se gana; torre contra alfil casi nunca
+        assertEquals(Material.ESCALA_NORMAL, Material.escala(firma("8/8/8/4k3/8/8/8/4KBN1 w - - 0 1"), Posicion.BLANCAS));
+        assertTrue(Material.escala(firma("2b5/8/8/4k3/8/8/8/R3K3 w - - 0 1"), Posicion.BLANCAS) < Material.ESCALA_NORMAL / 4);
+        assertEquals(Material.ESCALA_NORMAL, Material.escala(firma("8/8/8/4k3/8/8/8/R3K3 w - - 0 1"), Posicion.BLANCAS));
+    }
+}
@@ -0,0 +1,103 @@
+package test;
+
+import Motor.Jugada;
+import Motor.Notacion;
+import Motor.Posicion;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de prueba para la notacion algebraica estandar (SAN)
+ * Verifica capturas, enroques, promociones, desambiguacion,
+ * los sufijos de jaque y mate, y la lectura de SAN
+ */
+class NotacionTest {
+
+    /**
+     * Busca una jugada por su texto en coordenadas y la convierte a SAN
+     */
+    private static String san(Posicion pos, String coordenadas) {
+        int[] legales = new int[Posicion.MAX_JUGADAS];
+        int n = pos.generarLegales(legales);
+        for (int i = 0; i < n; i++) {
+            if (Jugada.texto(legales[i]).equals(coordenadas)) {
+                return Notacion.san(pos, legales[i], legales, n);
+            }
+        }
+        fail("Jugada ilegal: " + coordenadas);
+        return null;
+    }
+
+    /**
+     * Prueba las jugadas basicas: peones, piezas, capturas, enroques y promociones
+     */
+    @Test
+    void testJugadasBasicas() {
+        Posicion inicial = Posicion.desdeFen(Posicion.FEN_INICIAL);
+        assertEquals("e4", san(inicial, "e2e4"));
+        assertEquals("Nf3", san(inicial, "g1f3"));
+
+        Posicion kiwipete = Posicion.desdeFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertEquals("O-O", san(kiwipete, "e1g1"));
+        assertEquals("O-O-O", san(kiwipete, "e1c1"));
+        assertEquals("dxe6", san(kiwipete, "d5e6"));
+        assertEquals("Bxa6", san(kiwipete, "e2a6"));
+        assertEquals("gxh3", san(kiwipete, "g2h3"));
+
+        Posicion promocion = Posicion.desdeFen("8/1P5k/8/8/8/8/8/K7 w - - 0 1");
+        assertEquals("b8=Q", san(promocion, "b7b8q"));
+        assertEquals("b8=N", san(promocion, "b7b8n"));
+    }
+
+    /**
+     * Prueba la desambiguacion por columna, por fila y por casilla completa
+     */
+    @Test
+    void testDesambiguacion() {
+        Posicion torres = Posicion.desdeFen("2k5/8/8/8/8/8/4K3/R6R w - - 0 1");
+        assertEquals("Rad1", san(torres, "a1d1"));
+        assertEquals("Rhf1", san(torres, "h1f1"));
+
+        Posicion fila = Posicion.desdeFen("7k/8/8/R7/8/8/8/R3K3 w - - 0 1");
+        assertEquals("R1a3", san(fila, "a1a3"));
+        assertEquals("R5a3", san(fila, "a5a3"));
+
+        Posicion reinas = Posicion.desdeFen("k7/8/8/8/8/2Q1Q3/8/K1Q1Q3 w - - 0 1");
+        assertEquals("Qe3d2", san(reinas, "e3d2"));
+        assertEquals("Qc1d2", san(reinas, "c1d2"));
+        assertEquals("Qcd4", san(reinas, "c3d4"));
+
+        // Un caballo clavado no cuenta para la desambiguacion
+        assertEquals("Nbd4", san(Posicion.desdeFen("k7/8/8/8/8/1N6/4N3/4K3 w - - 0 1"), "b3d4"));
+        assertEquals("Nd4", san(Posicion.desdeFen("k3r3/8/8/8/8/1N6/4N3/4K3 w - - 0 1"), "b3d4"));
+    }
+
+    /**
+     * Prueba los sufijos de jaque y jaque mate
+     */
+    @Test
+    void testJaqueYMate() {
+        Posicion pastor = Posicion.desdeFen("r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4");
+        assertEquals("Qxf7#", san(pastor, "h5f7"));
+        Posicion jaque = Posicion.desdeFen("4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+        assertEquals("Ra8+", san(jaque, "a1a8"));
+    }
+
+    /**
+     * Prueba que cada jugada legal se lea de vuelta desde su SAN
+     */
+    @Test
+    void testLectura() {
+        Posicion pos = Posicion.desdeFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        int[] legales = new int[Posicion.MAX_JUGADAS];
+        int[] aux = new int[Posicion.MAX_JUGADAS];
+        int n = pos.generarLegales(legales);
+        for (int i = 0; i < n; i++) {
+            String texto = Notacion.san(pos, legales[i], legales, n);
+            assertEquals(legales[i], Notacion.buscar(pos, texto, aux), texto);
+        }
+        assertEquals("O-O", Notacion.san(pos, Notacion.buscar(pos, "0-0", aux)));
+        assertEquals(Jugada.NULA, Notacion.buscar(pos, "Ke3", aux));
+    }
+}
@@ -0,0 +1,200 @@
+package test;
+
+import Motor.Evaluacion;
+import Motor.Jugada;
+import Motor.Notacion;
+import Motor.Posicion;
+import Main.Tablero;
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de prueba para el nucleo de posicion del motor
+ * Verifica el generador de jugadas con conteos perft conocidos
+ * y que hacer/deshacer jugadas deje la posicion intacta
+ */
+class PosicionTest {
+
+    /**
+     * Prueba el generador de jugadas desde la posicion inicial
+     * Los valores de referencia son los conteos perft publicados
+     */
+    @Test
+    void testPerftPosicionInicial() {
+        Posicion pos = Posicion.desdeFen(Posicion.FEN_INICIAL);
+        assertEquals(20, pos.perft(1));
+        assertEquals(400, pos.perft(2));
+        assertEquals(8902, pos.perft(3));
+        assertEquals(197281, pos.perft(4));
+    }
+
+    /**
+     * Prueba el generador en una posicion con enroques, capturas al paso
+     * y promociones (posicion "Kiwipete")
+     */
+    @Test
+    void testPerftJugadasEspeciales() {
+        Posicion pos = Posicion.desdeFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertEquals(48, pos.perft(1));
+        assertEquals(2039, pos.perft(2));
+        assertEquals(97862, pos.perft(3));
+
+        Posicion promociones = Posicion.desdeFen("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        assertEquals(6, promociones.perft(1));
+        assertEquals(9467, promociones.perft(3));
+    }
+
+    /**
+     * Prueba que hacer y deshacer cada jugada legal devuelva la posicion original
+     */
+    @Test
+    void testHacerDeshacer() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        Posicion pos = Posicion.desdeFen(fen);
+        int[] lista = new int[Posicion.MAX_JUGADAS];
+        int n = pos.generarLegales(lista);
+        for (int i = 0; i < n; i++) {
+            pos.hacer(lista[i]);
+            pos.deshacer(lista[i]);
+            assertEquals(fen, pos.aFen(), Jugada.texto(lista[i]));
+        }
+    }
+
+    /**
+     * Prueba que el hash de Zobrist incremental coincida con el calculado
+     * desde cero despues de una secuencia de jugadas
+     */
+    @Test
+    void testHashIncremental() {
+        Posicion pos = Posicion.desdeFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        long inicial = pos.getHash();
+        int[] lista = new int[Posicion.MAX_JUGADAS];
+        int[] hechas = new int[6];
+        for (int i = 0; i < hechas.length; i++) {
+            int n = pos.generarLegales(lista);
+            hechas[i] = lista[(i * 7) % n];
+            pos.hacer(hechas[i]);
+            assertEquals(Posicion.desdeFen(pos.aFen()).getHash(), pos.getHash());
+        }
+        for (int i = hechas.length - 1; i >= 0; i--) {
+            pos.deshacer(hechas[i]);
+        }
+        assertEquals(inicial, pos.getHash());
+    }
+
+    /**
+     * Prueba que el generador por etapas (capturas y luego tranquilas) produzca
+     * exactamente las mismas jugadas que el generador completo
+     */
+    @Test
+    void testGeneracionPorEtapas() {
+        Posicion pos = Posicion.desdeFen("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        int[] todas = new int[Posicion.MAX_JUGADAS];
+        int n = pos.generarPseudo(todas, 0);
+        int[] etapas = new int[Posicion.MAX_JUGADAS];
+        int capturas = pos.generarCapturas(etapas, 0);
+        int total = pos.generarTranquilas(etapas, capturas);
+        assertEquals(n, total);
+        for (int i = 0; i < capturas; i++) {
+            assertTrue(Jugada.esCaptura(etapas[i]) || Jugada.esPromocion(etapas[i]));
+        }
+        Arrays.sort(todas, 0, n);
+        Arrays.sort(etapas, 0, total);
+        assertArrayEquals(Arrays.copyOf(todas, n), Arrays.copyOf(etapas, total));
+        for (int i = 0; i < n; i++) {
+            assertTrue(pos.esPseudoLegal(todas[i]));
+        }
+        assertFalse(pos.esPseudoLegal(Jugada.crear(0, 1, Jugada.TRANQUILA)));
+    }
+
+    /**
+     * Prueba que la evaluacion incremental coincida con la calculada
+     * recorriendo el tablero, incluyendo promociones y enroques
+     */
+    @Test
+    void testEvaluacionIncremental() {
+        Posicion pos = Posicion.desdeFen("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        assertEquals(0, Evaluacion.evaluar(Posicion.desdeFen(Posicion.FEN_INICIAL)));
+        int[] lista = new int[Posicion.MAX_JUGADAS];
+        int n = pos.generarLegales(lista);
+        for (int i = 0; i < n; i++) {
+            pos.hacer(lista[i]);
+            assertEquals(Evaluacion.evaluarDesdeCero(pos), Evaluacion.evaluar(pos), Jugada.texto(lista[i]));
+            pos.deshacer(lista[i]);
+        }
+        assertEquals(Evaluacion.evaluarDesdeCero(pos), Evaluacion.evaluar(pos));
+    }
+
+    /**
+     * Prueba que la posicion construida desde el tablero grafico
+     * coincida con la posicion inicial estandar
+     */
+    @Test
+    void testPosicionDesdeTablero() {
+        Tablero tablero = new Tablero();
+        assertEquals(Posicion.FEN_INICIAL, tablero.getPosicion().aFen());
+    }
+
+    /**
+     * Prueba la deteccion de repeticiones con los hashes de la pila
+     * Los caballos van y vuelven dos veces: la posicion inicial aparece tres veces
+     */
+    @Test
+    void testRepeticiones() {
+        Posicion pos = Posicion.desdeFen(Posicion.FEN_INICIAL);
+        int[] legales = new int[Posicion.MAX_JUGADAS];
+        String[] vuelta = {"Nf3", "Nf6", "Ng1", "Ng8"};
+        for (int veces = 1; veces <= 2; veces++) {
+            for (String san : vuelta) {
+                pos.hacer(Notacion.buscar(pos, san, legales));
+            }
+            assertEquals(veces, pos.repeticiones());
+            assertTrue(pos.esRepeticion());
+        }
+
+        // La copia conserva la historia reversible
+        Posicion copia = pos.copiar();
+        assertEquals(2, copia.repeticiones());
+
+        // Una jugada de peon corta la historia: ya no se puede repetir lo anterior
+        int e4 = Notacion.buscar(pos, "e4", legales);
+        pos.hacer(e4);
+        assertEquals(0, pos.getReversibles());
+        assertFalse(pos.esRepeticion());
+        pos.deshacer(e4);
+        assertEquals(2, pos.repeticiones());
+    }
+
+    /**
+     * Prueba los contadores de medias jugadas y de jugada completa del FEN
+     * Se leen, se escriben, avanzan con cada jugada y vuelven al deshacerla
+     */
+    @Test
+    void testContadoresFen() {
+        String fen = "4k3/8/8/8/8/8/4P3/4K1N1 b - - 99 40";
+        Posicion pos = Posicion.desdeFen(fen);
+        assertEquals(fen, pos.aFen());
+        assertEquals(99, pos.getReversibles());
+        assertFalse(pos.esRegla50());
+
+        int[] legales = new int[Posicion.MAX_JUGADAS];
+        int rey = Notacion.buscar(pos, "Kd7", legales);
+        pos.hacer(rey);
+        assertEquals("8/3k4/8/8/8/8/4P3/4K1N1 w - - 100 41", pos.aFen());
+        assertTrue(pos.esRegla50());
+
+        // El movimiento de peon reinicia el contador, la jugada completa no cambia con blancas
+        int peon = Notacion.buscar(pos, "e4", legales);
+        pos.hacer(peon);
+        assertEquals("8/3k4/8/8/4P3/8/8/4K1N1 b - e3 0 41", pos.aFen());
+        pos.deshacer(peon);
+        pos.deshacer(rey);
+        assertEquals(fen, pos.aFen());
+
+        // Sin contadores se toman los valores iniciales
+        assertEquals("4k3/8/8/8/8/8/8/4K3 w - - 0 1", Posicion.desdeFen("4k3/8/8/8/8/8/8/4K3 w - -").aFen());
+    }
+}
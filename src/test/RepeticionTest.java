@@ -0,0 +1,68 @@
+package test;
+
+import Motor.Posicion;
+import Motor.Repeticion;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de prueba para la repeticion de partidas con copias periodicas
+ * Verifica que saltar a cualquier jugada, en cualquier orden, de
+ * exactamente la misma posicion que jugar la partida desde el inicio
+ */
+class RepeticionTest {
+
+    /**
+     * Juega una partida al azar (con semilla fija) y prueba saltos hacia
+     * adelante, hacia atras, de un paso y a los extremos
+     */
+    @Test
+    void testSaltos() {
+        Random azar = new Random(7);
+        Posicion pos = Posicion.desdeFen(Posicion.FEN_INICIAL);
+        Posicion inicial = pos.copiar();
+        int[] legales = new int[Posicion.MAX_JUGADAS];
+        List<Integer> jugadas = new ArrayList<>();
+        List<String> fens = new ArrayList<>();
+        List<Long> hashes = new ArrayList<>();
+        fens.add(pos.aFen());
+        hashes.add(pos.getHash());
+        for (int i = 0; i < 150; i++) {
+            int n = pos.generarLegales(legales);
+            if (n == 0) {
+                break;
+            }
+            int jugada = legales[azar.nextInt(n)];
+            pos.hacer(jugada);
+            jugadas.add(jugada);
+            fens.add(pos.aFen());
+            hashes.add(pos.getHash());
+        }
+
+        Repeticion repeticion = new Repeticion(inicial, jugadas.stream().mapToInt(Integer::intValue).toArray());
+        assertEquals(jugadas.size(), repeticion.getPlies());
+
+        // Saltos al azar, pasos de uno en uno hacia atras y hacia adelante, y los extremos
+        List<Integer> consultas = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            consultas.add(azar.nextInt(jugadas.size() + 1));
+        }
+        for (int i = jugadas.size(); i >= 0; i--) {
+            consultas.add(i);
+        }
+        for (int i = 0; i <= jugadas.size(); i++) {
+            consultas.add(i);
+        }
+        for (int ply : consultas) {
+            Posicion p = repeticion.posicion(ply);
+            assertEquals(fens.get(ply), p.aFen(), "Jugada " + ply);
+            assertEquals((long) hashes.get(ply), p.getHash(), "Hash en la jugada " + ply);
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> repeticion.posicion(jugadas.size() + 1));
+    }
+}
@@ -0,0 +1,78 @@
+package test;
+
+import Motor.*;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de prueba para el servicio de analisis asincrono
+ * Verifica el resultado final, las actualizaciones intermedias y los errores
+ */
+class ServicioAnalisisTest {
+
+    /**
+     * Prueba que el analisis publique cada iteracion y complete el futuro
+     * con el mismo resultado que la ultima actualizacion
+     */
+    @Test
+    void testResultadoYActualizaciones() throws Exception {
+        try (ServicioAnalisis servicio = new ServicioAnalisis(2, 4)) {
+            CopyOnWriteArrayList<ResultadoBusqueda> recibidos = new CopyOnWriteArrayList<>();
+            CountDownLatch fin = new CountDownLatch(1);
+            // Se suscribe al pedir el analisis para no perder las primeras iteraciones
+            Analisis analisis = servicio.analizar(Posicion.desdeFen(Posicion.FEN_INICIAL), LimitesBusqueda.profundidad(5), new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription s) {
+                    s.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(ResultadoBusqueda r) {
+                    recibidos.add(r);
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    fin.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    fin.countDown();
+                }
+            });
+
+            ResultadoBusqueda r = analisis.resultado().get(30, TimeUnit.SECONDS);
+            assertTrue(fin.await(5, TimeUnit.SECONDS));
+            assertEquals(5, r.profundidad);
+            assertEquals(5, recibidos.size(), "Una actualizacion por profundidad");
+            assertEquals(r.mejorJugada(), recibidos.get(recibidos.size() - 1).mejorJugada());
+        }
+    }
+
+    /**
+     * Prueba que un FEN invalido termine el futuro con error
+     * y que cancelar un analisis sin limites devuelva lo encontrado
+     */
+    @Test
+    void testErrorYCancelacion() throws Exception {
+        try (ServicioAnalisis servicio = new ServicioAnalisis(1, 4)) {
+            Analisis invalido = servicio.analizar("esto no es un fen", LimitesBusqueda.profundidad(3));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> invalido.resultado().get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+
+            Analisis infinito = servicio.analizar(Posicion.FEN_INICIAL, new LimitesBusqueda());
+            Thread.sleep(200);
+            infinito.cancelar();
+            ResultadoBusqueda r = infinito.resultado().get(5, TimeUnit.SECONDS);
+            assertNotEquals(Jugada.NULA, r.mejorJugada());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package test;
+
+import Motor.*;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de prueba para la tabla de transposicion del motor
+ * Verifica el guardado y la lectura de entradas, tanto en el heap
+ * como fuera de el, y que la tabla nunca devuelva datos mezclados
+ * cuando varios hilos la usan a la vez
+ */
+class TablaTransposicionTest {
+
+    /**
+     * Prueba guardar y leer una entrada en ambos tipos de almacenamiento
+     */
+    @Test
+    void testGuardarYBuscar() {
+        for (boolean fueraDelHeap : new boolean[]{false, true}) {
+            try (TablaTransposicion tabla = new TablaTransposicion(1, fueraDelHeap)) {
+                long clave = 0x123456789ABCDEFL;
+                int jugada = Jugada.crear(52, 36, Jugada.DOBLE_PEON);
+                tabla.guardar(clave, jugada, -250, 7, TablaTransposicion.COTA_EXACTA);
+
+                long datos = tabla.buscar(clave);
+                assertEquals(jugada, TablaTransposicion.jugada(datos));
+                assertEquals(-250, TablaTransposicion.puntos(datos));
+                assertEquals(7, TablaTransposicion.profundidad(datos));
+                assertEquals(TablaTransposicion.COTA_EXACTA, TablaTransposicion.cota(datos));
+                assertEquals(0, tabla.buscar(clave + 1));
+            }
+        }
+    }
+
+    /**
+     * Prueba la tabla con varios hilos escribiendo y leyendo la misma zona
+     * Cada hilo guarda datos que dependen de la clave, asi cualquier entrada
+     * mezclada entre dos escrituras se detecta al leerla
+     *
+     * @throws InterruptedException Si se interrumpe la espera de los hilos
+     */
+    @Test
+    void testConcurrencia() throws InterruptedException {
+        try (TablaTransposicion tabla = new TablaTransposicion(1, true)) {
+            AtomicInteger errores = new AtomicInteger();
+            ArrayList<Thread> hilos = new ArrayList<>();
+            for (int h = 0; h < 4; h++) {
+                final int semilla = h;
+                Thread hilo = new Thread(() -> {
+                    for (int i = 0; i < 200_000; i++) {
+                        long clave = ((long) (i % 5000) * 0x9E3779B97F4A7C15L) ^ semilla;
+                        int profundidad = (int) (clave >>> 58);
+                        tabla.guardar(clave, (int) (clave & 0xFFF), (int) (clave >> 52), profundidad, TablaTransposicion.COTA_INFERIOR);
+                        long datos = tabla.buscar(clave ^ 1);
+                        if (datos != 0 && TablaTransposicion.jugada(datos) != (int) ((clave ^ 1) & 0xFFF)) {
+                            errores.incrementAndGet();
+                        }
+                    }
+                });
+                hilos.add(hilo);
+                hilo.start();
+            }
+            for (Thread hilo : hilos) {
+                hilo.join();
+            }
+            assertEquals(0, errores.get());
+        }
+    }
+
+    /**
+     * Prueba que la busqueda con la tabla encuentre el mismo mate
+     * y que la tabla reduzca los nodos de una segunda busqueda
+     */
+    @Test
+    void testBusquedaReutilizaTabla() {
+        TablaTransposicion tabla = new TablaTransposicion(16, false);
+        Posicion pos = Posicion.desdeFen("r1bqkbnr/pppp1ppp/2n5/4p3/2B1P3/5Q2/PPPP1PPP/RNB1K1NR w KQkq - 0 1");
+        ResultadoBusqueda primera = new Busqueda(pos, tabla).buscar(LimitesBusqueda.profundidad(4), null);
+        ResultadoBusqueda segunda = new Busqueda(pos, tabla).buscar(LimitesBusqueda.profundidad(4), null);
+        assertEquals("f3f7", Jugada.texto(primera.mejorJugada()));
+        assertEquals(primera.mejorJugada(), segunda.mejorJugada());
+
+        // La busqueda de quietud ve ese mate desde la profundidad 1, asi que la
+        // reduccion de nodos se mide en una posicion sin mate
+        tabla.limpiar();
+        Posicion tranquila = Posicion.desdeFen("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 0 1");
+        long nodosPrimera = new Busqueda(tranquila, tabla).buscar(LimitesBusqueda.profundidad(4), null).nodos;
+        long nodosSegunda = new Busqueda(tranquila, tabla).buscar(LimitesBusqueda.profundidad(4), null).nodos;
+        assertTrue(nodosSegunda < nodosPrimera);
+    }
+}
@@ -0,0 +1,180 @@
+package test;
+
+import Main.Historial;
+import Main.Instantanea;
+import Main.Movimientos;
+import Main.Tablero;
+import Motor.Jugada;
+import Motor.Posicion;
+import Motor.Repeticion;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de prueba para deshacer y rehacer movimientos en el tablero
+ * Verifica que cada movimiento deshecho deje exactamente la posicion
+ * anterior (piezas, enroques y captura al paso) y el historial igual
+ */
+class TableroTest {
+    // Partida con captura, captura al paso, promocion con captura y los dos enroques
+    private static final String[] PARTIDA = {
+            "e2e4", "d7d5", "e4d5", "c7c5", "d5c6", "g8f6", "c6b7", "e7e6",
+            "b7a8q", "f8e7", "g1f3", "e8g8", "f1e2", "b8c6", "e1g1"
+    };
+
+    private Tablero tablero;
+    private Historial historial;
+
+    /**
+     * Crea un tablero en la posicion inicial con su historial
+     */
+    @BeforeEach
+    void setUp() {
+        tablero = new Tablero();
+        historial = new Historial();
+        tablero.setHistorial(historial);
+    }
+
+    /**
+     * Hace en el tablero la jugada escrita en coordenadas, igual que el mouse
+     */
+    private void jugar(String texto) {
+        Posicion pos = tablero.getPosicion();
+        int[] legales = new int[Posicion.MAX_JUGADAS];
+        int n = pos.generarLegales(legales);
+        for (int i = 0; i < n; i++) {
+            if (Jugada.texto(legales[i]).equals(texto)) {
+                Movimientos mover = tablero.aMovimientos(legales[i]);
+                assertTrue(tablero.esMovimientoValido(mover), texto);
+                tablero.hacerMovimiento(mover);
+                return;
+            }
+        }
+        fail("Jugada ilegal: " + texto);
+    }
+
+    /**
+     * Prueba deshacer toda la partida paso a paso y rehacerla completa
+     */
+    @Test
+    void testDeshacerYRehacer() {
+        List<String> posiciones = new ArrayList<>();
+        for (String jugada : PARTIDA) {
+            posiciones.add(tablero.getPosicion().aFen());
+            jugar(jugada);
+        }
+        String fin = tablero.getPosicion().aFen();
+        assertEquals(PARTIDA.length, historial.getCantidad());
+
+        for (int i = PARTIDA.length - 1; i >= 0; i--) {
+            assertTrue(tablero.deshacerMovimiento());
+            assertEquals(posiciones.get(i), tablero.getPosicion().aFen(), "Despues de deshacer " + PARTIDA[i]);
+            assertEquals(i, historial.getCantidad());
+        }
+        assertFalse(tablero.deshacerMovimiento());
+        assertEquals(32, tablero.piezasList.size());
+
+        while (tablero.puedeRehacer()) {
+            assertTrue(tablero.rehacerMovimiento());
+        }
+        assertEquals(fin, tablero.getPosicion().aFen());
+        assertEquals(PARTIDA.length, historial.getCantidad());
+        assertEquals("Rey Blanco a g1", historial.getMovimiento(PARTIDA.length - 1));
+
+        // La repeticion, hecha con las jugadas compactas del tablero, llega a las mismas posiciones
+        Repeticion repeticion = tablero.getRepeticion();
+        assertEquals(PARTIDA.length, repeticion.getPlies());
+        for (int i = 0; i < PARTIDA.length; i++) {
+            assertEquals(posiciones.get(i), repeticion.posicion(i).aFen(), "Antes de " + PARTIDA[i]);
+        }
+        assertEquals(fin, repeticion.posicion(PARTIDA.length).aFen());
+    }
+
+    /**
+     * Prueba que un movimiento nuevo descarte los que se podian rehacer
+     */
+    @Test
+    void testMovimientoNuevoDescartaRehacer() {
+        jugar("e2e4");
+        jugar("e7e5");
+        tablero.deshacerMovimiento();
+        assertTrue(tablero.puedeRehacer());
+        jugar("c7c5");
+        assertFalse(tablero.puedeRehacer());
+        assertEquals("Peon Negro a c5", historial.getMovimiento(1));
+    }
+
+    /**
+     * Prueba que el tablero respete los contadores del FEN y los mantenga
+     * al mover y al deshacer
+     */
+    @Test
+    void testContadoresJugadas() {
+        tablero.loadPosition("4k3/8/8/8/8/8/4P3/4K1N1 w - - 12 30");
+        assertEquals("4k3/8/8/8/8/8/4P3/4K1N1 w - - 12 30", tablero.getPosicion().aFen());
+        jugar("g1f3");
+        jugar("e8d7");
+        assertEquals(14, tablero.jugadasReversibles);
+        assertEquals(31, tablero.numeroJugada);
+        jugar("e2e4");
+        assertEquals("8/3k4/8/8/4P3/5N2/8/4K3 b - e3 0 31", tablero.getPosicion().aFen());
+
+        assertTrue(tablero.deshacerMovimiento());
+        assertTrue(tablero.deshacerMovimiento());
+        assertEquals("4k3/8/8/8/8/5N2/4P3/4K3 b - - 13 30", tablero.getPosicion().aFen());
+    }
+
+    /**
+     * Prueba que otro hilo lea instantaneas coherentes mientras se juega
+     * Cada instantanea debe tener su hash igual al de sus piezas, un rey por
+     * color y una version que nunca retrocede
+     */
+    @Test
+    void testInstantaneasConcurrentes() throws Exception {
+        AtomicBoolean jugando = new AtomicBoolean(true);
+        AtomicReference<String> error = new AtomicReference<>();
+        AtomicLong leidas = new AtomicLong();
+        Thread lector = new Thread(() -> {
+            long ultimaVersion = 0;
+            while (jugando.get() && error.get() == null) {
+                Instantanea inst = tablero.getInstantanea();
+                if (inst.getVersion() < ultimaVersion) {
+                    error.set("La version retrocedio: " + inst.getVersion());
+                }
+                ultimaVersion = inst.getVersion();
+                Posicion pos = inst.aPosicion();
+                if (pos.getHash() != inst.getHash()) {
+                    error.set("Hash incoherente en " + inst.aFen());
+                }
+                if (pos.getRey(Posicion.BLANCAS) < 0 || pos.getRey(Posicion.NEGRAS) < 0) {
+                    error.set("Falta un rey en " + inst.aFen());
+                }
+                leidas.incrementAndGet();
+            }
+        });
+        lector.start();
+        try {
+            for (int vuelta = 0; vuelta < 20; vuelta++) {
+                for (String jugada : PARTIDA) {
+                    jugar(jugada);
+                }
+                while (tablero.deshacerMovimiento()) {
+                    // Vuelve al inicio para la siguiente vuelta
+                }
+            }
+        } finally {
+            jugando.set(false);
+            lector.join();
+        }
+        assertNull(error.get());
+        assertTrue(leidas.get() > 0);
+        assertEquals(Posicion.FEN_INICIAL, tablero.getInstantanea().aFen());
+    }
+}
@@ -0,0 +1,120 @@
+package test;
+
+import Motor.*;
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de prueba para el torneo entre motores
+ * Usa partidas cortas a profundidad fija para que sean rapidas
+ */
+class TorneoTest {
+
+    /**
+     * Prueba un torneo pequeño en dos hilos: todas las partidas se juegan,
+     * se cuentan en el marcador y se escriben en el PGN
+     */
+    @Test
+    void testTorneoCompleto() throws Exception {
+        Path pgn = Files.createTempFile("torneo", ".pgn");
+        try {
+            Torneo torneo = new Torneo();
+            torneo.partidas = 4;
+            torneo.hilos = 2;
+            torneo.control = LimitesBusqueda.profundidad(2);
+            torneo.pgn = pgn;
+            CopyOnWriteArrayList<Torneo.Partida> jugadas = new CopyOnWriteArrayList<>();
+            torneo.oyente = jugadas::add;
+
+            Torneo.Marcador m = torneo.jugar(() -> MotorPartida.interno("A", 1, true), () -> MotorPartida.interno("B", 1, true));
+            assertEquals(4, m.getPartidas());
+            assertEquals(4, jugadas.size());
+            assertEquals(m.getGanadas() * 2 + m.getTablas(), jugadas.stream().mapToInt(Torneo.Partida::mediosPuntosA).sum());
+
+            String texto = Files.readString(pgn, StandardCharsets.UTF_8);
+            assertEquals(4, texto.split("\\[Result ", -1).length - 1, "Una etiqueta Result por partida");
+            assertTrue(texto.contains("[White \"B\"]") && texto.contains("[Black \"B\"]"), "Los colores se alternan");
+        } finally {
+            Files.deleteIfExists(pgn);
+        }
+    }
+
+    /**
+     * Prueba las terminaciones por mate y por material insuficiente,
+     * y que el marcador cuente la victoria del motor que dio mate
+     */
+    @Test
+    void testTerminaciones() throws Exception {
+        Torneo torneo = new Torneo();
+        torneo.partidas = 4;
+        torneo.hilos = 1;
+        torneo.control = LimitesBusqueda.profundidad(3);
+        torneo.aperturas = List.of("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", "8/8/8/4k3/8/8/8/4K2N w - - 0 1");
+        CopyOnWriteArrayList<Torneo.Partida> jugadas = new CopyOnWriteArrayList<>();
+        torneo.oyente = jugadas::add;
+
+        Torneo.Marcador m = torneo.jugar(() -> MotorPartida.interno("A", 1, true), () -> MotorPartida.interno("B", 1, true));
+        jugadas.sort((x, y) -> x.numero - y.numero);
+        assertEquals("1-0", jugadas.get(0).resultado);
+        assertEquals("jaque mate", jugadas.get(0).motivo);
+        assertEquals("1-0", jugadas.get(1).resultado);
+        assertEquals("material insuficiente", jugadas.get(2).motivo);
+        assertEquals("1/2-1/2", jugadas.get(3).resultado);
+
+        // A gano con blancas, perdio con negras y empato las dos de material insuficiente
+        assertEquals(1, m.getGanadas());
+        assertEquals(1, m.getPerdidas());
+        assertEquals(2, m.getTablas());
+        assertEquals(0.0, m.elo(), 1e-9);
+    }
+
+    /**
+     * Prueba los limites y la decision del SPRT con resultados conocidos
+     */
+    @Test
+    void testSprtDecision() {
+        Sprt gana = new Sprt(0, 10, 0.05, 0.05);
+        assertEquals(Math.log(0.05 / 0.95), gana.getLimiteInferior(), 1e-12);
+        assertEquals(-gana.getLimiteInferior(), gana.getLimiteSuperior(), 1e-12);
+        int decision = Sprt.CONTINUAR;
+        for (int i = 0; i < 1000 && decision == Sprt.CONTINUAR; i++) {
+            decision = gana.sumarPar(i % 3 == 0 ? 2 : 3);// Mas pares ganados que empatados
+        }
+        assertEquals(Sprt.ACEPTAR, decision);
+
+        Sprt igual = new Sprt(0, 10, 0.05, 0.05);
+        for (int i = 0; i < 5000 && igual.getDecision() == Sprt.CONTINUAR; i++) {
+            igual.sumarPar(i % 2 == 0 ? 1 : 3);// Pares simetricos: puntuacion media 50%
+        }
+        assertEquals(Sprt.RECHAZAR, igual.getDecision());
+        assertTrue(igual.llr() <= igual.getLimiteInferior());
+    }
+
+    /**
+     * Prueba que el torneo con SPRT se detenga antes del maximo de partidas
+     * cuando un motor es claramente mas fuerte (con el mismo limite de nodos,
+     * la busqueda sin ordenamiento llega mucho menos profundo)
+     */
+    @Test
+    void testTorneoSprt() throws Exception {
+        Torneo torneo = new Torneo();
+        torneo.partidas = 400;
+        torneo.hilos = 2;
+        torneo.control = new LimitesBusqueda();
+        torneo.control.nodos = 3000;
+        torneo.sprt = new Sprt(0, 100, 0.05, 0.05);
+        torneo.oyente = p -> { };
+
+        Torneo.Marcador m = torneo.jugar(() -> MotorPartida.interno("A", 1, true), () -> MotorPartida.interno("B", 1, false));
+        assertEquals(Sprt.ACEPTAR, torneo.sprt.getDecision(), torneo.sprt.toString());
+        assertTrue(m.getPartidas() < 400);
+        assertEquals(0, m.getPartidas() % 2, "Solo se juegan pares completos");
+    }
+}
@@ -0,0 +1,119 @@
+package test;
+
+import Motor.Uci;
+import org.junit.jupiter.api.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.PrintWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de prueba para la interfaz UCI
+ * Conecta el motor con tuberias en memoria y le envia comandos como lo
+ * haria una interfaz grafica
+ */
+class UciTest {
+
+    private PrintWriter comandos;// Lo que la "interfaz" envia al motor
+    private BufferedReader respuestas;// Lo que el motor responde
+    private Thread motor;
+
+    /**
+     * Arranca el motor en su propio hilo antes de cada prueba
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        PipedWriter haciaMotor = new PipedWriter();
+        PipedReader desdeMotor = new PipedReader(1 << 16);
+        Uci uci = new Uci(new PipedReader(haciaMotor, 1 << 16), new PipedWriter(desdeMotor));
+        comandos = new PrintWriter(haciaMotor, true);
+        respuestas = new BufferedReader(desdeMotor);
+        motor = new Thread(() -> {
+            try {
+                uci.ejecutar();
+            } catch (IOException e) {
+                // La tuberia se cerro al terminar la prueba
+            }
+        });
+        motor.start();
+    }
+
+    /**
+     * Termina el motor con quit despues de cada prueba
+     */
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        comandos.println("quit");
+        motor.join(5000);
+        assertFalse(motor.isAlive(), "El motor no termino con quit");
+    }
+
+    /**
+     * Lee respuestas hasta encontrar una que empiece con el prefijo dado
+     *
+     * @param prefijo Inicio de la linea esperada
+     * @return La linea encontrada
+     */
+    private String esperar(String prefijo) throws IOException {
+        String linea;
+        while ((linea = respuestas.readLine()) != null) {
+            if (linea.startsWith(prefijo)) {
+                return linea;
+            }
+        }
+        fail("El motor no respondio " + prefijo);
+        return null;
+    }
+
+    /**
+     * Prueba el saludo uci, isready y una busqueda por profundidad
+     * que escribe una linea info por iteracion y termina con bestmove
+     */
+    @Test
+    void testSaludoYBusqueda() throws IOException {
+        comandos.println("uci");
+        assertEquals("uciok", esperar("uciok"));
+        comandos.println("isready");
+        assertEquals("readyok", esperar("readyok"));
+
+        comandos.println("position startpos moves e2e4 e7e5");
+        comandos.println("go depth 3");
+        String info = esperar("info");
+        assertTrue(info.contains("depth 1") && info.contains(" pv "), info);
+        assertTrue(esperar("info depth 3").contains("nodes"));
+        String mejor = esperar("bestmove");
+        assertTrue(mejor.matches("bestmove [a-h][1-8][a-h][1-8]( ponder [a-h][1-8][a-h][1-8])?"), mejor);
+    }
+
+    /**
+     * Prueba que go infinite no de bestmove hasta recibir stop,
+     * aunque encuentre el mate en la primera iteracion
+     */
+    @Test
+    void testInfiniteHastaStop() throws IOException {
+        comandos.println("position fen 6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        comandos.println("go infinite");
+        assertTrue(esperar("info").contains("mate 1"));
+        comandos.println("isready");
+        assertEquals("readyok", esperar("readyok"), "Respondio bestmove antes de stop");
+        comandos.println("stop");
+        assertEquals("bestmove a1a8", esperar("bestmove"));
+    }
+
+    /**
+     * Prueba que ponderhit convierta la busqueda en ponder en una normal
+     * que termina por si sola con el reloj recibido
+     */
+    @Test
+    void testPonderhit() throws IOException {
+        comandos.println("setoption name Hash value 8");
+        comandos.println("position startpos moves e2e4");
+        comandos.println("go ponder wtime 1000 btime 1000");
+        comandos.println("ponderhit");
+        assertTrue(esperar("bestmove").startsWith("bestmove "));
+    }
+}